@@ -0,0 +1,42 @@
+package com.coding.test.controller;
+
+import java.util.List;
+
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.coding.test.model.JobLifecycleEntry;
+import com.coding.test.service.JobLifecycle;
+
+@RestController
+@RequestMapping("/api/jobs")
+public class JobController {
+    private static final long MAX_WINDOW_MINUTES = 7 * 24 * 60;
+
+    private final JobLifecycle jobLifecycle;
+
+    public JobController(JobLifecycle jobLifecycle) {
+        this.jobLifecycle = jobLifecycle;
+    }
+
+    /**
+     * Queue wait, execution and end-to-end latency percentiles, each over
+     * the jobs whose stage ended in the last {@code windowMinutes}.
+     */
+    @GetMapping("/latency")
+    public List<JobLifecycle.StageLatency> getStageLatencies(@RequestParam(defaultValue = "60") long windowMinutes) {
+        long minutes = Math.max(1, Math.min(windowMinutes, MAX_WINDOW_MINUTES));
+        return jobLifecycle.getStageLatencies(minutes * 60_000);
+    }
+
+    @GetMapping("/{jobId}")
+    public ResponseEntity<JobLifecycleEntry> getJob(@PathVariable String jobId) {
+        return jobLifecycle.find(jobId)
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+}
@@ -7,8 +7,10 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
 
 import com.coding.test.model.Question;
+import com.coding.test.model.QuestionSummaryPage;
 import com.coding.test.service.QuestionsService;
 
 @RestController
@@ -21,12 +23,30 @@ public class QuestionsController {
     }
 
     @GetMapping
-    public List<Question> getAllQuestions(@RequestParam(defaultValue = "java") String language) {
+    public List<Question> getAllQuestions(@RequestParam(defaultValue = "java") String language, WebRequest request) {
+        // Sets the ETag header and answers 304 when If-None-Match still matches
+        String etag = questionsService.getCatalogETag(language);
+        if (etag != null && request.checkNotModified(etag)) {
+            return null;
+        }
         return questionsService.getAllQuestions(language);
     }
 
+    @GetMapping("/summaries")
+    public QuestionSummaryPage getQuestionSummaries(@RequestParam(defaultValue = "java") String language,
+            @RequestParam(required = false) String tag,
+            @RequestParam(required = false) Long after,
+            @RequestParam(defaultValue = "50") int limit) {
+        return questionsService.getQuestionSummaries(language, tag, after, limit);
+    }
+
     @GetMapping("/{id}")
-    public Question getQuestionById(@PathVariable Long id, @RequestParam(defaultValue = "java") String language) {
+    public Question getQuestionById(@PathVariable Long id, @RequestParam(defaultValue = "java") String language,
+            WebRequest request) {
+        String etag = questionsService.getQuestionETag(id, language);
+        if (etag != null && request.checkNotModified(etag)) {
+            return null;
+        }
         return questionsService.getQuestionById(id, language).orElseThrow(() -> new RuntimeException("Question not found"));
     }
 }
@@ -1,31 +1,81 @@
 package com.coding.test.controller;
 
+import java.util.Optional;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import com.coding.test.model.TestResult;
+import com.coding.test.service.ResultCache;
+import com.coding.test.service.ResultHub;
 import com.coding.test.service.TestResultService;
 
 @RestController
 @RequestMapping("/api/results")
 public class ResultController {
     private final TestResultService testResultService;
+    private final ResultHub resultHub;
+    private final ResultCache resultCache;
 
-    public ResultController(TestResultService testResultService) {
+    public ResultController(TestResultService testResultService, ResultHub resultHub, ResultCache resultCache) {
         this.testResultService = testResultService;
+        this.resultHub = resultHub;
+        this.resultCache = resultCache;
     }
 
+    /**
+     * Answers 202 with Retry-After while a job submitted on this instance is
+     * still running, and only goes to the database for unknown jobs or
+     * periodically for pending ones.
+     */
     @GetMapping("/{jobId}")
     public ResponseEntity<TestResult> getTestResult(@PathVariable String jobId) {
-        try {
-            TestResult result = testResultService.getTestResultByJobId(jobId);
-            return ResponseEntity.ok(result);
-        } catch (RuntimeException e) {
+        ResultCache.Lookup cached = resultCache.lookup(jobId);
+        if (cached.result() != null) {
+            return ResponseEntity.ok(cached.result());
+        }
+        if (cached.pending()) {
+            return ResponseEntity.status(HttpStatus.ACCEPTED)
+                    .header(HttpHeaders.RETRY_AFTER, "3")
+                    .build();
+        }
+        Optional<TestResult> result = testResultService.findTestResult(jobId);
+        if (result.isEmpty()) {
+            // A periodic recheck that finds nothing yet is still a running job, not an unknown one
+            if (resultCache.isPending(jobId)) {
+                return ResponseEntity.status(HttpStatus.ACCEPTED)
+                        .header(HttpHeaders.RETRY_AFTER, "3")
+                        .build();
+            }
             return ResponseEntity.notFound().build();
         }
+        resultCache.complete(result.get());
+        return ResponseEntity.ok(result.get());
+    }
+
+    /**
+     * Streams the job's result as a single {@code result} event. Answers 503
+     * when this instance is at its connection cap, so the client polls
+     * {@link #getTestResult} instead.
+     */
+    @GetMapping(path = "/{jobId}/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamTestResult(@PathVariable String jobId) {
+        SseEmitter emitter = resultHub.subscribe(jobId);
+        if (emitter == null) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, "3")
+                    .build();
+        }
+        // The result may have been saved before the client subscribed
+        testResultService.findTestResult(jobId).ifPresent(resultHub::publish);
+        return ResponseEntity.ok(emitter);
     }
 
 }
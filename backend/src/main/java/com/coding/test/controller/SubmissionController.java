@@ -1,5 +1,7 @@
 package com.coding.test.controller;
 
+import java.net.URI;
+
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
@@ -30,8 +32,13 @@ public class SubmissionController {
 
             System.out.println("Job ID for the submission:\n" + jobId);
 
-            return ResponseEntity.ok(jobId);
-            
+            // Upload and enqueue continue in the background; poll the result URL
+            return ResponseEntity.accepted()
+                    .location(URI.create("/api/results/" + jobId))
+                    .body(jobId);
+
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body("Invalid submission: " + e.getMessage());
         } catch (Exception e) {
             return ResponseEntity.status(500).body("Error processing submission");
         }
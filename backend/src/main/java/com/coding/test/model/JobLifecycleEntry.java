@@ -0,0 +1,74 @@
+package com.coding.test.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+
+/**
+ * A job's current state and the epoch-millisecond time of each transition.
+ * Queued times come from the backend's clock, started and finished times
+ * from the worker's.
+ */
+@Entity
+@Table(name = "job_lifecycle", indexes = {
+        @Index(name = "idx_job_lifecycle_started_at", columnList = "started_at"),
+        @Index(name = "idx_job_lifecycle_finished_at", columnList = "finished_at")
+})
+public class JobLifecycleEntry {
+    @Id
+    @Column(name = "job_id", nullable = false)
+    private String jobId;
+    @Enumerated(EnumType.STRING)
+    @Column(name = "state", nullable = false, length = 16)
+    private JobState state;
+    @Column(name = "queued_at")
+    private Long queuedAt;
+    @Column(name = "started_at")
+    private Long startedAt;
+    @Column(name = "finished_at")
+    private Long finishedAt;
+
+    public String getJobId() {
+        return jobId;
+    }
+
+    public void setJobId(String jobId) {
+        this.jobId = jobId;
+    }
+
+    public JobState getState() {
+        return state;
+    }
+
+    public void setState(JobState state) {
+        this.state = state;
+    }
+
+    public Long getQueuedAt() {
+        return queuedAt;
+    }
+
+    public void setQueuedAt(Long queuedAt) {
+        this.queuedAt = queuedAt;
+    }
+
+    public Long getStartedAt() {
+        return startedAt;
+    }
+
+    public void setStartedAt(Long startedAt) {
+        this.startedAt = startedAt;
+    }
+
+    public Long getFinishedAt() {
+        return finishedAt;
+    }
+
+    public void setFinishedAt(Long finishedAt) {
+        this.finishedAt = finishedAt;
+    }
+}
@@ -0,0 +1,33 @@
+package com.coding.test.model;
+
+/**
+ * Where a submitted job is in its lifecycle. A job moves from QUEUED to
+ * RUNNING to one of the terminal states; terminal states are never left.
+ */
+public enum JobState {
+    QUEUED,
+    RUNNING,
+    COMPLETED,
+    FAILED,
+    TIMED_OUT;
+
+    public boolean isTerminal() {
+        return this == COMPLETED || this == FAILED || this == TIMED_OUT;
+    }
+
+    /**
+     * Maps a result status to the terminal state it ends the job in. Judged
+     * submissions complete whatever their verdict; errors and enqueue
+     * failures mean the job could not be judged.
+     */
+    public static JobState fromResultStatus(String status) {
+        if ("timeout".equals(status)) {
+            return TIMED_OUT;
+        }
+        if ("success".equals(status) || "failed".equals(status) || "output_limit_exceeded".equals(status)
+                || "time_limit_exceeded".equals(status)) {
+            return COMPLETED;
+        }
+        return FAILED;
+    }
+}
@@ -1,14 +1,28 @@
 package com.coding.test.model;
 
+import java.util.HashSet;
+import java.util.Set;
+
+import com.coding.test.service.QuestionCatalogListener;
+import com.coding.test.service.harness.HarnessInvalidationListener;
+
+import jakarta.persistence.CollectionTable;
 import jakarta.persistence.Column;
+import jakarta.persistence.ElementCollection;
 import jakarta.persistence.Entity;
+import jakarta.persistence.EntityListeners;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.JoinColumn;
 import jakarta.persistence.Table;
 
 @Entity
-@Table(name = "questions")
+@EntityListeners({ HarnessInvalidationListener.class, QuestionCatalogListener.class })
+@Table(name = "questions", indexes = {
+        @Index(name = "idx_questions_language_question_id", columnList = "language, question_id")
+})
 public class Question {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -23,6 +37,14 @@ public class Question {
     @Column(name = "tags")
     private String tags;
 
+    // One normalized row per tag so the list filter is an indexed equality match; derived from tags
+    @ElementCollection
+    @CollectionTable(name = "question_tags", joinColumns = @JoinColumn(name = "question_row_id"), indexes = {
+            @Index(name = "idx_question_tags_tag", columnList = "tag, question_row_id")
+    })
+    @Column(name = "tag", nullable = false)
+    private Set<String> tagIndex = new HashSet<>();
+
     @Column(name = "description", columnDefinition = "TEXT")
     private String description;
 
@@ -35,6 +57,16 @@ public class Question {
     @Column(name = "method_name")
     private String methodName;
 
+    // Judging policy; null means run every case with only the worker's default time limit
+    @Column(name = "fail_fast")
+    private Boolean failFast;
+
+    @Column(name = "case_time_limit_ms")
+    private Integer caseTimeLimitMs;
+
+    @Column(name = "time_limit_ms")
+    private Integer timeLimitMs;
+
     public Long getId() {
         return id;
     }
@@ -65,6 +97,36 @@ public class Question {
 
     public void setTags(String tags) {
         this.tags = tags;
+        syncTagIndex();
+    }
+
+    /**
+     * Brings the {@code question_tags} rows in line with {@link #getTags()}
+     * and returns whether they changed.
+     */
+    public boolean syncTagIndex() {
+        Set<String> normalized = new HashSet<>();
+        if (tags != null) {
+            for (String tag : tags.split(",")) {
+                String value = normalizeTag(tag);
+                if (!value.isEmpty()) {
+                    normalized.add(value);
+                }
+            }
+        }
+        if (tagIndex.equals(normalized)) {
+            return false;
+        }
+        tagIndex.clear();
+        tagIndex.addAll(normalized);
+        return true;
+    }
+
+    /**
+     * Tags are matched ignoring case and spaces.
+     */
+    public static String normalizeTag(String tag) {
+        return tag == null ? "" : tag.replace(" ", "").toLowerCase();
     }
 
     public String getDescription() {
@@ -98,4 +160,28 @@ public class Question {
     public void setMethodName(String methodName) {
         this.methodName = methodName;
     }
-}
\ No newline at end of file
+
+    public Boolean getFailFast() {
+        return failFast;
+    }
+
+    public void setFailFast(Boolean failFast) {
+        this.failFast = failFast;
+    }
+
+    public Integer getCaseTimeLimitMs() {
+        return caseTimeLimitMs;
+    }
+
+    public void setCaseTimeLimitMs(Integer caseTimeLimitMs) {
+        this.caseTimeLimitMs = caseTimeLimitMs;
+    }
+
+    public Integer getTimeLimitMs() {
+        return timeLimitMs;
+    }
+
+    public void setTimeLimitMs(Integer timeLimitMs) {
+        this.timeLimitMs = timeLimitMs;
+    }
+}
@@ -0,0 +1,14 @@
+package com.coding.test.model;
+
+/**
+ * List-page view of a question, without the description or signature.
+ */
+public interface QuestionSummary {
+    Long getQuestionId();
+
+    String getTitle();
+
+    String getTags();
+
+    String getLanguage();
+}
@@ -0,0 +1,11 @@
+package com.coding.test.model;
+
+import java.util.List;
+
+/**
+ * One page of question summaries. {@code nextCursor} is passed back as
+ * {@code after} to fetch the following page and is {@code null} on the last
+ * page.
+ */
+public record QuestionSummaryPage(List<QuestionSummary> items, Long nextCursor) {
+}
@@ -0,0 +1,114 @@
+package com.coding.test.model;
+
+import java.time.LocalDateTime;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+@Entity
+@Table(name = "result_memo")
+public class ResultMemoEntry {
+    @Id
+    @Column(name = "memo_key", nullable = false, length = 160)
+    private String memoKey;
+    @Column(name = "status")
+    private String status;
+    @Column(name = "passed_testcases")
+    private int passedTestCases;
+    @Column(name = "total_testcases")
+    private int totalTestCases;
+    @Column(name = "message")
+    private String message;
+    @Column(name = "execution_time")
+    private long executionTime;
+    @Column(name = "test_time")
+    private Double testTime;
+    @Column(name = "case_times", columnDefinition = "text")
+    private String caseTimes;
+    @Column(name = "case_results", columnDefinition = "text")
+    private String caseResults;
+    @Column(name = "created_at")
+    private LocalDateTime createdAt = LocalDateTime.now();
+
+    public String getMemoKey() {
+        return memoKey;
+    }
+
+    public void setMemoKey(String memoKey) {
+        this.memoKey = memoKey;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    public int getPassedTestCases() {
+        return passedTestCases;
+    }
+
+    public void setPassedTestCases(int passedTestCases) {
+        this.passedTestCases = passedTestCases;
+    }
+
+    public int getTotalTestCases() {
+        return totalTestCases;
+    }
+
+    public void setTotalTestCases(int totalTestCases) {
+        this.totalTestCases = totalTestCases;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public void setMessage(String message) {
+        this.message = message;
+    }
+
+    public long getExecutionTime() {
+        return executionTime;
+    }
+
+    public void setExecutionTime(long executionTime) {
+        this.executionTime = executionTime;
+    }
+
+    public Double getTestTime() {
+        return testTime;
+    }
+
+    public void setTestTime(Double testTime) {
+        this.testTime = testTime;
+    }
+
+    public String getCaseTimes() {
+        return caseTimes;
+    }
+
+    public void setCaseTimes(String caseTimes) {
+        this.caseTimes = caseTimes;
+    }
+
+    public String getCaseResults() {
+        return caseResults;
+    }
+
+    public void setCaseResults(String caseResults) {
+        this.caseResults = caseResults;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+}
@@ -1,13 +1,17 @@
 package com.coding.test.model;
 
+import com.coding.test.service.harness.HarnessInvalidationListener;
+
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
+import jakarta.persistence.EntityListeners;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.Table;
 
 @Entity
+@EntityListeners(HarnessInvalidationListener.class)
 @Table(name = "test_cases")
 public class TestCase {
     @Id
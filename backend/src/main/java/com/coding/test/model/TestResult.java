@@ -23,6 +23,18 @@ public class TestResult {
     private String status;
     @Column(name = "message")
     private String message;
+    @Column(name = "container_start_time")
+    private Long containerStartTime;
+    @Column(name = "compile_time")
+    private Long compileTime;
+    @Column(name = "run_time")
+    private Long runTime;
+    @Column(name = "test_time")
+    private Double testTime;
+    @Column(name = "case_times", columnDefinition = "text")
+    private String caseTimes;
+    @Column(name = "case_results", columnDefinition = "text")
+    private String caseResults;
     @Column(name = "created_at")
     private LocalDateTime createdAt = LocalDateTime.now();
 
@@ -74,6 +86,54 @@ public class TestResult {
         this.message = message;
     }
 
+    public Long getContainerStartTime() {
+        return containerStartTime;
+    }
+
+    public void setContainerStartTime(Long containerStartTime) {
+        this.containerStartTime = containerStartTime;
+    }
+
+    public Long getCompileTime() {
+        return compileTime;
+    }
+
+    public void setCompileTime(Long compileTime) {
+        this.compileTime = compileTime;
+    }
+
+    public Long getRunTime() {
+        return runTime;
+    }
+
+    public void setRunTime(Long runTime) {
+        this.runTime = runTime;
+    }
+
+    public Double getTestTime() {
+        return testTime;
+    }
+
+    public void setTestTime(Double testTime) {
+        this.testTime = testTime;
+    }
+
+    public String getCaseTimes() {
+        return caseTimes;
+    }
+
+    public void setCaseTimes(String caseTimes) {
+        this.caseTimes = caseTimes;
+    }
+
+    public String getCaseResults() {
+        return caseResults;
+    }
+
+    public void setCaseResults(String caseResults) {
+        this.caseResults = caseResults;
+    }
+
     public LocalDateTime getCreatedAt() {
         return createdAt;
     }
@@ -0,0 +1,11 @@
+package com.coding.test.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import com.coding.test.model.JobLifecycleEntry;
+
+@Repository
+public interface JobLifecycleRepository extends JpaRepository<JobLifecycleEntry, String> {
+
+}
@@ -3,14 +3,31 @@ package com.coding.test.repository;
 import java.util.List;
 import java.util.Optional;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import com.coding.test.model.Question;
+import com.coding.test.model.QuestionSummary;
 
 @Repository
 public interface QuestionsRepository extends JpaRepository<Question, Long> {
     List<Question> findByLanguage(String language);
 
     Optional<Question> findByQuestionIdAndLanguage(Long questionId, String language);
+
+    /**
+     * Keyset page of summaries after {@code after}, in question id order. An
+     * empty {@code tag} matches every question; otherwise it must equal one
+     * of the question's normalized tags in {@code question_tags}.
+     */
+    @Query("select q.questionId as questionId, q.title as title, q.tags as tags, q.language as language "
+            + "from Question q "
+            + "where q.language = :language and q.questionId > :after "
+            + "and (:tag = '' or q.id in (select t.id from Question t join t.tagIndex indexed where indexed = :tag)) "
+            + "order by q.questionId asc")
+    List<QuestionSummary> findSummaries(@Param("language") String language, @Param("after") Long after,
+            @Param("tag") String tag, Pageable pageable);
 }
@@ -0,0 +1,240 @@
+package com.coding.test.service;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.coding.test.model.JobLifecycleEntry;
+import com.coding.test.model.JobState;
+import com.coding.test.model.TestResult;
+import com.coding.test.repository.JobLifecycleRepository;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Records each job's QUEUED, RUNNING and terminal transitions in the
+ * {@code job_lifecycle} table. Transitions are merged in memory and upserted
+ * in one batch every {@code jobs.lifecycle.flush-interval-ms}. Events can
+ * arrive out of order, so the upsert only moves a job forward: a terminal
+ * state is never left, QUEUED never overwrites a later state, and each
+ * timestamp keeps its first value.
+ */
+@Service
+public class JobLifecycle {
+    static final String UPSERT_SQL = "INSERT INTO job_lifecycle (job_id, state, queued_at, started_at, finished_at) "
+            + "VALUES (?, ?, ?, ?, ?) ON CONFLICT (job_id) DO UPDATE SET "
+            + "state = CASE WHEN job_lifecycle.state IN ('COMPLETED', 'FAILED', 'TIMED_OUT') "
+            + "OR EXCLUDED.state = 'QUEUED' THEN job_lifecycle.state ELSE EXCLUDED.state END, "
+            + "queued_at = COALESCE(job_lifecycle.queued_at, EXCLUDED.queued_at), "
+            + "started_at = COALESCE(job_lifecycle.started_at, EXCLUDED.started_at), "
+            + "finished_at = COALESCE(job_lifecycle.finished_at, EXCLUDED.finished_at)";
+
+    // Worker and backend clocks can disagree slightly, so differences are clamped at zero
+    private static final String LATENCY_SQL = "SELECT count(*), "
+            + "percentile_cont(0.5) WITHIN GROUP (ORDER BY d), "
+            + "percentile_cont(0.95) WITHIN GROUP (ORDER BY d), "
+            + "percentile_cont(0.99) WITHIN GROUP (ORDER BY d), max(d) "
+            + "FROM (SELECT GREATEST(0, %s - %s) AS d FROM job_lifecycle "
+            + "WHERE %s >= ? AND %s IS NOT NULL) stage";
+
+    private final JobLifecycleRepository jobLifecycleRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${jobs.lifecycle.flush-interval-ms:200}")
+    private long flushIntervalMs = 200;
+    @Value("${jobs.lifecycle.max-buffered:10000}")
+    private int maxBuffered = 10000;
+
+    private Map<String, JobLifecycleEntry> buffered = new HashMap<>();
+    private final Map<JobState, Counter> transitions = new EnumMap<>(JobState.class);
+    private final Counter dropped;
+    private ScheduledExecutorService scheduler;
+
+    public JobLifecycle(JobLifecycleRepository jobLifecycleRepository, JdbcTemplate jdbcTemplate,
+            PlatformTransactionManager transactionManager, MeterRegistry registry) {
+        this.jobLifecycleRepository = jobLifecycleRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        for (JobState state : JobState.values()) {
+            transitions.put(state, Counter.builder("jobs.lifecycle.transitions")
+                    .description("Job state transitions recorded")
+                    .tag("state", state.name())
+                    .register(registry));
+        }
+        this.dropped = Counter.builder("jobs.lifecycle.dropped")
+                .description("Job transitions dropped because they could not be written")
+                .register(registry);
+    }
+
+    @PostConstruct
+    public void start() {
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "job-lifecycle");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::flush, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (scheduler != null) {
+            scheduler.shutdown();
+        }
+        flush();
+    }
+
+    public void queued(String jobId) {
+        record(jobId, JobState.QUEUED, System.currentTimeMillis());
+    }
+
+    public void running(String jobId, long startedAt) {
+        record(jobId, JobState.RUNNING, startedAt);
+    }
+
+    public void finished(TestResult result, long finishedAt) {
+        record(result.getJobId(), JobState.fromResultStatus(result.getStatus()), finishedAt);
+    }
+
+    /**
+     * @return the job's lifecycle, preferring a buffered terminal transition
+     *         over the last written row
+     */
+    public Optional<JobLifecycleEntry> find(String jobId) {
+        JobLifecycleEntry pending;
+        synchronized (this) {
+            pending = buffered.get(jobId);
+        }
+        if (pending != null && pending.getState().isTerminal()) {
+            return Optional.of(pending);
+        }
+        Optional<JobLifecycleEntry> written = jobLifecycleRepository.findById(jobId);
+        return written.isPresent() ? written : Optional.ofNullable(pending);
+    }
+
+    /**
+     * Computes latency percentiles for each stage over jobs whose stage ended
+     * within the last {@code windowMs}.
+     */
+    public List<StageLatency> getStageLatencies(long windowMs) {
+        long since = System.currentTimeMillis() - windowMs;
+        List<StageLatency> stages = new ArrayList<>(3);
+        stages.add(stageLatency("queue_wait", "started_at", "queued_at", since));
+        stages.add(stageLatency("execution", "finished_at", "started_at", since));
+        stages.add(stageLatency("end_to_end", "finished_at", "queued_at", since));
+        return stages;
+    }
+
+    /**
+     * Writes everything currently buffered.
+     */
+    public void flush() {
+        List<JobLifecycleEntry> rows;
+        synchronized (this) {
+            if (buffered.isEmpty()) {
+                return;
+            }
+            rows = new ArrayList<>(buffered.values());
+            buffered = new HashMap<>();
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status -> jdbcTemplate.batchUpdate(UPSERT_SQL,
+                    new BatchPreparedStatementSetter() {
+                        @Override
+                        public void setValues(PreparedStatement ps, int i) throws SQLException {
+                            JobLifecycleEntry row = rows.get(i);
+                            ps.setString(1, row.getJobId());
+                            ps.setString(2, row.getState().name());
+                            ps.setObject(3, row.getQueuedAt(), Types.BIGINT);
+                            ps.setObject(4, row.getStartedAt(), Types.BIGINT);
+                            ps.setObject(5, row.getFinishedAt(), Types.BIGINT);
+                        }
+
+                        @Override
+                        public int getBatchSize() {
+                            return rows.size();
+                        }
+                    }));
+        } catch (RuntimeException e) {
+            System.err.println("Failed to write " + rows.size() + " job transitions: " + e.getMessage());
+            // Merging is order-independent, so failed rows can simply be retried with newer ones
+            for (JobLifecycleEntry row : rows) {
+                if (!merge(row.getJobId(), row.getState(), row.getQueuedAt(), row.getStartedAt(),
+                        row.getFinishedAt())) {
+                    dropped.increment();
+                }
+            }
+        }
+    }
+
+    private void record(String jobId, JobState state, long at) {
+        transitions.get(state).increment();
+        Long queuedAt = state == JobState.QUEUED ? at : null;
+        Long startedAt = state == JobState.RUNNING ? at : null;
+        Long finishedAt = state.isTerminal() ? at : null;
+        if (!merge(jobId, state, queuedAt, startedAt, finishedAt)) {
+            dropped.increment();
+        }
+    }
+
+    /**
+     * Folds a transition into the buffered row for its job, by the same
+     * rules as {@link #UPSERT_SQL}.
+     *
+     * @return {@code false} if the buffer is full
+     */
+    private synchronized boolean merge(String jobId, JobState state, Long queuedAt, Long startedAt,
+            Long finishedAt) {
+        JobLifecycleEntry row = buffered.get(jobId);
+        if (row == null) {
+            if (buffered.size() >= maxBuffered) {
+                return false;
+            }
+            row = new JobLifecycleEntry();
+            row.setJobId(jobId);
+            row.setState(state);
+            buffered.put(jobId, row);
+        } else if (!row.getState().isTerminal() && state != JobState.QUEUED) {
+            row.setState(state);
+        }
+        if (row.getQueuedAt() == null) {
+            row.setQueuedAt(queuedAt);
+        }
+        if (row.getStartedAt() == null) {
+            row.setStartedAt(startedAt);
+        }
+        if (row.getFinishedAt() == null) {
+            row.setFinishedAt(finishedAt);
+        }
+        return true;
+    }
+
+    private StageLatency stageLatency(String stage, String end, String start, long since) {
+        String sql = String.format(LATENCY_SQL, end, start, end, start);
+        return jdbcTemplate.queryForObject(sql, (rs, rowNum) -> new StageLatency(stage, rs.getLong(1),
+                rs.getDouble(2), rs.getDouble(3), rs.getDouble(4), rs.getLong(5)), since);
+    }
+
+    public record StageLatency(String stage, long jobs, double p50Ms, double p95Ms, double p99Ms, long maxMs) {
+    }
+}
@@ -0,0 +1,31 @@
+package com.coding.test.service;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+
+/**
+ * Entity listener on questions that drops the in-memory question catalog.
+ * Looked up lazily for the same reason as the harness invalidation listener.
+ */
+@Component
+public class QuestionCatalogListener {
+    private final ObjectProvider<QuestionsService> questionsService;
+
+    public QuestionCatalogListener(ObjectProvider<QuestionsService> questionsService) {
+        this.questionsService = questionsService;
+    }
+
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    public void onChange(Object entity) {
+        QuestionsService service = questionsService.getIfAvailable();
+        if (service != null) {
+            service.invalidate();
+        }
+    }
+}
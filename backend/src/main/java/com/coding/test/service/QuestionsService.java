@@ -1,38 +1,214 @@
 package com.coding.test.service;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import com.coding.test.model.Question;
+import com.coding.test.model.QuestionSummary;
+import com.coding.test.model.QuestionSummaryPage;
 import com.coding.test.repository.QuestionsRepository;
 
+/**
+ * Serves questions from an in-memory catalog per language. Signatures are
+ * normalized once when a language is loaded, into copies detached from the
+ * persistence context. The catalog is dropped whenever a question is written
+ * through JPA and reloaded after {@code questions.catalog.ttl-ms} to pick up
+ * direct database edits. Each list and question carries an ETag derived from
+ * its content, so clients can revalidate without receiving the body again.
+ */
 @Service
 public class QuestionsService {
+    static final int MAX_SUMMARY_PAGE_SIZE = 200;
+
     private final QuestionsRepository questionsRepository;
 
+    @Value("${questions.catalog.ttl-ms:300000}")
+    private long ttlMs = 300000;
+
+    private final Map<String, LanguageCatalog> catalogs = new ConcurrentHashMap<>();
+    private final Map<String, CatalogEntry> singles = new ConcurrentHashMap<>();
+    private final Map<String, Object> loadLocks = new ConcurrentHashMap<>();
+    private final AtomicLong generation = new AtomicLong();
+
     public QuestionsService(QuestionsRepository questionsRepository) {
         this.questionsRepository = questionsRepository;
     }
 
     public List<Question> getAllQuestions(String language) {
-        List<Question> questions = questionsRepository.findByLanguage(language);
-        questions.forEach(q -> {
-            if (q.getSignature() != null) {
-                q.setSignature(q.getSignature().replace("\\n", "\n"));
-            }
-        });
-        return questions;
+        return catalog(language).questions();
     }
 
     public Optional<Question> getQuestionById(Long questionId, String language) {
-        Optional<Question> questionOpt = questionsRepository.findByQuestionIdAndLanguage(questionId, language);
-        questionOpt.ifPresent(q -> {
-            if (q.getSignature() != null) {
-                q.setSignature(q.getSignature().replace("\\n", "\n"));
+        return entry(questionId, language).map(CatalogEntry::question);
+    }
+
+    /**
+     * A page of summaries for the list view, read with a keyset query so deep
+     * pages cost the same as the first. Descriptions are only loaded through
+     * {@link #getQuestionById}.
+     */
+    public QuestionSummaryPage getQuestionSummaries(String language, String tag, Long after, int limit) {
+        int pageSize = Math.max(1, Math.min(limit, MAX_SUMMARY_PAGE_SIZE));
+        String normalizedTag = Question.normalizeTag(tag);
+        List<QuestionSummary> rows = questionsRepository.findSummaries(language, after == null ? Long.MIN_VALUE : after,
+                normalizedTag, PageRequest.of(0, pageSize + 1));
+
+        if (rows.size() <= pageSize) {
+            return new QuestionSummaryPage(rows, null);
+        }
+        List<QuestionSummary> items = rows.subList(0, pageSize);
+        return new QuestionSummaryPage(List.copyOf(items), items.get(pageSize - 1).getQuestionId());
+    }
+
+    /**
+     * ETag of the question list for the language.
+     */
+    public String getCatalogETag(String language) {
+        return catalog(language).etag();
+    }
+
+    /**
+     * ETag of a single question, or {@code null} if it does not exist.
+     */
+    public String getQuestionETag(Long questionId, String language) {
+        return entry(questionId, language).map(CatalogEntry::etag).orElse(null);
+    }
+
+    /**
+     * Rebuilds {@code question_tags} for questions whose tags were written
+     * outside JPA, such as seed scripts or direct edits. Writes through JPA
+     * keep it in sync on their own.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void indexTags() {
+        try {
+            int updated = 0;
+            for (Question question : questionsRepository.findAll()) {
+                if (question.syncTagIndex()) {
+                    updated++;
+                }
+            }
+            System.out.println("Question tag index rebuilt for " + updated + " questions");
+        } catch (RuntimeException e) {
+            System.err.println("Failed to rebuild question tag index: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Drops every cached language and question.
+     */
+    public void invalidate() {
+        generation.incrementAndGet();
+        catalogs.clear();
+        singles.clear();
+    }
+
+    private LanguageCatalog catalog(String language) {
+        LanguageCatalog cached = catalogs.get(language);
+        if (isFresh(cached == null ? null : cached.loadedAt())) {
+            return cached;
+        }
+        synchronized (loadLocks.computeIfAbsent(language, k -> new Object())) {
+            cached = catalogs.get(language);
+            if (isFresh(cached == null ? null : cached.loadedAt())) {
+                return cached;
             }
-        });
-        return questionOpt;
+            long loadGeneration = generation.get();
+
+            long loadedAt = System.currentTimeMillis();
+            List<Question> questions = questionsRepository.findByLanguage(language).stream()
+                    .map(this::normalized)
+                    .toList();
+            Map<Long, CatalogEntry> byId = new HashMap<>();
+            for (Question question : questions) {
+                if (question.getQuestionId() != null) {
+                    byId.put(question.getQuestionId(), new CatalogEntry(question, etag(List.of(question)), loadedAt));
+                }
+            }
+            LanguageCatalog loaded = new LanguageCatalog(questions, byId, etag(questions), loadedAt);
+            // Skip caching if a question changed while we were reading
+            if (generation.get() == loadGeneration) {
+                catalogs.put(language, loaded);
+            }
+            return loaded;
+        }
+    }
+
+    private Optional<CatalogEntry> entry(Long questionId, String language) {
+        LanguageCatalog catalog = catalogs.get(language);
+        if (catalog != null && isFresh(catalog.loadedAt()) && catalog.byId().containsKey(questionId)) {
+            return Optional.of(catalog.byId().get(questionId));
+        }
+
+        String key = questionId + ":" + language;
+        CatalogEntry single = singles.get(key);
+        if (single != null && isFresh(single.loadedAt())) {
+            return Optional.of(single);
+        }
+        long loadGeneration = generation.get();
+        Optional<CatalogEntry> loaded = questionsRepository.findByQuestionIdAndLanguage(questionId, language)
+                .map(this::normalized)
+                .map(question -> new CatalogEntry(question, etag(List.of(question)), System.currentTimeMillis()));
+        if (loaded.isPresent() && generation.get() == loadGeneration) {
+            singles.put(key, loaded.get());
+        }
+        return loaded;
+    }
+
+    private boolean isFresh(Long loadedAt) {
+        return loadedAt != null && System.currentTimeMillis() - loadedAt < ttlMs;
+    }
+
+    private Question normalized(Question question) {
+        Question copy = new Question();
+        copy.setId(question.getId());
+        copy.setQuestionId(question.getQuestionId());
+        copy.setTitle(question.getTitle());
+        copy.setTags(question.getTags());
+        copy.setDescription(question.getDescription());
+        copy.setSignature(question.getSignature() == null ? null : question.getSignature().replace("\\n", "\n"));
+        copy.setLanguage(question.getLanguage());
+        copy.setMethodName(question.getMethodName());
+        return copy;
+    }
+
+    private static String etag(List<Question> questions) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            for (Question question : questions) {
+                for (Object field : new Object[] { question.getId(), question.getQuestionId(), question.getTitle(),
+                        question.getTags(), question.getDescription(), question.getSignature(),
+                        question.getLanguage(), question.getMethodName() }) {
+                    digest.update(String.valueOf(field).getBytes(StandardCharsets.UTF_8));
+                    digest.update((byte) 0);
+                }
+            }
+            return "\"" + HexFormat.of().formatHex(digest.digest(), 0, 16) + "\"";
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private record LanguageCatalog(List<Question> questions, Map<Long, CatalogEntry> byId, String etag,
+            long loadedAt) {
+    }
+
+    private record CatalogEntry(Question question, String etag, long loadedAt) {
     }
 }
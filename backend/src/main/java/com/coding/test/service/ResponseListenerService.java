@@ -1,95 +1,324 @@
 package com.coding.test.service;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
 import com.coding.test.model.TestResult;
-import com.coding.test.repository.TestResultRepository;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import software.amazon.awssdk.core.exception.SdkClientException;
 import software.amazon.awssdk.services.sqs.SqsClient;
-import software.amazon.awssdk.services.sqs.model.DeleteMessageRequest;
+import software.amazon.awssdk.services.sqs.model.BatchResultErrorEntry;
+import software.amazon.awssdk.services.sqs.model.DeleteMessageBatchRequest;
+import software.amazon.awssdk.services.sqs.model.DeleteMessageBatchRequestEntry;
+import software.amazon.awssdk.services.sqs.model.DeleteMessageBatchResponse;
 import software.amazon.awssdk.services.sqs.model.Message;
 import software.amazon.awssdk.services.sqs.model.ReceiveMessageRequest;
+import software.amazon.awssdk.services.sqs.model.SendMessageRequest;
 import software.amazon.awssdk.services.sqs.model.SqsException;
 
+/**
+ * Consumes worker results and job lifecycle events from the response queue. A configurable number of
+ * consumer threads long-poll for batches of ten, parse the messages in
+ * parallel, hand the results to the batching {@link ResultWriter} and delete
+ * each batch with one {@code DeleteMessageBatch} call once it is committed.
+ * Messages that cannot be parsed are forwarded to the dead-letter queue when
+ * one is configured and deleted either way, so they are not redelivered
+ * forever; messages that failed to save are left to reappear.
+ */
 @Service
 public class ResponseListenerService {
+    private static final int SQS_BATCH_SIZE = 10;
+    private static final long ERROR_BACKOFF_MS = 1000;
+
     private final SqsClient sqsClient;
     private final ObjectMapper objectMapper;
-    private final TestResultRepository testResultRepository;
+    private final ResultWriter resultWriter;
+    private final ResultMemo resultMemo;
+    private final ResultHub resultHub;
+    private final ResultCache resultCache;
+    private final JobLifecycle jobLifecycle;
 
     @Value("${aws.sqs.response.queue.url}")
     private String RESPONSE_QUEUE_URL;
+    @Value("${aws.sqs.response.dead-letter.queue.url:}")
+    private String DEAD_LETTER_QUEUE_URL = "";
+    @Value("${aws.sqs.response.consumers:2}")
+    private int consumers = 2;
+    @Value("${aws.sqs.response.processing-threads:8}")
+    private int processingThreads = 8;
+    @Value("${aws.sqs.response.wait-seconds:20}")
+    private int waitSeconds = 20;
+
+    private volatile boolean running;
+    private final List<Thread> consumerThreads = new ArrayList<>();
+    private ExecutorService processors;
 
-    public ResponseListenerService(SqsClient sqsClient, TestResultRepository testResultRepository) {
+    public ResponseListenerService(SqsClient sqsClient, ResultWriter resultWriter,
+            ResultMemo resultMemo, ResultHub resultHub, ResultCache resultCache, JobLifecycle jobLifecycle) {
         this.sqsClient = sqsClient;
-        this.testResultRepository = testResultRepository;
+        this.resultWriter = resultWriter;
+        this.resultMemo = resultMemo;
+        this.resultHub = resultHub;
+        this.resultCache = resultCache;
+        this.jobLifecycle = jobLifecycle;
         this.objectMapper = new ObjectMapper();
     }
 
-    @Scheduled(fixedDelay = 5000)
+    @PostConstruct
+    public void start() {
+        running = true;
+        AtomicInteger threadNumber = new AtomicInteger();
+        processors = Executors.newFixedThreadPool(Math.max(1, processingThreads), r -> {
+            Thread thread = new Thread(r, "response-processor-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        for (int i = 1; i <= Math.max(1, consumers); i++) {
+            Thread consumer = new Thread(this::consume, "response-consumer-" + i);
+            consumer.setDaemon(true);
+            consumer.start();
+            consumerThreads.add(consumer);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        running = false;
+        consumerThreads.forEach(Thread::interrupt);
+        for (Thread consumer : consumerThreads) {
+            try {
+                consumer.join(TimeUnit.SECONDS.toMillis(waitSeconds + 5L));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        if (processors != null) {
+            processors.shutdown();
+        }
+    }
+
+    private void consume() {
+        while (running) {
+            if (!receiveBatch()) {
+                try {
+                    Thread.sleep(ERROR_BACKOFF_MS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Receives, processes and deletes one batch.
+     */
     public void pollResponseQueue() {
+        receiveBatch();
+    }
+
+    /**
+     * @return {@code false} if the queue could not be reached, so the
+     *         consumer backs off before the next receive
+     */
+    private boolean receiveBatch() {
         try {
             List<Message> messages = sqsClient.receiveMessage(
                     ReceiveMessageRequest.builder()
                             .queueUrl(RESPONSE_QUEUE_URL)
-                            .maxNumberOfMessages(5)
-                            .waitTimeSeconds(5)
+                            .maxNumberOfMessages(SQS_BATCH_SIZE)
+                            .waitTimeSeconds(waitSeconds)
                             .build())
                     .messages();
+            if (messages.isEmpty()) {
+                return true;
+            }
 
-            for (Message message : messages) {
+            List<Parsed> parsed = new ArrayList<>(messages.size());
+            if (processors == null) {
+                for (Message message : messages) {
+                    parsed.add(parse(message));
+                }
+            } else {
+                List<CompletableFuture<Parsed>> futures = new ArrayList<>(messages.size());
+                for (Message message : messages) {
+                    futures.add(CompletableFuture.supplyAsync(() -> parse(message), processors));
+                }
+                futures.forEach(future -> parsed.add(future.join()));
+            }
 
-                try {
-                    System.out.println("Received response: " + message.body());
+            List<CompletableFuture<Void>> writes = new ArrayList<>(parsed.size());
+            for (Parsed message : parsed) {
+                writes.add(message.result() == null ? null : resultWriter.submit(message.result()));
+            }
 
-                    JsonNode json = objectMapper.readTree(message.body());
-                    String jobId = json.path("jobId").asText("unknown");
+            List<Message> handled = new ArrayList<>(messages.size());
+            for (int i = 0; i < parsed.size(); i++) {
+                Parsed message = parsed.get(i);
+                if (message.result() == null) {
+                    if (message.deletable()) {
+                        handled.add(message.message());
+                    }
+                    continue;
+                }
+                try {
+                    writes.get(i).join();
+                } catch (CompletionException e) {
+                    System.err.println("Failed to save result for jobId=" + message.result().getJobId()
+                            + ", leaving message for redelivery: " + e.getCause().getMessage());
+                    continue;
+                }
+                resultMemo.record(message.result());
+                resultCache.complete(message.result());
+                jobLifecycle.finished(message.result(), message.finishedAt());
+                resultHub.publish(message.result());
+                System.out.println("Saved result for jobId=" + message.result().getJobId());
+                handled.add(message.message());
+            }
+            deleteBatch(handled);
+            return true;
+        } catch (SqsException e) {
+            System.err.println("AWS SQS service error: "
+                    + (e.awsErrorDetails() != null ? e.awsErrorDetails().errorMessage() : e.getMessage()));
+        } catch (SdkClientException e) {
+            System.err.println("AWS SDK client/network error: " + e.getMessage());
+        } catch (IllegalArgumentException | NullPointerException e) {
+            System.err.println("Unexpected error: " + e.getMessage());
+        }
+        return false;
+    }
 
-                    String rawResult = json.path("result").asText("{}");
-                    JsonNode resultJson = objectMapper.readTree(rawResult);
+    private Parsed parse(Message message) {
+        try {
+            System.out.println("Received response: " + message.body());
 
-                    long executionTimeMs = resultJson.path("executionTimeMs").asLong(0);
-                    JsonNode resultNode = resultJson.path("result");
+            JsonNode json = objectMapper.readTree(message.body());
+            String jobId = json.path("jobId").asText("unknown");
+            if (json.has("event")) {
+                recordEvent(jobId, json);
+                return new Parsed(message, null, 0, true);
+            }
+            long finishedAt = json.path("finishedAt").asLong(System.currentTimeMillis());
 
-                    int passed = resultNode.path("passed").asInt(0);
-                    int total = resultNode.path("total").asInt(0);
-                    String status = resultNode.path("status").asText("error");
-                    String messageText = resultNode.has("message") ? resultNode.get("message").asText() : null;
+            String rawResult = json.path("result").asText("{}");
+            JsonNode resultJson = objectMapper.readTree(rawResult);
 
-                    TestResult result = new TestResult();
-                    result.setJobId(jobId);
-                    result.setExecutionTime(executionTimeMs);
-                    result.setPassedTestCases(passed);
-                    result.setTotalTestCases(total);
-                    result.setStatus(status);
-                    result.setMessage(messageText);
+            long executionTimeMs = resultJson.path("executionTimeMs").asLong(0);
+            JsonNode resultNode = resultJson.path("result");
 
-                    testResultRepository.save(result);
-                    System.out.println("Saved result for jobId=" + jobId);
+            int passed = resultNode.path("passed").asInt(0);
+            int total = resultNode.path("total").asInt(0);
+            String status = resultNode.path("status").asText("error");
+            String messageText = resultNode.has("message") ? resultNode.get("message").asText() : null;
 
-                    sqsClient.deleteMessage(DeleteMessageRequest.builder()
-                            .queueUrl(RESPONSE_QUEUE_URL)
-                            .receiptHandle(message.receiptHandle())
-                            .build());
+            TestResult result = new TestResult();
+            result.setJobId(jobId);
+            result.setExecutionTime(executionTimeMs);
+            result.setPassedTestCases(passed);
+            result.setTotalTestCases(total);
+            result.setStatus(status);
+            result.setMessage(messageText);
 
-                } catch (JsonProcessingException e) {
-                    System.err.println("Failed to parse SQS message JSON: " + e.getMessage());
-                }
+            JsonNode phases = resultJson.path("phases");
+            result.setContainerStartTime(phaseTime(phases, "containerStartMs"));
+            result.setCompileTime(phaseTime(phases, "compileMs"));
+            result.setRunTime(phaseTime(phases, "runMs"));
+            if (resultNode.has("testTimeMs")) {
+                result.setTestTime(resultNode.get("testTimeMs").asDouble());
             }
-        } catch (SqsException e) {
-            System.err.println("AWS SQS service error: " + e.awsErrorDetails().errorMessage());
-        } catch (SdkClientException e) {
-            System.err.println("AWS SDK client/network error: " + e.getMessage());
-        } catch (IllegalArgumentException | NullPointerException e) {
-            System.err.println("Unexpected error: " + e.getMessage());
+            if (resultNode.path("caseTimesMs").isArray()) {
+                result.setCaseTimes(resultNode.get("caseTimesMs").toString());
+            }
+            // [[index, passed 1/0, nanos, actual], ...] as parsed by the worker
+            if (resultJson.path("cases").isArray()) {
+                result.setCaseResults(resultJson.get("cases").toString());
+            }
+
+            return new Parsed(message, result, finishedAt, true);
+
+        } catch (JsonProcessingException e) {
+            System.err.println("Failed to parse SQS message JSON: " + e.getMessage());
+            return new Parsed(message, null, 0, deadLetter(message));
+        }
+    }
+
+    private void recordEvent(String jobId, JsonNode json) {
+        String event = json.path("event").asText();
+        if ("RUNNING".equals(event)) {
+            jobLifecycle.running(jobId, json.path("at").asLong(System.currentTimeMillis()));
+        } else {
+            System.err.println("Ignoring unknown job event " + event + " for jobId=" + jobId);
+        }
+    }
+
+    /**
+     * Forwards a malformed message to the dead-letter queue, if configured.
+     *
+     * @return {@code true} if the original can be deleted
+     */
+    private boolean deadLetter(Message message) {
+        if (DEAD_LETTER_QUEUE_URL == null || DEAD_LETTER_QUEUE_URL.isBlank()) {
+            System.err.println("Dropping malformed response message " + message.messageId());
+            return true;
+        }
+        try {
+            sqsClient.sendMessage(SendMessageRequest.builder()
+                    .queueUrl(DEAD_LETTER_QUEUE_URL)
+                    .messageBody(message.body())
+                    .build());
+            return true;
+        } catch (SqsException | SdkClientException e) {
+            System.err.println("Failed to dead-letter malformed message: " + e.getMessage());
+            return false;
+        }
+    }
+
+    private void deleteBatch(List<Message> messages) {
+        if (messages.isEmpty()) {
+            return;
+        }
+        List<DeleteMessageBatchRequestEntry> entries = new ArrayList<>(messages.size());
+        for (int i = 0; i < messages.size(); i++) {
+            entries.add(DeleteMessageBatchRequestEntry.builder()
+                    .id(String.valueOf(i))
+                    .receiptHandle(messages.get(i).receiptHandle())
+                    .build());
+        }
+        DeleteMessageBatchResponse response = sqsClient.deleteMessageBatch(DeleteMessageBatchRequest.builder()
+                .queueUrl(RESPONSE_QUEUE_URL)
+                .entries(entries)
+                .build());
+        for (BatchResultErrorEntry failure : response.failed()) {
+            System.err.println("Failed to delete response message " + failure.id() + ": " + failure.message());
         }
     }
+
+    /**
+     * A received message and its result, or {@code null} if it was malformed
+     * or a lifecycle event.
+     */
+    private record Parsed(Message message, TestResult result, long finishedAt, boolean deletable) {
+    }
+
+    /**
+     * Phase timings the worker could not measure are sent as -1 or left out.
+     */
+    private Long phaseTime(JsonNode phases, String name) {
+        JsonNode value = phases.path(name);
+        return value.isNumber() && value.asLong() >= 0 ? value.asLong() : null;
+    }
 }
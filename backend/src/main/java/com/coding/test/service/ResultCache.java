@@ -0,0 +1,147 @@
+package com.coding.test.service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.coding.test.model.TestResult;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Answers result polls from memory. Jobs submitted on this instance are
+ * registered as pending until their result arrives, and recent results are
+ * kept in an LRU bounded by {@code results.cache.max-entries}. A pending job
+ * is still looked up in the database once every
+ * {@code results.cache.pending-recheck-ms}, since its result may have been
+ * saved by another instance, and is forgotten after
+ * {@code results.cache.pending-ttl-ms}.
+ */
+@Service
+public class ResultCache {
+    @Value("${results.cache.max-entries:10000}")
+    private int maxEntries = 10000;
+    @Value("${results.cache.max-pending:50000}")
+    private int maxPending = 50000;
+    @Value("${results.cache.pending-ttl-ms:900000}")
+    private long pendingTtlMs = 900000;
+    @Value("${results.cache.pending-recheck-ms:5000}")
+    private long pendingRecheckMs = 5000;
+
+    private final Map<String, TestResult> results = new LinkedHashMap<>(256, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, TestResult> eldest) {
+            return size() > maxEntries;
+        }
+    };
+    private final Map<String, PendingJob> pendingJobs = new LinkedHashMap<>(256, 0.75f, false) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, PendingJob> eldest) {
+            return size() > maxPending;
+        }
+    };
+
+    private final Counter hits;
+    private final Counter pendingAnswers;
+    private final Counter misses;
+
+    public ResultCache(MeterRegistry registry) {
+        this.hits = lookupCounter(registry, "hit");
+        this.pendingAnswers = lookupCounter(registry, "pending");
+        this.misses = lookupCounter(registry, "miss");
+        Gauge.builder("results.cache.size", this, cache -> cache.getStats().results())
+                .description("Results held in the in-memory result cache")
+                .register(registry);
+        Gauge.builder("results.cache.pending", this, cache -> cache.getStats().pending())
+                .description("Jobs known to be in flight on this instance")
+                .register(registry);
+    }
+
+    /**
+     * Registers a job that has just been submitted.
+     */
+    public synchronized void markPending(String jobId) {
+        long now = System.currentTimeMillis();
+        pendingJobs.put(jobId, new PendingJob(now, now));
+    }
+
+    /**
+     * Records a job's final result.
+     */
+    public synchronized void complete(TestResult result) {
+        pendingJobs.remove(result.getJobId());
+        results.put(result.getJobId(), result);
+    }
+
+    /**
+     * @return the cached result, {@link Lookup#PENDING} if the job is known to
+     *         be in flight and was checked recently, or {@link Lookup#MISS} if
+     *         the caller should look in the database
+     */
+    public Lookup lookup(String jobId) {
+        long now = System.currentTimeMillis();
+        synchronized (this) {
+            TestResult result = results.get(jobId);
+            if (result != null) {
+                hits.increment();
+                return new Lookup(result, false);
+            }
+            PendingJob pending = pendingJobs.get(jobId);
+            if (pending != null) {
+                if (now - pending.submittedAt >= pendingTtlMs) {
+                    pendingJobs.remove(jobId);
+                } else if (now - pending.checkedAt < pendingRecheckMs) {
+                    pendingAnswers.increment();
+                    return Lookup.PENDING;
+                } else {
+                    pending.checkedAt = now;
+                }
+            }
+        }
+        misses.increment();
+        return Lookup.MISS;
+    }
+
+    /**
+     * Whether the job was submitted on this instance and is still waiting for
+     * its result, regardless of when it was last checked.
+     */
+    public synchronized boolean isPending(String jobId) {
+        PendingJob pending = pendingJobs.get(jobId);
+        return pending != null && System.currentTimeMillis() - pending.submittedAt < pendingTtlMs;
+    }
+
+    public synchronized ResultCacheStats getStats() {
+        return new ResultCacheStats(results.size(), pendingJobs.size(), (long) hits.count(),
+                (long) pendingAnswers.count(), (long) misses.count());
+    }
+
+    private static Counter lookupCounter(MeterRegistry registry, String outcome) {
+        return Counter.builder("results.cache.lookups")
+                .description("Result polls by where they were answered")
+                .tag("outcome", outcome)
+                .register(registry);
+    }
+
+    private static final class PendingJob {
+        private final long submittedAt;
+        private long checkedAt;
+
+        private PendingJob(long submittedAt, long checkedAt) {
+            this.submittedAt = submittedAt;
+            this.checkedAt = checkedAt;
+        }
+    }
+
+    public record Lookup(TestResult result, boolean pending) {
+        public static final Lookup PENDING = new Lookup(null, true);
+        public static final Lookup MISS = new Lookup(null, false);
+    }
+
+    public record ResultCacheStats(int results, int pending, long hits, long pendingAnswers, long misses) {
+    }
+}
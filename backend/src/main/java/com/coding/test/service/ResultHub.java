@@ -0,0 +1,171 @@
+package com.coding.test.service;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.coding.test.model.TestResult;
+import com.coding.test.repository.TestResultRepository;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * In-memory hub of clients waiting on a job's result over server-sent
+ * events. Results are pushed as soon as they are saved on this instance;
+ * subscribed jobs are also re-checked in one query every
+ * {@code results.push.recheck-ms} to catch results saved by another
+ * instance. Open streams get a heartbeat comment so proxies keep them open,
+ * and {@code results.push.max-connections} caps them per instance; clients
+ * turned away fall back to polling.
+ */
+@Service
+public class ResultHub {
+    private final TestResultRepository testResultRepository;
+
+    @Value("${results.push.max-connections:1000}")
+    private int maxConnections = 1000;
+    @Value("${results.push.timeout-ms:120000}")
+    private long timeoutMs = 120000;
+    @Value("${results.push.heartbeat-ms:15000}")
+    private long heartbeatMs = 15000;
+    @Value("${results.push.recheck-ms:5000}")
+    private long recheckMs = 5000;
+
+    private final Map<String, Set<SseEmitter>> subscribers = new ConcurrentHashMap<>();
+    private final AtomicInteger connections = new AtomicInteger();
+    private final AtomicLong delivered = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private ScheduledExecutorService scheduler;
+
+    public ResultHub(TestResultRepository testResultRepository) {
+        this.testResultRepository = testResultRepository;
+    }
+
+    @PostConstruct
+    public void start() {
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "result-hub");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleAtFixedRate(this::sendHeartbeats, heartbeatMs, heartbeatMs, TimeUnit.MILLISECONDS);
+        scheduler.scheduleWithFixedDelay(this::recheckSubscribedJobs, recheckMs, recheckMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+        for (String jobId : new ArrayList<>(subscribers.keySet())) {
+            Set<SseEmitter> emitters = subscribers.remove(jobId);
+            if (emitters != null) {
+                emitters.forEach(SseEmitter::complete);
+            }
+        }
+    }
+
+    /**
+     * Opens a stream for the job's result.
+     *
+     * @return the emitter, or {@code null} if this instance is at its
+     *         connection cap
+     */
+    public SseEmitter subscribe(String jobId) {
+        if (connections.incrementAndGet() > maxConnections) {
+            connections.decrementAndGet();
+            rejected.incrementAndGet();
+            return null;
+        }
+        SseEmitter emitter = new SseEmitter(timeoutMs);
+        // Add inside compute so a concurrent remove() cannot drop the set between lookup and add
+        subscribers.compute(jobId, (k, emitters) -> {
+            Set<SseEmitter> current = emitters == null ? ConcurrentHashMap.newKeySet() : emitters;
+            current.add(emitter);
+            return current;
+        });
+
+        Runnable cleanup = () -> remove(jobId, emitter);
+        emitter.onCompletion(cleanup);
+        emitter.onTimeout(cleanup);
+        emitter.onError(e -> cleanup.run());
+        return emitter;
+    }
+
+    /**
+     * Sends the result to everyone waiting on its job and closes their
+     * streams.
+     */
+    public void publish(TestResult result) {
+        Set<SseEmitter> emitters = subscribers.remove(result.getJobId());
+        if (emitters == null) {
+            return;
+        }
+        for (SseEmitter emitter : emitters) {
+            connections.decrementAndGet();
+            try {
+                emitter.send(SseEmitter.event().name("result").data(result, MediaType.APPLICATION_JSON));
+                emitter.complete();
+                delivered.incrementAndGet();
+            } catch (IOException | IllegalStateException e) {
+                emitter.completeWithError(e);
+            }
+        }
+    }
+
+    public ResultHubStats getStats() {
+        return new ResultHubStats(connections.get(), subscribers.size(), delivered.get(), rejected.get());
+    }
+
+    void remove(String jobId, SseEmitter emitter) {
+        boolean[] removed = new boolean[1];
+        subscribers.computeIfPresent(jobId, (k, emitters) -> {
+            removed[0] = emitters.remove(emitter);
+            return emitters.isEmpty() ? null : emitters;
+        });
+        if (removed[0]) {
+            connections.decrementAndGet();
+        }
+    }
+
+    void sendHeartbeats() {
+        subscribers.forEach((jobId, emitters) -> {
+            for (SseEmitter emitter : emitters) {
+                try {
+                    emitter.send(SseEmitter.event().comment("heartbeat"));
+                } catch (IOException | IllegalStateException e) {
+                    remove(jobId, emitter);
+                }
+            }
+        });
+    }
+
+    void recheckSubscribedJobs() {
+        if (subscribers.isEmpty()) {
+            return;
+        }
+        try {
+            List<TestResult> results = testResultRepository.findAllById(new ArrayList<>(subscribers.keySet()));
+            results.forEach(this::publish);
+        } catch (RuntimeException e) {
+            System.err.println("Failed to re-check subscribed jobs: " + e.getMessage());
+        }
+    }
+
+    public record ResultHubStats(int connections, int jobs, long delivered, long rejected) {
+    }
+}
@@ -0,0 +1,263 @@
+package com.coding.test.service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.coding.test.model.ResultMemoEntry;
+import com.coding.test.model.TestResult;
+import com.coding.test.repository.ResultMemoRepository;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Verdicts of earlier runs keyed by (normalized code hash, question,
+ * language, test-suite version), so a byte-identical resubmission is answered
+ * without S3, SQS or a container. Only deterministic verdicts are kept; time
+ * limits and infrastructure errors always run again. The in-memory tier is an
+ * LRU bounded by {@code max-entries}; with {@code persistent=true} verdicts are
+ * also written to the {@code result_memo} table and survive restarts.
+ */
+@Service
+public class ResultMemo {
+    private static final Set<String> MEMOIZED_STATUSES = Set.of("success", "failed");
+
+    private final ResultMemoRepository resultMemoRepository;
+
+    @Value("${submission.result-memo.enabled:true}")
+    private boolean enabled = true;
+    @Value("${submission.result-memo.max-entries:10000}")
+    private int maxEntries = 10000;
+    @Value("${submission.result-memo.ttl-ms:3600000}")
+    private long ttlMs = 3600000;
+    @Value("${submission.result-memo.persistent:false}")
+    private boolean persistent;
+
+    private final Map<String, Verdict> verdicts = new LinkedHashMap<>(256, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Verdict> eldest) {
+            return size() > maxEntries;
+        }
+    };
+    private final Map<String, PendingJob> pendingJobs = new LinkedHashMap<>(256, 0.75f, false) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, PendingJob> eldest) {
+            return size() > maxEntries;
+        }
+    };
+
+    private final Counter memoryHits;
+    private final Counter databaseHits;
+    private final Counter misses;
+
+    public ResultMemo(ResultMemoRepository resultMemoRepository, MeterRegistry registry) {
+        this.resultMemoRepository = resultMemoRepository;
+        this.memoryHits = lookupCounter(registry, "memory");
+        this.databaseHits = lookupCounter(registry, "database");
+        this.misses = lookupCounter(registry, "miss");
+        Gauge.builder("submission.result.memo.size", this, ResultMemo::size)
+                .description("Verdicts held in the in-memory result memo")
+                .register(registry);
+    }
+
+    /**
+     * Builds the memo key. Line endings and trailing whitespace are
+     * normalized; indentation is kept since it is significant in Python.
+     */
+    public static String key(String userCode, Long questionId, String language, String suiteVersion) {
+        return questionId + ":" + language.toLowerCase() + ":" + suiteVersion + ":" + sha256(normalize(userCode));
+    }
+
+    static String normalize(String userCode) {
+        String[] lines = userCode.replace("\r\n", "\n").replace('\r', '\n').split("\n", -1);
+        StringBuilder normalized = new StringBuilder(userCode.length());
+        for (String line : lines) {
+            normalized.append(line.stripTrailing()).append('\n');
+        }
+        // Only trailing: leading indentation on the first line changes what Python runs
+        return normalized.toString().stripTrailing();
+    }
+
+    /**
+     * Returns an unsaved result for {@code jobId} carrying the memoized
+     * verdict, or empty if this submission has to run.
+     */
+    public Optional<TestResult> lookup(String key, String jobId) {
+        if (!enabled) {
+            return Optional.empty();
+        }
+        Verdict verdict;
+        synchronized (verdicts) {
+            verdict = verdicts.get(key);
+            if (verdict != null && isExpired(verdict.recordedAt())) {
+                verdicts.remove(key);
+                verdict = null;
+            }
+        }
+        if (verdict != null) {
+            memoryHits.increment();
+            return Optional.of(verdict.toResult(jobId));
+        }
+
+        if (persistent) {
+            try {
+                Optional<ResultMemoEntry> entry = resultMemoRepository.findById(key);
+                if (entry.isPresent()) {
+                    long recordedAt = entry.get().getCreatedAt().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+                    if (!isExpired(recordedAt)) {
+                        verdict = Verdict.from(entry.get(), recordedAt);
+                        synchronized (verdicts) {
+                            verdicts.put(key, verdict);
+                        }
+                        databaseHits.increment();
+                        return Optional.of(verdict.toResult(jobId));
+                    }
+                }
+            } catch (RuntimeException e) {
+                System.err.println("Result memo lookup failed: " + e.getMessage());
+            }
+        }
+        misses.increment();
+        return Optional.empty();
+    }
+
+    /**
+     * Remembers which key a dispatched job was submitted under, so its
+     * verdict can be memoized when the worker reports back.
+     */
+    public void track(String jobId, String key) {
+        if (!enabled) {
+            return;
+        }
+        synchronized (pendingJobs) {
+            pendingJobs.put(jobId, new PendingJob(key, System.currentTimeMillis()));
+        }
+    }
+
+    /**
+     * Memoizes the verdict of a finished job that was tracked.
+     */
+    public void record(TestResult result) {
+        if (!enabled) {
+            return;
+        }
+        PendingJob pending;
+        synchronized (pendingJobs) {
+            pending = pendingJobs.remove(result.getJobId());
+        }
+        if (pending == null || isExpired(pending.trackedAt()) || !MEMOIZED_STATUSES.contains(result.getStatus())) {
+            return;
+        }
+
+        Verdict verdict = Verdict.from(result, System.currentTimeMillis());
+        synchronized (verdicts) {
+            verdicts.put(pending.key(), verdict);
+        }
+        if (persistent) {
+            try {
+                resultMemoRepository.save(verdict.toEntry(pending.key()));
+            } catch (RuntimeException e) {
+                System.err.println("Failed to persist memoized result for jobId=" + result.getJobId() + ": "
+                        + e.getMessage());
+            }
+        }
+    }
+
+    public ResultMemoStats getStats() {
+        long memory = (long) memoryHits.count();
+        long database = (long) databaseHits.count();
+        long missCount = (long) misses.count();
+        long lookups = memory + database + missCount;
+        return new ResultMemoStats(size(), memory, database, missCount,
+                lookups == 0 ? 0 : (double) (memory + database) / lookups);
+    }
+
+    private int size() {
+        synchronized (verdicts) {
+            return verdicts.size();
+        }
+    }
+
+    private boolean isExpired(long timestamp) {
+        return System.currentTimeMillis() - timestamp > ttlMs;
+    }
+
+    private static Counter lookupCounter(MeterRegistry registry, String outcome) {
+        return Counter.builder("submission.result.memo.lookups")
+                .description("Result memo lookups by the tier that answered them")
+                .tag("outcome", outcome)
+                .register(registry);
+    }
+
+    private static String sha256(String value) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(value.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private record PendingJob(String key, long trackedAt) {
+    }
+
+    private record Verdict(String status, int passed, int total, String message, long executionTime,
+            Double testTime, String caseTimes, String caseResults, long recordedAt) {
+
+        static Verdict from(TestResult result, long recordedAt) {
+            return new Verdict(result.getStatus(), result.getPassedTestCases(), result.getTotalTestCases(),
+                    result.getMessage(), result.getExecutionTime(), result.getTestTime(), result.getCaseTimes(),
+                    result.getCaseResults(), recordedAt);
+        }
+
+        static Verdict from(ResultMemoEntry entry, long recordedAt) {
+            return new Verdict(entry.getStatus(), entry.getPassedTestCases(), entry.getTotalTestCases(),
+                    entry.getMessage(), entry.getExecutionTime(), entry.getTestTime(), entry.getCaseTimes(),
+                    entry.getCaseResults(), recordedAt);
+        }
+
+        TestResult toResult(String jobId) {
+            TestResult result = new TestResult();
+            result.setJobId(jobId);
+            result.setStatus(status);
+            result.setPassedTestCases(passed);
+            result.setTotalTestCases(total);
+            result.setMessage(message);
+            result.setExecutionTime(executionTime);
+            result.setTestTime(testTime);
+            result.setCaseTimes(caseTimes);
+            result.setCaseResults(caseResults);
+            return result;
+        }
+
+        ResultMemoEntry toEntry(String key) {
+            ResultMemoEntry entry = new ResultMemoEntry();
+            entry.setMemoKey(key);
+            entry.setStatus(status);
+            entry.setPassedTestCases(passed);
+            entry.setTotalTestCases(total);
+            entry.setMessage(message);
+            entry.setExecutionTime(executionTime);
+            entry.setTestTime(testTime);
+            entry.setCaseTimes(caseTimes);
+            entry.setCaseResults(caseResults);
+            entry.setCreatedAt(LocalDateTime.now());
+            return entry;
+        }
+    }
+
+    public record ResultMemoStats(int size, long memoryHits, long databaseHits, long misses, double hitRate) {
+    }
+}
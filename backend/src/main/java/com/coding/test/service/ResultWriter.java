@@ -0,0 +1,318 @@
+package com.coding.test.service;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.coding.test.model.TestResult;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Write-behind persistence for worker results. Results are buffered and
+ * written in JDBC batches of up to {@code results.writer.batch-size}, at
+ * least every {@code results.writer.flush-interval-ms}, one transaction per
+ * batch. The statement is an {@code INSERT ... ON CONFLICT DO UPDATE}, so
+ * there is no pre-select on the assigned job id and a redelivered message
+ * simply rewrites the same row.
+ * <p>
+ * When a batch fails its rows are retried one transaction each, so one bad
+ * row does not hold back the rest. A row that still fails is stored as an
+ * {@code error} result without its per-case data; only when even that fails
+ * is the write reported as failed and the message left for redelivery.
+ */
+@Service
+public class ResultWriter {
+    static final String UPSERT_SQL = "INSERT INTO test_results (job_id, execution_time, passed_testcases, "
+            + "total_testcases, status, message, container_start_time, compile_time, run_time, test_time, "
+            + "case_times, case_results, created_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?) "
+            + "ON CONFLICT (job_id) DO UPDATE SET execution_time = EXCLUDED.execution_time, "
+            + "passed_testcases = EXCLUDED.passed_testcases, total_testcases = EXCLUDED.total_testcases, "
+            + "status = EXCLUDED.status, message = EXCLUDED.message, "
+            + "container_start_time = EXCLUDED.container_start_time, compile_time = EXCLUDED.compile_time, "
+            + "run_time = EXCLUDED.run_time, test_time = EXCLUDED.test_time, case_times = EXCLUDED.case_times, "
+            + "case_results = EXCLUDED.case_results";
+
+    static final String DEAD_LETTER_STATUS = "error";
+    static final String DEAD_LETTER_MESSAGE = "Result could not be stored";
+    // Default JPA length of the status and message columns
+    static final int VARCHAR_LENGTH = 255;
+
+    private static final long RATE_WINDOW_MS = 10000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${results.writer.batch-size:100}")
+    private int batchSize = 100;
+    @Value("${results.writer.flush-interval-ms:50}")
+    private long flushIntervalMs = 50;
+
+    private final BlockingQueue<PendingWrite> buffer = new LinkedBlockingQueue<>();
+    private volatile boolean running;
+    private Thread flusher;
+
+    private final Counter rowsWritten;
+    private final Counter failedRows;
+    private final Counter deadLetters;
+    private final Timer batchTimer;
+    private long windowStart = System.currentTimeMillis();
+    private long windowRows;
+    private double rowsPerSecond;
+
+    public ResultWriter(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+            MeterRegistry registry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.rowsWritten = Counter.builder("results.writer.rows")
+                .description("Test results written")
+                .register(registry);
+        this.failedRows = Counter.builder("results.writer.failed.rows")
+                .description("Test results that could not be written, even row by row")
+                .register(registry);
+        this.deadLetters = Counter.builder("results.writer.dead.letters")
+                .description("Test results stored as errors because the row itself was rejected")
+                .register(registry);
+        this.batchTimer = Timer.builder("results.writer.batch")
+                .description("Time to write one batch of test results")
+                .publishPercentileHistogram()
+                .register(registry);
+        Gauge.builder("results.writer.rows.per.second", this, ResultWriter::getRowsPerSecond)
+                .description("Test results written per second over the last window")
+                .register(registry);
+        Gauge.builder("results.writer.buffered", buffer, BlockingQueue::size)
+                .description("Test results waiting to be written")
+                .register(registry);
+    }
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        flusher = new Thread(this::flushLoop, "result-writer");
+        flusher.setDaemon(true);
+        flusher.start();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        running = false;
+        if (flusher != null) {
+            flusher.interrupt();
+            try {
+                flusher.join(TimeUnit.SECONDS.toMillis(5));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        flush();
+    }
+
+    /**
+     * Queues a result for the next batch. A status or message longer than its
+     * column is truncated in place.
+     *
+     * @return completes once the result is committed
+     */
+    public CompletableFuture<Void> submit(TestResult result) {
+        result.setStatus(truncate(result.getStatus()));
+        result.setMessage(truncate(result.getMessage()));
+        PendingWrite pending = new PendingWrite(result, new CompletableFuture<>());
+        buffer.add(pending);
+        return pending.written();
+    }
+
+    /**
+     * Writes everything currently buffered.
+     */
+    public void flush() {
+        List<PendingWrite> drained = new ArrayList<>();
+        while (buffer.drainTo(drained, batchSize) > 0) {
+            write(drained);
+            drained = new ArrayList<>();
+        }
+    }
+
+    public synchronized double getRowsPerSecond() {
+        rollWindow(System.currentTimeMillis());
+        return rowsPerSecond;
+    }
+
+    private void flushLoop() {
+        while (running) {
+            List<PendingWrite> batch = new ArrayList<>(batchSize);
+            try {
+                batch.add(buffer.take());
+
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(flushIntervalMs);
+                while (batch.size() < batchSize) {
+                    PendingWrite next = buffer.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                write(batch);
+                return;
+            }
+            write(batch);
+        }
+    }
+
+    private void write(List<PendingWrite> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        // A redelivered message can land in the same batch as its first copy;
+        // Postgres rejects one statement touching a row twice
+        Map<String, TestResult> rows = new LinkedHashMap<>();
+        for (PendingWrite pending : batch) {
+            rows.put(pending.result().getJobId(), pending.result());
+        }
+        List<TestResult> results = new ArrayList<>(rows.values());
+
+        long start = System.nanoTime();
+        try {
+            upsert(results);
+            batchTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            recordRows(results.size());
+            batch.forEach(pending -> pending.written().complete(null));
+        } catch (RuntimeException e) {
+            System.err.println("Failed to write " + results.size() + " test results, retrying row by row: "
+                    + e.getMessage());
+            writeRows(batch, results);
+        }
+    }
+
+    private void writeRows(List<PendingWrite> batch, List<TestResult> results) {
+        Map<String, RuntimeException> failures = new HashMap<>();
+        RuntimeException unavailable = null;
+        int written = 0;
+        for (TestResult result : results) {
+            if (unavailable != null) {
+                failures.put(result.getJobId(), unavailable);
+                continue;
+            }
+            try {
+                upsert(List.of(result));
+                written++;
+            } catch (RuntimeException e) {
+                System.err.println("Test result for jobId=" + result.getJobId()
+                        + " was rejected, storing it as an error: " + e.getMessage());
+                deadLetter(result);
+                try {
+                    upsert(List.of(result));
+                    deadLetters.increment();
+                    written++;
+                } catch (RuntimeException retry) {
+                    // Not even the stripped row goes in, so the database itself is failing
+                    System.err.println("Failed to write test result for jobId=" + result.getJobId() + ": "
+                            + retry.getMessage());
+                    unavailable = retry;
+                    failures.put(result.getJobId(), retry);
+                }
+            }
+        }
+        recordRows(written);
+        failedRows.increment(failures.size());
+        for (PendingWrite pending : batch) {
+            RuntimeException failure = failures.get(pending.result().getJobId());
+            if (failure == null) {
+                pending.written().complete(null);
+            } else {
+                pending.written().completeExceptionally(failure);
+            }
+        }
+    }
+
+    private void upsert(List<TestResult> results) {
+        transactionTemplate.executeWithoutResult(status -> jdbcTemplate.batchUpdate(UPSERT_SQL,
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        bind(ps, results.get(i));
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return results.size();
+                    }
+                }));
+    }
+
+    /**
+     * Reduces a rejected result to its verdict counts, so the client still
+     * gets an answer instead of the message being redelivered forever.
+     */
+    private static void deadLetter(TestResult result) {
+        result.setStatus(DEAD_LETTER_STATUS);
+        result.setMessage(DEAD_LETTER_MESSAGE);
+        result.setCaseTimes(null);
+        result.setCaseResults(null);
+    }
+
+    private static String truncate(String value) {
+        if (value == null || value.length() <= VARCHAR_LENGTH) {
+            return value;
+        }
+        int end = Character.isHighSurrogate(value.charAt(VARCHAR_LENGTH - 1)) ? VARCHAR_LENGTH - 1 : VARCHAR_LENGTH;
+        return value.substring(0, end);
+    }
+
+    private static void bind(PreparedStatement ps, TestResult result) throws SQLException {
+        ps.setString(1, result.getJobId());
+        ps.setLong(2, result.getExecutionTime());
+        ps.setInt(3, result.getPassedTestCases());
+        ps.setInt(4, result.getTotalTestCases());
+        ps.setString(5, result.getStatus());
+        ps.setString(6, result.getMessage());
+        ps.setObject(7, result.getContainerStartTime(), Types.BIGINT);
+        ps.setObject(8, result.getCompileTime(), Types.BIGINT);
+        ps.setObject(9, result.getRunTime(), Types.BIGINT);
+        ps.setObject(10, result.getTestTime(), Types.DOUBLE);
+        ps.setString(11, result.getCaseTimes());
+        ps.setString(12, result.getCaseResults());
+        ps.setTimestamp(13, result.getCreatedAt() == null ? null : Timestamp.valueOf(result.getCreatedAt()));
+    }
+
+    private synchronized void recordRows(int count) {
+        rowsWritten.increment(count);
+        windowRows += count;
+        rollWindow(System.currentTimeMillis());
+    }
+
+    private void rollWindow(long now) {
+        long elapsed = now - windowStart;
+        if (elapsed >= RATE_WINDOW_MS) {
+            rowsPerSecond = windowRows * 1000.0 / elapsed;
+            windowStart = now;
+            windowRows = 0;
+        }
+    }
+
+    private record PendingWrite(TestResult result, CompletableFuture<Void> written) {
+    }
+}
@@ -0,0 +1,355 @@
+package com.coding.test.service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.coding.test.model.TestResult;
+import com.coding.test.repository.TestResultRepository;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import software.amazon.awssdk.core.exception.SdkException;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+import software.amazon.awssdk.services.sqs.SqsClient;
+import software.amazon.awssdk.services.sqs.model.BatchResultErrorEntry;
+import software.amazon.awssdk.services.sqs.model.SendMessageBatchRequest;
+import software.amazon.awssdk.services.sqs.model.SendMessageBatchRequestEntry;
+import software.amazon.awssdk.services.sqs.model.SendMessageBatchResponse;
+import software.amazon.awssdk.services.sqs.model.SendMessageRequest;
+
+/**
+ * Moves submissions onto the request queue off the HTTP thread. Large
+ * sources are uploaded to S3 on a small upload pool; job messages are
+ * buffered and sent with {@code SendMessageBatch} once ten are waiting or the
+ * linger window expires. A job that cannot be uploaded or enqueued gets an
+ * {@code enqueue_failed} result so polling clients see the failure.
+ */
+@Service
+public class SubmissionPipeline {
+    public static final String ENQUEUE_FAILED = "enqueue_failed";
+
+    private static final int SQS_BATCH_SIZE = 10;
+    private static final int SQS_BATCH_MAX_BYTES = 256 * 1024;
+    private static final int MAX_SEND_ATTEMPTS = 3;
+
+    private final S3Client s3Client;
+    private final SqsClient sqsClient;
+    private final TestResultRepository testResultRepository;
+    private final ResultHub resultHub;
+    private final ResultCache resultCache;
+    private final JobLifecycle jobLifecycle;
+
+    @Value("${aws.s3.bucket.name}")
+    private String BUCKET_NAME;
+    @Value("${aws.sqs.request.queue.url}")
+    private String QUEUE_NAME;
+    @Value("${submission.pipeline.buffer-size:1000}")
+    private int bufferSize = 1000;
+    @Value("${submission.pipeline.linger-ms:20}")
+    private long lingerMs = 20;
+    @Value("${submission.pipeline.offer-timeout-ms:500}")
+    private long offerTimeoutMs = 500;
+    @Value("${submission.pipeline.upload-threads:4}")
+    private int uploadThreads = 4;
+
+    private volatile String queueUrl;
+    private volatile BlockingQueue<PendingMessage> buffer;
+    private volatile ExecutorService uploads;
+    private volatile boolean running;
+    private Thread sender;
+
+    private final AtomicLong enqueued = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong batches = new AtomicLong();
+    private final AtomicInteger uploading = new AtomicInteger();
+
+    public SubmissionPipeline(S3Client s3Client, SqsClient sqsClient, TestResultRepository testResultRepository,
+            ResultHub resultHub, ResultCache resultCache, JobLifecycle jobLifecycle) {
+        this.s3Client = s3Client;
+        this.sqsClient = sqsClient;
+        this.testResultRepository = testResultRepository;
+        this.resultHub = resultHub;
+        this.resultCache = resultCache;
+        this.jobLifecycle = jobLifecycle;
+    }
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        sender = new Thread(this::sendLoop, "submission-sender");
+        sender.setDaemon(true);
+        sender.start();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        ExecutorService pool = uploads;
+        if (pool != null) {
+            pool.shutdown();
+            try {
+                pool.awaitTermination(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        running = false;
+        if (sender != null) {
+            sender.interrupt();
+            try {
+                sender.join(TimeUnit.SECONDS.toMillis(5));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        flush();
+    }
+
+    /**
+     * Queues a job message whose source is already inline.
+     */
+    public void enqueue(String jobId, String messageBody) {
+        jobLifecycle.queued(jobId);
+        offer(new PendingMessage(jobId, messageBody));
+    }
+
+    /**
+     * Uploads the source to S3 in the background and then queues the job
+     * message built by {@code messageBody} from the object key.
+     */
+    public void uploadAndEnqueue(String jobId, String s3Key, byte[] source,
+            Function<String, String> messageBody) {
+        jobLifecycle.queued(jobId);
+        uploading.incrementAndGet();
+        uploads().execute(() -> {
+            try {
+                s3Client.putObject(
+                        PutObjectRequest.builder()
+                                .bucket(BUCKET_NAME)
+                                .key(s3Key)
+                                .contentType("text/plain")
+                                .build(),
+                        RequestBody.fromBytes(source));
+                offer(new PendingMessage(jobId, messageBody.apply(s3Key)));
+            } catch (RuntimeException e) {
+                markFailed(jobId, "Failed to upload submission: " + e.getMessage());
+            } finally {
+                uploading.decrementAndGet();
+            }
+        });
+    }
+
+    /**
+     * Sends everything currently buffered.
+     */
+    public void flush() {
+        List<PendingMessage> drained = new ArrayList<>();
+        buffer().drainTo(drained);
+        sendBatches(drained);
+    }
+
+    public PipelineStats getStats() {
+        long batchCount = batches.get();
+        long count = enqueued.get();
+        return new PipelineStats(count, failed.get(), batchCount, buffer().size(), uploading.get(),
+                batchCount == 0 ? 0 : (double) count / (batchCount * SQS_BATCH_SIZE));
+    }
+
+    private void offer(PendingMessage pending) {
+        try {
+            if (!buffer().offer(pending, offerTimeoutMs, TimeUnit.MILLISECONDS)) {
+                System.err.println("Submission buffer full, sending jobId=" + pending.jobId() + " directly");
+                sendDirect(pending);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            sendDirect(pending);
+        }
+    }
+
+    private BlockingQueue<PendingMessage> buffer() {
+        BlockingQueue<PendingMessage> current = buffer;
+        if (current == null) {
+            synchronized (this) {
+                if (buffer == null) {
+                    buffer = new ArrayBlockingQueue<>(Math.max(SQS_BATCH_SIZE, bufferSize));
+                }
+                current = buffer;
+            }
+        }
+        return current;
+    }
+
+    private ExecutorService uploads() {
+        ExecutorService current = uploads;
+        if (current == null) {
+            synchronized (this) {
+                if (uploads == null) {
+                    AtomicInteger threadNumber = new AtomicInteger();
+                    uploads = Executors.newFixedThreadPool(Math.max(1, uploadThreads), r -> {
+                        Thread thread = new Thread(r, "submission-upload-" + threadNumber.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+                }
+                current = uploads;
+            }
+        }
+        return current;
+    }
+
+    /**
+     * Resolves the request queue URL once. The property may hold either the
+     * URL itself or a queue name.
+     */
+    private String queueUrl() {
+        String current = queueUrl;
+        if (current == null) {
+            current = QUEUE_NAME.startsWith("https://") || QUEUE_NAME.startsWith("http://")
+                    ? QUEUE_NAME
+                    : sqsClient.getQueueUrl(builder -> builder.queueName(QUEUE_NAME)).queueUrl();
+            queueUrl = current;
+        }
+        return current;
+    }
+
+    private void sendLoop() {
+        BlockingQueue<PendingMessage> queue = buffer();
+        while (running) {
+            List<PendingMessage> batch = new ArrayList<>(SQS_BATCH_SIZE);
+            try {
+                batch.add(queue.take());
+
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(lingerMs);
+                while (batch.size() < SQS_BATCH_SIZE) {
+                    PendingMessage next = queue.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                sendBatches(batch);
+                return;
+            }
+            try {
+                sendBatches(batch);
+            } catch (RuntimeException e) {
+                System.err.println("Submission sender error: " + e.getMessage());
+            }
+        }
+    }
+
+    private void sendBatches(List<PendingMessage> messages) {
+        List<PendingMessage> remaining = messages;
+        while (!remaining.isEmpty()) {
+            List<PendingMessage> batch = new ArrayList<>(SQS_BATCH_SIZE);
+            List<PendingMessage> leftover = new ArrayList<>();
+            int batchBytes = 0;
+            for (PendingMessage pending : remaining) {
+                int size = pending.body().getBytes(StandardCharsets.UTF_8).length;
+                if (batch.size() == SQS_BATCH_SIZE || (!batch.isEmpty() && batchBytes + size > SQS_BATCH_MAX_BYTES)) {
+                    leftover.add(pending);
+                    continue;
+                }
+                batch.add(pending);
+                batchBytes += size;
+            }
+            sendBatch(batch);
+            remaining = leftover;
+        }
+    }
+
+    private void sendBatch(List<PendingMessage> batch) {
+        List<PendingMessage> toSend = batch;
+        String lastError = null;
+        for (int attempt = 1; attempt <= MAX_SEND_ATTEMPTS && !toSend.isEmpty(); attempt++) {
+            List<SendMessageBatchRequestEntry> entries = new ArrayList<>(toSend.size());
+            for (int i = 0; i < toSend.size(); i++) {
+                entries.add(SendMessageBatchRequestEntry.builder()
+                        .id(String.valueOf(i))
+                        .messageBody(toSend.get(i).body())
+                        .build());
+            }
+
+            List<PendingMessage> retry = new ArrayList<>();
+            try {
+                SendMessageBatchResponse response = sqsClient.sendMessageBatch(SendMessageBatchRequest.builder()
+                        .queueUrl(queueUrl())
+                        .entries(entries)
+                        .build());
+                batches.incrementAndGet();
+
+                for (BatchResultErrorEntry error : response.failed()) {
+                    int index = Integer.parseInt(error.id());
+                    lastError = error.code() + " " + error.message();
+                    if (Boolean.TRUE.equals(error.senderFault())) {
+                        markFailed(toSend.get(index).jobId(), "Failed to enqueue submission: " + lastError);
+                    } else {
+                        retry.add(toSend.get(index));
+                    }
+                }
+                enqueued.addAndGet(toSend.size() - response.failed().size());
+            } catch (SdkException e) {
+                // Covers client-side failures and an unresolvable queue URL as well as service errors
+                System.err.println("Failed to send submission batch to SQS: " + e.getMessage());
+                lastError = e.getMessage();
+                retry.addAll(toSend);
+            }
+            toSend = retry;
+        }
+        for (PendingMessage pending : toSend) {
+            markFailed(pending.jobId(), "Failed to enqueue submission: " + lastError);
+        }
+    }
+
+    private void sendDirect(PendingMessage pending) {
+        try {
+            sqsClient.sendMessage(SendMessageRequest.builder()
+                    .queueUrl(queueUrl())
+                    .messageBody(pending.body())
+                    .build());
+            enqueued.incrementAndGet();
+        } catch (SdkException e) {
+            markFailed(pending.jobId(), "Failed to enqueue submission: " + e.getMessage());
+        }
+    }
+
+    private void markFailed(String jobId, String reason) {
+        failed.incrementAndGet();
+        System.err.println(reason + " (jobId=" + jobId + ")");
+        try {
+            TestResult result = new TestResult();
+            result.setJobId(jobId);
+            result.setStatus(ENQUEUE_FAILED);
+            result.setMessage(reason);
+            testResultRepository.save(result);
+            resultCache.complete(result);
+            jobLifecycle.finished(result, System.currentTimeMillis());
+            resultHub.publish(result);
+        } catch (RuntimeException e) {
+            System.err.println("Failed to record enqueue failure for jobId=" + jobId + ": " + e.getMessage());
+        }
+    }
+
+    private record PendingMessage(String jobId, String body) {
+    }
+
+    public record PipelineStats(long enqueued, long failed, long batches, int buffered, int uploading,
+            double batchFillRatio) {
+    }
+}
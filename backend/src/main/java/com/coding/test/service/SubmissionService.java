@@ -1,104 +1,135 @@
 package com.coding.test.service;
 
+import java.io.ByteArrayOutputStream;
 import java.nio.charset.StandardCharsets;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.util.List;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
 import java.util.UUID;
+import java.util.zip.GZIPOutputStream;
 
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.core.io.ClassPathResource;
 import org.springframework.stereotype.Service;
 
-import com.coding.test.model.Question;
-import com.coding.test.model.TestCase;
-import com.coding.test.repository.QuestionsRepository;
-import com.coding.test.repository.TestCaseRepository;
-import com.coding.test.service.harness.TestHarnessFactory;
-import com.coding.test.service.harness.TestHarnessGenerator;
+import com.coding.test.model.TestResult;
+import com.coding.test.repository.TestResultRepository;
+import com.coding.test.service.harness.HarnessCache;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 
-import software.amazon.awssdk.core.sync.RequestBody;
-import software.amazon.awssdk.services.s3.S3Client;
-import software.amazon.awssdk.services.s3.model.PutObjectRequest;
-import software.amazon.awssdk.services.sqs.SqsClient;
 
 @Service
 public class SubmissionService {
-    private final TestCaseRepository testCaseRepository;
-    private final TestHarnessFactory testHarnessFactory;
-    private final QuestionsRepository questionsRepository;
-    private final S3Client s3Client;
-    private final SqsClient sqsClient;
-
-    @Value("${aws.s3.bucket.name}")
-    private String BUCKET_NAME;
-    @Value("${aws.sqs.request.queue.url}")
-    private String QUEUE_NAME;
-
-    public SubmissionService(TestCaseRepository testCaseRepository,
-            TestHarnessFactory testHarnessFactory,
-            QuestionsRepository questionsRepository,
-            S3Client s3Client,
-            SqsClient sqsClient) {
-        this.testCaseRepository = testCaseRepository;
-        this.testHarnessFactory = testHarnessFactory;
-        this.questionsRepository = questionsRepository;
-        this.s3Client = s3Client;
-        this.sqsClient = sqsClient;
+    private final HarnessCache harnessCache;
+    private final SubmissionPipeline submissionPipeline;
+    private final ResultMemo resultMemo;
+    private final ResultCache resultCache;
+    private final TestResultRepository testResultRepository;
+    private final JobLifecycle jobLifecycle;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Value("${submission.inline.max-bytes:32768}")
+    private int inlineMaxBytes = 32768;
+    @Value("${submission.inline.compress:true}")
+    private boolean inlineCompress = true;
+
+    public SubmissionService(HarnessCache harnessCache, SubmissionPipeline submissionPipeline,
+            ResultMemo resultMemo, ResultCache resultCache, TestResultRepository testResultRepository,
+            JobLifecycle jobLifecycle) {
+        this.harnessCache = harnessCache;
+        this.submissionPipeline = submissionPipeline;
+        this.resultMemo = resultMemo;
+        this.resultCache = resultCache;
+        this.testResultRepository = testResultRepository;
+        this.jobLifecycle = jobLifecycle;
     }
 
+    /**
+     * Validates the submission and renders its harness, then hands the S3
+     * upload and enqueue to the {@link SubmissionPipeline}. The returned job
+     * id is valid immediately; enqueue failures show up as the job's result.
+     * Resubmissions of code that already has a verdict for the current test
+     * suite are answered from the {@link ResultMemo} without dispatching.
+     */
     public String injectUserCode(String userCode, Long questionId, String language) throws Exception {
+        if (userCode == null || userCode.isBlank() || questionId == null || language == null || language.isBlank()) {
+            throw new IllegalArgumentException("code, questionId and language are required");
+        }
         try {
             String jobId = UUID.randomUUID().toString();
 
-            TestHarnessGenerator generator = testHarnessFactory.getGenerator(language);
-
-            Path path = new ClassPathResource("templates/code/" + language.toLowerCase() + "_skeleton.txt")
-                    .getFile()
-                    .toPath();
-            String skeletonCode = Files.readString(path);
-
-            List<TestCase> testCases = testCaseRepository.findByQuestionId(questionId);
-
-            Question question = questionsRepository
-                    .findByQuestionIdAndLanguage(questionId, language)
-                    .orElseThrow(() -> new Exception("Question not found"));
-
-            String methodName = question.getMethodName();
-
-            String testCaseCode = generator.generateTestCode(testCases, methodName);
-
-            String finalCode = skeletonCode
-                    .replace("<<<SIGNATURE_PLACEHOLDER>>>", userCode)
-                    .replace("<<<TEST_CASES_PLACEHOLDER>>>", testCaseCode);
-
-            System.out.println("Final Code after injection:\n" + finalCode);
-
-            String extension = generator.getFileExtension();
-            String fileName = language.equalsIgnoreCase("java") ? "Main" + extension : "main" + extension;
-
-            String s3Key = "submissions/" + jobId + "/" + fileName;
-
-            s3Client.putObject(
-                    PutObjectRequest.builder()
-                            .bucket(BUCKET_NAME)
-                            .key(s3Key)
-                            .contentType("text/plain")
-                            .build(),
-                    RequestBody.fromString(finalCode, StandardCharsets.UTF_8));
-
-            String queueUrl = sqsClient.getQueueUrl(builder -> builder.queueName(QUEUE_NAME)).queueUrl();
-
-            String messageBody = String.format(
-                    "{\"jobId\":\"%s\",\"s3Key\":\"%s\",\"language\":\"%s\"}",
-                    jobId, s3Key, language);
-
-            sqsClient.sendMessage(builder -> builder.queueUrl(queueUrl).messageBody(messageBody));
+            HarnessCache.RenderedHarness harness = harnessCache.get(questionId, language);
+
+            String memoKey = ResultMemo.key(userCode, questionId, language, harness.suiteVersion());
+            Optional<TestResult> memoized = resultMemo.lookup(memoKey, jobId);
+            if (memoized.isPresent()) {
+                testResultRepository.save(memoized.get());
+                resultCache.complete(memoized.get());
+                // Recorded like a dispatched job so lifecycle counts and latencies include memo answers
+                jobLifecycle.queued(jobId);
+                jobLifecycle.finished(memoized.get(), System.currentTimeMillis());
+                return jobId;
+            }
+            resultMemo.track(jobId, memoKey);
+            resultCache.markPending(jobId);
+
+            String finalCode = harness.assemble(userCode);
+            String fileName = harness.fileName();
+
+            Map<String, Object> message = new LinkedHashMap<>();
+            message.put("jobId", jobId);
+            message.put("language", language);
+            message.put("fileName", fileName);
+            if (harness.timeLimitMs() > 0) {
+                message.put("timeLimitMs", harness.timeLimitMs());
+            }
+            if (harness.testDataKey() != null) {
+                message.put("testDataKey", harness.testDataKey());
+            }
+
+            byte[] sourceBytes = finalCode.getBytes(StandardCharsets.UTF_8);
+            if (sourceBytes.length <= inlineMaxBytes) {
+                putInlineSource(message, sourceBytes);
+                submissionPipeline.enqueue(jobId, objectMapper.writeValueAsString(message));
+            } else {
+                String s3Key = "submissions/" + jobId + "/" + fileName;
+                submissionPipeline.uploadAndEnqueue(jobId, s3Key, sourceBytes, key -> {
+                    message.put("s3Key", key);
+                    try {
+                        return objectMapper.writeValueAsString(message);
+                    } catch (JsonProcessingException e) {
+                        throw new IllegalStateException(e);
+                    }
+                });
+            }
 
             return jobId;
-        } catch (java.io.IOException | java.lang.IllegalArgumentException e) {
+        } catch (java.io.IOException e) {
             throw new Exception("Error injecting user code", e);
         }
     }
 
+    /**
+     * Carries small sources in the job message itself so the worker can skip
+     * the S3 round trip. Gzip is only used when it actually shrinks the body,
+     * since base64 adds a third on top of the compressed size.
+     */
+    private void putInlineSource(Map<String, Object> message, byte[] sourceBytes) throws java.io.IOException {
+        if (inlineCompress) {
+            ByteArrayOutputStream compressed = new ByteArrayOutputStream(sourceBytes.length / 2 + 16);
+            try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+                gzip.write(sourceBytes);
+            }
+            String encoded = Base64.getEncoder().encodeToString(compressed.toByteArray());
+            if (encoded.length() < sourceBytes.length) {
+                message.put("source", encoded);
+                message.put("sourceEncoding", "gzip+base64");
+                return;
+            }
+        }
+        message.put("source", new String(sourceBytes, StandardCharsets.UTF_8));
+        message.put("sourceEncoding", "plain");
+    }
+
 }
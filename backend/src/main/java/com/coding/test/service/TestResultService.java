@@ -1,5 +1,7 @@
 package com.coding.test.service;
 
+import java.util.Optional;
+
 import org.springframework.stereotype.Service;
 import com.coding.test.model.TestResult;
 import com.coding.test.repository.TestResultRepository;
@@ -16,4 +18,8 @@ public class TestResultService {
         return testResultRepository.findById(jobId)
                 .orElseThrow(() -> new RuntimeException("Test result not found for jobId: " + jobId));
     }
+
+    public Optional<TestResult> findTestResult(String jobId) {
+        return testResultRepository.findById(jobId);
+    }
 }
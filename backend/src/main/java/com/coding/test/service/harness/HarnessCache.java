@@ -0,0 +1,278 @@
+package com.coding.test.service.harness;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+
+import com.coding.test.model.Question;
+import com.coding.test.repository.QuestionsRepository;
+
+/**
+ * Pre-rendered harnesses per (question, language). The skeleton and the
+ * generated test code are rendered once into the segments before and after
+ * the user's code, so a submission only has to concatenate three strings.
+ * Entries are dropped when the question or its test cases change and are
+ * re-rendered after {@code submission.harness-cache.ttl-ms} to pick up edits
+ * made directly in the database.
+ * <p>
+ * With {@code submission.harness.data-driven} enabled, generators that
+ * support it render only a call into the runner image's precompiled judge,
+ * and the test cases are published to S3 as a data file the worker mounts
+ * next to the code.
+ */
+@Service
+public class HarnessCache {
+    private static final String SIGNATURE_PLACEHOLDER = "<<<SIGNATURE_PLACEHOLDER>>>";
+    private static final String TEST_CASES_PLACEHOLDER = "<<<TEST_CASES_PLACEHOLDER>>>";
+
+    private final TestSuiteStore testSuiteStore;
+    private final QuestionsRepository questionsRepository;
+    private final TestHarnessFactory testHarnessFactory;
+    private final TestDataPublisher testDataPublisher;
+
+    @Value("${submission.harness-cache.ttl-ms:300000}")
+    private long ttlMs = 300000;
+    @Value("${submission.harness-cache.warm-question-ids:}")
+    private String warmQuestionIds = "";
+    @Value("${submission.harness-cache.warm-limit:50}")
+    private int warmLimit = 50;
+    @Value("${submission.harness.data-driven:false}")
+    private boolean dataDriven = false;
+
+    private final Map<String, String> skeletons = new ConcurrentHashMap<>();
+    private final Map<HarnessKey, RenderedHarness> harnesses = new ConcurrentHashMap<>();
+    private final Map<HarnessKey, Object> renderLocks = new ConcurrentHashMap<>();
+    private final AtomicLong generation = new AtomicLong();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong invalidations = new AtomicLong();
+
+    public HarnessCache(TestSuiteStore testSuiteStore, QuestionsRepository questionsRepository,
+            TestHarnessFactory testHarnessFactory, TestDataPublisher testDataPublisher) {
+        this.testSuiteStore = testSuiteStore;
+        this.questionsRepository = questionsRepository;
+        this.testHarnessFactory = testHarnessFactory;
+        this.testDataPublisher = testDataPublisher;
+    }
+
+    /**
+     * Returns the rendered harness for the question, rendering it on first
+     * use. Concurrent misses for the same question render only once.
+     */
+    public RenderedHarness get(Long questionId, String language) throws Exception {
+        HarnessKey key = new HarnessKey(questionId, language.toLowerCase());
+        RenderedHarness cached = harnesses.get(key);
+        if (isFresh(cached)) {
+            hits.incrementAndGet();
+            return cached;
+        }
+        synchronized (renderLocks.computeIfAbsent(key, k -> new Object())) {
+            cached = harnesses.get(key);
+            if (isFresh(cached)) {
+                hits.incrementAndGet();
+                return cached;
+            }
+            misses.incrementAndGet();
+            long renderGeneration = generation.get();
+            RenderedHarness rendered = render(questionId, language);
+            // Skip caching if the suite changed while we were reading it
+            if (generation.get() == renderGeneration) {
+                harnesses.put(key, rendered);
+            }
+            return rendered;
+        }
+    }
+
+    /**
+     * Drops every cached harness for the question, along with its test suite.
+     */
+    public void invalidate(Long questionId) {
+        testSuiteStore.invalidate(questionId);
+        generation.incrementAndGet();
+        invalidations.incrementAndGet();
+        harnesses.keySet().removeIf(key -> key.questionId().equals(questionId));
+    }
+
+    /**
+     * Drops every cached harness and test suite.
+     */
+    public void invalidateAll() {
+        testSuiteStore.invalidateAll();
+        generation.incrementAndGet();
+        invalidations.incrementAndGet();
+        harnesses.clear();
+    }
+
+    /**
+     * Renders the configured questions, or the first
+     * {@code submission.harness-cache.warm-limit} questions when none are
+     * configured, so the first submissions after a deploy do not pay for it.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(1)
+    public void warmUp() {
+        List<Question> questions;
+        Set<Long> configured = parseQuestionIds(warmQuestionIds);
+        if (configured.isEmpty()) {
+            questions = questionsRepository.findAll(PageRequest.of(0, Math.max(1, warmLimit))).getContent();
+        } else {
+            questions = questionsRepository.findAll().stream()
+                    .filter(q -> configured.contains(q.getQuestionId()))
+                    .toList();
+        }
+
+        int warmed = 0;
+        for (Question question : questions) {
+            try {
+                get(question.getQuestionId(), question.getLanguage());
+                warmed++;
+            } catch (Exception e) {
+                System.err.println("Failed to warm harness for question " + question.getQuestionId() + ": "
+                        + e.getMessage());
+            }
+        }
+        System.out.println("Harness cache warmed with " + warmed + " questions");
+    }
+
+    public HarnessCacheStats getStats() {
+        return new HarnessCacheStats(harnesses.size(), hits.get(), misses.get(), invalidations.get());
+    }
+
+    private boolean isFresh(RenderedHarness harness) {
+        return harness != null && System.currentTimeMillis() - harness.renderedAt() < ttlMs;
+    }
+
+    private RenderedHarness render(Long questionId, String language) throws Exception {
+        TestHarnessGenerator generator = testHarnessFactory.getGenerator(language);
+
+        Question question = questionsRepository
+                .findByQuestionIdAndLanguage(questionId, language)
+                .orElseThrow(() -> new Exception("Question not found"));
+        TestSuite suite = testSuiteStore.get(questionId);
+
+        String methodName = question.getMethodName();
+        JudgingPolicy policy = JudgingPolicy.of(question);
+        String version = suiteVersion(methodName, policy, suite);
+
+        String testCaseCode = null;
+        String testDataKey = null;
+        if (dataDriven) {
+            String dataFile = TestDataPublisher.fileName(language, version);
+            try {
+                Optional<TestHarnessGenerator.DataDriven> rendered = generator.generateDataDriven(
+                        suite.toTestCases(), methodName, policy, TestDataPublisher.CONTAINER_DIR + dataFile);
+                if (rendered.isPresent()) {
+                    testDataKey = testDataPublisher.publish(dataFile, rendered.get().testData());
+                    testCaseCode = rendered.get().testCode();
+                }
+            } catch (RuntimeException e) {
+                System.err.println("Failed to publish test data for question " + questionId
+                        + ", inlining test cases: " + e.getMessage());
+            }
+        }
+        if (testCaseCode == null) {
+            testCaseCode = generator.generateTestCode(suite.toTestCases(), methodName, policy);
+        }
+        String rendered = skeleton(language).replace(TEST_CASES_PLACEHOLDER, testCaseCode);
+
+        int split = rendered.indexOf(SIGNATURE_PLACEHOLDER);
+        if (split < 0) {
+            throw new IllegalArgumentException("Skeleton for " + language + " has no signature placeholder");
+        }
+
+        String extension = generator.getFileExtension();
+        String fileName = language.equalsIgnoreCase("java") ? "Main" + extension : "main" + extension;
+
+        return new RenderedHarness(
+                rendered.substring(0, split),
+                rendered.substring(split + SIGNATURE_PLACEHOLDER.length()),
+                fileName,
+                version,
+                policy.timeLimitMs(),
+                testDataKey,
+                System.currentTimeMillis());
+    }
+
+    private String skeleton(String language) throws IOException {
+        String name = "templates/code/" + language.toLowerCase() + "_skeleton.txt";
+        String skeleton = skeletons.get(name);
+        if (skeleton == null) {
+            try (InputStream in = new ClassPathResource(name).getInputStream()) {
+                skeleton = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+            }
+            skeletons.put(name, skeleton);
+        }
+        return skeleton;
+    }
+
+    /**
+     * Content fingerprint of the method name, judging policy and test suite,
+     * so anything keyed by it changes exactly when the verdict could.
+     */
+    static String suiteVersion(String methodName, JudgingPolicy policy, TestSuite suite) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(String.valueOf(methodName).getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            digest.update(policy.toString().getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            digest.update(suite.version().getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest.digest(), 0, 8);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static Set<Long> parseQuestionIds(String value) {
+        Set<Long> ids = new HashSet<>();
+        for (String part : value.split(",")) {
+            if (!part.isBlank()) {
+                ids.add(Long.parseLong(part.trim()));
+            }
+        }
+        return ids;
+    }
+
+    private record HarnessKey(Long questionId, String language) {
+    }
+
+    /**
+     * A harness split around the user's code. {@code timeLimitMs} is the
+     * question's total time limit, or 0 for the worker's default.
+     * {@code testDataKey} is the S3 key of the test data file, or null when
+     * the test cases are inlined in the code.
+     */
+    public record RenderedHarness(String prefix, String suffix, String fileName, String suiteVersion,
+            long timeLimitMs, String testDataKey, long renderedAt) {
+
+        public String assemble(String userCode) {
+            return new StringBuilder(prefix.length() + userCode.length() + suffix.length())
+                    .append(prefix)
+                    .append(userCode)
+                    .append(suffix)
+                    .toString();
+        }
+    }
+
+    public record HarnessCacheStats(int size, long hits, long misses, long invalidations) {
+    }
+}
@@ -0,0 +1,41 @@
+package com.coding.test.service.harness;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+
+import com.coding.test.model.Question;
+import com.coding.test.model.TestCase;
+
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+
+/**
+ * Entity listener on questions and test cases that drops the affected
+ * question's cached harness. The cache is looked up lazily because entity
+ * listeners are created together with the entity manager factory, before the
+ * repositories the cache depends on.
+ */
+@Component
+public class HarnessInvalidationListener {
+    private final ObjectProvider<HarnessCache> harnessCache;
+
+    public HarnessInvalidationListener(ObjectProvider<HarnessCache> harnessCache) {
+        this.harnessCache = harnessCache;
+    }
+
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    public void onChange(Object entity) {
+        HarnessCache cache = harnessCache.getIfAvailable();
+        if (cache == null) {
+            return;
+        }
+        if (entity instanceof TestCase testCase && testCase.getQuestionId() != null) {
+            cache.invalidate(testCase.getQuestionId());
+        } else if (entity instanceof Question question && question.getQuestionId() != null) {
+            cache.invalidate(question.getQuestionId());
+        }
+    }
+}
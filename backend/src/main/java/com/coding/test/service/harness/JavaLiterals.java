@@ -0,0 +1,257 @@
+package com.coding.test.service.harness;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Reads test inputs and expected values written as Java literals: decimal
+ * numbers, booleans, strings, {@code null}, array initializers and
+ * {@code List.of}/{@code Arrays.asList}. Numbers become {@link Long} or
+ * {@link Double}, strings {@link String}, arrays and lists {@link List}; the
+ * runner converts them to the method's parameter types. Anything else, such
+ * as a variable, a constructor call, an octal number or a char literal (which
+ * would pick a different overload or value than a one-letter string), cannot
+ * be shipped as data and yields an empty result.
+ */
+final class JavaLiterals {
+    private static final String[] LIST_FACTORIES = {
+            "java.util.List.of(", "List.of(", "java.util.Arrays.asList(", "Arrays.asList(" };
+    private static final String[] LIST_COPIES = {
+            "new java.util.ArrayList<>(", "new ArrayList<>(", "new java.util.LinkedList<>(", "new LinkedList<>(" };
+
+    private final String text;
+    private int pos;
+
+    private JavaLiterals(String text) {
+        this.text = text;
+    }
+
+    /**
+     * Parses a comma-separated argument list, as used for test inputs.
+     */
+    static Optional<List<Object>> parseArguments(String input) {
+        if (input == null) {
+            return Optional.empty();
+        }
+        JavaLiterals parser = new JavaLiterals(input);
+        try {
+            parser.skipSpace();
+            List<Object> values = parser.atEnd() ? new ArrayList<>() : parser.values(-1);
+            parser.skipSpace();
+            return parser.atEnd() ? Optional.of(values) : Optional.empty();
+        } catch (IllegalArgumentException e) {
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Parses a single value, as used for expected outputs. The result holds
+     * the value, which may itself be {@code null}.
+     */
+    static Optional<List<Object>> parseValue(String expression) {
+        return parseArguments(expression).filter(values -> values.size() == 1);
+    }
+
+    private List<Object> values(int close) {
+        List<Object> values = new ArrayList<>();
+        skipSpace();
+        if (close >= 0 && peek() == close) {
+            pos++;
+            return values;
+        }
+        while (true) {
+            values.add(value());
+            skipSpace();
+            if (atEnd() && close < 0) {
+                return values;
+            }
+            char next = next();
+            if (next == close) {
+                return values;
+            }
+            if (next != ',') {
+                throw new IllegalArgumentException("Unexpected '" + next + "'");
+            }
+            skipSpace();
+            // Array initializers may end with a trailing comma
+            if (close == '}' && peek() == '}') {
+                pos++;
+                return values;
+            }
+        }
+    }
+
+    private Object value() {
+        skipSpace();
+        char c = peek();
+        if (c == '"') {
+            return string();
+        }
+        if (c == '\'') {
+            throw new IllegalArgumentException("Char literals are not supported");
+        }
+        if (c == '{') {
+            pos++;
+            return values('}');
+        }
+        if (c == '-' || c == '+' || c == '.' || Character.isDigit(c)) {
+            return number();
+        }
+        if (consume("null")) {
+            return null;
+        }
+        if (consume("true")) {
+            return Boolean.TRUE;
+        }
+        if (consume("false")) {
+            return Boolean.FALSE;
+        }
+        for (String factory : LIST_FACTORIES) {
+            if (consume(factory)) {
+                return values(')');
+            }
+        }
+        for (String copy : LIST_COPIES) {
+            if (consume(copy)) {
+                skipSpace();
+                Object list = value();
+                skipSpace();
+                if (!(list instanceof List) || next() != ')') {
+                    throw new IllegalArgumentException("Unsupported collection");
+                }
+                return list;
+            }
+        }
+        if (consume("new ")) {
+            // new int[]{...}, new String[][]{{...}}: the element type comes from the method
+            while (!atEnd() && peek() != '{') {
+                char t = next();
+                if (!(Character.isJavaIdentifierPart(t) || t == '[' || t == ']' || t == '.' || t == ' ')) {
+                    throw new IllegalArgumentException("Unsupported array creation");
+                }
+            }
+            if (atEnd()) {
+                throw new IllegalArgumentException("Sized arrays are not supported");
+            }
+            pos++;
+            return values('}');
+        }
+        throw new IllegalArgumentException("Not a literal at " + pos);
+    }
+
+    private Object number() {
+        int start = pos;
+        if (peek() == '-' || peek() == '+') {
+            pos++;
+        }
+        boolean decimal = false;
+        while (!atEnd()) {
+            char c = peek();
+            if (Character.isDigit(c) || c == '_') {
+                pos++;
+            } else if (c == '.' || c == 'e' || c == 'E') {
+                decimal = true;
+                pos++;
+                if ((c == 'e' || c == 'E') && !atEnd() && (peek() == '-' || peek() == '+')) {
+                    pos++;
+                }
+            } else {
+                break;
+            }
+        }
+        String digits = text.substring(start, pos).replace("_", "");
+        String unsigned = digits.replaceFirst("^[-+]", "");
+        if (!decimal && unsigned.length() > 1 && unsigned.startsWith("0")) {
+            // 010 is eight in Java, not ten
+            throw new IllegalArgumentException("Octal numbers are not supported");
+        }
+        if (!atEnd() && "lLdDfF".indexOf(peek()) >= 0) {
+            decimal |= "dDfF".indexOf(next()) >= 0;
+        }
+        if (!atEnd() && Character.isJavaIdentifierPart(peek())) {
+            throw new IllegalArgumentException("Unsupported number");
+        }
+        try {
+            return decimal ? (Object) Double.parseDouble(digits) : (Object) Long.parseLong(digits);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(e);
+        }
+    }
+
+    private String string() {
+        pos++;
+        StringBuilder value = new StringBuilder();
+        while (true) {
+            char c = next();
+            if (c == '"') {
+                return value.toString();
+            }
+            if (c != '\\') {
+                value.append(c);
+                continue;
+            }
+            char escaped = next();
+            switch (escaped) {
+                case 'n' -> value.append('\n');
+                case 't' -> value.append('\t');
+                case 'r' -> value.append('\r');
+                case 'b' -> value.append('\b');
+                case 'f' -> value.append('\f');
+                case '0' -> {
+                    if (!atEnd() && peek() >= '0' && peek() <= '7') {
+                        throw new IllegalArgumentException("Octal escapes are not supported");
+                    }
+                    value.append('\0');
+                }
+                case '1', '2', '3', '4', '5', '6', '7' ->
+                        throw new IllegalArgumentException("Octal escapes are not supported");
+                case 'u' -> {
+                    if (pos + 4 > text.length()) {
+                        throw new IllegalArgumentException("Bad unicode escape");
+                    }
+                    value.append((char) Integer.parseInt(text.substring(pos, pos + 4), 16));
+                    pos += 4;
+                }
+                default -> value.append(escaped);
+            }
+        }
+    }
+
+    private boolean consume(String token) {
+        if (!text.startsWith(token, pos)) {
+            return false;
+        }
+        int end = pos + token.length();
+        // Keywords must not run into an identifier, e.g. "nullValue"
+        if (Character.isJavaIdentifierPart(token.charAt(token.length() - 1)) && end < text.length()
+                && Character.isJavaIdentifierPart(text.charAt(end))) {
+            return false;
+        }
+        pos = end;
+        return true;
+    }
+
+    private void skipSpace() {
+        while (!atEnd() && Character.isWhitespace(peek())) {
+            pos++;
+        }
+    }
+
+    private boolean atEnd() {
+        return pos >= text.length();
+    }
+
+    private char peek() {
+        if (atEnd()) {
+            throw new IllegalArgumentException("Unexpected end");
+        }
+        return text.charAt(pos);
+    }
+
+    private char next() {
+        char c = peek();
+        pos++;
+        return c;
+    }
+}
@@ -1,13 +1,80 @@
 package com.coding.test.service.harness;
 
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 
 import org.springframework.stereotype.Service;
 
 import com.coding.test.model.TestCase;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 
 @Service
 public class JavaTestHarnessGenerator implements TestHarnessGenerator {
+    // Renders an actual value on one line, truncated to 100 characters
+    private static final String DESCRIBE_ACTUAL = """
+            java.util.function.Function<Object, String> describeActual = value -> {
+                String text;
+                if (value instanceof int[] a) text = java.util.Arrays.toString(a);
+                else if (value instanceof long[] a) text = java.util.Arrays.toString(a);
+                else if (value instanceof double[] a) text = java.util.Arrays.toString(a);
+                else if (value instanceof boolean[] a) text = java.util.Arrays.toString(a);
+                else if (value instanceof char[] a) text = java.util.Arrays.toString(a);
+                else if (value instanceof Object[] a) text = java.util.Arrays.deepToString(a);
+                else if (value instanceof String str) text = "\\"" + str + "\\"";
+                else text = String.valueOf(value);
+                if (text.length() > 100) text = text.substring(0, 100) + "...";
+                return text.replace("\\n", "\\\\n").replace("\\r", "\\\\r");
+            };
+            """;
+
+    // Runs one case, on its own daemon thread when there is a time budget so an
+    // overrunning case can be abandoned. Returns null when the budget ran out.
+    private static final String RUN_CASE = """
+            Object[] caseActual = new Object[1];
+            long[] caseElapsed = new long[1];
+            java.util.function.Function<java.util.concurrent.Callable<Boolean>, Boolean> runCase = body -> {
+                Boolean[] outcome = new Boolean[1];
+                Throwable[] error = new Throwable[1];
+                Runnable timed = () -> {
+                    long start = System.nanoTime();
+                    try {
+                        outcome[0] = body.call();
+                    } catch (Throwable t) {
+                        error[0] = t;
+                    }
+                    caseElapsed[0] = System.nanoTime() - start;
+                };
+                if (caseBudgetMs <= 0) {
+                    timed.run();
+                } else {
+                    Thread caseThread = new Thread(timed, "judge-case");
+                    caseThread.setDaemon(true);
+                    long start = System.nanoTime();
+                    caseThread.start();
+                    try {
+                        caseThread.join(caseBudgetMs);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    if (caseThread.isAlive()) {
+                        caseElapsed[0] = System.nanoTime() - start;
+                        return null;
+                    }
+                }
+                if (error[0] instanceof RuntimeException e) throw e;
+                if (error[0] instanceof Error e) throw e;
+                if (error[0] != null) throw new RuntimeException(error[0]);
+                return outcome[0];
+            };
+            """;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
 
     @Override
     public String getLanguage() {
@@ -20,15 +87,25 @@ public class JavaTestHarnessGenerator implements TestHarnessGenerator {
     }
 
     @Override
-    public String generateTestCode(List<TestCase> testCases, String methodName) {
+    public String generateTestCode(List<TestCase> testCases, String methodName, JudgingPolicy policy) {
         StringBuilder testCaseCode = new StringBuilder();
         testCaseCode.append("int passed = 0;\n");
-        testCaseCode.append("int total = ").append(testCases.size()).append(";\n\n");
+        testCaseCode.append("int total = ").append(testCases.size()).append(";\n");
+        testCaseCode.append("long[] caseNanos = new long[total];\n");
+        testCaseCode.append("long caseBudgetMs = ").append(policy.caseTimeLimitMs()).append("L;\n");
+        testCaseCode.append("int stoppedCase = -1;\n");
+        testCaseCode.append("String stopStatus = null;\n");
+        testCaseCode.append("Boolean verdict;\n");
+        testCaseCode.append("long testsStart = System.nanoTime();\n");
+        testCaseCode.append(DESCRIBE_ACTUAL);
+        testCaseCode.append(RUN_CASE).append("\n");
+        testCaseCode.append("cases: {\n");
 
         boolean needsTreeHelper = false;
         boolean needsDeepArrayHelper = false;
 
-        for (TestCase testCase : testCases) {
+        for (int i = 0; i < testCases.size(); i++) {
+            TestCase testCase = testCases.get(i);
             String type = testCase.getExpectedType();
             String input = testCase.getInput();
             String expected = testCase.getExpectedOutput();
@@ -37,45 +114,77 @@ public class JavaTestHarnessGenerator implements TestHarnessGenerator {
 
             switch (type) {
                 case "int", "double", "long", "boolean" -> {
-                    comparisonCode = methodName + "(" + input + ") == " + expected;
+                    comparisonCode = "actual == " + expected;
                 }
                 case "String" -> {
-                    comparisonCode = methodName + "(" + input + ").equals(" + expected + ")";
+                    comparisonCode = "actual.equals(" + expected + ")";
                 }
                 case "int[]", "double[]" -> {
                     needsDeepArrayHelper = true;
-                    comparisonCode = "arraysEqual(" + methodName + "(" + input + "), " + expected + ")";
+                    comparisonCode = "arraysEqual(actual, " + expected + ")";
                 }
                 case "String[]", "Object[]" -> {
                     needsDeepArrayHelper = true;
-                    comparisonCode = "java.util.Arrays.deepEquals(" + methodName + "(" + input + "), " + expected + ")";
+                    comparisonCode = "java.util.Arrays.deepEquals(actual, " + expected + ")";
                 }
                 case "List<Integer>", "List<String>", "ArrayList", "LinkedList", "Queue", "Map" -> {
-                    comparisonCode = methodName + "(" + input + ").equals(" + expected + ")";
+                    comparisonCode = "actual.equals(" + expected + ")";
                 }
                 case "TreeNode" -> {
                     needsTreeHelper = true;
-                    comparisonCode = "isSameTree(" + methodName + "(" + input + "), " + expected + ")";
+                    comparisonCode = "isSameTree(actual, " + expected + ")";
                 }
                 default -> {
-                    comparisonCode = methodName + "(" + input + ").equals(" + expected + ")";
+                    comparisonCode = "actual.equals(" + expected + ")";
                 }
             }
 
-            String ifLine = "        if (" + comparisonCode + ") {\n";
-            String failLine = "            System.out.println(\"Test case failed: Input: " + input + ", Expected: "
-                    + expected + "\");\n";
-            testCaseCode.append(ifLine)
+            // One @@CASE record per case: index, P or F, elapsed nanoseconds, actual value.
+            // A case over its budget stops the run, and so does a failure when failing fast.
+            testCaseCode.append("        verdict = runCase.apply(() -> {\n")
+                    .append("            var actual = ").append(methodName).append("(").append(input).append(");\n")
+                    .append("            caseActual[0] = actual;\n")
+                    .append("            return ").append(comparisonCode).append(";\n")
+                    .append("        });\n")
+                    .append("        caseNanos[").append(i).append("] = caseElapsed[0];\n")
+                    .append("        if (verdict == null) {\n")
+                    .append("            System.out.println(\"@@CASE ").append(i).append(" F \" + caseNanos[").append(i)
+                    .append("] + \" <time limit exceeded>\");\n")
+                    .append("            stoppedCase = ").append(i).append(";\n")
+                    .append("            stopStatus = \"time_limit_exceeded\";\n")
+                    .append("            break cases;\n")
+                    .append("        }\n")
+                    .append("        if (verdict) {\n")
                     .append("            passed++;\n")
-                    .append("        } else {\n")
-                    .append(failLine)
-                    .append("        }\n");
+                    .append("        }\n")
+                    .append("        System.out.println(\"@@CASE ").append(i).append(" \" + (verdict ? \"P \" : \"F \") + caseNanos[")
+                    .append(i).append("] + \" \" + describeActual.apply(caseActual[0]));\n");
+            if (policy.failFast()) {
+                testCaseCode.append("        if (!verdict) {\n")
+                        .append("            stoppedCase = ").append(i).append(";\n")
+                        .append("            stopStatus = \"failed\";\n")
+                        .append("            break cases;\n")
+                        .append("        }\n");
+            }
         }
+        testCaseCode.append("}\n");
 
         testCaseCode.append("""
+                long testNanos = System.nanoTime() - testsStart;
+                int casesRun = stoppedCase < 0 ? total : stoppedCase + 1;
+                StringBuilder caseTimes = new StringBuilder();
+                for (int i = 0; i < casesRun; i++) {
+                    caseTimes.append(i == 0 ? "" : ",").append(Math.round(caseNanos[i] / 1000.0) / 1000.0);
+                }
+                String status = stopStatus != null ? stopStatus : passed == total ? "success" : "failed";
+                String stopMessage = stoppedCase < 0 ? "" : ",\\"message\\":\\""
+                        + ("failed".equals(stopStatus) ? "Wrong answer" : "Time limit exceeded")
+                        + " on case " + (stoppedCase + 1) + "\\"";
                 System.out.println("RESULT:{\\"passed\\":" + passed + "," +
                         "\\"total\\":" + total + "," +
-                        "\\"status\\":\\"" + (passed == total ? "success" : "failed") + "\\"}");
+                        "\\"status\\":\\"" + status + "\\"" + stopMessage + "," +
+                        "\\"testTimeMs\\":" + Math.round(testNanos / 1000.0) / 1000.0 + "," +
+                        "\\"caseTimesMs\\":[" + caseTimes + "]}");
                 """);
 
         if (needsTreeHelper) {
@@ -100,4 +209,43 @@ public class JavaTestHarnessGenerator implements TestHarnessGenerator {
         return testCaseCode.toString();
     }
 
+    /**
+     * Writes the cases as JSON lines for the runner image's precompiled
+     * {@code JudgeRunner}: a header with the method name and judging policy,
+     * then one {@code [[args...], expected]} line per case. The generated
+     * code only hands {@code Main} and the data path to the runner, so its
+     * size no longer grows with the suite.
+     */
+    @Override
+    public Optional<DataDriven> generateDataDriven(List<TestCase> testCases, String methodName,
+            JudgingPolicy policy, String dataPath) {
+        try {
+            ByteArrayOutputStream data = new ByteArrayOutputStream();
+            Map<String, Object> header = new LinkedHashMap<>();
+            header.put("method", methodName);
+            header.put("failFast", policy.failFast());
+            header.put("caseBudgetMs", policy.caseTimeLimitMs());
+            header.put("cases", testCases.size());
+            writeLine(data, header);
+
+            for (TestCase testCase : testCases) {
+                Optional<List<Object>> args = JavaLiterals.parseArguments(testCase.getInput());
+                Optional<List<Object>> expected = JavaLiterals.parseValue(testCase.getExpectedOutput());
+                if (args.isEmpty() || expected.isEmpty()) {
+                    return Optional.empty();
+                }
+                writeLine(data, Arrays.asList(args.get(), expected.get().get(0)));
+            }
+
+            String testCode = "JudgeRunner.run(Main.class, " + objectMapper.writeValueAsString(dataPath) + ");\n";
+            return Optional.of(new DataDriven(testCode, data.toByteArray()));
+        } catch (JsonProcessingException e) {
+            return Optional.empty();
+        }
+    }
+
+    private void writeLine(ByteArrayOutputStream data, Object value) throws JsonProcessingException {
+        data.writeBytes(objectMapper.writeValueAsString(value).getBytes(StandardCharsets.UTF_8));
+        data.write('\n');
+    }
 }
@@ -0,0 +1,25 @@
+package com.coding.test.service.harness;
+
+import com.coding.test.model.Question;
+
+/**
+ * How a question's harness judges a submission. With {@code failFast} the
+ * harness stops at the first failing case; a case that runs longer than
+ * {@code caseTimeLimitMs} always stops it with a time limit verdict.
+ * {@code timeLimitMs} bounds the whole run on the worker. Zero limits mean
+ * no per-case budget and the worker's default total.
+ */
+public record JudgingPolicy(boolean failFast, long caseTimeLimitMs, long timeLimitMs) {
+    public static final JudgingPolicy DEFAULT = new JudgingPolicy(false, 0, 0);
+
+    public static JudgingPolicy of(Question question) {
+        return new JudgingPolicy(
+                Boolean.TRUE.equals(question.getFailFast()),
+                positive(question.getCaseTimeLimitMs()),
+                positive(question.getTimeLimitMs()));
+    }
+
+    private static long positive(Integer value) {
+        return value == null ? 0 : Math.max(0, value);
+    }
+}
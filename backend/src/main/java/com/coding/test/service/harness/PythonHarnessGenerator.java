@@ -8,6 +8,42 @@ import com.coding.test.model.TestCase;
 
 @Service
 public class PythonHarnessGenerator implements TestHarnessGenerator {
+    // Renders an actual value on one line, truncated to 100 characters
+    private static final String DESCRIBE_ACTUAL = """
+                def _judge_describe(value):
+                    text = repr(value)
+                    if len(text) > 100:
+                        text = text[:100] + "..."
+                    return text.replace("\\n", "\\\\n").replace("\\r", "\\\\r")
+
+            """;
+
+    // Runs one case under an interval timer when there is a time budget.
+    // Returns (actual, timed_out); the outer try also catches an alarm that
+    // lands while the timer is being disarmed.
+    private static final String RUN_CASE = """
+                import signal as _judge_signal
+
+                class _JudgeCaseTimeout(BaseException):
+                    pass
+
+                def _judge_on_alarm(signum, frame):
+                    raise _JudgeCaseTimeout()
+
+                def _judge_run(case):
+                    try:
+                        try:
+                            if case_budget_s > 0:
+                                _judge_signal.signal(_judge_signal.SIGALRM, _judge_on_alarm)
+                                _judge_signal.setitimer(_judge_signal.ITIMER_REAL, case_budget_s)
+                            return case(), False
+                        finally:
+                            if case_budget_s > 0:
+                                _judge_signal.setitimer(_judge_signal.ITIMER_REAL, 0)
+                    except _JudgeCaseTimeout:
+                        return None, True
+
+            """;
 
     @Override
     public String getLanguage() {
@@ -20,25 +56,56 @@ public class PythonHarnessGenerator implements TestHarnessGenerator {
     }
 
     @Override
-    public String generateTestCode(List<TestCase> testCases, String methodName) {
+    public String generateTestCode(List<TestCase> testCases, String methodName, JudgingPolicy policy) {
         StringBuilder code = new StringBuilder();
+        code.append("    import time as _judge_time\n");
         code.append("    passed = 0\n");
-        code.append("    total = ").append(testCases.size()).append("\n\n");
+        code.append("    total = ").append(testCases.size()).append("\n");
+        code.append("    case_times_ms = []\n");
+        code.append("    case_budget_s = ").append(policy.caseTimeLimitMs() / 1000.0).append("\n");
+        code.append("    stopped = None\n");
+        code.append(DESCRIBE_ACTUAL);
+        code.append(RUN_CASE);
+        code.append("    tests_start = _judge_time.perf_counter()\n\n");
 
-        for (TestCase testCase : testCases) {
+        for (int i = 0; i < testCases.size(); i++) {
+            TestCase testCase = testCases.get(i);
             String input = testCase.getInput();
             String expected = testCase.getExpectedOutput();
 
-            code.append("    if ").append(methodName).append("(").append(input).append(") == ").append(expected)
-                    .append(":\n")
-                    .append("        passed += 1\n")
-                    .append("    else:\n")
-                    .append("        print(f\"Test case failed: Input: ").append(input)
-                    .append(", Expected: ").append(expected).append("\")\n\n");
+            // One @@CASE record per case: index, P or F, elapsed nanoseconds, actual value.
+            // A case over its budget stops the run, and so does a failure when failing fast.
+            code.append("    if stopped is None:\n")
+                    .append("        case_start = _judge_time.perf_counter_ns()\n")
+                    .append("        actual, timed_out = _judge_run(lambda: ").append(methodName).append("(").append(input).append("))\n")
+                    .append("        ok = not timed_out and actual == ").append(expected).append("\n")
+                    .append("        case_ns = _judge_time.perf_counter_ns() - case_start\n")
+                    .append("        case_times_ms.append(round(case_ns / 1e6, 3))\n")
+                    .append("        if timed_out:\n")
+                    .append("            print(f\"@@CASE ").append(i).append(" F {case_ns} <time limit exceeded>\")\n")
+                    .append("            stopped = (").append(i).append(", \"time_limit_exceeded\")\n")
+                    .append("        else:\n")
+                    .append("            if ok:\n")
+                    .append("                passed += 1\n")
+                    .append("            print(f\"@@CASE ").append(i)
+                    .append(" {'P' if ok else 'F'} {case_ns} {_judge_describe(actual)}\")\n");
+            if (policy.failFast()) {
+                code.append("            if not ok:\n")
+                        .append("                stopped = (").append(i).append(", \"failed\")\n");
+            }
+            code.append("\n");
         }
 
-        code.append("    status = \"success\" if passed == total else \"failed\"\n");
-        code.append("    print(f'RESULT:{{\"passed\":{passed},\"total\":{total},\"status\":\"{status}\"}}')\n");
+        code.append("    test_time_ms = round((_judge_time.perf_counter() - tests_start) * 1000, 3)\n");
+        code.append("    if stopped is None:\n");
+        code.append("        status = \"success\" if passed == total else \"failed\"\n");
+        code.append("        stop_message = \"\"\n");
+        code.append("    else:\n");
+        code.append("        status = stopped[1]\n");
+        code.append("        reason = \"Wrong answer\" if status == \"failed\" else \"Time limit exceeded\"\n");
+        code.append("        stop_message = f',\"message\":\"{reason} on case {stopped[0] + 1}\"'\n");
+        code.append("    print(f'RESULT:{{\"passed\":{passed},\"total\":{total},\"status\":\"{status}\"{stop_message},'\n");
+        code.append("          f'\"testTimeMs\":{test_time_ms},\"caseTimesMs\":[{\",\".join(map(str, case_times_ms))}]}}')\n");
 
         return code.toString();
     }
@@ -0,0 +1,59 @@
+package com.coding.test.service.harness;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+
+/**
+ * Uploads data-driven test suites to S3 under {@code test-data/}, where the
+ * workers fetch them from. Files are named by suite version, so each is
+ * written once and never changes.
+ */
+@Service
+public class TestDataPublisher {
+    public static final String KEY_PREFIX = "test-data/";
+    /** Where workers mount their test data cache inside the runner container. */
+    public static final String CONTAINER_DIR = "/judge/data/";
+
+    private final S3Client s3Client;
+    private final Set<String> published = ConcurrentHashMap.newKeySet();
+
+    @Value("${aws.s3.bucket.name}")
+    private String bucketName;
+
+    public TestDataPublisher(S3Client s3Client) {
+        this.s3Client = s3Client;
+    }
+
+    public static String fileName(String language, String suiteVersion) {
+        return language.toLowerCase() + "-" + suiteVersion + ".jsonl";
+    }
+
+    /**
+     * Uploads the file unless this instance already has, and returns its key.
+     */
+    public String publish(String fileName, byte[] data) {
+        String key = KEY_PREFIX + fileName;
+        if (published.add(key)) {
+            try {
+                s3Client.putObject(
+                        PutObjectRequest.builder()
+                                .bucket(bucketName)
+                                .key(key)
+                                .contentType("application/x-ndjson")
+                                .build(),
+                        RequestBody.fromBytes(data));
+            } catch (RuntimeException e) {
+                published.remove(key);
+                throw e;
+            }
+        }
+        return key;
+    }
+}
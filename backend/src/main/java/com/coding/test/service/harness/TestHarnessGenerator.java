@@ -1,6 +1,7 @@
 package com.coding.test.service.harness;
 
 import java.util.List;
+import java.util.Optional;
 
 import org.springframework.stereotype.Service;
 
@@ -9,5 +10,23 @@ import com.coding.test.model.TestCase;
 public interface TestHarnessGenerator {
     String getLanguage();
     String getFileExtension();
-    String generateTestCode(List<TestCase> testCases, String methodName);
+    String generateTestCode(List<TestCase> testCases, String methodName, JudgingPolicy policy);
+
+    default String generateTestCode(List<TestCase> testCases, String methodName) {
+        return generateTestCode(testCases, methodName, JudgingPolicy.DEFAULT);
+    }
+
+    /**
+     * Renders test code that loads the cases from {@code dataPath} inside the
+     * runner container instead of compiling them in, along with the data to
+     * put there. Empty if the language has no precompiled runner or a case
+     * cannot be expressed as data.
+     */
+    default Optional<DataDriven> generateDataDriven(List<TestCase> testCases, String methodName,
+            JudgingPolicy policy, String dataPath) {
+        return Optional.empty();
+    }
+
+    record DataDriven(String testCode, byte[] testData) {
+    }
 }
@@ -0,0 +1,181 @@
+package com.coding.test.service.harness;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.function.UnaryOperator;
+
+import com.coding.test.model.TestCase;
+
+/**
+ * Immutable, compact copy of a question's test cases. Inputs and expected
+ * outputs live back to back in one string addressed by offsets, expected
+ * types are indexes into a small table of interned tags, and the suite
+ * carries a content hash as its version.
+ */
+public final class TestSuite {
+    private static final int FIELDS = 2;
+    private static final int MAX_TYPES = 256;
+
+    private final Long questionId;
+    private final long[] ids;
+    private final String data;
+    private final int[] offsets;
+    private final BitSet nulls;
+    private final String[] typeTable;
+    private final byte[] typeIndexes;
+    private final String version;
+
+    private TestSuite(Long questionId, long[] ids, String data, int[] offsets, BitSet nulls, String[] typeTable,
+            byte[] typeIndexes, String version) {
+        this.questionId = questionId;
+        this.ids = ids;
+        this.data = data;
+        this.offsets = offsets;
+        this.nulls = nulls;
+        this.typeTable = typeTable;
+        this.typeIndexes = typeIndexes;
+        this.version = version;
+    }
+
+    /**
+     * Packs the cases, passing each expected type through {@code intern} so
+     * suites share one instance per tag.
+     */
+    static TestSuite of(Long questionId, List<TestCase> testCases, UnaryOperator<String> intern) {
+        int size = testCases.size();
+        long[] ids = new long[size];
+        int[] offsets = new int[size * FIELDS + 1];
+        BitSet nulls = new BitSet();
+        byte[] typeIndexes = new byte[size];
+        List<String> types = new ArrayList<>();
+        Map<String, Integer> typeLookup = new HashMap<>();
+        StringBuilder data = new StringBuilder();
+
+        for (int i = 0; i < size; i++) {
+            TestCase testCase = testCases.get(i);
+            ids[i] = testCase.getId() == null ? -1 : testCase.getId();
+
+            String[] fields = { testCase.getInput(), testCase.getExpectedOutput() };
+            for (int f = 0; f < FIELDS; f++) {
+                offsets[i * FIELDS + f] = data.length();
+                if (fields[f] == null) {
+                    nulls.set(i * FIELDS + f);
+                } else {
+                    data.append(fields[f]);
+                }
+            }
+
+            String type = testCase.getExpectedType() == null ? null : intern.apply(testCase.getExpectedType());
+            Integer index = typeLookup.get(type);
+            if (index == null) {
+                if (types.size() == MAX_TYPES) {
+                    throw new IllegalStateException("Question " + questionId + " uses more than " + MAX_TYPES
+                            + " expected types");
+                }
+                index = types.size();
+                types.add(type);
+                typeLookup.put(type, index);
+            }
+            typeIndexes[i] = (byte) index.intValue();
+        }
+        offsets[size * FIELDS] = data.length();
+
+        return new TestSuite(questionId, ids, data.toString(), offsets, nulls, types.toArray(new String[0]),
+                typeIndexes, fingerprint(testCases));
+    }
+
+    public Long getQuestionId() {
+        return questionId;
+    }
+
+    public int size() {
+        return ids.length;
+    }
+
+    public Long id(int index) {
+        return ids[index] < 0 ? null : ids[index];
+    }
+
+    public String input(int index) {
+        return field(index, 0);
+    }
+
+    public String expectedOutput(int index) {
+        return field(index, 1);
+    }
+
+    public String expectedType(int index) {
+        return typeTable[Byte.toUnsignedInt(typeIndexes[index])];
+    }
+
+    /**
+     * Content hash of the cases; changes exactly when the suite does.
+     */
+    public String version() {
+        return version;
+    }
+
+    /**
+     * Rough retained size, for keeping the whole catalog resident.
+     */
+    public long estimatedBytes() {
+        return 64L + 16 + data.length() * 2L
+                + 16 + ids.length * 8L
+                + 16 + offsets.length * 4L
+                + 16 + typeIndexes.length
+                + 16 + typeTable.length * 8L
+                + 32 + nulls.size() / 8;
+    }
+
+    /**
+     * Transient {@link TestCase} views for the harness generators.
+     */
+    public List<TestCase> toTestCases() {
+        List<TestCase> testCases = new ArrayList<>(size());
+        for (int i = 0; i < size(); i++) {
+            TestCase testCase = new TestCase();
+            testCase.setId(id(i));
+            testCase.setQuestionId(questionId);
+            testCase.setInput(input(i));
+            testCase.setExpectedOutput(expectedOutput(i));
+            testCase.setExpectedType(expectedType(i));
+            testCases.add(testCase);
+        }
+        return testCases;
+    }
+
+    private String field(int index, int field) {
+        int position = index * FIELDS + field;
+        if (nulls.get(position)) {
+            return null;
+        }
+        return data.substring(offsets[position], offsets[position + 1]);
+    }
+
+    private static String fingerprint(List<TestCase> testCases) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            for (TestCase testCase : testCases) {
+                update(digest, String.valueOf(testCase.getId()));
+                update(digest, testCase.getInput());
+                update(digest, testCase.getExpectedOutput());
+                update(digest, testCase.getExpectedType());
+            }
+            return HexFormat.of().formatHex(digest.digest(), 0, 8);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void update(MessageDigest digest, String value) {
+        digest.update(String.valueOf(value).getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) 0);
+    }
+}
@@ -0,0 +1,158 @@
+package com.coding.test.service.harness;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Service;
+
+import com.coding.test.model.TestCase;
+import com.coding.test.repository.TestCaseRepository;
+
+/**
+ * Read-optimized copy of every question's test cases as {@link TestSuite}s.
+ * Suites are loaded once, per question on first use or for the whole catalog
+ * with {@link #reloadAll()}, and dropped when a test case changes, so the
+ * submit path never materializes {@link TestCase} entities. Like rendered
+ * harnesses, suites are reloaded after {@code submission.harness-cache.ttl-ms}
+ * to pick up edits made directly in the database.
+ */
+@Service
+public class TestSuiteStore {
+    private static final Comparator<TestCase> CASE_ORDER = Comparator.comparing(TestCase::getId,
+            Comparator.nullsLast(Comparator.naturalOrder()));
+
+    private final TestCaseRepository testCaseRepository;
+
+    @Value("${submission.test-suite-store.preload:true}")
+    private boolean preload = true;
+    @Value("${submission.harness-cache.ttl-ms:300000}")
+    private long ttlMs = 300000;
+
+    private volatile Map<Long, StoredSuite> suites = new ConcurrentHashMap<>();
+    private final Map<Long, Object> loadLocks = new ConcurrentHashMap<>();
+    private final Map<String, String> typeTags = new ConcurrentHashMap<>();
+    private final AtomicLong generation = new AtomicLong();
+
+    private final AtomicLong loads = new AtomicLong();
+    private final AtomicLong reloads = new AtomicLong();
+
+    public TestSuiteStore(TestCaseRepository testCaseRepository) {
+        this.testCaseRepository = testCaseRepository;
+    }
+
+    /**
+     * Returns the question's suite, loading it on first use.
+     */
+    public TestSuite get(Long questionId) {
+        StoredSuite stored = suites.get(questionId);
+        if (isFresh(stored)) {
+            return stored.suite();
+        }
+        synchronized (loadLocks.computeIfAbsent(questionId, k -> new Object())) {
+            stored = suites.get(questionId);
+            if (isFresh(stored)) {
+                return stored.suite();
+            }
+            long loadGeneration = generation.get();
+            TestSuite suite = pack(questionId, new ArrayList<>(testCaseRepository.findByQuestionId(questionId)));
+            loads.incrementAndGet();
+            // Skip caching if the suite changed while we were reading it
+            if (generation.get() == loadGeneration) {
+                suites.put(questionId, new StoredSuite(suite, System.currentTimeMillis()));
+            }
+            return suite;
+        }
+    }
+
+    public void invalidate(Long questionId) {
+        generation.incrementAndGet();
+        suites.remove(questionId);
+    }
+
+    public void invalidateAll() {
+        generation.incrementAndGet();
+        suites.clear();
+    }
+
+    /**
+     * Loads every test case in one query and replaces the whole store.
+     *
+     * @return the number of questions loaded
+     */
+    public int reloadAll() {
+        long reloadGeneration = generation.get();
+        Map<Long, List<TestCase>> byQuestion = new HashMap<>();
+        for (TestCase testCase : testCaseRepository.findAll()) {
+            if (testCase.getQuestionId() != null) {
+                byQuestion.computeIfAbsent(testCase.getQuestionId(), k -> new ArrayList<>()).add(testCase);
+            }
+        }
+
+        long loadedAt = System.currentTimeMillis();
+        Map<Long, StoredSuite> loaded = new ConcurrentHashMap<>();
+        byQuestion.forEach((questionId, testCases) -> loaded.put(questionId,
+                new StoredSuite(pack(questionId, testCases), loadedAt)));
+
+        if (generation.get() != reloadGeneration) {
+            System.err.println("Test cases changed during reload, keeping lazily loaded suites");
+            return 0;
+        }
+        suites = loaded;
+        reloads.incrementAndGet();
+        TestSuiteStoreStats stats = getStats();
+        System.out.println("Test suite store loaded " + stats.questions() + " questions, " + stats.testCases()
+                + " test cases, ~" + stats.estimatedBytes() / 1024 + " KB");
+        return loaded.size();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(0)
+    public void preload() {
+        if (!preload) {
+            return;
+        }
+        try {
+            reloadAll();
+        } catch (RuntimeException e) {
+            System.err.println("Failed to preload test suites: " + e.getMessage());
+        }
+    }
+
+    public TestSuiteStoreStats getStats() {
+        int questions = 0;
+        long testCases = 0;
+        long bytes = 0;
+        for (StoredSuite stored : suites.values()) {
+            TestSuite suite = stored.suite();
+            questions++;
+            testCases += suite.size();
+            bytes += suite.estimatedBytes();
+        }
+        return new TestSuiteStoreStats(questions, testCases, bytes, typeTags.size(), loads.get(), reloads.get());
+    }
+
+    private boolean isFresh(StoredSuite stored) {
+        return stored != null && System.currentTimeMillis() - stored.loadedAt() < ttlMs;
+    }
+
+    private TestSuite pack(Long questionId, List<TestCase> testCases) {
+        testCases.sort(CASE_ORDER);
+        return TestSuite.of(questionId, testCases, tag -> typeTags.computeIfAbsent(tag, t -> t));
+    }
+
+    private record StoredSuite(TestSuite suite, long loadedAt) {
+    }
+
+    public record TestSuiteStoreStats(int questions, long testCases, long estimatedBytes, int typeTags,
+            long loads, long reloads) {
+    }
+}
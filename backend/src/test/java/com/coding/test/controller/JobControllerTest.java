@@ -0,0 +1,74 @@
+package com.coding.test.controller;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import org.mockito.MockitoAnnotations;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import com.coding.test.model.JobLifecycleEntry;
+import com.coding.test.service.JobLifecycle;
+
+class JobControllerTest {
+
+    @Mock
+    private JobLifecycle jobLifecycle;
+
+    @InjectMocks
+    private JobController jobController;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+    }
+
+    @Test
+    void getJob_ReturnsLifecycle_WhenKnown() {
+        // Arrange
+        JobLifecycleEntry entry = new JobLifecycleEntry();
+        entry.setJobId("job-1");
+        when(jobLifecycle.find("job-1")).thenReturn(Optional.of(entry));
+
+        // Act
+        ResponseEntity<JobLifecycleEntry> response = jobController.getJob("job-1");
+
+        // Assert
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertSame(entry, response.getBody());
+    }
+
+    @Test
+    void getJob_ReturnsNotFound_WhenUnknown() {
+        // Arrange
+        when(jobLifecycle.find("missing")).thenReturn(Optional.empty());
+
+        // Act
+        ResponseEntity<JobLifecycleEntry> response = jobController.getJob("missing");
+
+        // Assert
+        assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
+    }
+
+    @Test
+    void getStageLatencies_ClampsWindow() {
+        // Arrange
+        List<JobLifecycle.StageLatency> stages = List.of(new JobLifecycle.StageLatency("queue_wait", 3, 10, 20, 30, 40));
+        when(jobLifecycle.getStageLatencies(60_000)).thenReturn(stages);
+
+        // Act
+        List<JobLifecycle.StageLatency> response = jobController.getStageLatencies(0);
+
+        // Assert
+        assertSame(stages, response);
+        verify(jobLifecycle).getStageLatencies(60_000);
+    }
+}
@@ -6,15 +6,22 @@ import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import org.mockito.MockitoAnnotations;
 
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.context.request.ServletWebRequest;
+
 import com.coding.test.model.Question;
+import com.coding.test.model.QuestionSummaryPage;
 import com.coding.test.service.QuestionsService;
 
 public class QuestionsControllerTest {
@@ -48,7 +55,7 @@ public class QuestionsControllerTest {
     void testGetAllQuestions() {
         when(questionsService.getAllQuestions("java")).thenReturn(questionList);
         
-        List<Question> response = questionsController.getAllQuestions("java");
+        List<Question> response = questionsController.getAllQuestions("java", webRequest());
         
         assertEquals(2, response.size());
         assertEquals("Java Question", response.get(0).getTitle());
@@ -62,7 +69,7 @@ public class QuestionsControllerTest {
         List<Question> pythonQuestions = Arrays.asList(question2);
         when(questionsService.getAllQuestions("python")).thenReturn(pythonQuestions);
         
-        List<Question> response = questionsController.getAllQuestions("python");
+        List<Question> response = questionsController.getAllQuestions("python", webRequest());
         
         assertEquals(1, response.size());
         assertEquals("Python Question", response.get(0).getTitle());
@@ -74,7 +81,7 @@ public class QuestionsControllerTest {
     void testGetQuestionById() {
         when(questionsService.getQuestionById(1L, "java")).thenReturn(Optional.of(question1));
         
-        Question response = questionsController.getQuestionById(1L, "java");
+        Question response = questionsController.getQuestionById(1L, "java", webRequest());
         
         assertNotNull(response);
         assertEquals(question1, response);
@@ -87,7 +94,7 @@ public class QuestionsControllerTest {
     void testGetQuestionByIdWithLanguage() {
         when(questionsService.getQuestionById(2L, "python")).thenReturn(Optional.of(question2));
         
-        Question response = questionsController.getQuestionById(2L, "python");
+        Question response = questionsController.getQuestionById(2L, "python", webRequest());
         
         assertNotNull(response);
         assertEquals(question2, response);
@@ -102,10 +109,67 @@ public class QuestionsControllerTest {
         
         RuntimeException exception = org.junit.jupiter.api.Assertions.assertThrows(
             RuntimeException.class,
-            () -> questionsController.getQuestionById(99L, "java")
+            () -> questionsController.getQuestionById(99L, "java", webRequest())
         );
         
         assertEquals("Question not found", exception.getMessage());
         verify(questionsService).getQuestionById(99L, "java");
     }
+
+    @Test
+    void testGetAllQuestionsSetsETag() {
+        when(questionsService.getCatalogETag("java")).thenReturn("\"abc\"");
+        when(questionsService.getAllQuestions("java")).thenReturn(questionList);
+        MockHttpServletResponse servletResponse = new MockHttpServletResponse();
+
+        List<Question> response = questionsController.getAllQuestions("java",
+                new ServletWebRequest(new MockHttpServletRequest("GET", "/api/questions"), servletResponse));
+
+        assertEquals(2, response.size());
+        assertEquals("\"abc\"", servletResponse.getHeader("ETag"));
+    }
+
+    @Test
+    void testGetAllQuestionsNotModified() {
+        when(questionsService.getCatalogETag("java")).thenReturn("\"abc\"");
+        MockHttpServletRequest servletRequest = new MockHttpServletRequest("GET", "/api/questions");
+        servletRequest.addHeader("If-None-Match", "\"abc\"");
+        MockHttpServletResponse servletResponse = new MockHttpServletResponse();
+
+        List<Question> response = questionsController.getAllQuestions("java",
+                new ServletWebRequest(servletRequest, servletResponse));
+
+        assertNull(response);
+        assertEquals(304, servletResponse.getStatus());
+        verify(questionsService, never()).getAllQuestions("java");
+    }
+
+    @Test
+    void testGetQuestionByIdNotModified() {
+        when(questionsService.getQuestionETag(1L, "java")).thenReturn("\"q1\"");
+        MockHttpServletRequest servletRequest = new MockHttpServletRequest("GET", "/api/questions/1");
+        servletRequest.addHeader("If-None-Match", "\"q1\"");
+        MockHttpServletResponse servletResponse = new MockHttpServletResponse();
+
+        Question response = questionsController.getQuestionById(1L, "java",
+                new ServletWebRequest(servletRequest, servletResponse));
+
+        assertNull(response);
+        assertEquals(304, servletResponse.getStatus());
+    }
+
+    @Test
+    void testGetQuestionSummaries() {
+        QuestionSummaryPage page = new QuestionSummaryPage(List.of(), null);
+        when(questionsService.getQuestionSummaries("java", "graphs", 10L, 20)).thenReturn(page);
+
+        QuestionSummaryPage response = questionsController.getQuestionSummaries("java", "graphs", 10L, 20);
+
+        assertEquals(page, response);
+        verify(questionsService).getQuestionSummaries("java", "graphs", 10L, 20);
+    }
+
+    private static ServletWebRequest webRequest() {
+        return new ServletWebRequest(new MockHttpServletRequest(), new MockHttpServletResponse());
+    }
 }
@@ -1,20 +1,29 @@
 package com.coding.test.controller;
 
+import java.util.Optional;
+
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 import org.mockito.MockitoAnnotations;
+import static org.mockito.ArgumentMatchers.any;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import com.coding.test.model.TestResult;
+import com.coding.test.service.ResultCache;
+import com.coding.test.service.ResultHub;
 import com.coding.test.service.TestResultService;
 
 class ResultControllerTest {
@@ -22,12 +31,19 @@ class ResultControllerTest {
     @Mock
     private TestResultService testResultService;
 
+    @Mock
+    private ResultHub resultHub;
+
+    @Mock
+    private ResultCache resultCache;
+
     @InjectMocks
     private ResultController resultController;
 
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
+        when(resultCache.lookup(any())).thenReturn(ResultCache.Lookup.MISS);
     }
 
     @Test
@@ -37,7 +53,7 @@ class ResultControllerTest {
         TestResult mockResult = new TestResult();
         mockResult.setJobId(jobId);
 
-        when(testResultService.getTestResultByJobId(jobId)).thenReturn(mockResult);
+        when(testResultService.findTestResult(jobId)).thenReturn(Optional.of(mockResult));
 
         // Act
         ResponseEntity<TestResult> response = resultController.getTestResult(jobId);
@@ -46,7 +62,8 @@ class ResultControllerTest {
         assertEquals(HttpStatus.OK, response.getStatusCode());
         assertNotNull(response.getBody());
         assertEquals(jobId, response.getBody().getJobId());
-        verify(testResultService, times(1)).getTestResultByJobId(jobId);
+        verify(testResultService, times(1)).findTestResult(jobId);
+        verify(resultCache).complete(mockResult);
     }
 
     @Test
@@ -54,7 +71,7 @@ class ResultControllerTest {
         // Arrange
         String jobId = "non-existent-job";
 
-        when(testResultService.getTestResultByJobId(jobId)).thenThrow(new RuntimeException("Job not found"));
+        when(testResultService.findTestResult(jobId)).thenReturn(Optional.empty());
 
         // Act
         ResponseEntity<TestResult> response = resultController.getTestResult(jobId);
@@ -62,6 +79,85 @@ class ResultControllerTest {
         // Assert
         assertEquals(HttpStatus.NOT_FOUND, response.getStatusCode());
         assertNull(response.getBody());
-        verify(testResultService, times(1)).getTestResultByJobId(jobId);
+        verify(testResultService, times(1)).findTestResult(jobId);
+    }
+
+    @Test
+    void getTestResult_ServesCachedResultWithoutDatabase() {
+        // Arrange
+        TestResult mockResult = new TestResult();
+        mockResult.setJobId("cached-job");
+        when(resultCache.lookup("cached-job")).thenReturn(new ResultCache.Lookup(mockResult, false));
+
+        // Act
+        ResponseEntity<TestResult> response = resultController.getTestResult("cached-job");
+
+        // Assert
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertSame(mockResult, response.getBody());
+        verifyNoInteractions(testResultService);
+    }
+
+    @Test
+    void getTestResult_ReturnsAccepted_WhileJobIsPending() {
+        // Arrange
+        when(resultCache.lookup("running-job")).thenReturn(ResultCache.Lookup.PENDING);
+
+        // Act
+        ResponseEntity<TestResult> response = resultController.getTestResult("running-job");
+
+        // Assert
+        assertEquals(HttpStatus.ACCEPTED, response.getStatusCode());
+        assertEquals("3", response.getHeaders().getFirst("Retry-After"));
+        assertNull(response.getBody());
+        verifyNoInteractions(testResultService);
+    }
+
+    @Test
+    void getTestResult_ReturnsAccepted_WhenPendingRecheckFindsNothing() {
+        // Arrange
+        when(testResultService.findTestResult("running-job")).thenReturn(Optional.empty());
+        when(resultCache.isPending("running-job")).thenReturn(true);
+
+        // Act
+        ResponseEntity<TestResult> response = resultController.getTestResult("running-job");
+
+        // Assert
+        assertEquals(HttpStatus.ACCEPTED, response.getStatusCode());
+        assertEquals("3", response.getHeaders().getFirst("Retry-After"));
+        verify(testResultService).findTestResult("running-job");
+    }
+
+    @Test
+    void streamTestResult_PublishesResultSavedBeforeSubscribing() {
+        // Arrange
+        String jobId = "done-job";
+        SseEmitter emitter = new SseEmitter();
+        TestResult mockResult = new TestResult();
+        mockResult.setJobId(jobId);
+        when(resultHub.subscribe(jobId)).thenReturn(emitter);
+        when(testResultService.findTestResult(jobId)).thenReturn(Optional.of(mockResult));
+
+        // Act
+        ResponseEntity<SseEmitter> response = resultController.streamTestResult(jobId);
+
+        // Assert
+        assertEquals(HttpStatus.OK, response.getStatusCode());
+        assertSame(emitter, response.getBody());
+        verify(resultHub).publish(mockResult);
+    }
+
+    @Test
+    void streamTestResult_ReturnsServiceUnavailable_WhenAtConnectionCap() {
+        // Arrange
+        when(resultHub.subscribe("busy-job")).thenReturn(null);
+
+        // Act
+        ResponseEntity<SseEmitter> response = resultController.streamTestResult("busy-job");
+
+        // Assert
+        assertEquals(HttpStatus.SERVICE_UNAVAILABLE, response.getStatusCode());
+        assertEquals("3", response.getHeaders().getFirst("Retry-After"));
+        verify(resultHub, never()).publish(any());
     }
-}
\ No newline at end of file
+}
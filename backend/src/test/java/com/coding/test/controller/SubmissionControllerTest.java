@@ -37,8 +37,9 @@ class SubmissionControllerTest {
 
         ResponseEntity<String> response = submissionController.submitCode(request);
 
-        assertEquals(200, response.getStatusCodeValue());
+        assertEquals(202, response.getStatusCodeValue());
         assertEquals(expectedJobId, response.getBody());
+        assertEquals("/api/results/job-123", response.getHeaders().getLocation().toString());
         verify(submissionService, times(1)).injectUserCode("public class Test {}", 1L, "java");
     }
 
@@ -58,4 +59,18 @@ class SubmissionControllerTest {
         assertEquals("Error processing submission", response.getBody());
         verify(submissionService, times(1)).injectUserCode("public class Test {}", 2L, "java");
     }
-}
\ No newline at end of file
+
+    @Test
+    void submitCode_ReturnsBadRequest_WhenSubmissionIsInvalid() throws Exception {
+        SubmitRequest request = new SubmitRequest();
+        request.setQuestionId(3L);
+        request.setLanguage("java");
+
+        when(submissionService.injectUserCode(null, 3L, "java"))
+                .thenThrow(new IllegalArgumentException("code, questionId and language are required"));
+
+        ResponseEntity<String> response = submissionController.submitCode(request);
+
+        assertEquals(400, response.getStatusCodeValue());
+    }
+}
@@ -0,0 +1,110 @@
+package com.coding.test.service;
+
+import java.sql.PreparedStatement;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import org.mockito.ArgumentCaptor;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import com.coding.test.model.JobLifecycleEntry;
+import com.coding.test.model.JobState;
+import com.coding.test.model.TestResult;
+import com.coding.test.repository.JobLifecycleRepository;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class JobLifecycleTest {
+
+    private JobLifecycleRepository jobLifecycleRepository;
+    private JdbcTemplate jdbcTemplate;
+    private JobLifecycle jobLifecycle;
+
+    @BeforeEach
+    void setUp() {
+        jobLifecycleRepository = mock(JobLifecycleRepository.class);
+        jdbcTemplate = mock(JdbcTemplate.class);
+        jobLifecycle = new JobLifecycle(jobLifecycleRepository, jdbcTemplate, mock(PlatformTransactionManager.class),
+                new SimpleMeterRegistry());
+    }
+
+    private TestResult result(String jobId, String status) {
+        TestResult result = new TestResult();
+        result.setJobId(jobId);
+        result.setStatus(status);
+        return result;
+    }
+
+    @Test
+    void testTransitionsForOneJobAreMergedIntoOneRow() throws Exception {
+        jobLifecycle.queued("job-1");
+        jobLifecycle.finished(result("job-1", "success"), 3000L);
+        // A RUNNING event that arrives after the result must not reopen the job
+        jobLifecycle.running("job-1", 2000L);
+
+        jobLifecycle.flush();
+
+        ArgumentCaptor<BatchPreparedStatementSetter> captor = ArgumentCaptor.forClass(BatchPreparedStatementSetter.class);
+        verify(jdbcTemplate).batchUpdate(eq(JobLifecycle.UPSERT_SQL), captor.capture());
+        assertEquals(1, captor.getValue().getBatchSize());
+        PreparedStatement ps = mock(PreparedStatement.class);
+        captor.getValue().setValues(ps, 0);
+        verify(ps).setString(1, "job-1");
+        verify(ps).setString(2, "COMPLETED");
+        verify(ps).setObject(4, 2000L, java.sql.Types.BIGINT);
+        verify(ps).setObject(5, 3000L, java.sql.Types.BIGINT);
+    }
+
+    @Test
+    void testFailedFlushIsRetriedWithTheNextOne() {
+        when(jdbcTemplate.batchUpdate(eq(JobLifecycle.UPSERT_SQL), any(BatchPreparedStatementSetter.class)))
+                .thenThrow(new RuntimeException("database down"))
+                .thenReturn(new int[] { 1 });
+        jobLifecycle.queued("job-1");
+
+        jobLifecycle.flush();
+        jobLifecycle.flush();
+
+        verify(jdbcTemplate, times(2)).batchUpdate(eq(JobLifecycle.UPSERT_SQL), any(BatchPreparedStatementSetter.class));
+    }
+
+    @Test
+    void testFlushWithNothingBufferedSkipsTheDatabase() {
+        jobLifecycle.flush();
+
+        verify(jdbcTemplate, never()).batchUpdate(any(String.class), any(BatchPreparedStatementSetter.class));
+    }
+
+    @Test
+    void testFindPrefersBufferedTerminalState() {
+        jobLifecycle.finished(result("job-1", "timeout"), 1000L);
+
+        Optional<JobLifecycleEntry> found = jobLifecycle.find("job-1");
+
+        assertTrue(found.isPresent());
+        assertEquals(JobState.TIMED_OUT, found.get().getState());
+        verify(jobLifecycleRepository, never()).findById("job-1");
+    }
+
+    @Test
+    void testResultStatusesMapToTerminalStates() {
+        assertEquals(JobState.COMPLETED, JobState.fromResultStatus("success"));
+        assertEquals(JobState.COMPLETED, JobState.fromResultStatus("failed"));
+        assertEquals(JobState.COMPLETED, JobState.fromResultStatus("time_limit_exceeded"));
+        assertEquals(JobState.TIMED_OUT, JobState.fromResultStatus("timeout"));
+        assertEquals(JobState.FAILED, JobState.fromResultStatus("error"));
+        assertEquals(JobState.FAILED, JobState.fromResultStatus(SubmissionPipeline.ENQUEUE_FAILED));
+    }
+}
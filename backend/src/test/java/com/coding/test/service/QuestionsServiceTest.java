@@ -3,18 +3,30 @@ package com.coding.test.service;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import org.mockito.ArgumentCaptor;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
+
 import com.coding.test.model.Question;
+import com.coding.test.model.QuestionSummary;
+import com.coding.test.model.QuestionSummaryPage;
 import com.coding.test.repository.QuestionsRepository;
 
 class QuestionsServiceTest {
@@ -153,4 +165,104 @@ class QuestionsServiceTest {
         verify(questionsRepository).findByQuestionIdAndLanguage(5L, "Python");
     }
 
-}
\ No newline at end of file
+    @Test
+    void testGetAllQuestions_ServedFromCatalogAfterFirstLoad() {
+        Question q = new Question();
+        q.setQuestionId(1L);
+        q.setSignature("int bar()\\nreturn 1;");
+        when(questionsRepository.findByLanguage("Java")).thenReturn(Arrays.asList(q));
+
+        questionsService.getAllQuestions("Java");
+        List<Question> result = questionsService.getAllQuestions("Java");
+        Optional<Question> byId = questionsService.getQuestionById(1L, "Java");
+
+        assertEquals("int bar()\nreturn 1;", result.get(0).getSignature());
+        assertTrue(byId.isPresent());
+        assertEquals("int bar()\\nreturn 1;", q.getSignature());
+        verify(questionsRepository, times(1)).findByLanguage("Java");
+        verify(questionsRepository, never()).findByQuestionIdAndLanguage(1L, "Java");
+    }
+
+    @Test
+    void testInvalidate_ReloadsCatalogWithNewETag() {
+        Question q = new Question();
+        q.setQuestionId(1L);
+        q.setTitle("Two Sum");
+        when(questionsRepository.findByLanguage("Java")).thenReturn(Arrays.asList(q));
+        String before = questionsService.getCatalogETag("Java");
+
+        Question renamed = new Question();
+        renamed.setQuestionId(1L);
+        renamed.setTitle("Two Sum II");
+        when(questionsRepository.findByLanguage("Java")).thenReturn(Arrays.asList(renamed));
+        String cached = questionsService.getCatalogETag("Java");
+        questionsService.invalidate();
+        String after = questionsService.getCatalogETag("Java");
+
+        assertEquals(before, cached);
+        assertNotEquals(before, after);
+        assertEquals("Two Sum II", questionsService.getAllQuestions("Java").get(0).getTitle());
+        verify(questionsRepository, times(2)).findByLanguage("Java");
+    }
+
+    @Test
+    void testGetQuestionETag_NullWhenMissing() {
+        when(questionsRepository.findByQuestionIdAndLanguage(3L, "Java")).thenReturn(Optional.empty());
+
+        assertNull(questionsService.getQuestionETag(3L, "Java"));
+    }
+
+    @Test
+    void testGetQuestionSummaries_ReturnsCursorWhenMoreRowsExist() {
+        when(questionsRepository.findSummaries(eq("java"), eq(Long.MIN_VALUE), eq("arrays"), any(Pageable.class)))
+                .thenReturn(Arrays.asList(summary(1L), summary(2L), summary(3L)));
+
+        QuestionSummaryPage page = questionsService.getQuestionSummaries("java", " Arrays", null, 2);
+
+        assertEquals(2, page.items().size());
+        assertEquals(2L, page.nextCursor());
+        ArgumentCaptor<Pageable> pageable = ArgumentCaptor.forClass(Pageable.class);
+        verify(questionsRepository).findSummaries(eq("java"), eq(Long.MIN_VALUE), eq("arrays"), pageable.capture());
+        assertEquals(3, pageable.getValue().getPageSize());
+    }
+
+    @Test
+    void testGetQuestionSummaries_LastPageHasNoCursor() {
+        when(questionsRepository.findSummaries(eq("java"), eq(2L), eq(""), any(Pageable.class)))
+                .thenReturn(Arrays.asList(summary(3L)));
+
+        QuestionSummaryPage page = questionsService.getQuestionSummaries("java", null, 2L, 50);
+
+        assertEquals(1, page.items().size());
+        assertNull(page.nextCursor());
+    }
+
+    @Test
+    void testSetTags_IndexesNormalizedTags() {
+        Question question = new Question();
+        question.setTags("Arrays, Two Pointers,,50%_off");
+
+        assertEquals(Set.of("arrays", "twopointers", "50%_off"), ReflectionTestUtils.getField(question, "tagIndex"));
+        assertFalse(question.syncTagIndex());
+    }
+
+    @Test
+    void testIndexTags_SyncsRowsWrittenOutsideJpa() {
+        Question seeded = new Question();
+        ReflectionTestUtils.setField(seeded, "tags", "Graphs");
+        Question current = new Question();
+        current.setTags("Arrays");
+        when(questionsRepository.findAll()).thenReturn(Arrays.asList(seeded, current));
+
+        questionsService.indexTags();
+
+        assertEquals(Set.of("graphs"), ReflectionTestUtils.getField(seeded, "tagIndex"));
+        assertEquals(Set.of("arrays"), ReflectionTestUtils.getField(current, "tagIndex"));
+    }
+
+    private static QuestionSummary summary(Long questionId) {
+        QuestionSummary summary = mock(QuestionSummary.class);
+        when(summary.getQuestionId()).thenReturn(questionId);
+        return summary;
+    }
+}
@@ -1,8 +1,13 @@
 package com.coding.test.service;
 
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import static org.mockito.Mockito.never;
@@ -13,13 +18,15 @@ import org.mockito.MockitoAnnotations;
 import org.springframework.test.util.ReflectionTestUtils;
 
 import com.coding.test.model.TestResult;
-import com.coding.test.repository.TestResultRepository;
 
 import software.amazon.awssdk.services.sqs.SqsClient;
+import software.amazon.awssdk.services.sqs.model.DeleteMessageBatchRequest;
+import software.amazon.awssdk.services.sqs.model.DeleteMessageBatchResponse;
 import software.amazon.awssdk.services.sqs.model.DeleteMessageRequest;
 import software.amazon.awssdk.services.sqs.model.Message;
 import software.amazon.awssdk.services.sqs.model.ReceiveMessageRequest;
 import software.amazon.awssdk.services.sqs.model.ReceiveMessageResponse;
+import software.amazon.awssdk.services.sqs.model.SendMessageRequest;
 
 class ResponseListenerServiceTest {
 
@@ -27,7 +34,19 @@ class ResponseListenerServiceTest {
     private SqsClient sqsClient;
 
     @Mock
-    private TestResultRepository testResultRepository;
+    private ResultWriter resultWriter;
+
+    @Mock
+    private ResultMemo resultMemo;
+
+    @Mock
+    private ResultHub resultHub;
+
+    @Mock
+    private ResultCache resultCache;
+
+    @Mock
+    private JobLifecycle jobLifecycle;
 
     @InjectMocks
     private ResponseListenerService responseListenerService;
@@ -36,6 +55,9 @@ class ResponseListenerServiceTest {
     void setUp() {
         MockitoAnnotations.openMocks(this);
         ReflectionTestUtils.setField(responseListenerService, "RESPONSE_QUEUE_URL", "test-queue-url");
+        when(sqsClient.deleteMessageBatch(any(DeleteMessageBatchRequest.class)))
+                .thenReturn(DeleteMessageBatchResponse.builder().build());
+        when(resultWriter.submit(any(TestResult.class))).thenReturn(CompletableFuture.completedFuture(null));
     }
 
     @Test
@@ -51,12 +73,93 @@ class ResponseListenerServiceTest {
                 .build();
 
         when(sqsClient.receiveMessage(any(ReceiveMessageRequest.class))).thenReturn(response);
-        when(testResultRepository.save(any(TestResult.class))).thenReturn(new TestResult());
+        responseListenerService.pollResponseQueue();
+
+        verify(resultWriter, times(1)).submit(any(TestResult.class));
+        verify(resultHub).publish(any(TestResult.class));
+        verify(resultCache).complete(any(TestResult.class));
+        ArgumentCaptor<DeleteMessageBatchRequest> deleted = ArgumentCaptor.forClass(DeleteMessageBatchRequest.class);
+        verify(sqsClient, times(1)).deleteMessageBatch(deleted.capture());
+        assertEquals("receipt-handle-1", deleted.getValue().entries().get(0).receiptHandle());
+        verify(sqsClient, never()).deleteMessage(any(DeleteMessageRequest.class));
+    }
+
+    @Test
+    void pollResponseQueue_shouldRecordRunningEventWithoutSavingResult() {
+        Message message = Message.builder()
+                .body("{\"jobId\":\"321\",\"event\":\"RUNNING\",\"at\":1700000000000}")
+                .receiptHandle("receipt-handle-6")
+                .build();
+        when(sqsClient.receiveMessage(any(ReceiveMessageRequest.class)))
+                .thenReturn(ReceiveMessageResponse.builder().messages(message).build());
 
         responseListenerService.pollResponseQueue();
 
-        verify(testResultRepository, times(1)).save(any(TestResult.class));
-        verify(sqsClient, times(1)).deleteMessage(any(DeleteMessageRequest.class));
+        verify(jobLifecycle).running("321", 1700000000000L);
+        verify(resultWriter, never()).submit(any(TestResult.class));
+        verify(sqsClient, times(1)).deleteMessageBatch(any(DeleteMessageBatchRequest.class));
+    }
+
+    @Test
+    void pollResponseQueue_shouldFinishJobAtWorkerTimestamp() {
+        String messageBody = "{ \"jobId\": \"654\", \"finishedAt\": 1700000000500, \"result\": \"{ \\\"result\\\": { \\\"status\\\": \\\"timeout\\\" } }\" }";
+        Message message = Message.builder()
+                .body(messageBody)
+                .receiptHandle("receipt-handle-7")
+                .build();
+        when(sqsClient.receiveMessage(any(ReceiveMessageRequest.class)))
+                .thenReturn(ReceiveMessageResponse.builder().messages(message).build());
+
+        responseListenerService.pollResponseQueue();
+
+        ArgumentCaptor<TestResult> captor = ArgumentCaptor.forClass(TestResult.class);
+        verify(jobLifecycle).finished(captor.capture(), eq(1700000000500L));
+        assertEquals("timeout", captor.getValue().getStatus());
+    }
+
+    @Test
+    void pollResponseQueue_shouldStorePhaseTimings() throws Exception {
+        String messageBody = "{ \"jobId\": \"456\", \"result\": \"{ \\\"executionTimeMs\\\": 900, \\\"phases\\\": { \\\"containerStartMs\\\": 350, \\\"compileMs\\\": 420, \\\"runMs\\\": 130 }, \\\"result\\\": { \\\"passed\\\": 2, \\\"total\\\": 2, \\\"status\\\": \\\"success\\\", \\\"testTimeMs\\\": 1.5, \\\"caseTimesMs\\\": [0.5,1.0] } }\" }";
+        Message message = Message.builder()
+                .body(messageBody)
+                .receiptHandle("receipt-handle-3")
+                .build();
+
+        ReceiveMessageResponse response = ReceiveMessageResponse.builder()
+                .messages(message)
+                .build();
+
+        when(sqsClient.receiveMessage(any(ReceiveMessageRequest.class))).thenReturn(response);
+
+        responseListenerService.pollResponseQueue();
+
+        ArgumentCaptor<TestResult> captor = ArgumentCaptor.forClass(TestResult.class);
+        verify(resultWriter).submit(captor.capture());
+        TestResult saved = captor.getValue();
+        assertEquals(900L, saved.getExecutionTime());
+        assertEquals(350L, saved.getContainerStartTime());
+        assertEquals(420L, saved.getCompileTime());
+        assertEquals(130L, saved.getRunTime());
+        assertEquals(1.5, saved.getTestTime());
+        assertEquals("[0.5,1.0]", saved.getCaseTimes());
+    }
+
+    @Test
+    void pollResponseQueue_shouldStoreCaseRecords() throws Exception {
+        String messageBody = "{ \"jobId\": \"789\", \"result\": \"{ \\\"executionTimeMs\\\": 900, \\\"cases\\\": [[0,1,1200,\\\"3\\\"],[1,0,98000,\\\"-1\\\"]], \\\"result\\\": { \\\"passed\\\": 1, \\\"total\\\": 2, \\\"status\\\": \\\"failed\\\" } }\" }";
+        Message message = Message.builder()
+                .body(messageBody)
+                .receiptHandle("receipt-handle-4")
+                .build();
+
+        when(sqsClient.receiveMessage(any(ReceiveMessageRequest.class)))
+                .thenReturn(ReceiveMessageResponse.builder().messages(message).build());
+
+        responseListenerService.pollResponseQueue();
+
+        ArgumentCaptor<TestResult> captor = ArgumentCaptor.forClass(TestResult.class);
+        verify(resultWriter).submit(captor.capture());
+        assertEquals("[[0,1,1200,\"3\"],[1,0,98000,\"-1\"]]", captor.getValue().getCaseResults());
     }
 
     @Test
@@ -75,8 +178,59 @@ class ResponseListenerServiceTest {
 
         responseListenerService.pollResponseQueue();
 
-        verify(testResultRepository, never()).save(any(TestResult.class));
-        verify(sqsClient, never()).deleteMessage(any(DeleteMessageRequest.class));
+        // Malformed messages are dropped rather than redelivered forever
+        verify(resultWriter, never()).submit(any(TestResult.class));
+        verify(sqsClient, times(1)).deleteMessageBatch(any(DeleteMessageBatchRequest.class));
+    }
+
+    @Test
+    void pollResponseQueue_shouldDeadLetterMalformedMessageWhenConfigured() {
+        ReflectionTestUtils.setField(responseListenerService, "DEAD_LETTER_QUEUE_URL", "dlq-url");
+        Message message = Message.builder()
+                .body("not json")
+                .receiptHandle("receipt-handle-4")
+                .build();
+        when(sqsClient.receiveMessage(any(ReceiveMessageRequest.class)))
+                .thenReturn(ReceiveMessageResponse.builder().messages(message).build());
+
+        responseListenerService.pollResponseQueue();
+
+        ArgumentCaptor<SendMessageRequest> sent = ArgumentCaptor.forClass(SendMessageRequest.class);
+        verify(sqsClient).sendMessage(sent.capture());
+        assertEquals("dlq-url", sent.getValue().queueUrl());
+        assertEquals("not json", sent.getValue().messageBody());
+        verify(sqsClient, times(1)).deleteMessageBatch(any(DeleteMessageBatchRequest.class));
+    }
+
+    @Test
+    void pollResponseQueue_shouldKeepMessageWhenSaveFails() {
+        String messageBody = "{ \"jobId\": \"789\", \"result\": \"{}\" }";
+        Message message = Message.builder()
+                .body(messageBody)
+                .receiptHandle("receipt-handle-5")
+                .build();
+        when(sqsClient.receiveMessage(any(ReceiveMessageRequest.class)))
+                .thenReturn(ReceiveMessageResponse.builder().messages(message).build());
+        when(resultWriter.submit(any(TestResult.class)))
+                .thenReturn(CompletableFuture.failedFuture(new RuntimeException("database down")));
+
+        responseListenerService.pollResponseQueue();
+
+        verify(sqsClient, never()).deleteMessageBatch(any(DeleteMessageBatchRequest.class));
+        verify(resultHub, never()).publish(any(TestResult.class));
+    }
+
+    @Test
+    void pollResponseQueue_shouldReceiveFullBatchesWithLongPolling() {
+        when(sqsClient.receiveMessage(any(ReceiveMessageRequest.class)))
+                .thenReturn(ReceiveMessageResponse.builder().build());
+
+        responseListenerService.pollResponseQueue();
+
+        ArgumentCaptor<ReceiveMessageRequest> captor = ArgumentCaptor.forClass(ReceiveMessageRequest.class);
+        verify(sqsClient).receiveMessage(captor.capture());
+        assertEquals(10, captor.getValue().maxNumberOfMessages());
+        assertEquals(20, captor.getValue().waitTimeSeconds());
     }
 
     @Test
@@ -86,7 +240,7 @@ class ResponseListenerServiceTest {
 
         responseListenerService.pollResponseQueue();
 
-        verify(testResultRepository, never()).save(any(TestResult.class));
+        verify(resultWriter, never()).submit(any(TestResult.class));
     }
 }
 
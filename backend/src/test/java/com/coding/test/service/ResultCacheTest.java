@@ -0,0 +1,87 @@
+package com.coding.test.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.coding.test.model.TestResult;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class ResultCacheTest {
+
+    private ResultCache cache;
+
+    @BeforeEach
+    void setUp() {
+        cache = new ResultCache(new SimpleMeterRegistry());
+    }
+
+    private TestResult result(String jobId) {
+        TestResult result = new TestResult();
+        result.setJobId(jobId);
+        result.setStatus("success");
+        return result;
+    }
+
+    @Test
+    void testPendingJobIsAnsweredUntilItCompletes() {
+        cache.markPending("job-1");
+
+        assertTrue(cache.lookup("job-1").pending());
+
+        TestResult result = result("job-1");
+        cache.complete(result);
+        ResultCache.Lookup lookup = cache.lookup("job-1");
+
+        assertSame(result, lookup.result());
+        assertFalse(lookup.pending());
+        assertEquals(0, cache.getStats().pending());
+    }
+
+    @Test
+    void testUnknownJobIsAMiss() {
+        ResultCache.Lookup lookup = cache.lookup("unknown");
+
+        assertNull(lookup.result());
+        assertFalse(lookup.pending());
+        assertEquals(1, cache.getStats().misses());
+    }
+
+    @Test
+    void testPendingJobIsRecheckedPeriodically() {
+        ReflectionTestUtils.setField(cache, "pendingRecheckMs", 0L);
+        cache.markPending("job-1");
+
+        // Due for a recheck, so the caller goes to the database once
+        assertFalse(cache.lookup("job-1").pending());
+        assertTrue(cache.isPending("job-1"));
+        assertEquals(1, cache.getStats().pending());
+    }
+
+    @Test
+    void testExpiredPendingJobIsForgotten() {
+        ReflectionTestUtils.setField(cache, "pendingTtlMs", 0L);
+        cache.markPending("job-1");
+
+        assertFalse(cache.lookup("job-1").pending());
+        assertFalse(cache.isPending("job-1"));
+        assertEquals(0, cache.getStats().pending());
+    }
+
+    @Test
+    void testResultsAreBoundedByMaxEntries() {
+        ReflectionTestUtils.setField(cache, "maxEntries", 2);
+        cache.complete(result("job-1"));
+        cache.complete(result("job-2"));
+        cache.complete(result("job-3"));
+
+        assertEquals(2, cache.getStats().results());
+        assertNull(cache.lookup("job-1").result());
+    }
+}
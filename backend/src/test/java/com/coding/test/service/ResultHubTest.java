@@ -0,0 +1,105 @@
+package com.coding.test.service;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.coding.test.model.TestResult;
+import com.coding.test.repository.TestResultRepository;
+
+class ResultHubTest {
+
+    private TestResultRepository testResultRepository;
+    private ResultHub resultHub;
+
+    @BeforeEach
+    void setUp() {
+        testResultRepository = mock(TestResultRepository.class);
+        resultHub = new ResultHub(testResultRepository);
+    }
+
+    private TestResult result(String jobId) {
+        TestResult result = new TestResult();
+        result.setJobId(jobId);
+        result.setStatus("success");
+        return result;
+    }
+
+    @Test
+    void testPublishDeliversToSubscribersAndReleasesConnections() {
+        assertNotNull(resultHub.subscribe("job-1"));
+        assertNotNull(resultHub.subscribe("job-1"));
+        assertEquals(2, resultHub.getStats().connections());
+
+        resultHub.publish(result("job-1"));
+
+        assertEquals(0, resultHub.getStats().connections());
+        assertEquals(0, resultHub.getStats().jobs());
+        assertEquals(2, resultHub.getStats().delivered());
+    }
+
+    @Test
+    void testSubscribeRacingRemoveKeepsEveryEmitterReachable() throws InterruptedException {
+        ReflectionTestUtils.setField(resultHub, "maxConnections", 10_000);
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        for (int i = 0; i < 2000; i++) {
+            pool.execute(() -> resultHub.subscribe("job-1"));
+            pool.execute(() -> {
+                SseEmitter emitter = resultHub.subscribe("job-1");
+                resultHub.remove("job-1", emitter);
+            });
+        }
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(10, TimeUnit.SECONDS));
+
+        resultHub.publish(result("job-1"));
+
+        // An emitter added to a set that remove() had already dropped would never be released
+        assertEquals(0, resultHub.getStats().connections());
+        assertEquals(2000, resultHub.getStats().delivered());
+    }
+
+    @Test
+    void testSubscribeRejectedAtConnectionCap() {
+        ReflectionTestUtils.setField(resultHub, "maxConnections", 1);
+
+        assertNotNull(resultHub.subscribe("job-1"));
+        assertNull(resultHub.subscribe("job-2"));
+
+        assertEquals(1, resultHub.getStats().rejected());
+        assertEquals(1, resultHub.getStats().connections());
+    }
+
+    @Test
+    void testRecheckPublishesResultsSavedElsewhere() {
+        resultHub.subscribe("job-1");
+        when(testResultRepository.findAllById(List.of("job-1"))).thenReturn(List.of(result("job-1")));
+
+        resultHub.recheckSubscribedJobs();
+
+        assertEquals(1, resultHub.getStats().delivered());
+        assertEquals(0, resultHub.getStats().jobs());
+    }
+
+    @Test
+    void testRecheckSkipsQueryWithoutSubscribers() {
+        resultHub.recheckSubscribedJobs();
+
+        verify(testResultRepository, never()).findAllById(anyList());
+    }
+}
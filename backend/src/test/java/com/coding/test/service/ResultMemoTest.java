@@ -0,0 +1,143 @@
+package com.coding.test.service;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.coding.test.model.ResultMemoEntry;
+import com.coding.test.model.TestResult;
+import com.coding.test.repository.ResultMemoRepository;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class ResultMemoTest {
+
+    private ResultMemoRepository resultMemoRepository;
+    private SimpleMeterRegistry registry;
+    private ResultMemo resultMemo;
+
+    @BeforeEach
+    void setUp() {
+        resultMemoRepository = mock(ResultMemoRepository.class);
+        registry = new SimpleMeterRegistry();
+        resultMemo = new ResultMemo(resultMemoRepository, registry);
+    }
+
+    @Test
+    void key_IgnoresLineEndingsAndTrailingWhitespace() {
+        String unix = ResultMemo.key("def f():\n    return 1\n", 1L, "Python", "v1");
+        String windows = ResultMemo.key("def f():  \r\n    return 1\r\n\r\n", 1L, "python", "v1");
+
+        assertEquals(unix, windows);
+    }
+
+    @Test
+    void key_ChangesWithIndentationAndSuiteVersion() {
+        String key = ResultMemo.key("def f():\n    return 1", 1L, "python", "v1");
+
+        assertNotEquals(key, ResultMemo.key("def f():\n  return 1", 1L, "python", "v1"));
+        assertNotEquals(key, ResultMemo.key("def f():\n    return 1", 1L, "python", "v2"));
+    }
+
+    @Test
+    void key_KeepsLeadingIndentationOfFirstLine() {
+        assertNotEquals(ResultMemo.key("x=1", 1L, "python", "v1"), ResultMemo.key("  x=1", 1L, "python", "v1"));
+    }
+
+    @Test
+    void lookup_ReturnsRecordedVerdictForNewJob() {
+        resultMemo.track("job-1", "k");
+        resultMemo.record(result("job-1", "failed", 2, 5));
+
+        Optional<TestResult> hit = resultMemo.lookup("k", "job-2");
+
+        assertTrue(hit.isPresent());
+        assertEquals("job-2", hit.get().getJobId());
+        assertEquals("failed", hit.get().getStatus());
+        assertEquals(2, hit.get().getPassedTestCases());
+        assertEquals(5, hit.get().getTotalTestCases());
+        assertEquals(1.0, registry.get("submission.result.memo.lookups").tag("outcome", "memory").counter().count());
+    }
+
+    @Test
+    void record_SkipsNonDeterministicVerdicts() {
+        resultMemo.track("job-1", "k");
+        resultMemo.record(result("job-1", "Time limit exceeded", 0, 0));
+
+        assertFalse(resultMemo.lookup("k", "job-2").isPresent());
+        assertEquals(1, resultMemo.getStats().misses());
+    }
+
+    @Test
+    void record_IgnoresUntrackedJobs() {
+        resultMemo.record(result("job-1", "success", 1, 1));
+
+        assertEquals(0, resultMemo.getStats().size());
+    }
+
+    @Test
+    void verdicts_AreEvictedLeastRecentlyUsedFirst() {
+        ReflectionTestUtils.setField(resultMemo, "maxEntries", 2);
+        for (String key : new String[] { "a", "b" }) {
+            resultMemo.track("job-" + key, key);
+            resultMemo.record(result("job-" + key, "success", 1, 1));
+        }
+        resultMemo.lookup("a", "job-x");
+
+        resultMemo.track("job-c", "c");
+        resultMemo.record(result("job-c", "success", 1, 1));
+
+        assertTrue(resultMemo.lookup("a", "job-y").isPresent());
+        assertFalse(resultMemo.lookup("b", "job-z").isPresent());
+    }
+
+    @Test
+    void persistentTier_IsWrittenAndReadWhenEnabled() {
+        ReflectionTestUtils.setField(resultMemo, "persistent", true);
+        resultMemo.track("job-1", "k");
+        resultMemo.record(result("job-1", "success", 4, 4));
+        verify(resultMemoRepository).save(any(ResultMemoEntry.class));
+
+        ResultMemoEntry entry = new ResultMemoEntry();
+        entry.setMemoKey("other");
+        entry.setStatus("success");
+        entry.setPassedTestCases(1);
+        entry.setTotalTestCases(1);
+        entry.setCreatedAt(LocalDateTime.now());
+        when(resultMemoRepository.findById("other")).thenReturn(Optional.of(entry));
+
+        assertTrue(resultMemo.lookup("other", "job-2").isPresent());
+        assertEquals(1, resultMemo.getStats().databaseHits());
+    }
+
+    @Test
+    void persistentTier_IsNotUsedByDefault() {
+        resultMemo.track("job-1", "k");
+        resultMemo.record(result("job-1", "success", 1, 1));
+        resultMemo.lookup("missing", "job-2");
+
+        verify(resultMemoRepository, never()).save(any(ResultMemoEntry.class));
+        verify(resultMemoRepository, never()).findById(any());
+    }
+
+    private static TestResult result(String jobId, String status, int passed, int total) {
+        TestResult result = new TestResult();
+        result.setJobId(jobId);
+        result.setStatus(status);
+        result.setPassedTestCases(passed);
+        result.setTotalTestCases(total);
+        return result;
+    }
+}
@@ -0,0 +1,140 @@
+package com.coding.test.service;
+
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import org.mockito.ArgumentCaptor;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import com.coding.test.model.TestResult;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class ResultWriterTest {
+
+    private JdbcTemplate jdbcTemplate;
+    private SimpleMeterRegistry registry;
+    private ResultWriter writer;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = mock(JdbcTemplate.class);
+        registry = new SimpleMeterRegistry();
+        writer = new ResultWriter(jdbcTemplate, mock(PlatformTransactionManager.class), registry);
+    }
+
+    private TestResult result(String jobId, String status) {
+        TestResult result = new TestResult();
+        result.setJobId(jobId);
+        result.setStatus(status);
+        return result;
+    }
+
+    @Test
+    void flush_WritesOneUpsertBatchAndCollapsesRedeliveries() {
+        CompletableFuture<Void> first = writer.submit(result("job-1", "failed"));
+        CompletableFuture<Void> redelivered = writer.submit(result("job-1", "success"));
+        CompletableFuture<Void> second = writer.submit(result("job-2", "success"));
+
+        writer.flush();
+
+        ArgumentCaptor<BatchPreparedStatementSetter> captor = ArgumentCaptor.forClass(BatchPreparedStatementSetter.class);
+        verify(jdbcTemplate, times(1)).batchUpdate(eq(ResultWriter.UPSERT_SQL), captor.capture());
+        assertEquals(2, captor.getValue().getBatchSize());
+        assertTrue(first.isDone() && redelivered.isDone() && second.isDone());
+        assertEquals(2.0, registry.get("results.writer.rows").counter().count());
+    }
+
+    @Test
+    void flush_SplitsBufferIntoConfiguredBatchSize() {
+        ReflectionTestUtils.setField(writer, "batchSize", 2);
+        for (int i = 0; i < 5; i++) {
+            writer.submit(result("job-" + i, "success"));
+        }
+
+        writer.flush();
+
+        verify(jdbcTemplate, times(3)).batchUpdate(eq(ResultWriter.UPSERT_SQL), any(BatchPreparedStatementSetter.class));
+    }
+
+    @Test
+    void flush_FailsEveryFutureInAFailedBatch() {
+        when(jdbcTemplate.batchUpdate(eq(ResultWriter.UPSERT_SQL), any(BatchPreparedStatementSetter.class)))
+                .thenThrow(new RuntimeException("database down"));
+
+        CompletableFuture<Void> written = writer.submit(result("job-1", "success"));
+        writer.flush();
+
+        assertTrue(written.isCompletedExceptionally());
+        assertEquals(1.0, registry.get("results.writer.failed.rows").counter().count());
+    }
+
+    @Test
+    void flush_RetriesRowByRowAndStoresRejectedRowAsError() {
+        when(jdbcTemplate.batchUpdate(eq(ResultWriter.UPSERT_SQL), any(BatchPreparedStatementSetter.class)))
+                .thenThrow(new RuntimeException("value too long"))
+                .thenReturn(new int[] { 1 })
+                .thenThrow(new RuntimeException("value too long"))
+                .thenReturn(new int[] { 1 });
+        TestResult bad = result("job-2", "failed");
+        bad.setCaseResults("[\"P\",\"F\"]");
+
+        CompletableFuture<Void> good = writer.submit(result("job-1", "success"));
+        CompletableFuture<Void> rejected = writer.submit(bad);
+        writer.flush();
+
+        verify(jdbcTemplate, times(4)).batchUpdate(eq(ResultWriter.UPSERT_SQL), any(BatchPreparedStatementSetter.class));
+        assertFalse(good.isCompletedExceptionally());
+        assertFalse(rejected.isCompletedExceptionally());
+        assertTrue(good.isDone() && rejected.isDone());
+        assertEquals(ResultWriter.DEAD_LETTER_STATUS, bad.getStatus());
+        assertNull(bad.getCaseResults());
+        assertEquals(2.0, registry.get("results.writer.rows").counter().count());
+        assertEquals(1.0, registry.get("results.writer.dead.letters").counter().count());
+    }
+
+    @Test
+    void flush_StopsRetryingRowsWhenDatabaseIsDown() {
+        when(jdbcTemplate.batchUpdate(eq(ResultWriter.UPSERT_SQL), any(BatchPreparedStatementSetter.class)))
+                .thenThrow(new RuntimeException("connection refused"));
+
+        CompletableFuture<Void> first = writer.submit(result("job-1", "success"));
+        CompletableFuture<Void> second = writer.submit(result("job-2", "success"));
+        writer.flush();
+
+        // The batch, then the first row and its error form; the second row is not tried
+        verify(jdbcTemplate, times(3)).batchUpdate(eq(ResultWriter.UPSERT_SQL), any(BatchPreparedStatementSetter.class));
+        assertTrue(first.isCompletedExceptionally() && second.isCompletedExceptionally());
+        assertEquals(2.0, registry.get("results.writer.failed.rows").counter().count());
+    }
+
+    @Test
+    void submit_TruncatesMessageToColumnLength() {
+        TestResult result = result("job-1", "failed");
+        result.setMessage("x".repeat(1000));
+
+        writer.submit(result);
+
+        assertEquals(ResultWriter.VARCHAR_LENGTH, result.getMessage().length());
+    }
+
+    @Test
+    void upsertNeverSelectsBeforeWriting() {
+        assertTrue(ResultWriter.UPSERT_SQL.startsWith("INSERT INTO test_results"));
+        assertTrue(ResultWriter.UPSERT_SQL.contains("ON CONFLICT (job_id) DO UPDATE"));
+    }
+}
@@ -0,0 +1,148 @@
+package com.coding.test.service;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.mockito.ArgumentMatchers.any;
+import org.mockito.ArgumentCaptor;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.coding.test.model.TestResult;
+import com.coding.test.repository.TestResultRepository;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import software.amazon.awssdk.core.exception.SdkClientException;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+import software.amazon.awssdk.services.sqs.SqsClient;
+import software.amazon.awssdk.services.sqs.model.BatchResultErrorEntry;
+import software.amazon.awssdk.services.sqs.model.GetQueueUrlRequest;
+import software.amazon.awssdk.services.sqs.model.SendMessageBatchRequest;
+import software.amazon.awssdk.services.sqs.model.SendMessageBatchResponse;
+import software.amazon.awssdk.services.sqs.model.SqsException;
+
+class SubmissionPipelineTest {
+
+    private S3Client s3Client;
+    private SqsClient sqsClient;
+    private TestResultRepository testResultRepository;
+    private SubmissionPipeline pipeline;
+
+    @BeforeEach
+    void setUp() {
+        s3Client = mock(S3Client.class);
+        sqsClient = mock(SqsClient.class);
+        testResultRepository = mock(TestResultRepository.class);
+        pipeline = new SubmissionPipeline(s3Client, sqsClient, testResultRepository, mock(ResultHub.class),
+                new ResultCache(new SimpleMeterRegistry()), mock(JobLifecycle.class));
+        ReflectionTestUtils.setField(pipeline, "BUCKET_NAME", "bucket");
+        ReflectionTestUtils.setField(pipeline, "QUEUE_NAME", "https://sqs.local/requests");
+    }
+
+    @Test
+    void flush_SendsBufferedMessagesInBatchesOfTen() {
+        when(sqsClient.sendMessageBatch(any(SendMessageBatchRequest.class)))
+                .thenReturn(SendMessageBatchResponse.builder().build());
+
+        for (int i = 0; i < 12; i++) {
+            pipeline.enqueue("job-" + i, "{\"jobId\":\"job-" + i + "\"}");
+        }
+        pipeline.flush();
+
+        ArgumentCaptor<SendMessageBatchRequest> captor = ArgumentCaptor.forClass(SendMessageBatchRequest.class);
+        verify(sqsClient, times(2)).sendMessageBatch(captor.capture());
+        List<SendMessageBatchRequest> requests = captor.getAllValues();
+        assertEquals(10, requests.get(0).entries().size());
+        assertEquals(2, requests.get(1).entries().size());
+        assertEquals("https://sqs.local/requests", requests.get(0).queueUrl());
+        verify(sqsClient, never()).getQueueUrl(any(GetQueueUrlRequest.class));
+        assertEquals(12, pipeline.getStats().enqueued());
+    }
+
+    @Test
+    void flush_RecordsEnqueueFailedForSenderFaults() {
+        when(sqsClient.sendMessageBatch(any(SendMessageBatchRequest.class)))
+                .thenReturn(SendMessageBatchResponse.builder()
+                        .failed(BatchResultErrorEntry.builder()
+                                .id("1").code("InvalidMessageContents").message("bad").senderFault(true).build())
+                        .build());
+
+        pipeline.enqueue("job-a", "{}");
+        pipeline.enqueue("job-b", "{}");
+        pipeline.flush();
+
+        ArgumentCaptor<TestResult> captor = ArgumentCaptor.forClass(TestResult.class);
+        verify(testResultRepository).save(captor.capture());
+        assertEquals("job-b", captor.getValue().getJobId());
+        assertEquals(SubmissionPipeline.ENQUEUE_FAILED, captor.getValue().getStatus());
+        assertEquals(1, pipeline.getStats().failed());
+    }
+
+    @Test
+    void flush_RetriesThenReportsFailureWhenSqsIsUnavailable() {
+        when(sqsClient.sendMessageBatch(any(SendMessageBatchRequest.class)))
+                .thenThrow(SqsException.builder().message("unavailable").build());
+
+        pipeline.enqueue("job-a", "{}");
+        pipeline.flush();
+
+        verify(sqsClient, times(3)).sendMessageBatch(any(SendMessageBatchRequest.class));
+        verify(testResultRepository).save(any(TestResult.class));
+    }
+
+    @Test
+    void flush_MarksEveryEntryFailedOnClientErrors() {
+        when(sqsClient.sendMessageBatch(any(SendMessageBatchRequest.class)))
+                .thenThrow(SdkClientException.create("Connection reset"));
+
+        pipeline.enqueue("job-a", "{}");
+        pipeline.enqueue("job-b", "{}");
+        pipeline.flush();
+
+        verify(sqsClient, times(3)).sendMessageBatch(any(SendMessageBatchRequest.class));
+        ArgumentCaptor<TestResult> captor = ArgumentCaptor.forClass(TestResult.class);
+        verify(testResultRepository, times(2)).save(captor.capture());
+        assertEquals(List.of("job-a", "job-b"), captor.getAllValues().stream().map(TestResult::getJobId).toList());
+        assertEquals(SubmissionPipeline.ENQUEUE_FAILED, captor.getAllValues().get(1).getStatus());
+        assertEquals(2, pipeline.getStats().failed());
+    }
+
+    @Test
+    void flush_MarksEntriesFailedWhenQueueUrlCannotBeResolved() {
+        ReflectionTestUtils.setField(pipeline, "QUEUE_NAME", "requests");
+        when(sqsClient.getQueueUrl(any(Consumer.class)))
+                .thenThrow(SdkClientException.create("Unable to load credentials"));
+
+        pipeline.enqueue("job-a", "{}");
+        pipeline.flush();
+
+        verify(sqsClient, never()).sendMessageBatch(any(SendMessageBatchRequest.class));
+        ArgumentCaptor<TestResult> captor = ArgumentCaptor.forClass(TestResult.class);
+        verify(testResultRepository).save(captor.capture());
+        assertEquals(SubmissionPipeline.ENQUEUE_FAILED, captor.getValue().getStatus());
+    }
+
+    @Test
+    void uploadAndEnqueue_ReportsUploadFailures() {
+        when(s3Client.putObject(any(PutObjectRequest.class), any(RequestBody.class)))
+                .thenThrow(new RuntimeException("S3 down"));
+
+        pipeline.uploadAndEnqueue("job-big", "submissions/job-big/Main.java", new byte[] { 1 }, key -> "{}");
+
+        ArgumentCaptor<TestResult> captor = ArgumentCaptor.forClass(TestResult.class);
+        verify(testResultRepository, timeout(2000)).save(captor.capture());
+        assertEquals("job-big", captor.getValue().getJobId());
+        assertEquals(SubmissionPipeline.ENQUEUE_FAILED, captor.getValue().getStatus());
+        pipeline.shutdown();
+    }
+}
@@ -1,35 +1,149 @@
-
 package com.coding.test.service;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import org.junit.jupiter.api.Test;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import org.mockito.ArgumentCaptor;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
 
-import com.coding.test.repository.QuestionsRepository;
-import com.coding.test.repository.TestCaseRepository;
-import com.coding.test.service.harness.TestHarnessFactory;
+import com.coding.test.model.TestResult;
+import com.coding.test.repository.ResultMemoRepository;
+import com.coding.test.repository.TestResultRepository;
+import com.coding.test.service.harness.HarnessCache;
 
-import software.amazon.awssdk.services.s3.S3Client;
-import software.amazon.awssdk.services.sqs.SqsClient;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 
 
 class SubmissionServiceTest {
 
     @Test
     void testConstructorInitializesFields() {
-        TestCaseRepository testCaseRepository = mock(TestCaseRepository.class);
-        TestHarnessFactory testHarnessFactory = mock(TestHarnessFactory.class);
-        QuestionsRepository questionsRepository = mock(QuestionsRepository.class);
-        S3Client s3Client = mock(S3Client.class);
-        SqsClient sqsClient = mock(SqsClient.class);
-
-        SubmissionService service = new SubmissionService(
-                testCaseRepository,
-                testHarnessFactory,
-                questionsRepository,
-                s3Client,
-                sqsClient);
+        HarnessCache harnessCache = mock(HarnessCache.class);
+        SubmissionPipeline submissionPipeline = mock(SubmissionPipeline.class);
+        TestResultRepository testResultRepository = mock(TestResultRepository.class);
+
+        SubmissionService service = new SubmissionService(harnessCache, submissionPipeline, resultMemo(), resultCache(), testResultRepository,
+                mock(JobLifecycle.class));
 
         assertNotNull(service);
     }
-}
\ No newline at end of file
+
+    @Test
+    void testInjectUserCodeHandsOffToPipeline() throws Exception {
+        HarnessCache harnessCache = mock(HarnessCache.class);
+        SubmissionPipeline submissionPipeline = mock(SubmissionPipeline.class);
+        TestResultRepository testResultRepository = mock(TestResultRepository.class);
+        when(harnessCache.get(1L, "python")).thenReturn(
+                new HarnessCache.RenderedHarness("# before\n", "\n# after\n", "main.py", "v1", 0, null, System.currentTimeMillis()));
+        SubmissionService service = new SubmissionService(harnessCache, submissionPipeline, resultMemo(), resultCache(), testResultRepository,
+                mock(JobLifecycle.class));
+
+        String jobId = service.injectUserCode("def f(): pass", 1L, "python");
+
+        ArgumentCaptor<String> body = ArgumentCaptor.forClass(String.class);
+        verify(submissionPipeline).enqueue(eq(jobId), body.capture());
+        verify(submissionPipeline, never()).uploadAndEnqueue(anyString(), anyString(), any(), any());
+        assertTrue(body.getValue().contains("\"jobId\":\"" + jobId + "\""));
+        assertTrue(body.getValue().contains("\"fileName\":\"main.py\""));
+        assertFalse(body.getValue().contains("timeLimitMs"));
+    }
+
+    @Test
+    void testInjectUserCodeForwardsQuestionTimeLimit() throws Exception {
+        HarnessCache harnessCache = mock(HarnessCache.class);
+        SubmissionPipeline submissionPipeline = mock(SubmissionPipeline.class);
+        when(harnessCache.get(1L, "python")).thenReturn(
+                new HarnessCache.RenderedHarness("", "", "main.py", "v1", 5000, null, System.currentTimeMillis()));
+        SubmissionService service = new SubmissionService(harnessCache, submissionPipeline, resultMemo(), resultCache(),
+                mock(TestResultRepository.class), mock(JobLifecycle.class));
+
+        String jobId = service.injectUserCode("def f(): pass", 1L, "python");
+
+        ArgumentCaptor<String> body = ArgumentCaptor.forClass(String.class);
+        verify(submissionPipeline).enqueue(eq(jobId), body.capture());
+        assertTrue(body.getValue().contains("\"timeLimitMs\":5000"));
+    }
+
+    @Test
+    void testInjectUserCodeRegistersJobAsPending() throws Exception {
+        HarnessCache harnessCache = mock(HarnessCache.class);
+        SubmissionPipeline submissionPipeline = mock(SubmissionPipeline.class);
+        TestResultRepository testResultRepository = mock(TestResultRepository.class);
+        ResultCache resultCache = resultCache();
+        when(harnessCache.get(1L, "python")).thenReturn(
+                new HarnessCache.RenderedHarness("", "", "main.py", "v1", 0, null, System.currentTimeMillis()));
+        SubmissionService service = new SubmissionService(harnessCache, submissionPipeline, resultMemo(), resultCache, testResultRepository,
+                mock(JobLifecycle.class));
+
+        String jobId = service.injectUserCode("def f(): pass", 1L, "python");
+
+        assertTrue(resultCache.lookup(jobId).pending());
+    }
+
+    @Test
+    void testInjectUserCodeRejectsMissingCode() {
+        HarnessCache harnessCache = mock(HarnessCache.class);
+        SubmissionPipeline submissionPipeline = mock(SubmissionPipeline.class);
+        TestResultRepository testResultRepository = mock(TestResultRepository.class);
+        SubmissionService service = new SubmissionService(harnessCache, submissionPipeline, resultMemo(), resultCache(), testResultRepository,
+                mock(JobLifecycle.class));
+
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> service.injectUserCode(" ", 1L, "java"));
+
+        assertEquals("code, questionId and language are required", e.getMessage());
+        verifyNoInteractions(submissionPipeline);
+    }
+
+    @Test
+    void testInjectUserCodeAnswersResubmissionFromMemo() throws Exception {
+        HarnessCache harnessCache = mock(HarnessCache.class);
+        SubmissionPipeline submissionPipeline = mock(SubmissionPipeline.class);
+        TestResultRepository testResultRepository = mock(TestResultRepository.class);
+        ResultMemo resultMemo = resultMemo();
+        JobLifecycle jobLifecycle = mock(JobLifecycle.class);
+        when(harnessCache.get(1L, "python")).thenReturn(
+                new HarnessCache.RenderedHarness("", "", "main.py", "v1", 0, null, System.currentTimeMillis()));
+        SubmissionService service = new SubmissionService(harnessCache, submissionPipeline, resultMemo, resultCache(), testResultRepository,
+                jobLifecycle);
+
+        String firstJobId = service.injectUserCode("def f(): pass", 1L, "python");
+        TestResult first = new TestResult();
+        first.setJobId(firstJobId);
+        first.setStatus("success");
+        first.setPassedTestCases(3);
+        first.setTotalTestCases(3);
+        resultMemo.record(first);
+
+        String secondJobId = service.injectUserCode("def f(): pass\r\n", 1L, "python");
+
+        verify(submissionPipeline, times(1)).enqueue(anyString(), anyString());
+        ArgumentCaptor<TestResult> saved = ArgumentCaptor.forClass(TestResult.class);
+        verify(testResultRepository).save(saved.capture());
+        assertEquals(secondJobId, saved.getValue().getJobId());
+        assertEquals("success", saved.getValue().getStatus());
+        assertEquals(3, saved.getValue().getPassedTestCases());
+        verify(jobLifecycle).queued(secondJobId);
+        verify(jobLifecycle).finished(eq(saved.getValue()), anyLong());
+    }
+
+    private static ResultMemo resultMemo() {
+        return new ResultMemo(mock(ResultMemoRepository.class), new SimpleMeterRegistry());
+    }
+
+    private static ResultCache resultCache() {
+        return new ResultCache(new SimpleMeterRegistry());
+    }
+}
@@ -0,0 +1,166 @@
+package com.coding.test.service.harness;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.coding.test.model.Question;
+import com.coding.test.model.TestCase;
+import com.coding.test.repository.QuestionsRepository;
+import com.coding.test.repository.TestCaseRepository;
+
+class HarnessCacheTest {
+
+    private TestCaseRepository testCaseRepository;
+    private QuestionsRepository questionsRepository;
+    private TestDataPublisher testDataPublisher;
+    private HarnessCache harnessCache;
+
+    @BeforeEach
+    void setUp() {
+        testCaseRepository = mock(TestCaseRepository.class);
+        questionsRepository = mock(QuestionsRepository.class);
+        testDataPublisher = mock(TestDataPublisher.class);
+        TestHarnessFactory factory = new TestHarnessFactory(
+                List.of(new PythonHarnessGenerator(), new JavaTestHarnessGenerator()));
+        harnessCache = new HarnessCache(new TestSuiteStore(testCaseRepository), questionsRepository, factory,
+                testDataPublisher);
+
+        Question question = new Question();
+        question.setQuestionId(1L);
+        question.setLanguage("Python");
+        question.setMethodName("add");
+        when(questionsRepository.findByQuestionIdAndLanguage(1L, "Python")).thenReturn(Optional.of(question));
+        when(testCaseRepository.findByQuestionId(1L)).thenReturn(List.of(testCase("1, 2", "3")));
+    }
+
+    private TestCase testCase(String input, String expected) {
+        TestCase tc = new TestCase();
+        tc.setQuestionId(1L);
+        tc.setInput(input);
+        tc.setExpectedOutput(expected);
+        tc.setExpectedType("int");
+        return tc;
+    }
+
+    @Test
+    void testAssembleWrapsUserCodeInSkeleton() throws Exception {
+        HarnessCache.RenderedHarness harness = harnessCache.get(1L, "Python");
+        String code = harness.assemble("def add(a, b):\n    return a + b");
+
+        assertEquals("main.py", harness.fileName());
+        assertTrue(code.contains("# user code\ndef add(a, b):\n    return a + b\n"));
+        assertTrue(code.contains("actual = add(1, 2)\n    ok = actual == 3"));
+        assertTrue(code.indexOf("def add") < code.indexOf("if __name__"));
+    }
+
+    @Test
+    void testRepeatedLookupsHitCache() throws Exception {
+        HarnessCache.RenderedHarness first = harnessCache.get(1L, "Python");
+        HarnessCache.RenderedHarness second = harnessCache.get(1L, "python");
+
+        assertSame(first, second);
+        verify(testCaseRepository, times(1)).findByQuestionId(1L);
+        assertEquals(1, harnessCache.getStats().hits());
+        assertEquals(1, harnessCache.getStats().misses());
+    }
+
+    @Test
+    void testInvalidateRerendersWithNewSuiteVersion() throws Exception {
+        HarnessCache.RenderedHarness before = harnessCache.get(1L, "Python");
+
+        when(testCaseRepository.findByQuestionId(1L))
+                .thenReturn(List.of(testCase("1, 2", "3"), testCase("2, 2", "4")));
+        harnessCache.invalidate(1L);
+        HarnessCache.RenderedHarness after = harnessCache.get(1L, "Python");
+
+        assertNotEquals(before.suiteVersion(), after.suiteVersion());
+        assertTrue(after.assemble("").contains("actual = add(2, 2)\n    ok = actual == 4"));
+        verify(testCaseRepository, times(2)).findByQuestionId(1L);
+    }
+
+    @Test
+    void testInvalidateAllRereadsTestCases() throws Exception {
+        HarnessCache.RenderedHarness before = harnessCache.get(1L, "Python");
+
+        when(testCaseRepository.findByQuestionId(1L)).thenReturn(List.of(testCase("2, 2", "4")));
+        harnessCache.invalidateAll();
+        HarnessCache.RenderedHarness after = harnessCache.get(1L, "Python");
+
+        assertNotEquals(before.suiteVersion(), after.suiteVersion());
+        verify(testCaseRepository, times(2)).findByQuestionId(1L);
+    }
+
+    @Test
+    void testJudgingPolicyIsRenderedAndVersioned() throws Exception {
+        HarnessCache.RenderedHarness before = harnessCache.get(1L, "Python");
+        assertEquals(0, before.timeLimitMs());
+
+        Question strict = new Question();
+        strict.setQuestionId(1L);
+        strict.setLanguage("Python");
+        strict.setMethodName("add");
+        strict.setFailFast(true);
+        strict.setCaseTimeLimitMs(2000);
+        strict.setTimeLimitMs(10000);
+        when(questionsRepository.findByQuestionIdAndLanguage(1L, "Python")).thenReturn(Optional.of(strict));
+        harnessCache.invalidate(1L);
+        HarnessCache.RenderedHarness after = harnessCache.get(1L, "Python");
+
+        assertEquals(10000, after.timeLimitMs());
+        assertNotEquals(before.suiteVersion(), after.suiteVersion());
+        assertTrue(after.assemble("").contains("case_budget_s = 2.0"));
+    }
+
+    @Test
+    void testDataDrivenHarnessPublishesTestData() throws Exception {
+        ReflectionTestUtils.setField(harnessCache, "dataDriven", true);
+        when(questionsRepository.findByQuestionIdAndLanguage(1L, "Java")).thenReturn(Optional.of(javaQuestion()));
+        when(testDataPublisher.publish(anyString(), any())).thenAnswer(call -> "test-data/" + call.getArgument(0));
+
+        HarnessCache.RenderedHarness harness = harnessCache.get(1L, "Java");
+
+        String dataFile = "java-" + harness.suiteVersion() + ".jsonl";
+        verify(testDataPublisher).publish(eq(dataFile), any());
+        assertEquals("test-data/" + dataFile, harness.testDataKey());
+        assertTrue(harness.assemble("").contains("JudgeRunner.run(Main.class, \"/judge/data/" + dataFile + "\");"));
+        assertFalse(harness.assemble("").contains("add(1, 2)"));
+    }
+
+    @Test
+    void testDataDrivenHarnessFallsBackToInlineWhenPublishFails() throws Exception {
+        ReflectionTestUtils.setField(harnessCache, "dataDriven", true);
+        when(questionsRepository.findByQuestionIdAndLanguage(1L, "Java")).thenReturn(Optional.of(javaQuestion()));
+        doThrow(new RuntimeException("S3 unavailable")).when(testDataPublisher).publish(anyString(), any());
+
+        HarnessCache.RenderedHarness harness = harnessCache.get(1L, "Java");
+
+        assertNull(harness.testDataKey());
+        assertTrue(harness.assemble("").contains("var actual = add(1, 2);"));
+    }
+
+    private Question javaQuestion() {
+        Question question = new Question();
+        question.setQuestionId(1L);
+        question.setLanguage("Java");
+        question.setMethodName("add");
+        return question;
+    }
+}
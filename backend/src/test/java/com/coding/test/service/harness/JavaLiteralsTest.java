@@ -0,0 +1,45 @@
+package com.coding.test.service.harness;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+
+class JavaLiteralsTest {
+
+    @Test
+    void testParsesScalarArguments() {
+        assertEquals(List.of(1L, -2.5, "a\nb", true, 0L, 0.5),
+                JavaLiterals.parseArguments("1, -2.5d, \"a\\nb\", true, 0, 0.5").orElseThrow());
+        assertEquals(Arrays.asList((Object) null), JavaLiterals.parseValue("null").orElseThrow());
+        assertEquals(List.of(), JavaLiterals.parseArguments("").orElseThrow());
+    }
+
+    @Test
+    void testParsesArraysAndLists() {
+        assertEquals(List.of(List.of(List.of(1L, 2L), List.of()), List.of("x")),
+                JavaLiterals.parseArguments("new int[][]{{1, 2}, {},}, List.of(\"x\")").orElseThrow());
+        assertEquals(List.of(List.of(3L, 4L)),
+                JavaLiterals.parseValue("new ArrayList<>(Arrays.asList(3, 4))").orElseThrow());
+    }
+
+    @Test
+    void testRejectsNonLiterals() {
+        assertTrue(JavaLiterals.parseArguments("tree1").isEmpty());
+        assertTrue(JavaLiterals.parseArguments("new TreeNode(1)").isEmpty());
+        assertTrue(JavaLiterals.parseArguments("1 + 2").isEmpty());
+        assertTrue(JavaLiterals.parseValue("1, 2").isEmpty());
+        assertTrue(JavaLiterals.parseArguments("nullValue").isEmpty());
+    }
+
+    @Test
+    void testRejectsLiteralsThatDoNotSurviveAsData() {
+        assertTrue(JavaLiterals.parseArguments("010").isEmpty());
+        assertTrue(JavaLiterals.parseArguments("-07L").isEmpty());
+        assertTrue(JavaLiterals.parseArguments("'c'").isEmpty());
+        assertTrue(JavaLiterals.parseArguments("new char[]{'a', 'b'}").isEmpty());
+        assertTrue(JavaLiterals.parseArguments("\"\\12\"").isEmpty());
+    }
+}
@@ -1,7 +1,9 @@
 package com.coding.test.service.harness;
 
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import org.junit.jupiter.api.Test;
@@ -71,7 +73,8 @@ class JavaTestHarnessGeneratorTest {
         JavaTestHarnessGenerator generator = new JavaTestHarnessGenerator();
         TestCase tc = createPrimitiveTestCase();
         String code = generator.generateTestCode(List.of(tc), "add");
-        assertTrue(code.contains("add(1, 2) == 3"));
+        assertTrue(code.contains("var actual = add(1, 2);"));
+        assertTrue(code.contains("return actual == 3;"));
         assertFalse(code.contains("arraysEqual"));
         assertFalse(code.contains("isSameTree"));
     }
@@ -81,7 +84,8 @@ class JavaTestHarnessGeneratorTest {
         JavaTestHarnessGenerator generator = new JavaTestHarnessGenerator();
         TestCase tc = createStringTestCase();
         String code = generator.generateTestCode(List.of(tc), "reverse");
-        assertTrue(code.contains("reverse(\"abc\").equals(\"abc\")"));
+        assertTrue(code.contains("var actual = reverse(\"abc\");"));
+        assertTrue(code.contains("actual.equals(\"abc\")"));
     }
 
     @Test
@@ -89,7 +93,7 @@ class JavaTestHarnessGeneratorTest {
         JavaTestHarnessGenerator generator = new JavaTestHarnessGenerator();
         TestCase tc = createIntArrayTestCase();
         String code = generator.generateTestCode(List.of(tc), "swap");
-        assertTrue(code.contains("arraysEqual(swap(new int[]{1,2}), new int[]{2,1})"));
+        assertTrue(code.contains("arraysEqual(actual, new int[]{2,1})"));
         assertTrue(code.contains("public static boolean arraysEqual(int[] a, int[] b)"));
     }
 
@@ -98,7 +102,7 @@ class JavaTestHarnessGeneratorTest {
         JavaTestHarnessGenerator generator = new JavaTestHarnessGenerator();
         TestCase tc = createStringArrayTestCase();
         String code = generator.generateTestCode(List.of(tc), "swap");
-        assertTrue(code.contains("java.util.Arrays.deepEquals(swap(new String[]{\"a\",\"b\"}), new String[]{\"b\",\"a\"})"));
+        assertTrue(code.contains("java.util.Arrays.deepEquals(actual, new String[]{\"b\",\"a\"})"));
     }
 
     @Test
@@ -106,7 +110,7 @@ class JavaTestHarnessGeneratorTest {
         JavaTestHarnessGenerator generator = new JavaTestHarnessGenerator();
         TestCase tc = createTreeNodeTestCase();
         String code = generator.generateTestCode(List.of(tc), "invertTree");
-        assertTrue(code.contains("isSameTree(invertTree(tree1), tree2)"));
+        assertTrue(code.contains("isSameTree(actual, tree2)"));
         assertTrue(code.contains("public static boolean isSameTree(TreeNode p, TreeNode q)"));
     }
 
@@ -115,7 +119,8 @@ class JavaTestHarnessGeneratorTest {
         JavaTestHarnessGenerator generator = new JavaTestHarnessGenerator();
         TestCase tc = createListTestCase();
         String code = generator.generateTestCode(List.of(tc), "processList");
-        assertTrue(code.contains("processList(list1).equals(list2)"));
+        assertTrue(code.contains("var actual = processList(list1);"));
+        assertTrue(code.contains("actual.equals(list2)"));
     }
 
     @Test
@@ -125,4 +130,76 @@ class JavaTestHarnessGeneratorTest {
         String code = generator.generateTestCode(List.of(tc), "f");
         assertTrue(code.contains("System.out.println(\"RESULT:{\\\"passed\\\":"));
     }
+
+    @Test
+    void testGenerateTestCodeReportsTimings() {
+        JavaTestHarnessGenerator generator = new JavaTestHarnessGenerator();
+        String code = generator.generateTestCode(List.of(createPrimitiveTestCase(), createStringTestCase()), "f");
+        assertTrue(code.contains("caseNanos[1] = caseElapsed[0];"));
+        assertTrue(code.contains("\\\"testTimeMs\\\":"));
+        assertTrue(code.contains("\\\"caseTimesMs\\\":["));
+    }
+
+    @Test
+    void testGenerateTestCodeEmitsOneRecordPerCase() {
+        JavaTestHarnessGenerator generator = new JavaTestHarnessGenerator();
+        String code = generator.generateTestCode(List.of(createPrimitiveTestCase(), createStringTestCase()), "f");
+        assertTrue(code.contains("System.out.println(\"@@CASE 0 \" + (verdict ? \"P \" : \"F \") + caseNanos[0]"));
+        assertTrue(code.contains("System.out.println(\"@@CASE 1 \""));
+        assertTrue(code.contains("describeActual.apply(caseActual[0])"));
+        assertFalse(code.contains("Test case failed"));
+    }
+
+    @Test
+    void testGenerateTestCodeRunsEveryCaseByDefault() {
+        JavaTestHarnessGenerator generator = new JavaTestHarnessGenerator();
+        String code = generator.generateTestCode(List.of(createPrimitiveTestCase(), createStringTestCase()), "f");
+        assertTrue(code.contains("long caseBudgetMs = 0L;"));
+        assertFalse(code.contains("stopStatus = \"failed\";"));
+    }
+
+    @Test
+    void testGenerateTestCodeStopsOnFirstFailureWhenFailingFast() {
+        JavaTestHarnessGenerator generator = new JavaTestHarnessGenerator();
+        String code = generator.generateTestCode(List.of(createPrimitiveTestCase(), createStringTestCase()), "f",
+                new JudgingPolicy(true, 0, 0));
+        assertTrue(code.contains("if (!verdict) {\n            stoppedCase = 1;\n            stopStatus = \"failed\";\n            break cases;"));
+    }
+
+    @Test
+    void testGenerateTestCodeEnforcesPerCaseBudget() {
+        JavaTestHarnessGenerator generator = new JavaTestHarnessGenerator();
+        String code = generator.generateTestCode(List.of(createPrimitiveTestCase()), "f",
+                new JudgingPolicy(false, 250, 0));
+        assertTrue(code.contains("long caseBudgetMs = 250L;"));
+        assertTrue(code.contains("caseThread.join(caseBudgetMs);"));
+        assertTrue(code.contains("stopStatus = \"time_limit_exceeded\";"));
+        assertTrue(code.contains("\"Time limit exceeded\""));
+    }
+
+    @Test
+    void testGenerateDataDrivenWritesCasesAsData() {
+        JavaTestHarnessGenerator generator = new JavaTestHarnessGenerator();
+        var rendered = generator.generateDataDriven(
+                List.of(createPrimitiveTestCase(), createStringArrayTestCase()), "f",
+                new JudgingPolicy(true, 250, 0), "/judge/data/java-v1.jsonl");
+
+        assertTrue(rendered.isPresent());
+        assertEquals("JudgeRunner.run(Main.class, \"/judge/data/java-v1.jsonl\");\n", rendered.get().testCode());
+        assertEquals("""
+                {"method":"f","failFast":true,"caseBudgetMs":250,"cases":2}
+                [[1,2],3]
+                [[["a","b"]],["b","a"]]
+                """, new String(rendered.get().testData(), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void testGenerateDataDrivenDeclinesNonLiteralCases() {
+        JavaTestHarnessGenerator generator = new JavaTestHarnessGenerator();
+        var rendered = generator.generateDataDriven(
+                List.of(createPrimitiveTestCase(), createTreeNodeTestCase()), "invertTree",
+                JudgingPolicy.DEFAULT, "/judge/data/java-v1.jsonl");
+
+        assertTrue(rendered.isEmpty());
+    }
 }
@@ -4,6 +4,7 @@ import java.util.Arrays;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import org.junit.jupiter.api.Test;
 
@@ -41,7 +42,29 @@ class PythonHarnessGeneratorTest {
 
         assertTrue(code.contains("passed = 0"));
         assertTrue(code.contains("total = 2"));
-        assertTrue(code.contains("if add(1, 2) == 3"));
-        assertTrue(code.contains("if add(2, 3) == 5")); 
+        assertTrue(code.contains("actual, timed_out = _judge_run(lambda: add(1, 2))"));
+        assertTrue(code.contains("ok = not timed_out and actual == 3"));
+        assertTrue(code.contains("actual, timed_out = _judge_run(lambda: add(2, 3))"));
+        assertTrue(code.contains("ok = not timed_out and actual == 5"));
+        assertTrue(code.contains("case_budget_s = 0.0"));
+        assertTrue(code.contains("print(f\"@@CASE 1 {'P' if ok else 'F'} {case_ns} {_judge_describe(actual)}\")"));
+        assertTrue(code.contains("case_times_ms.append("));
+        assertTrue(code.contains("\"testTimeMs\":{test_time_ms}"));
     }
-}
\ No newline at end of file
+
+    @Test
+    void testGenerateTestCodeAppliesJudgingPolicy() {
+        PythonHarnessGenerator generator = new PythonHarnessGenerator();
+        TestCase tc = new TestCase();
+        tc.setInput("1, 2");
+        tc.setExpectedOutput("3");
+
+        String failFast = generator.generateTestCode(List.of(tc), "add", new JudgingPolicy(true, 1500, 0));
+        String allCases = generator.generateTestCode(List.of(tc), "add");
+
+        assertTrue(failFast.contains("case_budget_s = 1.5"));
+        assertTrue(failFast.contains("            if not ok:\n                stopped = (0, \"failed\")"));
+        assertTrue(failFast.contains("stopped = (0, \"time_limit_exceeded\")"));
+        assertFalse(allCases.contains("stopped = (0, \"failed\")"));
+    }
+}
@@ -0,0 +1,124 @@
+package com.coding.test.service.harness;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.coding.test.model.TestCase;
+import com.coding.test.repository.TestCaseRepository;
+
+class TestSuiteStoreTest {
+
+    private TestCaseRepository testCaseRepository;
+    private TestSuiteStore store;
+
+    @BeforeEach
+    void setUp() {
+        testCaseRepository = mock(TestCaseRepository.class);
+        store = new TestSuiteStore(testCaseRepository);
+    }
+
+    private TestCase testCase(Long id, Long questionId, String input, String expected, String type) {
+        TestCase tc = new TestCase();
+        tc.setId(id);
+        tc.setQuestionId(questionId);
+        tc.setInput(input);
+        tc.setExpectedOutput(expected);
+        tc.setExpectedType(type);
+        return tc;
+    }
+
+    @Test
+    void testSuiteRoundTripsCasesInIdOrder() {
+        when(testCaseRepository.findByQuestionId(1L)).thenReturn(List.of(
+                testCase(2L, 1L, "[1, 2]", null, "int[]"),
+                testCase(1L, 1L, "1, 2", "3", new String("int"))));
+
+        TestSuite suite = store.get(1L);
+
+        assertEquals(2, suite.size());
+        assertEquals(1L, suite.id(0));
+        assertEquals("1, 2", suite.input(0));
+        assertEquals("3", suite.expectedOutput(0));
+        assertEquals("int", suite.expectedType(0));
+        assertEquals("[1, 2]", suite.input(1));
+        assertNull(suite.expectedOutput(1));
+        assertEquals("int[]", suite.expectedType(1));
+        assertEquals("[1, 2]", suite.toTestCases().get(1).getInput());
+        assertTrue(suite.estimatedBytes() > 0);
+    }
+
+    @Test
+    void testTypeTagsAreSharedAcrossSuites() {
+        when(testCaseRepository.findByQuestionId(1L)).thenReturn(List.of(testCase(1L, 1L, "1", "1", new String("int"))));
+        when(testCaseRepository.findByQuestionId(2L)).thenReturn(List.of(testCase(2L, 2L, "2", "2", new String("int"))));
+
+        assertSame(store.get(1L).expectedType(0), store.get(2L).expectedType(0));
+        assertEquals(1, store.getStats().typeTags());
+    }
+
+    @Test
+    void testSuiteIsLoadedOnceUntilInvalidated() {
+        when(testCaseRepository.findByQuestionId(1L)).thenReturn(List.of(testCase(1L, 1L, "1", "1", "int")));
+        TestSuite first = store.get(1L);
+        assertSame(first, store.get(1L));
+
+        when(testCaseRepository.findByQuestionId(1L)).thenReturn(List.of(testCase(1L, 1L, "1", "2", "int")));
+        store.invalidate(1L);
+        TestSuite second = store.get(1L);
+
+        assertNotEquals(first.version(), second.version());
+        verify(testCaseRepository, times(2)).findByQuestionId(1L);
+    }
+
+    @Test
+    void testSuiteIsReloadedAfterTtl() {
+        when(testCaseRepository.findByQuestionId(1L)).thenReturn(List.of(testCase(1L, 1L, "1", "1", "int")));
+        ReflectionTestUtils.setField(store, "ttlMs", 0L);
+
+        store.get(1L);
+        store.get(1L);
+
+        verify(testCaseRepository, times(2)).findByQuestionId(1L);
+    }
+
+    @Test
+    void testInvalidateAllDropsEverySuite() {
+        when(testCaseRepository.findAll()).thenReturn(List.of(testCase(1L, 1L, "1", "1", "int")));
+        when(testCaseRepository.findByQuestionId(1L)).thenReturn(List.of(testCase(1L, 1L, "1", "2", "int")));
+        store.reloadAll();
+
+        store.invalidateAll();
+
+        assertEquals(0, store.getStats().questions());
+        assertEquals("2", store.get(1L).expectedOutput(0));
+    }
+
+    @Test
+    void testReloadAllLoadsEveryQuestionInOneQuery() {
+        when(testCaseRepository.findAll()).thenReturn(List.of(
+                testCase(1L, 1L, "1", "1", "int"),
+                testCase(2L, 2L, "2", "2", "int"),
+                testCase(3L, 1L, "3", "3", "int")));
+
+        int questions = store.reloadAll();
+
+        assertEquals(2, questions);
+        assertEquals(2, store.get(1L).size());
+        assertEquals(1, store.get(2L).size());
+        assertEquals(3, store.getStats().testCases());
+        verify(testCaseRepository, never()).findByQuestionId(1L);
+    }
+}
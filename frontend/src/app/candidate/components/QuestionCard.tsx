@@ -60,19 +60,38 @@ export default function QuestionCard({ question }: { question: Question }) {
 
       const jobId = res.data;
 
-      const interval = setInterval(async () => {
-        try {
-          const r = await axios.get(
-            `${env("NEXT_PUBLIC_API_URL")}/results/${jobId}`
-          );
-          if (r.status === 200) {
-            setResult(r.data);
-            clearInterval(interval);
+      const pollForResult = () => {
+        const interval = setInterval(async () => {
+          try {
+            const r = await axios.get(
+              `${env("NEXT_PUBLIC_API_URL")}/results/${jobId}`
+            );
+            if (r.status === 200) {
+              setResult(r.data);
+              clearInterval(interval);
+            }
+          } catch (error) {
+            console.log("Waiting for job to complete...");
           }
-        } catch (error) {
-          console.log("Waiting for job to complete...");
-        }
-      }, 3000);
+        }, 3000);
+      };
+
+      // Prefer the pushed result; fall back to polling if the stream fails
+      if (typeof EventSource === "undefined") {
+        pollForResult();
+      } else {
+        const source = new EventSource(
+          `${env("NEXT_PUBLIC_API_URL")}/results/${jobId}/stream`
+        );
+        source.addEventListener("result", (event) => {
+          setResult(JSON.parse((event as MessageEvent).data));
+          source.close();
+        });
+        source.onerror = () => {
+          source.close();
+          pollForResult();
+        };
+      }
     } catch (error) {
       console.error("Error submitting code", error);
     } finally {
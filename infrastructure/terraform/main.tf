@@ -228,6 +228,8 @@ resource "aws_s3_bucket" "submission" {
 resource "aws_sqs_queue" "request" {
   name = "your-submission-request-queue"  # UPDATE: Replace with your queue name
   max_message_size = 1048576
+  # Workers also set this on receive and extend it while a job runs
+  visibility_timeout_seconds = 120
 }
 
 resource "aws_sqs_queue" "response" {
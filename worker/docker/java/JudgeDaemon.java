@@ -0,0 +1,375 @@
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FilePermission;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.StringWriter;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.ReflectPermission;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.AccessController;
+import java.security.Permission;
+import java.security.Policy;
+import java.security.ProtectionDomain;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import javax.tools.JavaCompiler;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+
+/**
+ * Long-lived compile/run loop for the Java runner image. The worker writes
+ * one request per job on stdin:
+ *
+ * <pre>RUN &lt;nonce&gt; &lt;fileName&gt; &lt;timeoutMs&gt; &lt;sourceLength&gt;\n&lt;source bytes&gt;</pre>
+ *
+ * and the daemon answers with the program's combined output followed by
+ *
+ * <pre>@@&lt;nonce&gt; status=&lt;ok|timeout|output_limit&gt; compileMs=&lt;n&gt; runMs=&lt;n&gt; recycle=&lt;bool&gt;</pre>
+ *
+ * Each job is compiled with the in-process compiler and run in its own class
+ * loader and thread group. Job code may not start processes, touch threads
+ * outside its group or bypass access checks. A job that outlives its
+ * timeout, leaves threads or processes behind or tries to exit the JVM makes
+ * the daemon halt after answering, so the worker replaces the container
+ * rather than reusing tainted state.
+ * <p>
+ * Job classes see {@code /opt/judge/runner} through a loader shared by every
+ * job, so the precompiled {@code JudgeRunner} is loaded and warmed once.
+ */
+public class JudgeDaemon {
+    private static final int OUTPUT_LIMIT_BYTES = 1024 * 1024;
+    private static final Path RUNNER_DIR = Path.of("/opt/judge/runner");
+    private static final long THREAD_EXIT_GRACE_MS = 100;
+
+    private static final PrintStream PROTOCOL_OUT = new PrintStream(
+            new java.io.FileOutputStream(java.io.FileDescriptor.out), true, StandardCharsets.UTF_8);
+
+    public static void main(String[] args) throws Exception {
+        int maxJobs = args.length > 0 ? Integer.parseInt(args[0]) : 100;
+        Path workDir = Path.of(args.length > 1 ? args[1] : "/tmp/judge");
+        Files.createDirectories(workDir);
+
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        StandardJavaFileManager fileManager = compiler.getStandardFileManager(null, null, StandardCharsets.UTF_8);
+        URLClassLoader runnerLoader = new URLClassLoader(new URL[] { RUNNER_DIR.toUri().toURL() },
+                ClassLoader.getPlatformClassLoader());
+        Policy.setPolicy(new JobPolicy());
+        System.setSecurityManager(new JobSecurityManager());
+
+        DataInputStream in = new DataInputStream(System.in);
+        PROTOCOL_OUT.println("READY");
+
+        for (int jobNumber = 1; jobNumber <= maxJobs; jobNumber++) {
+            String header = readLine(in);
+            if (header == null) {
+                return;
+            }
+            String[] parts = header.split(" ");
+            if (parts.length != 5 || !parts[0].equals("RUN")) {
+                PROTOCOL_OUT.println("@@ status=bad_request");
+                return;
+            }
+            String nonce = parts[1];
+            String fileName = parts[2];
+            long timeoutMs = Long.parseLong(parts[3]);
+            byte[] source = new byte[Integer.parseInt(parts[4])];
+            in.readFully(source);
+
+            Path jobDir = workDir.resolve("job-" + jobNumber);
+            JobOutcome outcome = runJob(compiler, fileManager, runnerLoader, jobDir, fileName, source, timeoutMs);
+            deleteRecursively(jobDir);
+
+            boolean recycle = outcome.tainted || jobNumber == maxJobs;
+            PROTOCOL_OUT.write(outcome.output, 0, outcome.output.length);
+            PROTOCOL_OUT.println();
+            PROTOCOL_OUT.println("@@" + nonce + " status=" + outcome.status
+                    + " compileMs=" + outcome.compileMs
+                    + " runMs=" + outcome.runMs
+                    + " recycle=" + recycle);
+            PROTOCOL_OUT.flush();
+
+            if (outcome.tainted) {
+                Runtime.getRuntime().halt(3);
+            }
+        }
+    }
+
+    private static JobOutcome runJob(JavaCompiler compiler, StandardJavaFileManager fileManager,
+            ClassLoader runnerLoader, Path jobDir, String fileName, byte[] source, long timeoutMs) throws IOException {
+        JobOutcome outcome = new JobOutcome();
+        Path sourceFile = jobDir.resolve(fileName);
+        Path classesDir = jobDir.resolve("classes");
+        Files.createDirectories(classesDir);
+        Files.write(sourceFile, source);
+
+        long compileStart = System.nanoTime();
+        StringWriter diagnostics = new StringWriter();
+        boolean compiled = compiler.getTask(diagnostics, fileManager, null,
+                List.of("-d", classesDir.toString(), "-cp", RUNNER_DIR.toString(), "-proc:none"), null,
+                fileManager.getJavaFileObjects(sourceFile.toFile())).call();
+        outcome.compileMs = (System.nanoTime() - compileStart) / 1_000_000;
+
+        if (!compiled) {
+            outcome.output = diagnostics.toString().replace(jobDir.toString(), "/app")
+                    .getBytes(StandardCharsets.UTF_8);
+            return outcome;
+        }
+
+        CappedOutput captured = new CappedOutput(OUTPUT_LIMIT_BYTES);
+        PrintStream jobOut = new PrintStream(captured, true, StandardCharsets.UTF_8);
+        PrintStream originalOut = System.out;
+        PrintStream originalErr = System.err;
+        InputStream originalIn = System.in;
+
+        ThreadGroup group = new ThreadGroup("judge-job");
+        JobSecurityManager.jobGroup = group;
+        String className = fileName.substring(0, fileName.length() - ".java".length());
+        URLClassLoader loader = new JobClassLoader(classesDir.toUri().toURL(), runnerLoader);
+
+        // Anything new still alive after the job was started by it
+        Set<Long> processesBefore = ProcessHandle.current().descendants()
+                .map(ProcessHandle::pid)
+                .collect(Collectors.toSet());
+        Set<Thread> threadsBefore = new HashSet<>(Thread.getAllStackTraces().keySet());
+
+        Thread jobThread = new Thread(group, () -> {
+            try {
+                Method main = loader.loadClass(className).getMethod("main", String[].class);
+                main.invoke(null, (Object) new String[0]);
+            } catch (InvocationTargetException e) {
+                jobOut.print("Exception in thread \"main\" ");
+                e.getCause().printStackTrace(jobOut);
+            } catch (ReflectiveOperationException | LinkageError e) {
+                jobOut.println("Error: " + e);
+            }
+        }, "main");
+
+        System.setOut(jobOut);
+        System.setErr(jobOut);
+        System.setIn(InputStream.nullInputStream());
+        long runStart = System.nanoTime();
+        try {
+            jobThread.start();
+            jobThread.join(timeoutMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            outcome.runMs = (System.nanoTime() - runStart) / 1_000_000;
+            System.setOut(originalOut);
+            System.setErr(originalErr);
+            System.setIn(originalIn);
+        }
+
+        if (jobThread.isAlive()) {
+            outcome.status = "timeout";
+            outcome.tainted = true;
+        } else if (captured.exceeded) {
+            outcome.status = "output_limit";
+        }
+        if (threadsLeftBehind(threadsBefore) || group.activeCount() > 0 || JobSecurityManager.exitAttempted) {
+            outcome.tainted = true;
+        }
+        if (ProcessHandle.current().descendants().anyMatch(
+                process -> process.isAlive() && !processesBefore.contains(process.pid()))) {
+            outcome.tainted = true;
+        }
+        try {
+            loader.close();
+        } catch (IOException e) {
+            outcome.tainted = true;
+        }
+        outcome.output = captured.toByteArray();
+        return outcome;
+    }
+
+    /**
+     * Whether a thread started since {@code before} is still alive, after
+     * giving threads that were already shutting down (an executor the job
+     * closed on its way out) a moment to finish.
+     */
+    private static boolean threadsLeftBehind(Set<Thread> before) {
+        long deadline = System.nanoTime() + THREAD_EXIT_GRACE_MS * 1_000_000;
+        for (Thread thread : Thread.getAllStackTraces().keySet()) {
+            if (before.contains(thread)) {
+                continue;
+            }
+            try {
+                thread.join(Math.max(1, (deadline - System.nanoTime()) / 1_000_000));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return true;
+            }
+            if (thread.isAlive()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String readLine(InputStream in) throws IOException {
+        ByteArrayOutputStream line = new ByteArrayOutputStream(64);
+        int b;
+        while ((b = in.read()) != -1 && b != '\n') {
+            line.write(b);
+        }
+        if (b == -1 && line.size() == 0) {
+            return null;
+        }
+        return line.toString(StandardCharsets.UTF_8);
+    }
+
+    private static void deleteRecursively(Path dir) throws IOException {
+        if (!Files.exists(dir)) {
+            return;
+        }
+        try (Stream<Path> paths = Files.walk(dir)) {
+            paths.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+        }
+    }
+
+    private static class JobOutcome {
+        String status = "ok";
+        long compileMs;
+        long runMs;
+        boolean tainted;
+        byte[] output = new byte[0];
+    }
+
+    /**
+     * Keeps the first {@code limit} bytes and silently drops the rest so a
+     * print loop cannot exhaust the daemon's heap.
+     */
+    private static class CappedOutput extends OutputStream {
+        private final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        private final int limit;
+        private volatile boolean exceeded;
+
+        CappedOutput(int limit) {
+            this.limit = limit;
+        }
+
+        @Override
+        public synchronized void write(int b) {
+            if (buffer.size() < limit) {
+                buffer.write(b);
+            } else {
+                exceeded = true;
+            }
+        }
+
+        @Override
+        public synchronized void write(byte[] b, int off, int len) {
+            int room = limit - buffer.size();
+            if (len > room) {
+                exceeded = true;
+            }
+            buffer.write(b, off, Math.max(0, Math.min(len, room)));
+        }
+
+        synchronized byte[] toByteArray() {
+            return buffer.toByteArray();
+        }
+    }
+
+    private static class JobClassLoader extends URLClassLoader {
+        JobClassLoader(URL classes, ClassLoader parent) {
+            super(new URL[] { classes }, parent);
+        }
+    }
+
+    /**
+     * Grants everything except {@link JobSecurityManager#RESTRICTED}
+     * permissions to classes loaded by a {@link JobClassLoader}.
+     */
+    private static class JobPolicy extends Policy {
+        @Override
+        public boolean implies(ProtectionDomain domain, Permission permission) {
+            return !(domain.getClassLoader() instanceof JobClassLoader)
+                    || JobSecurityManager.RESTRICTED.stream().noneMatch(permission::equals);
+        }
+    }
+
+    /**
+     * Allows everything except, from job code, leaving the JVM, starting
+     * processes, touching threads outside the job's group and bypassing
+     * access checks. The last two go through {@link AccessController}, so
+     * JDK code acting in a privileged block (enum lookups, the common pool)
+     * and {@code JudgeRunner}, which reflects on the job's class, still
+     * work. The security manager is deprecated but still honoured on the
+     * Java 17 runner image.
+     */
+    private static class JobSecurityManager extends SecurityManager {
+        private static final Permission MODIFY_THREAD = new RuntimePermission("modifyThread");
+        private static final Permission MODIFY_THREAD_GROUP = new RuntimePermission("modifyThreadGroup");
+        private static final Permission SUPPRESS_ACCESS_CHECKS = new ReflectPermission("suppressAccessChecks");
+        static final List<Permission> RESTRICTED = List.of(MODIFY_THREAD, MODIFY_THREAD_GROUP, SUPPRESS_ACCESS_CHECKS);
+
+        private static volatile boolean exitAttempted;
+        private static volatile ThreadGroup jobGroup;
+
+        @Override
+        public void checkPermission(Permission perm) {
+            if (!inJob()) {
+                return;
+            }
+            // A job that swapped the manager out could call System.exit and take the daemon down
+            if (perm instanceof RuntimePermission && "setSecurityManager".equals(perm.getName())) {
+                throw new SecurityException("Replacing the security manager is not allowed");
+            }
+            // A child process would outlive the job and see the next user's
+            if (perm instanceof FilePermission && perm.getActions().contains("execute")) {
+                throw new SecurityException("Starting processes is not allowed");
+            }
+            // modifyThread alone guards shutting down the job's own executors; checkAccess covers the targets
+            if (perm.equals(SUPPRESS_ACCESS_CHECKS) || perm.equals(MODIFY_THREAD_GROUP)) {
+                AccessController.checkPermission(perm);
+            }
+        }
+
+        @Override
+        public void checkAccess(Thread thread) {
+            if (inJob() && !jobGroup.parentOf(thread.getThreadGroup())) {
+                AccessController.checkPermission(MODIFY_THREAD);
+            }
+        }
+
+        @Override
+        public void checkAccess(ThreadGroup group) {
+            if (inJob() && !jobGroup.parentOf(group)) {
+                AccessController.checkPermission(MODIFY_THREAD_GROUP);
+            }
+        }
+
+        @Override
+        public void checkPermission(Permission perm, Object context) {
+            checkPermission(perm);
+        }
+
+        @Override
+        public void checkExit(int status) {
+            if (inJob()) {
+                exitAttempted = true;
+                throw new SecurityException("System.exit is not allowed");
+            }
+        }
+
+        private static boolean inJob() {
+            ThreadGroup group = jobGroup;
+            return group != null && group.parentOf(Thread.currentThread().getThreadGroup());
+        }
+    }
+}
@@ -0,0 +1,619 @@
+import java.io.IOException;
+import java.lang.reflect.AccessibleObject;
+import java.lang.reflect.Array;
+import java.lang.reflect.GenericArrayType;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.lang.reflect.WildcardType;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.AccessController;
+import java.security.PrivilegedAction;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.Set;
+
+/**
+ * Precompiled judge for data-driven Java harnesses. The generated
+ * {@code Main} only calls {@link #run} with the path of a test data file
+ * (JSON lines: a header with the method name and judging policy, then one
+ * {@code [[args...], expected]} line per case), so a submission compiles just
+ * the user's class however large the suite is.
+ * <p>
+ * Output matches the inline harness: one {@code @@CASE} record per case and
+ * a {@code RESULT:} line, with the same fail-fast and per-case budget rules.
+ * Arguments and expected values are converted to the method's declared
+ * parameter and return types, and results are compared with
+ * {@link Objects#deepEquals}. Exceptions from the user's code propagate out
+ * of {@code main} as they would inline. When the method is overloaded with
+ * the same number of parameters, the most specific overload whose parameter
+ * types fit every case's arguments is called, as {@code javac} would pick it
+ * for the inline call; if none fits or no single one is most specific, the
+ * run fails.
+ */
+public final class JudgeRunner {
+
+    private JudgeRunner() {
+    }
+
+    public static void run(Class<?> solution, String dataPath) {
+        // Access checks are suppressed in a privileged block, which must not reach past the job's class
+        if (!isJobClass(solution)) {
+            System.out.println("Error: " + solution.getName() + " is not the submitted class");
+            return;
+        }
+        List<String> lines;
+        try {
+            lines = Files.readAllLines(Path.of(dataPath), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            System.out.println("Error: could not read test data " + dataPath + ": " + e.getMessage());
+            return;
+        }
+        if (lines.isEmpty()) {
+            System.out.println("Error: test data " + dataPath + " is empty");
+            return;
+        }
+
+        Map<?, ?> header = (Map<?, ?>) Json.parse(lines.get(0));
+        String methodName = (String) header.get("method");
+        boolean failFast = Boolean.TRUE.equals(header.get("failFast"));
+        long caseBudgetMs = ((Number) header.get("caseBudgetMs")).longValue();
+        List<List<?>> cases = new ArrayList<>();
+        for (String line : lines.subList(1, lines.size())) {
+            if (!line.isBlank()) {
+                cases.add((List<?>) Json.parse(line));
+            }
+        }
+
+        int total = cases.size();
+        int passed = 0;
+        long[] caseNanos = new long[total];
+        int stoppedCase = -1;
+        String stopStatus = null;
+
+        Method method = null;
+        Object target = null;
+        if (total > 0) {
+            try {
+                method = findMethod(solution, methodName, cases);
+            } catch (IllegalArgumentException e) {
+                System.out.println("Error: " + e.getMessage());
+                return;
+            }
+            if (!Modifier.isStatic(method.getModifiers())) {
+                try {
+                    var constructor = solution.getDeclaredConstructor();
+                    makeAccessible(constructor);
+                    target = constructor.newInstance();
+                } catch (ReflectiveOperationException e) {
+                    System.out.println("Error: could not create " + solution.getName() + ": " + e);
+                    return;
+                }
+            }
+        }
+
+        long testsStart = System.nanoTime();
+        for (int i = 0; i < total; i++) {
+            Object[] args;
+            Object expected;
+            try {
+                args = convertArguments(method, (List<?>) cases.get(i).get(0));
+                expected = convert(cases.get(i).get(1), method.getGenericReturnType());
+            } catch (RuntimeException e) {
+                System.out.println("Error: test case " + (i + 1) + " does not match " + method + ": " + e);
+                return;
+            }
+
+            CaseRun caseRun = runCase(method, target, args, caseBudgetMs);
+            caseNanos[i] = caseRun.elapsedNanos;
+            if (caseRun.timedOut) {
+                System.out.println("@@CASE " + i + " F " + caseNanos[i] + " <time limit exceeded>");
+                stoppedCase = i;
+                stopStatus = "time_limit_exceeded";
+                break;
+            }
+            boolean verdict = Objects.deepEquals(caseRun.actual, expected);
+            if (verdict) {
+                passed++;
+            }
+            System.out.println("@@CASE " + i + " " + (verdict ? "P " : "F ") + caseNanos[i] + " "
+                    + describeActual(caseRun.actual));
+            if (failFast && !verdict) {
+                stoppedCase = i;
+                stopStatus = "failed";
+                break;
+            }
+        }
+
+        long testNanos = System.nanoTime() - testsStart;
+        int casesRun = stoppedCase < 0 ? total : stoppedCase + 1;
+        StringBuilder caseTimes = new StringBuilder();
+        for (int i = 0; i < casesRun; i++) {
+            caseTimes.append(i == 0 ? "" : ",").append(Math.round(caseNanos[i] / 1000.0) / 1000.0);
+        }
+        String status = stopStatus != null ? stopStatus : passed == total ? "success" : "failed";
+        String stopMessage = stoppedCase < 0 ? "" : ",\"message\":\""
+                + ("failed".equals(stopStatus) ? "Wrong answer" : "Time limit exceeded")
+                + " on case " + (stoppedCase + 1) + "\"";
+        System.out.println("RESULT:{\"passed\":" + passed + "," +
+                "\"total\":" + total + "," +
+                "\"status\":\"" + status + "\"" + stopMessage + "," +
+                "\"testTimeMs\":" + Math.round(testNanos / 1000.0) / 1000.0 + "," +
+                "\"caseTimesMs\":[" + caseTimes + "]}");
+    }
+
+    /**
+     * Makes a member of the job's class accessible. Under the judge daemon's
+     * security manager the job itself may not do this, so the runner does it
+     * with its own privileges.
+     */
+    @SuppressWarnings("removal")
+    private static void makeAccessible(AccessibleObject member) {
+        AccessController.doPrivileged((PrivilegedAction<Void>) () -> {
+            member.setAccessible(true);
+            return null;
+        });
+    }
+
+    /**
+     * Whether {@code solution} was loaded by the runner's loader or one that
+     * delegates to it, as the job's own classes are.
+     */
+    private static boolean isJobClass(Class<?> solution) {
+        ClassLoader runnerLoader = JudgeRunner.class.getClassLoader();
+        if (solution == JudgeRunner.class || solution.getName().startsWith("JudgeRunner$")) {
+            return false;
+        }
+        for (ClassLoader loader = solution.getClassLoader(); loader != null; loader = loader.getParent()) {
+            if (loader == runnerLoader) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static Method findMethod(Class<?> solution, String name, List<List<?>> cases) {
+        int arity = ((List<?>) cases.get(0).get(0)).size();
+        List<Method> candidates = new ArrayList<>();
+        for (Method method : solution.getDeclaredMethods()) {
+            if (method.getName().equals(name) && method.getParameterCount() == arity && !method.isSynthetic()) {
+                candidates.add(method);
+            }
+        }
+        if (candidates.isEmpty()) {
+            throw new IllegalArgumentException("no method " + name + " with " + arity + " parameters");
+        }
+        if (candidates.size() > 1) {
+            candidates.removeIf(method -> !acceptsEveryCase(method, cases));
+            List<Method> fitting = List.copyOf(candidates);
+            candidates.removeIf(method -> !isMostSpecific(method, fitting));
+            if (candidates.size() != 1) {
+                throw new IllegalArgumentException("cannot tell which overload of " + name + " with " + arity
+                        + " parameters the test cases call; " + fitting.size() + " fit their arguments");
+            }
+        }
+        Method method = candidates.get(0);
+        makeAccessible(method);
+        return method;
+    }
+
+    private static boolean isMostSpecific(Method method, List<Method> candidates) {
+        Class<?>[] own = method.getParameterTypes();
+        for (Method other : candidates) {
+            Class<?>[] theirs = other.getParameterTypes();
+            for (int i = 0; i < own.length; i++) {
+                if (!widensTo(own[i], theirs[i])) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Whether a {@code from} value can be passed as {@code to} by subtyping or
+     * primitive widening.
+     */
+    private static boolean widensTo(Class<?> from, Class<?> to) {
+        if (from == to) {
+            return true;
+        }
+        if (from.isPrimitive() != to.isPrimitive()) {
+            return false;
+        }
+        if (!from.isPrimitive()) {
+            return to.isAssignableFrom(from);
+        }
+        List<Class<?>> numeric = List.of(byte.class, short.class, int.class, long.class, float.class, double.class);
+        int rank = from == char.class ? numeric.indexOf(int.class) - 1 : numeric.indexOf(from);
+        return rank >= 0 && rank < numeric.indexOf(to);
+    }
+
+    private static boolean acceptsEveryCase(Method method, List<List<?>> cases) {
+        Type[] types = method.getGenericParameterTypes();
+        for (List<?> testCase : cases) {
+            List<?> values = (List<?>) testCase.get(0);
+            if (values.size() != types.length) {
+                return false;
+            }
+            for (int i = 0; i < types.length; i++) {
+                if (!accepts(types[i], values.get(i))) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Whether the parsed JSON value can be passed as the type without losing
+     * information. Stricter than {@link #convert}, which also narrows.
+     */
+    private static boolean accepts(Type type, Object value) {
+        if (type instanceof WildcardType wildcard) {
+            return accepts(wildcard.getUpperBounds()[0], value);
+        }
+        Class<?> c = rawClass(type);
+        if (value == null) {
+            return !c.isPrimitive();
+        }
+        if (c == Object.class) {
+            return true;
+        }
+        if (value instanceof Long) {
+            return c == int.class || c == Integer.class || c == long.class || c == Long.class
+                    || c == short.class || c == Short.class || c == byte.class || c == Byte.class
+                    || isFloating(c) || c == Number.class;
+        }
+        if (value instanceof Double) {
+            return isFloating(c) || c == Number.class;
+        }
+        if (value instanceof Boolean) {
+            return c == boolean.class || c == Boolean.class;
+        }
+        if (value instanceof String text) {
+            return c == String.class || c == CharSequence.class
+                    || ((c == char.class || c == Character.class) && text.length() == 1);
+        }
+        if (value instanceof List<?> list) {
+            Type elementType;
+            if (type instanceof GenericArrayType array) {
+                elementType = array.getGenericComponentType();
+            } else if (c.isArray()) {
+                elementType = c.getComponentType();
+            } else if (Collection.class.isAssignableFrom(c)) {
+                elementType = type instanceof ParameterizedType parameterized
+                        ? parameterized.getActualTypeArguments()[0]
+                        : Object.class;
+            } else {
+                return false;
+            }
+            for (Object element : list) {
+                if (!accepts(elementType, element)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        return false;
+    }
+
+    private static boolean isFloating(Class<?> c) {
+        return c == double.class || c == Double.class || c == float.class || c == Float.class;
+    }
+
+    /**
+     * Runs one case, on its own daemon thread when there is a time budget so
+     * an overrunning case can be abandoned.
+     */
+    private static CaseRun runCase(Method method, Object target, Object[] args, long caseBudgetMs) {
+        CaseRun caseRun = new CaseRun();
+        Throwable[] error = new Throwable[1];
+        Runnable timed = () -> {
+            long start = System.nanoTime();
+            try {
+                caseRun.actual = method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                error[0] = e.getCause();
+            } catch (Throwable t) {
+                error[0] = t;
+            }
+            caseRun.elapsedNanos = System.nanoTime() - start;
+        };
+        if (caseBudgetMs <= 0) {
+            timed.run();
+        } else {
+            Thread caseThread = new Thread(timed, "judge-case");
+            caseThread.setDaemon(true);
+            long start = System.nanoTime();
+            caseThread.start();
+            try {
+                caseThread.join(caseBudgetMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            if (caseThread.isAlive()) {
+                caseRun.elapsedNanos = System.nanoTime() - start;
+                caseRun.timedOut = true;
+                return caseRun;
+            }
+        }
+        if (error[0] instanceof RuntimeException e) throw e;
+        if (error[0] instanceof Error e) throw e;
+        if (error[0] != null) throw new RuntimeException(error[0]);
+        return caseRun;
+    }
+
+    private static Object[] convertArguments(Method method, List<?> values) {
+        Type[] types = method.getGenericParameterTypes();
+        Object[] args = new Object[types.length];
+        for (int i = 0; i < types.length; i++) {
+            args[i] = convert(values.get(i), types[i]);
+        }
+        return args;
+    }
+
+    /**
+     * Converts a parsed JSON value (Long, Double, Boolean, String, List or
+     * null) to the declared type.
+     */
+    private static Object convert(Object value, Type type) {
+        if (value == null) {
+            return null;
+        }
+        if (type instanceof WildcardType wildcard) {
+            return convert(value, wildcard.getUpperBounds()[0]);
+        }
+        if (type instanceof GenericArrayType array) {
+            return toArray((List<?>) value, array.getGenericComponentType(), rawClass(array.getGenericComponentType()));
+        }
+        if (type instanceof ParameterizedType parameterized) {
+            Class<?> raw = (Class<?>) parameterized.getRawType();
+            if (Collection.class.isAssignableFrom(raw)) {
+                return toCollection((List<?>) value, raw, parameterized.getActualTypeArguments()[0]);
+            }
+            return value;
+        }
+        if (!(type instanceof Class<?> c)) {
+            return value;
+        }
+        if (c == int.class || c == Integer.class) return ((Number) value).intValue();
+        if (c == long.class || c == Long.class) return ((Number) value).longValue();
+        if (c == double.class || c == Double.class) return ((Number) value).doubleValue();
+        if (c == float.class || c == Float.class) return ((Number) value).floatValue();
+        if (c == short.class || c == Short.class) return ((Number) value).shortValue();
+        if (c == byte.class || c == Byte.class) return ((Number) value).byteValue();
+        if (c == boolean.class || c == Boolean.class) return (Boolean) value;
+        if (c == char.class || c == Character.class) {
+            if (value instanceof Number n) {
+                return (char) n.intValue();
+            }
+            String text = (String) value;
+            if (text.length() != 1) {
+                throw new IllegalArgumentException("Not a char: \"" + text + "\"");
+            }
+            return text.charAt(0);
+        }
+        if (c == String.class) return (String) value;
+        if (c.isArray()) {
+            return toArray((List<?>) value, c.getComponentType(), c.getComponentType());
+        }
+        if (Collection.class.isAssignableFrom(c)) {
+            return toCollection((List<?>) value, c, Object.class);
+        }
+        return value;
+    }
+
+    private static Object toArray(List<?> values, Type componentType, Class<?> componentClass) {
+        Object array = Array.newInstance(componentClass, values.size());
+        for (int i = 0; i < values.size(); i++) {
+            Array.set(array, i, convert(values.get(i), componentType));
+        }
+        return array;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Collection<Object> toCollection(List<?> values, Class<?> raw, Type elementType) {
+        Collection<Object> collection;
+        if (raw.isInterface() || Modifier.isAbstract(raw.getModifiers())) {
+            if (Queue.class.isAssignableFrom(raw)) {
+                collection = new LinkedList<>();
+            } else if (Set.class.isAssignableFrom(raw)) {
+                collection = new LinkedHashSet<>();
+            } else {
+                collection = new ArrayList<>();
+            }
+        } else {
+            try {
+                collection = (Collection<Object>) raw.getDeclaredConstructor().newInstance();
+            } catch (ReflectiveOperationException e) {
+                throw new IllegalArgumentException("Cannot create " + raw.getName(), e);
+            }
+        }
+        for (Object element : values) {
+            collection.add(convert(element, elementType));
+        }
+        return collection;
+    }
+
+    private static Class<?> rawClass(Type type) {
+        if (type instanceof Class<?> c) {
+            return c;
+        }
+        if (type instanceof ParameterizedType parameterized) {
+            return (Class<?>) parameterized.getRawType();
+        }
+        if (type instanceof GenericArrayType array) {
+            return Array.newInstance(rawClass(array.getGenericComponentType()), 0).getClass();
+        }
+        return Object.class;
+    }
+
+    // Renders an actual value on one line, truncated to 100 characters
+    private static String describeActual(Object value) {
+        String text;
+        if (value instanceof int[] a) text = Arrays.toString(a);
+        else if (value instanceof long[] a) text = Arrays.toString(a);
+        else if (value instanceof double[] a) text = Arrays.toString(a);
+        else if (value instanceof boolean[] a) text = Arrays.toString(a);
+        else if (value instanceof char[] a) text = Arrays.toString(a);
+        else if (value instanceof Object[] a) text = Arrays.deepToString(a);
+        else if (value instanceof String str) text = "\"" + str + "\"";
+        else text = String.valueOf(value);
+        if (text.length() > 100) text = text.substring(0, 100) + "...";
+        return text.replace("\n", "\\n").replace("\r", "\\r");
+    }
+
+    private static class CaseRun {
+        volatile Object actual;
+        volatile long elapsedNanos;
+        boolean timedOut;
+    }
+
+    /**
+     * Just enough JSON for the test data files: objects, arrays, strings,
+     * numbers (Long when integral, otherwise Double), booleans and null.
+     */
+    private static final class Json {
+        private final String text;
+        private int pos;
+
+        private Json(String text) {
+            this.text = text;
+        }
+
+        static Object parse(String text) {
+            Json json = new Json(text);
+            Object value = json.value();
+            json.skipSpace();
+            if (json.pos != text.length()) {
+                throw new IllegalArgumentException("Trailing data at " + json.pos);
+            }
+            return value;
+        }
+
+        private Object value() {
+            skipSpace();
+            char c = text.charAt(pos);
+            switch (c) {
+                case '{' -> {
+                    pos++;
+                    Map<String, Object> object = new LinkedHashMap<>();
+                    skipSpace();
+                    if (text.charAt(pos) == '}') {
+                        pos++;
+                        return object;
+                    }
+                    while (true) {
+                        skipSpace();
+                        String key = string();
+                        skipSpace();
+                        expect(':');
+                        object.put(key, value());
+                        skipSpace();
+                        if (text.charAt(pos++) == '}') {
+                            return object;
+                        }
+                    }
+                }
+                case '[' -> {
+                    pos++;
+                    List<Object> array = new ArrayList<>();
+                    skipSpace();
+                    if (text.charAt(pos) == ']') {
+                        pos++;
+                        return array;
+                    }
+                    while (true) {
+                        array.add(value());
+                        skipSpace();
+                        if (text.charAt(pos++) == ']') {
+                            return array;
+                        }
+                    }
+                }
+                case '"' -> {
+                    return string();
+                }
+                default -> {
+                    if (text.startsWith("null", pos)) {
+                        pos += 4;
+                        return null;
+                    }
+                    if (text.startsWith("true", pos)) {
+                        pos += 4;
+                        return Boolean.TRUE;
+                    }
+                    if (text.startsWith("false", pos)) {
+                        pos += 5;
+                        return Boolean.FALSE;
+                    }
+                    return number();
+                }
+            }
+        }
+
+        private Object number() {
+            int start = pos;
+            boolean decimal = false;
+            while (pos < text.length() && "+-0123456789.eE".indexOf(text.charAt(pos)) >= 0) {
+                decimal |= ".eE".indexOf(text.charAt(pos)) >= 0;
+                pos++;
+            }
+            String digits = text.substring(start, pos);
+            return decimal ? (Object) Double.parseDouble(digits) : (Object) Long.parseLong(digits);
+        }
+
+        private String string() {
+            expect('"');
+            StringBuilder value = new StringBuilder();
+            while (true) {
+                char c = text.charAt(pos++);
+                if (c == '"') {
+                    return value.toString();
+                }
+                if (c != '\\') {
+                    value.append(c);
+                    continue;
+                }
+                char escaped = text.charAt(pos++);
+                switch (escaped) {
+                    case 'n' -> value.append('\n');
+                    case 't' -> value.append('\t');
+                    case 'r' -> value.append('\r');
+                    case 'b' -> value.append('\b');
+                    case 'f' -> value.append('\f');
+                    case 'u' -> {
+                        value.append((char) Integer.parseInt(text.substring(pos, pos + 4), 16));
+                        pos += 4;
+                    }
+                    default -> value.append(escaped);
+                }
+            }
+        }
+
+        private void expect(char c) {
+            if (text.charAt(pos++) != c) {
+                throw new IllegalArgumentException("Expected '" + c + "' at " + (pos - 1));
+            }
+        }
+
+        private void skipSpace() {
+            while (pos < text.length() && Character.isWhitespace(text.charAt(pos))) {
+                pos++;
+            }
+        }
+    }
+}
@@ -0,0 +1,321 @@
+"""Fork-server runner for the Python runner image.
+
+Speaks the same protocol as the Java runner's JudgeDaemon. The worker writes
+one request per job on stdin:
+
+    RUN <nonce> <fileName> <timeoutMs> <sourceLength>\n<source bytes>
+
+and the server answers with a header followed by exactly <length> bytes of
+the program's combined output:
+
+    @@<nonce> status=<ok|timeout|output_limit> compileMs=<n> runMs=<n> recycle=<bool> length=<n>
+
+The interpreter and the modules submissions commonly use are loaded once.
+Every job runs in a child with its own process group and resource limits.
+The child is forked before the request is read, so the job cannot find the
+nonce in its memory, and the server is not dumpable, so it cannot read the
+server's either. A job that moves a process out of that group (setsid, setpgid) can
+outlive the group kill, so after each job the server looks for any process
+other than itself and asks to be recycled when it finds one.
+"""
+
+import builtins
+import ctypes
+import marshal
+import os
+import resource
+import select
+import signal
+import sys
+import time
+import traceback
+import types
+
+# Preloaded so that importing them in a job is a dictionary lookup
+import bisect  # noqa: F401
+import collections  # noqa: F401
+import copy  # noqa: F401
+import dataclasses  # noqa: F401
+import decimal  # noqa: F401
+import fractions  # noqa: F401
+import functools  # noqa: F401
+import heapq  # noqa: F401
+import itertools  # noqa: F401
+import json  # noqa: F401
+import math  # noqa: F401
+import operator  # noqa: F401
+import random  # noqa: F401
+import re  # noqa: F401
+import statistics  # noqa: F401
+import string  # noqa: F401
+import typing  # noqa: F401
+
+OUTPUT_LIMIT_BYTES = 1024 * 1024
+MEMORY_LIMIT_BYTES = int(os.environ.get("JUDGE_MEMORY_LIMIT_MB", "512")) * 1024 * 1024
+FILE_SIZE_LIMIT_BYTES = 16 * 1024 * 1024
+APP_DIR = os.environ.get("JUDGE_APP_DIR", "/app")
+
+protocol_in = sys.stdin.buffer
+protocol_out = sys.stdout.buffer
+
+
+def read_line():
+    line = protocol_in.readline()
+    if not line:
+        return None
+    return line.rstrip(b"\n").decode("utf-8")
+
+
+def read_exactly(length):
+    data = protocol_in.read(length)
+    if data is None or len(data) != length:
+        raise EOFError("request body truncated")
+    return data
+
+
+def make_undumpable():
+    """Keeps jobs, which run as the same user, from reading the server's memory or fds through /proc."""
+    PR_SET_DUMPABLE = 4
+    try:
+        ctypes.CDLL(None, use_errno=True).prctl(PR_SET_DUMPABLE, 0, 0, 0, 0)
+    except (OSError, AttributeError):
+        pass
+
+
+def read_all(fd):
+    chunks = []
+    while True:
+        chunk = os.read(fd, 65536)
+        if not chunk:
+            return b"".join(chunks)
+        chunks.append(chunk)
+
+
+def spawn_child():
+    """Forks the next job's child, which waits for its code on a control pipe."""
+    control_read, control_write = os.pipe()
+    read_fd, write_fd = os.pipe()
+    pid = os.fork()
+    if pid == 0:
+        os.close(control_write)
+        os.close(read_fd)
+        run_child(control_read, write_fd)
+    os.close(control_read)
+    os.close(write_fd)
+    try:
+        # Also set from this side so killpg cannot race the child's own setpgid
+        os.setpgid(pid, pid)
+    except OSError:
+        pass
+    return pid, control_write, read_fd
+
+
+def discard_child(child):
+    pid, control_fd, read_fd = child
+    os.close(control_fd)
+    try:
+        os.killpg(pid, signal.SIGKILL)
+    except (ProcessLookupError, PermissionError):
+        pass
+    os.waitpid(pid, 0)
+    os.close(read_fd)
+
+
+def run_child(control_fd, write_fd):
+    """Runs in the forked child; never returns."""
+    exit_code = 0
+    try:
+        os.setpgid(0, 0)
+        request = read_all(control_fd)
+        os.close(control_fd)
+        if not request:
+            os._exit(0)
+        limits, payload = request.split(b"\n", 1)
+        timeout_ms, path = limits.decode("utf-8").split(" ", 1)
+        timeout_ms = int(timeout_ms)
+        code = marshal.loads(payload)
+
+        os.dup2(write_fd, 1)
+        os.dup2(write_fd, 2)
+        os.close(write_fd)
+        null_fd = os.open(os.devnull, os.O_RDONLY)
+        os.dup2(null_fd, 0)
+        os.close(null_fd)
+
+        cpu_seconds = max(1, (timeout_ms + 999) // 1000) + 1
+        resource.setrlimit(resource.RLIMIT_CPU, (cpu_seconds, cpu_seconds))
+        resource.setrlimit(resource.RLIMIT_AS, (MEMORY_LIMIT_BYTES, MEMORY_LIMIT_BYTES))
+        resource.setrlimit(resource.RLIMIT_FSIZE, (FILE_SIZE_LIMIT_BYTES, FILE_SIZE_LIMIT_BYTES))
+        signal.signal(signal.SIGTERM, signal.SIG_DFL)
+
+        sys.stdin = open(0, "r", closefd=False)
+        sys.stdout = open(1, "w", buffering=1, encoding="utf-8", closefd=False)
+        sys.stderr = open(2, "w", buffering=1, encoding="utf-8", closefd=False)
+        sys.argv = [path]
+
+        main = types.ModuleType("__main__")
+        main.__file__ = path
+        main.__builtins__ = builtins
+        sys.modules["__main__"] = main
+        exec(code, main.__dict__)
+    except SystemExit as e:
+        if e.code is None:
+            exit_code = 0
+        elif isinstance(e.code, int):
+            exit_code = e.code
+        else:
+            print(e.code, file=sys.stderr)
+            exit_code = 1
+    except BaseException as e:
+        # Drop the server's own frame so the trace matches `python main.py`
+        print("Traceback (most recent call last):", file=sys.stderr)
+        traceback.print_tb(e.__traceback__.tb_next, file=sys.stderr)
+        for line in traceback.format_exception_only(type(e), e):
+            sys.stderr.write(line)
+        exit_code = 1
+    finally:
+        try:
+            sys.stdout.flush()
+            sys.stderr.flush()
+        finally:
+            os._exit(exit_code)
+
+
+def collect_output(pid, read_fd, deadline):
+    """Reads the child's output until it exits, the deadline passes or the cap is hit."""
+    chunks = []
+    size = 0
+    status = "ok"
+    while True:
+        remaining = deadline - time.monotonic()
+        if remaining <= 0:
+            status = "timeout"
+            break
+        ready, _, _ = select.select([read_fd], [], [], remaining)
+        if not ready:
+            continue
+        chunk = os.read(read_fd, 65536)
+        if not chunk:
+            break
+        room = OUTPUT_LIMIT_BYTES - size
+        if len(chunk) > room:
+            chunks.append(chunk[:room])
+            status = "output_limit"
+            break
+        chunks.append(chunk)
+        size += len(chunk)
+
+    # Kill the whole group, including anything the job spawned
+    try:
+        os.killpg(pid, signal.SIGKILL)
+    except (ProcessLookupError, PermissionError):
+        pass
+    os.waitpid(pid, 0)
+    os.close(read_fd)
+    return b"".join(chunks), status
+
+
+def stray_processes():
+    """Reaps finished orphans and returns the pids of any other live process in the container."""
+    while True:
+        try:
+            pid, _ = os.waitpid(-1, os.WNOHANG)
+        except ChildProcessError:
+            break
+        if pid == 0:
+            break
+    own = os.getpid()
+    strays = []
+    for entry in os.listdir("/proc"):
+        if not entry.isdigit() or int(entry) == own:
+            continue
+        try:
+            with open("/proc/%s/stat" % entry, "rb") as f:
+                # The state follows the parenthesised command name, which may itself contain spaces
+                state = f.read().rsplit(b")", 1)[1].split()[0]
+        except (OSError, IndexError):
+            continue
+        if state not in (b"Z", b"X"):
+            strays.append(int(entry))
+    return strays
+
+
+def run_job(child, file_name, source, timeout_ms):
+    pid, control_fd, read_fd = child
+    path = os.path.join(APP_DIR, file_name)
+    with open(path, "wb") as f:
+        f.write(source)
+    try:
+        compile_start = time.monotonic()
+        try:
+            code = compile(source, path, "exec", dont_inherit=True)
+        except (SyntaxError, ValueError) as e:
+            discard_child(child)
+            output = "".join(traceback.format_exception_only(type(e), e)).encode("utf-8")
+            return output, "ok", elapsed_ms(compile_start), 0
+        compile_ms = elapsed_ms(compile_start)
+
+        run_start = time.monotonic()
+        request = memoryview(("%d %s\n" % (timeout_ms, path)).encode("utf-8") + marshal.dumps(code))
+        try:
+            while request:
+                request = request[os.write(control_fd, request):]
+        except OSError:
+            # The child is gone; collect_output reports what it wrote
+            pass
+        os.close(control_fd)
+        output, status = collect_output(pid, read_fd, run_start + timeout_ms / 1000.0)
+        return output, status, compile_ms, elapsed_ms(run_start)
+    finally:
+        try:
+            os.remove(path)
+        except OSError:
+            pass
+
+
+def elapsed_ms(start):
+    return int((time.monotonic() - start) * 1000)
+
+
+def main():
+    max_jobs = int(sys.argv[1]) if len(sys.argv) > 1 else 100
+    os.makedirs(APP_DIR, exist_ok=True)
+    make_undumpable()
+    protocol_out.write(b"READY\n")
+    protocol_out.flush()
+
+    for job_number in range(1, max_jobs + 1):
+        child = spawn_child()
+        header = read_line()
+        if header is None:
+            discard_child(child)
+            return
+        parts = header.split(" ")
+        if len(parts) != 5 or parts[0] != "RUN":
+            discard_child(child)
+            protocol_out.write(b"@@ status=bad_request\n")
+            protocol_out.flush()
+            return
+        _, nonce, file_name, timeout_ms, length = parts
+        source = read_exactly(int(length))
+
+        output, status, compile_ms, run_ms = run_job(child, file_name, source, int(timeout_ms))
+
+        strays = stray_processes()
+        for pid in strays:
+            try:
+                os.kill(pid, signal.SIGKILL)
+            except (ProcessLookupError, PermissionError):
+                pass
+        recycle = "true" if job_number == max_jobs or strays else "false"
+        protocol_out.write(("@@%s status=%s compileMs=%d runMs=%d recycle=%s length=%d\n"
+                            % (nonce, status, compile_ms, run_ms, recycle, len(output))).encode("utf-8"))
+        protocol_out.write(output)
+        protocol_out.flush()
+        if strays:
+            # Something escaped the job's process group; the container is not reused
+            return
+
+
+if __name__ == "__main__":
+    main()
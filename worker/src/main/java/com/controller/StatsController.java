@@ -0,0 +1,48 @@
+package com.controller;
+
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import com.service.JobSlots;
+import com.service.WorkerService;
+import com.util.ArtifactCache;
+import com.util.ContainerPool;
+import com.util.ResultPublisher;
+
+@RestController
+@RequestMapping("/stats")
+public class StatsController {
+    private final ContainerPool containerPool;
+    private final WorkerService workerService;
+    private final ResultPublisher resultPublisher;
+    private final ArtifactCache artifactCache;
+
+    public StatsController(ContainerPool containerPool, WorkerService workerService,
+            ResultPublisher resultPublisher, ArtifactCache artifactCache) {
+        this.containerPool = containerPool;
+        this.workerService = workerService;
+        this.resultPublisher = resultPublisher;
+        this.artifactCache = artifactCache;
+    }
+
+    @GetMapping("/pool")
+    public ContainerPool.PoolStats getPoolStats() {
+        return containerPool.getStats();
+    }
+
+    @GetMapping("/slots")
+    public JobSlots.SlotStats getSlotStats() {
+        return workerService.getSlotStats();
+    }
+
+    @GetMapping("/publisher")
+    public ResultPublisher.PublisherStats getPublisherStats() {
+        return resultPublisher.getStats();
+    }
+
+    @GetMapping("/artifacts")
+    public ArtifactCache.ArtifactCacheStats getArtifactStats() {
+        return artifactCache.getStats();
+    }
+}
@@ -4,6 +4,11 @@ public class JobMessage {
     private String jobId;
     private String s3Key;
     private String language;
+    private String fileName;
+    private String source;
+    private String sourceEncoding;
+    private Long timeLimitMs;
+    private String testDataKey;
 
     public JobMessage() {
     }
@@ -38,12 +43,67 @@ public class JobMessage {
         this.language = language;
     }
 
+    public String getFileName() {
+        return fileName;
+    }
+
+    public void setFileName(String fileName) {
+        this.fileName = fileName;
+    }
+
+    public String getSource() {
+        return source;
+    }
+
+    public void setSource(String source) {
+        this.source = source;
+    }
+
+    public String getSourceEncoding() {
+        return sourceEncoding;
+    }
+
+    public void setSourceEncoding(String sourceEncoding) {
+        this.sourceEncoding = sourceEncoding;
+    }
+
+    /**
+     * The question's total time limit, or {@code null} for the worker's
+     * default.
+     */
+    public Long getTimeLimitMs() {
+        return timeLimitMs;
+    }
+
+    public void setTimeLimitMs(Long timeLimitMs) {
+        this.timeLimitMs = timeLimitMs;
+    }
+
+    /**
+     * S3 key of the test data file the code reads its cases from, or
+     * {@code null} when the test cases are compiled into the code.
+     */
+    public String getTestDataKey() {
+        return testDataKey;
+    }
+
+    public void setTestDataKey(String testDataKey) {
+        this.testDataKey = testDataKey;
+    }
+
+    public boolean hasInlineSource() {
+        return source != null;
+    }
+
     @Override
     public String toString() {
         return "JobMessage{" +
                 "jobId='" + jobId + '\'' +
                 ", s3Key='" + s3Key + '\'' +
                 ", language='" + language + '\'' +
+                ", inlineSource=" + hasInlineSource() +
+                ", timeLimitMs=" + timeLimitMs +
+                ", testDataKey='" + testDataKey + '\'' +
                 '}';
     }
 }
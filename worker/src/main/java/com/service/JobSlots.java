@@ -0,0 +1,123 @@
+package com.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+
+/**
+ * Fixed set of worker slots, one job per slot. The receive loop reserves
+ * slots before pulling messages so SQS is never asked for more work than
+ * the host can start right away.
+ */
+public class JobSlots {
+    private static final ThreadLocal<Integer> SLOT_INDEX = new ThreadLocal<>();
+
+    private final int size;
+    private final Semaphore freeSlots;
+    private final ThreadPoolExecutor executor;
+    private final long startedAt = System.nanoTime();
+
+    private final AtomicLongArray busyNanos;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicLong started = new AtomicLong();
+    private final AtomicLong completed = new AtomicLong();
+    private final AtomicLong queueWaitMsTotal = new AtomicLong();
+    private final LongAccumulator maxQueueWaitMs = new LongAccumulator(Long::max, 0);
+
+    public JobSlots(int size) {
+        this.size = size;
+        this.freeSlots = new Semaphore(size);
+        this.busyNanos = new AtomicLongArray(size);
+
+        AtomicInteger nextIndex = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(size, size, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(), r -> {
+                    int index = nextIndex.getAndIncrement();
+                    Thread thread = new Thread(() -> {
+                        SLOT_INDEX.set(index);
+                        r.run();
+                    }, "worker-slot-" + index);
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Blocks until at least one slot is free, then reserves every other free
+     * slot up to {@code max}. Reservations that end up unused must be handed
+     * back with {@link #release(int)}.
+     */
+    public int reserve(int max) throws InterruptedException {
+        freeSlots.acquire();
+        int reserved = 1;
+        while (reserved < max && freeSlots.tryAcquire()) {
+            reserved++;
+        }
+        return reserved;
+    }
+
+    public void release(int count) {
+        if (count > 0) {
+            freeSlots.release(count);
+        }
+    }
+
+    /**
+     * Runs a job on a reserved slot and frees the slot when it completes.
+     *
+     * @param queuedAtMillis when the job entered the queue, used for the
+     *                       queue-to-start wait
+     */
+    public void submit(Runnable job, long queuedAtMillis) {
+        executor.execute(() -> {
+            long waitMs = Math.max(0, System.currentTimeMillis() - queuedAtMillis);
+            queueWaitMsTotal.addAndGet(waitMs);
+            maxQueueWaitMs.accumulate(waitMs);
+            started.incrementAndGet();
+
+            inFlight.incrementAndGet();
+            long start = System.nanoTime();
+            try {
+                job.run();
+            } finally {
+                Integer index = SLOT_INDEX.get();
+                if (index != null) {
+                    busyNanos.addAndGet(index, System.nanoTime() - start);
+                }
+                inFlight.decrementAndGet();
+                completed.incrementAndGet();
+                freeSlots.release();
+            }
+        });
+    }
+
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    public SlotStats getStats() {
+        long uptime = Math.max(1, System.nanoTime() - startedAt);
+        List<Double> utilization = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            utilization.add(Math.min(1.0, (double) busyNanos.get(i) / uptime));
+        }
+        long jobs = started.get();
+        return new SlotStats(size, inFlight.get(), completed.get(), utilization,
+                jobs == 0 ? 0 : queueWaitMsTotal.get() / jobs, maxQueueWaitMs.get());
+    }
+
+    public record SlotStats(int slots, int inFlight, long completed, List<Double> utilization,
+            long averageQueueWaitMs, long maxQueueWaitMs) {
+    }
+}
@@ -0,0 +1,210 @@
+package com.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import software.amazon.awssdk.core.exception.SdkException;
+import software.amazon.awssdk.services.sqs.SqsClient;
+import software.amazon.awssdk.services.sqs.model.BatchResultErrorEntry;
+import software.amazon.awssdk.services.sqs.model.ChangeMessageVisibilityBatchRequest;
+import software.amazon.awssdk.services.sqs.model.ChangeMessageVisibilityBatchRequestEntry;
+import software.amazon.awssdk.services.sqs.model.ChangeMessageVisibilityBatchResponse;
+import software.amazon.awssdk.services.sqs.model.DeleteMessageBatchRequest;
+import software.amazon.awssdk.services.sqs.model.DeleteMessageBatchRequestEntry;
+import software.amazon.awssdk.services.sqs.model.DeleteMessageBatchResponse;
+
+/**
+ * Tracks request-queue messages that are being worked on. Running jobs get
+ * their visibility extended as soon as they are tracked and then by a
+ * background heartbeat so SQS does not hand them to another worker, and
+ * completed jobs are deleted in batches of up to ten instead of one
+ * {@code DeleteMessage} call each.
+ */
+public class MessageLeases {
+    private static final int SQS_BATCH_SIZE = 10;
+    private static final int MAX_DELETE_ATTEMPTS = 3;
+
+    private final SqsClient sqsClient;
+    private final String queueUrl;
+    private final int visibilityTimeoutSeconds;
+
+    private final Map<String, Long> running = new ConcurrentHashMap<>();
+    private final ConcurrentLinkedQueue<PendingDelete> pendingDeletes = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pendingCount = new AtomicInteger();
+    private final AtomicBoolean flushScheduled = new AtomicBoolean();
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "message-leases");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public MessageLeases(SqsClient sqsClient, String queueUrl, int visibilityTimeoutSeconds,
+            int heartbeatIntervalSeconds, long deleteLingerMs) {
+        this.sqsClient = sqsClient;
+        this.queueUrl = queueUrl;
+        this.visibilityTimeoutSeconds = visibilityTimeoutSeconds;
+
+        // At least three beats per lease, so one failed extension does not let a message reappear
+        int interval = Math.max(1, Math.min(heartbeatIntervalSeconds, visibilityTimeoutSeconds / 3));
+        scheduler.scheduleWithFixedDelay(this::heartbeat, interval, interval, TimeUnit.SECONDS);
+        scheduler.scheduleWithFixedDelay(this::flushDeletes, deleteLingerMs, deleteLingerMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Starts extending the visibility of a received message until it is
+     * deleted or released.
+     */
+    public void track(String receiptHandle) {
+        if (receiptHandle == null) {
+            return;
+        }
+        track(List.of(receiptHandle));
+    }
+
+    /**
+     * Tracks a received batch and extends it right away, so the first
+     * heartbeat does not have to land before the receive's timeout runs out.
+     */
+    public void track(List<String> receiptHandles) {
+        List<String> handles = new ArrayList<>(receiptHandles.size());
+        long now = System.currentTimeMillis();
+        for (String receiptHandle : receiptHandles) {
+            if (receiptHandle != null) {
+                running.put(receiptHandle, now);
+                handles.add(receiptHandle);
+            }
+        }
+        extend(handles);
+    }
+
+    /**
+     * Stops the heartbeat without deleting, leaving the message to become
+     * visible again once its current timeout runs out.
+     */
+    public void release(String receiptHandle) {
+        if (receiptHandle == null) {
+            return;
+        }
+        running.remove(receiptHandle);
+    }
+
+    /**
+     * Stops the heartbeat and queues the message for a batched delete. A full
+     * batch is flushed right away, a partial one after the linger interval.
+     */
+    public void delete(String receiptHandle) {
+        if (receiptHandle == null) {
+            return;
+        }
+        running.remove(receiptHandle);
+        pendingDeletes.add(new PendingDelete(receiptHandle, 0));
+        if (pendingCount.incrementAndGet() >= SQS_BATCH_SIZE && flushScheduled.compareAndSet(false, true)) {
+            scheduler.execute(this::flushDeletes);
+        }
+    }
+
+    public int runningCount() {
+        return running.size();
+    }
+
+    public void shutdown() {
+        scheduler.shutdown();
+        try {
+            scheduler.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flushDeletes();
+    }
+
+    void flushDeletes() {
+        flushScheduled.set(false);
+        while (!pendingDeletes.isEmpty()) {
+            List<PendingDelete> batch = new ArrayList<>(SQS_BATCH_SIZE);
+            PendingDelete next;
+            while (batch.size() < SQS_BATCH_SIZE && (next = pendingDeletes.poll()) != null) {
+                pendingCount.decrementAndGet();
+                batch.add(next);
+            }
+            if (batch.isEmpty()) {
+                return;
+            }
+
+            List<DeleteMessageBatchRequestEntry> entries = new ArrayList<>(batch.size());
+            for (int i = 0; i < batch.size(); i++) {
+                entries.add(DeleteMessageBatchRequestEntry.builder()
+                        .id(String.valueOf(i))
+                        .receiptHandle(batch.get(i).receiptHandle())
+                        .build());
+            }
+
+            try {
+                DeleteMessageBatchResponse response = sqsClient.deleteMessageBatch(DeleteMessageBatchRequest.builder()
+                        .queueUrl(queueUrl)
+                        .entries(entries)
+                        .build());
+                for (BatchResultErrorEntry failed : response.failed()) {
+                    PendingDelete entry = batch.get(Integer.parseInt(failed.id()));
+                    System.err.println("Failed to delete message: " + failed.code() + " " + failed.message());
+                    if (!Boolean.TRUE.equals(failed.senderFault())) {
+                        retryDelete(entry);
+                    }
+                }
+            } catch (SdkException e) {
+                System.err.println("Failed to delete message batch: " + e.getMessage());
+                batch.forEach(this::retryDelete);
+                return;
+            }
+        }
+    }
+
+    void heartbeat() {
+        extend(new ArrayList<>(running.keySet()));
+    }
+
+    private void extend(List<String> handles) {
+        for (int start = 0; start < handles.size(); start += SQS_BATCH_SIZE) {
+            List<String> chunk = handles.subList(start, Math.min(start + SQS_BATCH_SIZE, handles.size()));
+
+            List<ChangeMessageVisibilityBatchRequestEntry> entries = new ArrayList<>(chunk.size());
+            for (int i = 0; i < chunk.size(); i++) {
+                entries.add(ChangeMessageVisibilityBatchRequestEntry.builder()
+                        .id(String.valueOf(i))
+                        .receiptHandle(chunk.get(i))
+                        .visibilityTimeout(visibilityTimeoutSeconds)
+                        .build());
+            }
+
+            try {
+                ChangeMessageVisibilityBatchResponse response = sqsClient.changeMessageVisibilityBatch(
+                        ChangeMessageVisibilityBatchRequest.builder()
+                                .queueUrl(queueUrl)
+                                .entries(entries)
+                                .build());
+                for (BatchResultErrorEntry failed : response.failed()) {
+                    System.err.println("Failed to extend visibility: " + failed.code() + " " + failed.message());
+                }
+            } catch (SdkException e) {
+                System.err.println("Failed to extend message visibility: " + e.getMessage());
+            }
+        }
+    }
+
+    private void retryDelete(PendingDelete entry) {
+        if (entry.attempts() + 1 < MAX_DELETE_ATTEMPTS) {
+            pendingDeletes.add(new PendingDelete(entry.receiptHandle(), entry.attempts() + 1));
+            pendingCount.incrementAndGet();
+        }
+    }
+
+    private record PendingDelete(String receiptHandle, int attempts) {
+    }
+}
@@ -1,8 +1,15 @@
 package com.service;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
 
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
@@ -10,138 +17,313 @@ import org.springframework.stereotype.Service;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.model.JobMessage;
 import com.util.DockerRunner;
+import com.util.OutputCapture;
 import com.util.ResultPublisher;
+import com.util.TestDataCache;
+import com.util.WorkerMetrics;
 
 import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import software.amazon.awssdk.services.s3.S3Client;
 import software.amazon.awssdk.services.s3.model.GetObjectRequest;
 import software.amazon.awssdk.services.sqs.SqsClient;
-import software.amazon.awssdk.services.sqs.model.DeleteMessageRequest;
 import software.amazon.awssdk.services.sqs.model.Message;
+import software.amazon.awssdk.services.sqs.model.MessageSystemAttributeName;
 import software.amazon.awssdk.services.sqs.model.ReceiveMessageRequest;
 import software.amazon.awssdk.services.sqs.model.ReceiveMessageResponse;
 
 @Service
 public class WorkerService {
+    private static final int SQS_MAX_MESSAGES = 10;
+
     @Value("${aws.sqs.request.queue.url}")
     private String REQUEST_QUEUE_URL;
     @Value("${aws.sqs.response.queue.url}")
     private String RESPONSE_QUEUE_URL;
     @Value("${aws.s3.bucket.name}")
     private String BUCKET_NAME;
+    @Value("${worker.slots:0}")
+    private int configuredSlots;
+    @Value("${worker.slot-memory-mb:512}")
+    private long slotMemoryMb;
+    @Value("${worker.visibility.timeout-seconds:120}")
+    private int visibilityTimeoutSeconds = 120;
+    @Value("${worker.visibility.heartbeat-seconds:30}")
+    private int heartbeatIntervalSeconds = 30;
+    @Value("${worker.delete.linger-ms:200}")
+    private long deleteLingerMs = 200;
 
     private final SqsClient sqsClient;
     private final S3Client s3Client;
     private final DockerRunner dockerRunner;
     private final ResultPublisher resultPublisher;
+    private final TestDataCache testDataCache;
     private final ObjectMapper objectMapper;
+    private final WorkerMetrics metrics;
+
+    private volatile JobSlots jobSlots;
+    private volatile MessageLeases messageLeases;
 
     public WorkerService(SqsClient sqsClient, S3Client s3Client, DockerRunner dockerRunner,
-            ResultPublisher resultPublisher, ObjectMapper objectMapper) {
+            ResultPublisher resultPublisher, TestDataCache testDataCache, ObjectMapper objectMapper,
+            WorkerMetrics metrics) {
         this.sqsClient = sqsClient;
         this.s3Client = s3Client;
         this.dockerRunner = dockerRunner;
         this.resultPublisher = resultPublisher;
+        this.testDataCache = testDataCache;
         this.objectMapper = objectMapper;
+        this.metrics = metrics;
     }
 
     @PostConstruct
     public void startListening() {
         System.out.println("Starting Worker Service...");
-        new Thread(this::start).start();
+        new Thread(this::start, "worker-receive-loop").start();
+    }
+
+    @PreDestroy
+    public void stopListening() {
+        if (jobSlots != null) {
+            jobSlots.shutdown();
+        }
+        if (messageLeases != null) {
+            messageLeases.shutdown();
+        }
+    }
+
+    public JobSlots.SlotStats getSlotStats() {
+        JobSlots slots = jobSlots;
+        return slots == null ? null : slots.getStats();
     }
 
     public void start() {
-        System.out.println("Worker Service started, listening for messages...");
-
-        while (true) {
-            ReceiveMessageResponse sqsResponse = sqsClient.receiveMessage(
-                    ReceiveMessageRequest.builder()
-                            .queueUrl(REQUEST_QUEUE_URL)
-                            .maxNumberOfMessages(1)
-                            .waitTimeSeconds(10)
-                            .build());
-
-            if (sqsResponse.messages().isEmpty()) {
-                continue;
+        JobSlots slots = new JobSlots(resolveSlotCount());
+        MessageLeases leases = new MessageLeases(sqsClient, REQUEST_QUEUE_URL, visibilityTimeoutSeconds,
+                heartbeatIntervalSeconds, deleteLingerMs);
+        jobSlots = slots;
+        messageLeases = leases;
+        System.out.println("Worker Service started with " + slots.size() + " slots, listening for messages...");
+
+        while (!Thread.currentThread().isInterrupted()) {
+            int reserved;
+            try {
+                reserved = slots.reserve(SQS_MAX_MESSAGES);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
             }
 
-            for (Message sqsMessage : sqsResponse.messages()) {
-                Path localFilePath = null;
-                try {
-                    JobMessage job = objectMapper.readValue(sqsMessage.body(), JobMessage.class);
-                    System.out.println("Received Job: " + job);
-
-                    localFilePath = downloadCode(job.getJobId(), job.getS3Key());
-
-                    String finalResult;
-                    try {
-                        DockerRunner.ExecutionResponse execResponse = dockerRunner.runContainer(job.getLanguage(),
-                                localFilePath.toString());
-
-                        String parsedResult = parseResult(execResponse.getOutput());
-
-                        finalResult = "{"
-                                + "\"jobId\":\"" + job.getJobId() + "\","
-                                + "\"executionTimeMs\":" + execResponse.getExecutionTimeMs() + ","
-                                + "\"result\":" + parsedResult
-                                + "}";
-                    } catch (Exception e) {
-                        System.err.println(e);
-                        resultPublisher.publishResult(RESPONSE_QUEUE_URL, job.getJobId(),
-                                "Container Execution Error: " + e.getMessage());
-                        continue;
-                    }
-
-                    resultPublisher.publishResult(RESPONSE_QUEUE_URL, job.getJobId(), finalResult);
-
-                    sqsClient.deleteMessage(DeleteMessageRequest.builder()
-                            .queueUrl(REQUEST_QUEUE_URL)
-                            .receiptHandle(sqsMessage.receiptHandle())
-                            .build());
-
-                } catch (com.fasterxml.jackson.core.JsonProcessingException e) {
-                    System.err.println(e);
-                    resultPublisher.publishResult(RESPONSE_QUEUE_URL, "unknown",
-                            "JSON Processing Error: " + e.getMessage());
-                } catch (java.io.IOException e) {
-                    System.err.println(e);
-                    resultPublisher.publishResult(RESPONSE_QUEUE_URL, "unknown", "IO Error: " + e.getMessage());
-                } catch (RuntimeException e) {
-                    System.err.println(e);
-                    resultPublisher.publishResult(RESPONSE_QUEUE_URL, "unknown", "Runtime Error: " + e.getMessage());
-                } finally {
-                    if (localFilePath != null) {
-                        try {
-                            Files.deleteIfExists(localFilePath);
-                            System.out.println("Deleted file " + localFilePath);
-                        } catch (IOException e) {
-                            System.err.println("Failed to delete file: " + e.getMessage());
-                        }
-                    }
+            int submitted = 0;
+            try {
+                ReceiveMessageResponse sqsResponse = sqsClient.receiveMessage(
+                        ReceiveMessageRequest.builder()
+                                .queueUrl(REQUEST_QUEUE_URL)
+                                .maxNumberOfMessages(reserved)
+                                .waitTimeSeconds(10)
+                                .visibilityTimeout(visibilityTimeoutSeconds)
+                                .messageSystemAttributeNames(MessageSystemAttributeName.SENT_TIMESTAMP)
+                                .build());
+
+                long receivedAt = System.currentTimeMillis();
+                leases.track(sqsResponse.messages().stream().map(Message::receiptHandle).toList());
+                for (Message sqsMessage : sqsResponse.messages()) {
+                    long queuedAt = queuedAt(sqsMessage, receivedAt);
+                    slots.submit(() -> processMessage(sqsMessage, leases, queuedAt, receivedAt), queuedAt);
+                    submitted++;
                 }
+            } catch (RuntimeException e) {
+                metrics.error("receive");
+                System.err.println("Failed to receive messages: " + e.getMessage());
+            } finally {
+                slots.release(reserved - submitted);
             }
         }
     }
 
-    private String parseResult(String output) {
-        for (String line : output.split("\n")) {
-            if (line.startsWith("RESULT:")) {
-                return line.substring(7);
+    private void processMessage(Message sqsMessage, MessageLeases leases, long queuedAt, long receivedAt) {
+        metrics.jobStarted(queuedAt, receivedAt);
+        Path localFilePath = null;
+        boolean completed = false;
+        String outcome = "error";
+        try {
+            JobMessage job = objectMapper.readValue(sqsMessage.body(), JobMessage.class);
+            System.out.println("Received Job: " + job);
+            resultPublisher.publishEvent(RESPONSE_QUEUE_URL, job.getJobId(), "RUNNING", System.currentTimeMillis());
+
+            byte[] inlineSource = null;
+            if (job.hasInlineSource()) {
+                inlineSource = decodeSource(job);
+            } else {
+                long downloadStart = System.currentTimeMillis();
+                localFilePath = downloadCode(job.getJobId(), job.getS3Key());
+                metrics.s3Downloaded(System.currentTimeMillis() - downloadStart);
+            }
+            if (job.getTestDataKey() != null) {
+                testDataCache.fetch(job.getTestDataKey());
+            }
+
+            String finalResult;
+            try {
+                DockerRunner.ExecutionResponse execResponse = inlineSource != null
+                        ? dockerRunner.runSource(job.getLanguage(), job.getFileName(), inlineSource,
+                                job.getTimeLimitMs())
+                        : dockerRunner.runContainer(job.getLanguage(), localFilePath.toString(),
+                                job.getTimeLimitMs());
+                metrics.containerRun(job.getLanguage(), execResponse.getExecutionTimeMs());
+                outcome = execResponse.isTimedOut() ? "timeout"
+                        : execResponse.isOutputLimitExceeded() ? "output_limit" : "completed";
+
+                String parsedResult = parseResult(execResponse);
+
+                DockerRunner.PhaseTimes phases = execResponse.getPhases();
+                String phaseTimes = phases.containerStartMs() >= 0
+                        ? "\"phases\":{"
+                                + "\"containerStartMs\":" + phases.containerStartMs() + ","
+                                + "\"compileMs\":" + phases.compileMs() + ","
+                                + "\"runMs\":" + phases.runMs()
+                                + "},"
+                        : "";
+
+                finalResult = "{"
+                        + "\"jobId\":\"" + job.getJobId() + "\","
+                        + "\"executionTimeMs\":" + execResponse.getExecutionTimeMs() + ","
+                        + phaseTimes
+                        + caseRecords(execResponse.getCases())
+                        + "\"result\":" + parsedResult
+                        + "}";
+            } catch (Exception e) {
+                System.err.println(e);
+                metrics.error("container");
+                resultPublisher.publishResult(RESPONSE_QUEUE_URL, job.getJobId(),
+                        "Container Execution Error: " + e.getMessage());
+                return;
+            }
+
+            // The request is only deleted once its result is on the response queue; if publishing
+            // fails the lease is dropped so the message becomes visible again and is rejudged
+            String receiptHandle = sqsMessage.receiptHandle();
+            resultPublisher.publishResult(RESPONSE_QUEUE_URL, job.getJobId(), finalResult,
+                    () -> leases.delete(receiptHandle), () -> leases.release(receiptHandle));
+            completed = true;
+
+        } catch (com.fasterxml.jackson.core.JsonProcessingException e) {
+            System.err.println(e);
+            metrics.error("json");
+            resultPublisher.publishResult(RESPONSE_QUEUE_URL, "unknown",
+                    "JSON Processing Error: " + e.getMessage());
+        } catch (java.io.IOException e) {
+            System.err.println(e);
+            metrics.error("io");
+            resultPublisher.publishResult(RESPONSE_QUEUE_URL, "unknown", "IO Error: " + e.getMessage());
+        } catch (RuntimeException e) {
+            System.err.println(e);
+            metrics.error("runtime");
+            resultPublisher.publishResult(RESPONSE_QUEUE_URL, "unknown", "Runtime Error: " + e.getMessage());
+        } finally {
+            metrics.jobFinished(outcome);
+            if (!completed) {
+                leases.release(sqsMessage.receiptHandle());
+            }
+            if (localFilePath != null) {
+                try {
+                    Files.deleteIfExists(localFilePath);
+                    System.out.println("Deleted file " + localFilePath);
+                } catch (IOException e) {
+                    System.err.println("Failed to delete file: " + e.getMessage());
+                }
             }
         }
+    }
+
+    /**
+     * Uses an explicit {@code worker.slots} when set, otherwise one slot per
+     * core, capped so every slot gets {@code worker.slot-memory-mb} of the
+     * host's physical memory.
+     */
+    int resolveSlotCount() {
+        if (configuredSlots > 0) {
+            return configuredSlots;
+        }
+        int cores = Runtime.getRuntime().availableProcessors();
+        long totalMemoryMb = Long.MAX_VALUE;
+        if (ManagementFactory.getOperatingSystemMXBean() instanceof com.sun.management.OperatingSystemMXBean os) {
+            totalMemoryMb = os.getTotalMemorySize() / (1024 * 1024);
+        }
+        long byMemory = slotMemoryMb > 0 ? totalMemoryMb / slotMemoryMb : cores;
+        return (int) Math.max(1, Math.min(cores, byMemory));
+    }
+
+    private long queuedAt(Message sqsMessage, long receivedAt) {
+        String sentTimestamp = sqsMessage.attributesAsStrings().get("SentTimestamp");
+        if (sentTimestamp == null) {
+            return receivedAt;
+        }
+        try {
+            return Long.parseLong(sentTimestamp);
+        } catch (NumberFormatException e) {
+            return receivedAt;
+        }
+    }
+
+    /**
+     * Renders per-case records as {@code "cases":[[index,passed,nanos,actual],...],}
+     * with passed as 1 or 0, or nothing if the harness printed none.
+     */
+    private String caseRecords(List<OutputCapture.CaseRecord> cases) throws IOException {
+        if (cases.isEmpty()) {
+            return "";
+        }
+        List<Object[]> rows = new ArrayList<>(cases.size());
+        for (OutputCapture.CaseRecord record : cases) {
+            rows.add(new Object[] { record.index(), record.passed() ? 1 : 0, record.nanos(), record.actual() });
+        }
+        return "\"cases\":" + objectMapper.writeValueAsString(rows) + ",";
+    }
+
+    private String parseResult(DockerRunner.ExecutionResponse execResponse) {
+        if (execResponse.isOutputLimitExceeded()) {
+            return "{"
+                    + "\"status\":\"output_limit_exceeded\","
+                    + "\"message\":\"Output limit exceeded\""
+                    + "}";
+        }
+        String result = execResponse.getResult();
+        if (result == null) {
+            result = findResultLine(execResponse.getOutput());
+        }
+        if (result != null) {
+            return result;
+        }
         return "{"
-                + "\"status\":\"error\","
-                + "\"message\":\"" + summarizeError(output) + "\""
+                + "\"status\":\"" + (execResponse.isTimedOut() ? "timeout" : "error") + "\","
+                + "\"message\":\"" + summarizeError(execResponse.getOutput()) + "\""
                 + "}";
     }
 
+    private String findResultLine(String output) {
+        int start = output.startsWith("RESULT:") ? 0 : output.indexOf("\nRESULT:");
+        if (start < 0) {
+            return null;
+        }
+        start = output.indexOf("RESULT:", start) + "RESULT:".length();
+        int end = output.indexOf('\n', start);
+        return end < 0 ? output.substring(start) : output.substring(start, end);
+    }
+
     private String summarizeError(String output) {
-        String[] lines = output.split("\n");
-        if (lines.length > 0) {
-            return lines[0].replace("\"", "'");
+        int end = output.indexOf('\n');
+        return (end < 0 ? output : output.substring(0, end)).replace("\"", "'");
+    }
+
+    private byte[] decodeSource(JobMessage job) throws IOException {
+        if ("gzip+base64".equals(job.getSourceEncoding())) {
+            byte[] compressed = Base64.getDecoder().decode(job.getSource());
+            try (GZIPInputStream gzip = new GZIPInputStream(new ByteArrayInputStream(compressed))) {
+                return gzip.readAllBytes();
+            }
         }
-        return "Unknown error";
+        return job.getSource().getBytes(StandardCharsets.UTF_8);
     }
 
     private Path downloadCode(String jobId, String s3Key) throws IOException {
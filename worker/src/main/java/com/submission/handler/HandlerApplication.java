@@ -9,7 +9,8 @@ import org.springframework.boot.autoconfigure.SpringBootApplication;
     "com.service",
     "com.util",
     "com.model",
-    "com.config"
+    "com.config",
+    "com.controller"
 })
 public class HandlerApplication {
 
@@ -0,0 +1,369 @@
+package com.util;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryNotEmptyException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Compiled classes of recent Java jobs, keyed by a hash of the runner image
+ * ID, file name and source. Resubmissions and rejudges of identical code on
+ * this worker run the cached classes and skip {@code javac}. Only the entry a
+ * job hit is mounted, read-only at {@link #CONTAINER_DIR}, or copied into a
+ * pooled container's workspace, so a submission never sees another's
+ * classes; the directory itself is not listable. The worker copies classes
+ * in after a successful compile, provided they still match the digest the
+ * compile step printed before user code ran, and evicts the least recently
+ * used entries once {@code worker.artifact-cache.max-bytes} is exceeded.
+ * Entries in use by a running job are never evicted.
+ */
+@Service
+public class ArtifactCache {
+    public static final String CONTAINER_DIR = "/judge/classes";
+    /**
+     * Prints the digest {@link #digest} computes, for the classes
+     * {@code javac} wrote to {@code /app/classes}.
+     */
+    public static final String DIGEST_COMMAND =
+            "cd /app/classes && find . -type f | LC_ALL=C sort | xargs sha256sum | sha256sum | cut -c1-64";
+    private static final String KEY_PATTERN = "[0-9a-f]{64}";
+
+    @Value("${worker.artifact-cache.enabled:false}")
+    private boolean enabled = false;
+    @Value("${worker.artifact-cache.dir:/tmp/judge-artifacts}")
+    private String directory = "/tmp/judge-artifacts";
+    @Value("${worker.artifact-cache.max-bytes:268435456}")
+    private long maxBytes = 256L * 1024 * 1024;
+    @Value("${worker.artifact-cache.image-id-ttl-ms:60000}")
+    private long imageIdTtlMs = 60000;
+
+    // Entry sizes in access order; guarded by this
+    private final LinkedHashMap<String, Long> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<String, Integer> inUse = new HashMap<>();
+    private long totalBytes;
+
+    private final Map<String, ImageId> imageIds = new ConcurrentHashMap<>();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong stores = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    /**
+     * Picks up entries left by a previous run, oldest first, and drops
+     * unfinished copies.
+     */
+    @PostConstruct
+    public void init() throws IOException {
+        if (!enabled) {
+            return;
+        }
+        Path dir = Path.of(directory);
+        Files.createDirectories(dir);
+        try {
+            // Entries can be opened by key but not listed
+            Files.setPosixFilePermissions(dir, PosixFilePermissions.fromString("rwx--x--x"));
+        } catch (UnsupportedOperationException e) {
+            System.err.println("Cannot restrict permissions of " + dir + ": " + e.getMessage());
+        }
+        List<Path> existing;
+        try (Stream<Path> paths = Files.list(dir)) {
+            existing = paths.sorted(Comparator.comparing(ArtifactCache::lastModified)).toList();
+        }
+        synchronized (this) {
+            for (Path path : existing) {
+                String name = path.getFileName().toString();
+                if (name.matches(KEY_PATTERN) && Files.isDirectory(path)) {
+                    long size = sizeOf(path);
+                    entries.put(name, size);
+                    totalBytes += size;
+                } else {
+                    deleteTree(path);
+                }
+            }
+            evict();
+        }
+        System.out.println("Artifact cache enabled: " + entries.size() + " entries, " + totalBytes + " bytes");
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public boolean isEnabled(String language) {
+        return enabled && language.equalsIgnoreCase("java");
+    }
+
+    /**
+     * The cache key for a source run on the image, or {@code null} when the
+     * language is not cached or the image ID cannot be resolved.
+     */
+    public String keyFor(String language, String image, String fileName, byte[] source) {
+        if (!isEnabled(language)) {
+            return null;
+        }
+        String imageId = imageId(image);
+        return imageId == null ? null : key(imageId, fileName, source);
+    }
+
+    /**
+     * Marks the entry in use and returns whether it exists. Every call that
+     * returns true must be paired with {@link #release}.
+     */
+    public synchronized boolean acquire(String key) {
+        if (entries.get(key) == null) {
+            misses.incrementAndGet();
+            return false;
+        }
+        hits.incrementAndGet();
+        inUse.merge(key, 1, Integer::sum);
+        try {
+            Files.setLastModifiedTime(entryPath(key), FileTime.fromMillis(System.currentTimeMillis()));
+        } catch (IOException e) {
+            // Only affects the eviction order after a restart
+        }
+        return true;
+    }
+
+    public synchronized void release(String key) {
+        inUse.computeIfPresent(key, (k, count) -> count > 1 ? count - 1 : null);
+    }
+
+    /**
+     * Copies the compiled classes into the cache if they match
+     * {@code digest}, as printed by {@link #DIGEST_COMMAND} right after the
+     * compile. The copy is made under a temporary name, checked and renamed
+     * into place, so a container never sees a partial entry and classes
+     * changed by the job's own code are never cached.
+     */
+    public void store(String key, Path classesDir, String digest) {
+        if (digest == null || !Files.isDirectory(classesDir)) {
+            return;
+        }
+        synchronized (this) {
+            if (entries.containsKey(key)) {
+                return;
+            }
+        }
+        Path staging = Path.of(directory).resolve(".staging-" + UUID.randomUUID());
+        try {
+            copyTree(classesDir, staging);
+            if (!digest.equals(digest(staging))) {
+                System.err.println("Not caching classes " + key + ": they changed after the compile");
+                return;
+            }
+            long size = sizeOf(staging);
+            try {
+                Files.move(staging, entryPath(key), StandardCopyOption.ATOMIC_MOVE);
+            } catch (FileAlreadyExistsException | DirectoryNotEmptyException e) {
+                // Another job stored the same classes first
+                return;
+            }
+            synchronized (this) {
+                entries.put(key, size);
+                totalBytes += size;
+                stores.incrementAndGet();
+                evict();
+            }
+        } catch (IOException | UncheckedIOException e) {
+            System.err.println("Failed to cache compiled classes " + key + ": " + e.getMessage());
+        } finally {
+            deleteTree(staging);
+        }
+    }
+
+    /**
+     * Copies an acquired entry to {@code target}, for pooled containers that
+     * cannot mount it.
+     */
+    public void copyTo(String key, Path target) throws IOException {
+        copyTree(entryPath(key), target);
+    }
+
+    public ArtifactCacheStats getStats() {
+        synchronized (this) {
+            return new ArtifactCacheStats(enabled, entries.size(), totalBytes, hits.get(), misses.get(),
+                    stores.get(), evictions.get());
+        }
+    }
+
+    /**
+     * The {@code docker run} volume argument for an acquired entry.
+     */
+    public String volume(String key) {
+        return entryPath(key).toAbsolutePath() + ":" + CONTAINER_DIR + ":ro";
+    }
+
+    /**
+     * The same digest as {@link #DIGEST_COMMAND}: a SHA-256 over the
+     * {@code sha256sum} listing of every file, sorted by path.
+     */
+    static String digest(Path dir) throws IOException {
+        List<Path> files;
+        try (Stream<Path> paths = Files.walk(dir)) {
+            files = paths.filter(Files::isRegularFile).toList();
+        }
+        List<String> names = files.stream()
+                .map(file -> "./" + dir.relativize(file).toString().replace('\\', '/'))
+                .sorted()
+                .toList();
+        StringBuilder listing = new StringBuilder();
+        for (String name : names) {
+            listing.append(sha256(Files.readAllBytes(dir.resolve(name.substring(2))))).append("  ")
+                    .append(name).append('\n');
+        }
+        return sha256(listing.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String sha256(byte[] bytes) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(bytes));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    static String key(String imageId, String fileName, byte[] source) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(imageId.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            digest.update(fileName.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            digest.update(source);
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * The local image ID for the tag, re-read every
+     * {@code worker.artifact-cache.image-id-ttl-ms} so a pulled image update
+     * starts a fresh set of keys.
+     */
+    String imageId(String image) {
+        ImageId cached = imageIds.get(image);
+        if (cached != null && System.currentTimeMillis() - cached.resolvedAt() < imageIdTtlMs) {
+            return cached.id();
+        }
+        try {
+            Process process = new ProcessBuilder("docker", "image", "inspect", "--format", "{{.Id}}", image)
+                    .redirectErrorStream(true)
+                    .start();
+            String output = new String(process.getInputStream().readAllBytes(), StandardCharsets.UTF_8).trim();
+            if (!process.waitFor(10, TimeUnit.SECONDS) || process.exitValue() != 0 || output.isEmpty()) {
+                process.destroyForcibly();
+                return null;
+            }
+            imageIds.put(image, new ImageId(output, System.currentTimeMillis()));
+            return output;
+        } catch (IOException e) {
+            System.err.println("Failed to inspect image " + image + ": " + e.getMessage());
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
+
+    private void evict() {
+        Iterator<Map.Entry<String, Long>> eldest = entries.entrySet().iterator();
+        while (totalBytes > maxBytes && eldest.hasNext()) {
+            Map.Entry<String, Long> entry = eldest.next();
+            if (inUse.containsKey(entry.getKey())) {
+                continue;
+            }
+            eldest.remove();
+            totalBytes -= entry.getValue();
+            evictions.incrementAndGet();
+            deleteTree(entryPath(entry.getKey()));
+        }
+    }
+
+    private Path entryPath(String key) {
+        return Path.of(directory).resolve(key);
+    }
+
+    private static void copyTree(Path from, Path to) throws IOException {
+        try (Stream<Path> paths = Files.walk(from)) {
+            for (Path source : (Iterable<Path>) paths::iterator) {
+                Path target = to.resolve(from.relativize(source).toString());
+                if (Files.isDirectory(source)) {
+                    Files.createDirectories(target);
+                } else {
+                    Files.copy(source, target, StandardCopyOption.COPY_ATTRIBUTES);
+                }
+            }
+        }
+    }
+
+    private static long sizeOf(Path dir) throws IOException {
+        try (Stream<Path> paths = Files.walk(dir)) {
+            return paths.filter(Files::isRegularFile).mapToLong(path -> {
+                try {
+                    return Files.size(path);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }).sum();
+        }
+    }
+
+    private static FileTime lastModified(Path path) {
+        try {
+            return Files.getLastModifiedTime(path);
+        } catch (IOException e) {
+            return FileTime.fromMillis(0);
+        }
+    }
+
+    static void deleteTree(Path root) {
+        if (!Files.exists(root)) {
+            return;
+        }
+        try (Stream<Path> paths = Files.walk(root)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> {
+                try {
+                    Files.deleteIfExists(path);
+                } catch (IOException e) {
+                    System.err.println("Failed to delete " + path + ": " + e.getMessage());
+                }
+            });
+        } catch (IOException e) {
+            System.err.println("Failed to delete " + root + ": " + e.getMessage());
+        }
+    }
+
+    private record ImageId(String id, long resolvedAt) {
+    }
+
+    public record ArtifactCacheStats(boolean enabled, int entries, long bytes, long hits, long misses,
+            long stores, long evictions) {
+    }
+}
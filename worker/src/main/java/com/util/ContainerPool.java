@@ -0,0 +1,429 @@
+package com.util;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAccumulator;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Keeps a set of pre-started runner containers per language so a job only pays
+ * for a {@code docker exec} instead of a full container create/start/teardown.
+ * Each container has its own host workspace mounted at {@code /app}; the
+ * workspace is wiped after every job and the container is replaced after
+ * {@code worker.pool.max-reuse} jobs or as soon as a job fails inside it.
+ */
+@Service
+public class ContainerPool {
+    private static final long DOCKER_COMMAND_TIMEOUT_SECONDS = 30;
+
+    @Value("${worker.pool.enabled:false}")
+    private boolean enabled;
+    @Value("${worker.pool.size:2}")
+    private int poolSize;
+    @Value("${worker.pool.max-reuse:50}")
+    private int maxReuse;
+    @Value("${worker.pool.idle-eviction-ms:600000}")
+    private long idleEvictionMs;
+    @Value("${worker.pool.acquire-timeout-ms:30000}")
+    private long acquireTimeoutMs;
+    @Value("${worker.pool.warm-languages:java:tkoppine/java-runner,python:tkoppine/python-runner}")
+    private String warmLanguages;
+    @Value("${worker.java.daemon.enabled:false}")
+    private boolean javaDaemonEnabled;
+    @Value("${worker.python.forkserver.enabled:false}")
+    private boolean pythonForkServerEnabled;
+    @Value("${worker.test-data.dir:/tmp/judge-data}")
+    private String testDataDir = "/tmp/judge-data";
+
+    private final Map<String, LanguagePool> pools = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService maintenance = Executors.newScheduledThreadPool(2, r -> {
+        Thread thread = new Thread(r, "container-pool-maintenance");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong acquireCount = new AtomicLong();
+    private final AtomicLong acquireWaitNanos = new AtomicLong();
+    private final LongAccumulator maxAcquireWaitNanos = new LongAccumulator(Long::max, 0);
+    private final AtomicLong recycled = new AtomicLong();
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Whether containers for this language run a long-lived judge process
+     * that takes jobs over stdin instead of a {@code docker exec} per job.
+     */
+    public boolean isSessionLanguage(String language) {
+        if (!enabled) {
+            return false;
+        }
+        return (javaDaemonEnabled && language.equalsIgnoreCase("java"))
+                || (pythonForkServerEnabled && language.equalsIgnoreCase("python"));
+    }
+
+    @PostConstruct
+    public void warmUp() {
+        if (!enabled) {
+            return;
+        }
+        for (String entry : warmLanguages.split(",")) {
+            String[] parts = entry.trim().split(":", 2);
+            if (parts.length != 2) {
+                continue;
+            }
+            LanguagePool pool = poolFor(parts[0], parts[1]);
+            for (int i = 0; i < poolSize; i++) {
+                maintenance.execute(() -> replenish(pool));
+            }
+        }
+        long period = Math.max(1000, idleEvictionMs / 2);
+        maintenance.scheduleWithFixedDelay(this::evictIdle, period, period, TimeUnit.MILLISECONDS);
+        System.out.println("Container pool enabled: size=" + poolSize + ", maxReuse=" + maxReuse
+                + ", idleEvictionMs=" + idleEvictionMs);
+    }
+
+    /**
+     * Hands out an idle container for the language, starting a new one if the
+     * pool has not reached its size yet and waiting for a release otherwise.
+     */
+    public PooledContainer acquire(String language, String image) throws IOException, InterruptedException {
+        long start = System.nanoTime();
+        LanguagePool pool = poolFor(language, image);
+
+        PooledContainer container = pool.idle.pollFirst();
+        if (container == null && pool.live.incrementAndGet() <= poolSize) {
+            try {
+                container = startContainer(pool);
+            } catch (IOException | RuntimeException e) {
+                pool.live.decrementAndGet();
+                throw e;
+            }
+            misses.incrementAndGet();
+        } else {
+            if (container == null) {
+                pool.live.decrementAndGet();
+                container = pool.idle.pollFirst(acquireTimeoutMs, TimeUnit.MILLISECONDS);
+                if (container == null) {
+                    throw new IOException("Timed out waiting for a pooled " + language + " container");
+                }
+            }
+            hits.incrementAndGet();
+        }
+
+        long waited = System.nanoTime() - start;
+        acquireCount.incrementAndGet();
+        acquireWaitNanos.addAndGet(waited);
+        maxAcquireWaitNanos.accumulate(waited);
+        return container;
+    }
+
+    /**
+     * Returns a container after a job. Healthy containers are reset in the
+     * background and put back; failed or worn-out ones are replaced.
+     */
+    public void release(PooledContainer container, boolean healthy) {
+        container.uses++;
+        LanguagePool pool = pools.get(container.language);
+        if (!healthy || container.uses >= maxReuse) {
+            maintenance.execute(() -> {
+                destroy(pool, container);
+                replenish(pool);
+            });
+            return;
+        }
+        if (container.session != null) {
+            // The judge process cleans up after each job itself
+            if (container.session.isAlive()) {
+                container.lastUsedAt = System.currentTimeMillis();
+                pool.idle.offerFirst(container);
+            } else {
+                maintenance.execute(() -> {
+                    destroy(pool, container);
+                    replenish(pool);
+                });
+            }
+            return;
+        }
+        maintenance.execute(() -> {
+            if (resetWorkspace(container)) {
+                container.lastUsedAt = System.currentTimeMillis();
+                pool.idle.offerFirst(container);
+            } else {
+                destroy(pool, container);
+                replenish(pool);
+            }
+        });
+    }
+
+    public PoolStats getStats() {
+        long count = acquireCount.get();
+        int idle = 0;
+        int live = 0;
+        for (LanguagePool pool : pools.values()) {
+            idle += pool.idle.size();
+            live += pool.live.get();
+        }
+        return new PoolStats(hits.get(), misses.get(), recycled.get(), live, idle,
+                count == 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(acquireWaitNanos.get() / count),
+                TimeUnit.NANOSECONDS.toMillis(maxAcquireWaitNanos.get()));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        maintenance.shutdownNow();
+        for (LanguagePool pool : pools.values()) {
+            PooledContainer container;
+            while ((container = pool.idle.pollFirst()) != null) {
+                destroy(pool, container);
+            }
+        }
+    }
+
+    private LanguagePool poolFor(String language, String image) {
+        return pools.computeIfAbsent(language.toLowerCase(), key -> new LanguagePool(key, image));
+    }
+
+    private void replenish(LanguagePool pool) {
+        if (pool.live.incrementAndGet() > poolSize) {
+            pool.live.decrementAndGet();
+            return;
+        }
+        try {
+            PooledContainer container = startContainer(pool);
+            pool.idle.offerLast(container);
+        } catch (IOException | InterruptedException | RuntimeException e) {
+            pool.live.decrementAndGet();
+            System.err.println("Failed to start pooled " + pool.language + " container: " + e.getMessage());
+        }
+    }
+
+    private void evictIdle() {
+        long cutoff = System.currentTimeMillis() - idleEvictionMs;
+        for (LanguagePool pool : pools.values()) {
+            for (PooledContainer container : pool.idle) {
+                if (container.lastUsedAt < cutoff && pool.idle.removeFirstOccurrence(container)) {
+                    System.out.println("Evicting idle container " + container.name);
+                    destroy(pool, container);
+                }
+            }
+        }
+        System.out.println("Container pool stats: " + getStats());
+    }
+
+    private PooledContainer startContainer(LanguagePool pool) throws IOException, InterruptedException {
+        String name = "runner-" + pool.language + "-" + UUID.randomUUID().toString().substring(0, 8);
+        Path workspace = Files.createTempDirectory("pool-" + name + "-");
+
+        if (isSessionLanguage(pool.language)) {
+            return startSession(pool, name, workspace);
+        }
+
+        int exitCode = docker("run", "-d", "--rm", "--name", name,
+                "-v", workspace.toAbsolutePath() + ":/app",
+                "-v", TestDataCache.volume(testDataDir),
+                pool.image,
+                "sleep", "infinity");
+        if (exitCode != 0) {
+            Files.deleteIfExists(workspace);
+            throw new IOException("docker run exited with " + exitCode + " for " + name);
+        }
+        return new PooledContainer(name, pool.language, workspace, null);
+    }
+
+    /**
+     * Starts a container attached over stdin/stdout to the image's judge
+     * process and waits for its READY line. The judge exits on its own after
+     * {@code worker.pool.max-reuse} jobs.
+     */
+    private PooledContainer startSession(LanguagePool pool, String name, Path workspace)
+            throws IOException, InterruptedException {
+        List<String> command = new ArrayList<>(List.of("docker", "run", "--rm", "-i", "--name", name,
+                "-v", workspace.toAbsolutePath() + ":/app",
+                "-v", TestDataCache.volume(testDataDir),
+                pool.image));
+        if (pool.language.equals("python")) {
+            command.addAll(List.of("python", "/opt/judge/judge_server.py", String.valueOf(maxReuse)));
+        } else {
+            command.addAll(List.of("java", "-XX:+UseSerialGC", "-XX:TieredStopAtLevel=1",
+                    "-Djava.security.manager=allow", "-cp", "/opt/judge", "JudgeDaemon", String.valueOf(maxReuse)));
+        }
+        Process process = new ProcessBuilder(command)
+                .redirectErrorStream(true)
+                .start();
+        PooledContainer container = new PooledContainer(name, pool.language, workspace, process);
+
+        ScheduledFuture<?> startupTimeout = maintenance.schedule(process::destroyForcibly,
+                DOCKER_COMMAND_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+        try {
+            String line;
+            while ((line = container.readLine()) != null) {
+                if (line.equals("READY")) {
+                    return container;
+                }
+            }
+        } finally {
+            startupTimeout.cancel(false);
+        }
+        process.destroyForcibly();
+        Files.deleteIfExists(workspace);
+        throw new IOException("Judge process in " + name + " exited before becoming ready");
+    }
+
+    /**
+     * Kills anything the previous job left running and wipes the workspace
+     * and scratch directories from inside the container, where the files are
+     * owned by the same user that created them.
+     */
+    private boolean resetWorkspace(PooledContainer container) {
+        try {
+            return docker("exec", container.name, "sh", "-c",
+                    "kill -9 -1 2>/dev/null; rm -rf /app/* /app/.[!.]* /tmp/* 2>/dev/null; true") == 0;
+        } catch (IOException | InterruptedException e) {
+            System.err.println("Failed to reset container " + container.name + ": " + e.getMessage());
+            return false;
+        }
+    }
+
+    private void destroy(LanguagePool pool, PooledContainer container) {
+        pool.live.decrementAndGet();
+        recycled.incrementAndGet();
+        if (container.session != null) {
+            container.session.destroyForcibly();
+        }
+        try {
+            docker("rm", "-f", container.name);
+        } catch (IOException | InterruptedException e) {
+            System.err.println("Failed to remove container " + container.name + ": " + e.getMessage());
+        }
+        try {
+            Files.deleteIfExists(container.workspace);
+        } catch (IOException e) {
+            System.err.println("Failed to delete workspace " + container.workspace + ": " + e.getMessage());
+        }
+    }
+
+    private int docker(String... args) throws IOException, InterruptedException {
+        String[] command = new String[args.length + 1];
+        command[0] = "docker";
+        System.arraycopy(args, 0, command, 1, args.length);
+
+        Process process = new ProcessBuilder(command)
+                .redirectErrorStream(true)
+                .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                .start();
+        if (!process.waitFor(DOCKER_COMMAND_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+            process.destroyForcibly();
+            throw new IOException("docker " + args[0] + " timed out");
+        }
+        return process.exitValue();
+    }
+
+    private static class LanguagePool {
+        private final String language;
+        private final String image;
+        private final LinkedBlockingDeque<PooledContainer> idle = new LinkedBlockingDeque<>();
+        private final AtomicInteger live = new AtomicInteger();
+
+        LanguagePool(String language, String image) {
+            this.language = language;
+            this.image = image;
+        }
+    }
+
+    public static class PooledContainer {
+        private final String name;
+        private final String language;
+        private final Path workspace;
+        private final Process session;
+        private final InputStream sessionOutput;
+        private int uses;
+        private volatile long lastUsedAt = System.currentTimeMillis();
+
+        PooledContainer(String name, String language, Path workspace, Process session) {
+            this.name = name;
+            this.language = language;
+            this.workspace = workspace;
+            this.session = session;
+            this.sessionOutput = session == null ? null : new BufferedInputStream(session.getInputStream());
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public Path getWorkspace() {
+            return workspace;
+        }
+
+        public int getUses() {
+            return uses;
+        }
+
+        /**
+         * Writes one request to the judge daemon's stdin.
+         */
+        public void send(byte[] header, byte[] body) throws IOException {
+            OutputStream input = session.getOutputStream();
+            input.write(header);
+            input.write(body);
+            input.flush();
+        }
+
+        /**
+         * Reads one line of the judge daemon's output, or {@code null} once
+         * the container has gone away.
+         */
+        public String readLine() throws IOException {
+            ByteArrayOutputStream line = new ByteArrayOutputStream(128);
+            int b;
+            while ((b = sessionOutput.read()) != -1 && b != '\n') {
+                line.write(b);
+            }
+            if (b == -1 && line.size() == 0) {
+                return null;
+            }
+            return line.toString(StandardCharsets.UTF_8);
+        }
+
+        /**
+         * Kills the attached {@code docker run}, which unblocks any pending
+         * read and takes the container down with it.
+         */
+        public void kill() {
+            if (session != null) {
+                session.destroyForcibly();
+            }
+        }
+    }
+
+    public record PoolStats(long hits, long misses, long recycled, int live, int idle,
+            long averageAcquireWaitMs, long maxAcquireWaitMs) {
+    }
+}
@@ -1,89 +1,559 @@
 package com.util;
 
-import java.io.BufferedReader;
-import java.io.InputStreamReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 @Service
 public class DockerRunner {
+    private static final ScheduledExecutorService WATCHDOG = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "docker-runner-watchdog");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final ContainerPool containerPool;
+    private final ArtifactCache artifactCache;
+
+    @Value("${worker.output.limit-bytes:1048576}")
+    private long outputLimitBytes = 1024 * 1024;
+    @Value("${worker.output.head-bytes:32768}")
+    private int outputHeadBytes = 32 * 1024;
+    @Value("${worker.output.tail-bytes:32768}")
+    private int outputTailBytes = 32 * 1024;
+    @Value("${worker.execution.timeout-ms:90000}")
+    private long defaultTimeoutMs = 90000;
+    @Value("${worker.execution.max-timeout-ms:300000}")
+    private long maxTimeoutMs = 300000;
+    @Value("${worker.test-data.dir:/tmp/judge-data}")
+    private String testDataDir = "/tmp/judge-data";
+
+    public DockerRunner(ContainerPool containerPool, ArtifactCache artifactCache) {
+        this.containerPool = containerPool;
+        this.artifactCache = artifactCache;
+    }
+
+    /**
+     * Where a job's time went, in milliseconds; -1 when a phase was not
+     * measured. Container start covers acquiring or starting the container up
+     * to the moment the runner command began.
+     */
+    public record PhaseTimes(long containerStartMs, long compileMs, long runMs) {
+        public static final PhaseTimes NONE = new PhaseTimes(-1, -1, -1);
+    }
+
     public static class ExecutionResponse {
         private final String output;
+        private final String result;
         private final long executionTimeMs;
+        private final boolean timedOut;
+        private final boolean outputLimitExceeded;
+        private final PhaseTimes phases;
+        private final List<OutputCapture.CaseRecord> cases;
+        private final String classesDigest;
 
         public ExecutionResponse(String output, long executionTimeMs) {
+            this(output, executionTimeMs, false);
+        }
+
+        public ExecutionResponse(String output, long executionTimeMs, boolean timedOut) {
+            this(output, null, executionTimeMs, timedOut, false, PhaseTimes.NONE);
+        }
+
+        public ExecutionResponse(String output, String result, long executionTimeMs, boolean timedOut,
+                boolean outputLimitExceeded, PhaseTimes phases) {
+            this(output, result, executionTimeMs, timedOut, outputLimitExceeded, phases, List.of());
+        }
+
+        public ExecutionResponse(String output, String result, long executionTimeMs, boolean timedOut,
+                boolean outputLimitExceeded, PhaseTimes phases, List<OutputCapture.CaseRecord> cases) {
+            this(output, result, executionTimeMs, timedOut, outputLimitExceeded, phases, cases, null);
+        }
+
+        public ExecutionResponse(String output, String result, long executionTimeMs, boolean timedOut,
+                boolean outputLimitExceeded, PhaseTimes phases, List<OutputCapture.CaseRecord> cases,
+                String classesDigest) {
             this.output = output;
+            this.result = result;
             this.executionTimeMs = executionTimeMs;
+            this.timedOut = timedOut;
+            this.outputLimitExceeded = outputLimitExceeded;
+            this.phases = phases;
+            this.cases = cases;
+            this.classesDigest = classesDigest;
         }
 
         public String getOutput() {
             return output;
         }
 
+        /**
+         * The payload of the harness's {@code RESULT:} line as detected while
+         * the output streamed, or {@code null} if none was seen.
+         */
+        public String getResult() {
+            return result;
+        }
+
         public long getExecutionTimeMs() {
             return executionTimeMs;
         }
+
+        public boolean isTimedOut() {
+            return timedOut;
+        }
+
+        /**
+         * Whether the job was killed for writing more than
+         * {@code worker.output.limit-bytes}.
+         */
+        public boolean isOutputLimitExceeded() {
+            return outputLimitExceeded;
+        }
+
+        public PhaseTimes getPhases() {
+            return phases;
+        }
+
+        /**
+         * The harness's per-case records, including those printed before a
+         * timeout.
+         */
+        public List<OutputCapture.CaseRecord> getCases() {
+            return cases;
+        }
+
+        /**
+         * Digest of the classes {@code javac} produced, printed before the
+         * job ran, or {@code null} when nothing was compiled.
+         */
+        public String getClassesDigest() {
+            return classesDigest;
+        }
     }
 
-    public ExecutionResponse runContainer(String language, String localFilePath) throws Exception {
+    /**
+     * @param timeLimitMs the job's total time limit, or {@code null} for
+     *                    {@code worker.execution.timeout-ms}
+     */
+    public ExecutionResponse runContainer(String language, String localFilePath, Long timeLimitMs)
+            throws Exception {
+        long requestedAt = System.currentTimeMillis();
+        long timeoutMs = timeoutFor(timeLimitMs);
         Path filePath = Path.of(localFilePath);
         Path parentDir = filePath.getParent();
+        String fileName = filePath.getFileName().toString();
+
+        String image = imageFor(language);
+
+        if (containerPool.isSessionLanguage(language)) {
+            return runSession(language, image, fileName, Files.readAllBytes(filePath), timeoutMs);
+        }
+
+        String artifactKey = artifactCache.isEnabled(language)
+                ? artifactCache.keyFor(language, image, fileName, Files.readAllBytes(filePath))
+                : null;
+        boolean cached = artifactKey != null && artifactCache.acquire(artifactKey);
+        String hitKey = cached ? artifactKey : null;
+        String missKey = cached ? null : artifactKey;
+        try {
+            if (containerPool.isEnabled()) {
+                return runPooled(language, image, filePath, hitKey, missKey, requestedAt, timeoutMs);
+            }
+
+            String containerName = newContainerName(language);
+            ProcessBuilder pb = new ProcessBuilder(withMounts(List.of(
+                    "docker", "run", "--rm", "--name", containerName,
+                    "-v", parentDir.toAbsolutePath() + ":/app"),
+                    image, hitKey, commandFor(language, fileName, cached ? ArtifactCache.CONTAINER_DIR : null)));
+
+            ExecutionResponse response = execute(pb, null, containerName, requestedAt, timeoutMs);
+            storeArtifact(missKey, fileName, parentDir, response);
+            return response;
+        } finally {
+            if (cached) {
+                artifactCache.release(artifactKey);
+            }
+            if (!containerPool.isEnabled()) {
+                ArtifactCache.deleteTree(parentDir.resolve("classes"));
+            }
+        }
+    }
+
+    /**
+     * Runs a source that arrived inline with the job. The source is streamed
+     * into the container over stdin, so nothing is written on the host.
+     */
+    public ExecutionResponse runSource(String language, String fileName, byte[] source, Long timeLimitMs)
+            throws Exception {
+        long requestedAt = System.currentTimeMillis();
+        long timeoutMs = timeoutFor(timeLimitMs);
+        if (!fileName.matches("[A-Za-z0-9_]+\\.[a-z]+")) {
+            throw new IllegalArgumentException("Invalid source file name: " + fileName);
+        }
+        String image = imageFor(language);
+
+        if (containerPool.isSessionLanguage(language)) {
+            return runSession(language, image, fileName, source, timeoutMs);
+        }
+
+        String artifactKey = artifactCache.keyFor(language, image, fileName, source);
+        boolean cached = artifactKey != null && artifactCache.acquire(artifactKey);
+        String hitKey = cached ? artifactKey : null;
+        String missKey = cached ? null : artifactKey;
+        String write = "cat > /app/" + fileName + " && ";
+        try {
+            if (containerPool.isEnabled()) {
+                ContainerPool.PooledContainer container = containerPool.acquire(language, image);
+                boolean healthy = false;
+                try {
+                    String command = write + pooledCommand(language, fileName, hitKey, container.getWorkspace());
+                    ExecutionResponse response = execute(new ProcessBuilder(
+                            "docker", "exec", "-i", container.getName(),
+                            "sh", "-c", command), source, null, requestedAt, timeoutMs);
+
+                    healthy = !response.isTimedOut() && !response.isOutputLimitExceeded();
+                    storeArtifact(missKey, fileName, container.getWorkspace(), response);
+                    return response;
+                } finally {
+                    containerPool.release(container, healthy);
+                }
+            }
+
+            // A compile worth caching needs a host workspace to collect the classes from
+            Path workspace = missKey != null
+                    ? Files.createTempDirectory("artifact-" + missKey.substring(0, 12) + "-")
+                    : null;
+            try {
+                String containerName = newContainerName(language);
+                List<String> docker = workspace != null
+                        ? List.of("docker", "run", "--rm", "-i", "--name", containerName,
+                                "-v", workspace.toAbsolutePath() + ":/app")
+                        : List.of("docker", "run", "--rm", "-i", "--name", containerName);
+                String command = "mkdir -p /app && " + write
+                        + commandFor(language, fileName, cached ? ArtifactCache.CONTAINER_DIR : null);
+                ExecutionResponse response = execute(new ProcessBuilder(withMounts(docker, image, hitKey, command)),
+                        source, containerName, requestedAt, timeoutMs);
+                storeArtifact(missKey, fileName, workspace, response);
+                return response;
+            } finally {
+                if (workspace != null) {
+                    ArtifactCache.deleteTree(workspace);
+                }
+            }
+        } finally {
+            if (cached) {
+                artifactCache.release(artifactKey);
+            }
+        }
+    }
 
-        String image;
-        String command;
+    /**
+     * Adds the shared read-only mounts, the cache entry {@code hitKey} if
+     * any, the image and the shell command to a {@code docker run} prefix.
+     */
+    List<String> withMounts(List<String> dockerRun, String image, String hitKey, String command) {
+        List<String> args = new ArrayList<>(dockerRun);
+        args.addAll(List.of("-v", TestDataCache.volume(testDataDir)));
+        if (hitKey != null) {
+            args.addAll(List.of("-v", artifactCache.volume(hitKey)));
+        }
+        args.addAll(List.of(image, "sh", "-c", command));
+        return args;
+    }
+
+    /**
+     * Caches the classes of a job that compiled, ran to completion and
+     * missed the cache, if they still match the digest printed before the
+     * job ran. {@code missKey} is null when there is nothing to store.
+     */
+    private void storeArtifact(String missKey, String fileName, Path workspace, ExecutionResponse response) {
+        if (missKey == null || response.isTimedOut() || response.isOutputLimitExceeded()
+                || response.getClassesDigest() == null) {
+            return;
+        }
+        Path classes = workspace.resolve("classes");
+        if (Files.isRegularFile(classes.resolve(fileName.replace(".java", ".class")))) {
+            artifactCache.store(missKey, classes, response.getClassesDigest());
+        }
+    }
+
+    /**
+     * The runner command for a pooled container, which cannot take a per-job
+     * mount: a hit's classes are copied into its workspace instead, and the
+     * source is compiled again if the copy fails.
+     */
+    private String pooledCommand(String language, String fileName, String hitKey, Path workspace) {
+        if (hitKey == null) {
+            return commandFor(language, fileName, null);
+        }
+        try {
+            artifactCache.copyTo(hitKey, workspace.resolve("classes"));
+            return commandFor(language, fileName, "/app/classes");
+        } catch (IOException | UncheckedIOException e) {
+            System.err.println("Failed to copy cached classes " + hitKey + ": " + e.getMessage());
+            ArtifactCache.deleteTree(workspace.resolve("classes"));
+            return commandFor(language, fileName, null);
+        }
+    }
+
+    /**
+     * Hands the source to a pooled judge process (the Java daemon or the
+     * Python fork server), which compiles and runs it inside an already warm
+     * runtime. The watchdog kills the container if the
+     * daemon does not answer in time; the daemon enforces the same limit on
+     * the job itself and normally answers first.
+     */
+    private ExecutionResponse runSession(String language, String image, String fileName, byte[] source,
+            long timeoutMs) throws Exception {
+        long requestedAt = System.currentTimeMillis();
+        ContainerPool.PooledContainer container = containerPool.acquire(language, image);
+        boolean healthy = false;
+        long startTime = System.currentTimeMillis();
+        ScheduledFuture<?> watchdog = WATCHDOG.schedule(container::kill, timeoutMs + 5000,
+                TimeUnit.MILLISECONDS);
+        try {
+            String nonce = UUID.randomUUID().toString().replace("-", "");
+            String header = "RUN " + nonce + " " + fileName + " " + timeoutMs + " " + source.length + "\n";
+            container.send(header.getBytes(StandardCharsets.UTF_8), source);
 
+            OutputCapture capture = newCapture();
+            String marker = "@@" + nonce + " ";
+            boolean firstLine = true;
+            String line;
+            while ((line = container.readLine()) != null) {
+                if (line.startsWith(marker)) {
+                    Map<String, String> fields = parseMarker(line.substring(marker.length()));
+                    long durationMs = System.currentTimeMillis() - startTime;
+                    String status = fields.get("status");
+                    boolean timedOut = "timeout".equals(status);
+                    // A judge that cannot be reused after this job (timeout, leftover
+                    // threads, max jobs reached) says so and exits on its own
+                    healthy = !"true".equals(fields.get("recycle"));
+
+                    PhaseTimes phases = new PhaseTimes(startTime - requestedAt,
+                            Long.parseLong(fields.getOrDefault("compileMs", "-1")),
+                            Long.parseLong(fields.getOrDefault("runMs", "-1")));
+                    return new ExecutionResponse(timedOut ? "Time limit exceeded" : capture.toString(),
+                            capture.getResult(), durationMs, timedOut,
+                            "output_limit".equals(status) || capture.isLimitExceeded(), phases, capture.getCases());
+                }
+                // Write separators ahead of lines so the newline the judge adds
+                // before its marker is not counted as program output
+                boolean withinLimit = (firstLine || capture.write("\n")) && capture.write(line);
+                firstLine = false;
+                if (!withinLimit) {
+                    container.kill();
+                    return new ExecutionResponse(capture.toString(), capture.getResult(),
+                            System.currentTimeMillis() - startTime, false, true, PhaseTimes.NONE, capture.getCases());
+                }
+            }
+
+            long durationMs = System.currentTimeMillis() - startTime;
+            if (durationMs >= timeoutMs) {
+                return new ExecutionResponse("Time limit exceeded", durationMs, true);
+            }
+            throw new IOException("Judge process in " + container.getName() + " exited unexpectedly");
+        } finally {
+            watchdog.cancel(false);
+            containerPool.release(container, healthy);
+        }
+    }
+
+    private static Map<String, String> parseMarker(String fields) {
+        Map<String, String> parsed = new HashMap<>();
+        for (String field : fields.split(" ")) {
+            int eq = field.indexOf('=');
+            if (eq > 0) {
+                parsed.put(field.substring(0, eq), field.substring(eq + 1));
+            }
+        }
+        return parsed;
+    }
+
+    private static String imageFor(String language) {
         if (language.equalsIgnoreCase("java")) {
-            image = "tkoppine/java-runner";
-            command = "javac /app/" + filePath.getFileName() + " && java -cp /app " +
-                    filePath.getFileName().toString().replace(".java", "");
+            return "tkoppine/java-runner";
         } else if (language.equalsIgnoreCase("python")) {
-            image = "tkoppine/python-runner";
-            command = "python /app/" + filePath.getFileName();
-        } else {
-            throw new IllegalArgumentException("Unsupported language: " + language);
+            return "tkoppine/python-runner";
         }
+        throw new IllegalArgumentException("Unsupported language: " + language);
+    }
 
-        ProcessBuilder pb = new ProcessBuilder(
-                "docker", "run", "--rm",
-                "-v", parentDir.toAbsolutePath() + ":/app",
-                image,
-                "sh", "-c", command);
+    /**
+     * The runner command, bracketed with {@code @@PHASE} timestamps taken
+     * inside the container so the capture can split start-up, compile and
+     * run time. The marker lines are stripped from the job's output. Java
+     * runs the classes in {@code cachedClasses} when given, skipping javac;
+     * otherwise a successful compile prints the {@code @@CLASSES} digest of
+     * its output before the job runs.
+     */
+    static String commandFor(String language, String fileName, String cachedClasses) {
+        String start = "echo \"@@PHASE start $(date +%s%3N)\"; ";
+        if (language.equalsIgnoreCase("java")) {
+            String mainClass = fileName.replace(".java", "");
+            if (cachedClasses != null) {
+                return start + "echo \"@@PHASE compiled $(date +%s%3N)\"; "
+                        + "java -cp " + cachedClasses + ":/opt/judge/runner " + mainClass;
+            }
+            return start + "javac -d /app/classes -cp /opt/judge/runner /app/" + fileName + "; rc=$?; "
+                    + "[ $rc -eq 0 ] && echo \"@@CLASSES $(" + ArtifactCache.DIGEST_COMMAND + ")\"; "
+                    + "echo \"@@PHASE compiled $(date +%s%3N)\"; "
+                    + "[ $rc -eq 0 ] && java -cp /app/classes:/opt/judge/runner " + mainClass;
+        } else if (language.equalsIgnoreCase("python")) {
+            return start + "python /app/" + fileName;
+        }
+        throw new IllegalArgumentException("Unsupported language: " + language);
+    }
+
+    private ExecutionResponse runPooled(String language, String image, Path filePath, String hitKey,
+            String missKey, long requestedAt, long timeoutMs) throws Exception {
+        ContainerPool.PooledContainer container = containerPool.acquire(language, image);
+        boolean healthy = false;
+        try {
+            Files.copy(filePath, container.getWorkspace().resolve(filePath.getFileName()),
+                    StandardCopyOption.REPLACE_EXISTING);
+            String command = pooledCommand(language, filePath.getFileName().toString(), hitKey,
+                    container.getWorkspace());
 
+            ExecutionResponse response = execute(new ProcessBuilder(
+                    "docker", "exec", container.getName(),
+                    "sh", "-c", command), null, null, requestedAt, timeoutMs);
+
+            healthy = !response.isTimedOut() && !response.isOutputLimitExceeded();
+            storeArtifact(missKey, filePath.getFileName().toString(), container.getWorkspace(), response);
+            return response;
+        } finally {
+            containerPool.release(container, healthy);
+        }
+    }
+
+    /**
+     * Runs the process and streams its output into a bounded capture on the
+     * calling thread. The shared watchdog kills the process at the time
+     * limit, which ends the stream; crossing the output limit kills it
+     * straight away. {@code containerName} is force-removed as well when the
+     * process is a {@code docker run} whose container would otherwise keep
+     * running after the CLI dies. {@code requestedAt} is when the job asked
+     * for a container, for the container start phase.
+     */
+    private ExecutionResponse execute(ProcessBuilder pb, byte[] stdin, String containerName, long requestedAt,
+            long timeoutMs) throws Exception {
         pb.redirectErrorStream(true);
 
-        Long startTime = System.currentTimeMillis();
+        long startTime = System.currentTimeMillis();
         Process process = pb.start();
 
-        BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()));
+        AtomicBoolean timedOut = new AtomicBoolean();
+        ScheduledFuture<?> watchdog = WATCHDOG.schedule(() -> {
+            timedOut.set(true);
+            terminate(process, containerName);
+        }, timeoutMs, TimeUnit.MILLISECONDS);
 
-        StringBuilder output = new StringBuilder();
-        Thread readerThread = new Thread(() -> {
-            try {
-                String line;
-                while ((line = reader.readLine()) != null) {
-                    output.append(line).append("\n");
+        OutputCapture capture = newCapture();
+        boolean outputLimitExceeded = false;
+        try {
+            try (OutputStream processInput = process.getOutputStream()) {
+                if (stdin != null) {
+                    processInput.write(stdin);
+                }
+            }
+
+            try (InputStream processOutput = process.getInputStream()) {
+                byte[] chunk = new byte[8192];
+                int read;
+                while ((read = processOutput.read(chunk)) != -1) {
+                    if (!capture.write(chunk, 0, read)) {
+                        outputLimitExceeded = true;
+                        terminate(process, containerName);
+                        break;
+                    }
                 }
-            } catch (java.io.IOException | RuntimeException e) {
-                System.err.println("Error reading process output: " + e.getMessage());
             }
-        });
-        readerThread.start();
-        boolean finished = process.waitFor(90, TimeUnit.SECONDS);
 
-        Long endTime = System.currentTimeMillis();
+            long remainingMs = timeoutMs - (System.currentTimeMillis() - startTime);
+            if (!process.waitFor(Math.max(0, remainingMs), TimeUnit.MILLISECONDS)) {
+                timedOut.set(true);
+                terminate(process, containerName);
+                process.waitFor(15, TimeUnit.SECONDS);
+            }
+        } finally {
+            watchdog.cancel(false);
+        }
+
+        long endTime = System.currentTimeMillis();
+        long durationMs = endTime - startTime;
 
-        Long durationMs = endTime - startTime;
+        if (timedOut.get() && !outputLimitExceeded) {
+            return new ExecutionResponse("Time limit exceeded", null, durationMs, true, false, PhaseTimes.NONE,
+                    capture.getCases());
+        }
+        return new ExecutionResponse(capture.toString(), capture.getResult(), durationMs, false,
+                outputLimitExceeded, phasesFrom(capture, requestedAt, endTime), capture.getCases(),
+                capture.getClassesDigest());
+    }
 
-        if (!finished) {
-            process.destroyForcibly();
-            process.waitFor(15, TimeUnit.SECONDS);
-            return new ExecutionResponse("Time limit exceeded", durationMs);
+    /**
+     * A job's own limit, capped at {@code worker.execution.max-timeout-ms}
+     * so one question cannot hold a slot indefinitely.
+     */
+    long timeoutFor(Long timeLimitMs) {
+        if (timeLimitMs == null || timeLimitMs <= 0) {
+            return defaultTimeoutMs;
         }
+        return Math.min(timeLimitMs, maxTimeoutMs);
+    }
 
-        readerThread.join();
+    private static PhaseTimes phasesFrom(OutputCapture capture, long requestedAt, long endTime) {
+        long started = capture.getPhase("start");
+        if (started < 0) {
+            return PhaseTimes.NONE;
+        }
+        long compiled = capture.getPhase("compiled");
+        long runFrom = compiled < 0 ? started : compiled;
+        return new PhaseTimes(Math.max(0, started - requestedAt),
+                compiled < 0 ? -1 : Math.max(0, compiled - started),
+                Math.max(0, endTime - runFrom));
+    }
 
-        return new ExecutionResponse(output.toString(), durationMs);
+    private OutputCapture newCapture() {
+        return new OutputCapture(outputLimitBytes, outputHeadBytes, outputTailBytes);
+    }
+
+    private static String newContainerName(String language) {
+        return "job-" + language.toLowerCase() + "-" + UUID.randomUUID().toString().substring(0, 8);
+    }
+
+    private static void terminate(Process process, String containerName) {
+        process.destroyForcibly();
+        if (containerName == null) {
+            return;
+        }
+        try {
+            new ProcessBuilder("docker", "rm", "-f", containerName)
+                    .redirectErrorStream(true)
+                    .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                    .start();
+        } catch (IOException e) {
+            System.err.println("Failed to remove container " + containerName + ": " + e.getMessage());
+        }
     }
 }
@@ -0,0 +1,245 @@
+package com.util;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Bounded capture of a job's combined output. Keeps the first
+ * {@code headBytes} and the last {@code tailBytes} of what was written and
+ * picks out the harness's {@code RESULT:} line, its per-case {@code @@CASE}
+ * records and the runner's {@code @@PHASE} timestamps and {@code @@CLASSES}
+ * digest while the bytes stream past, so the output never has to be held or
+ * scanned in full.
+ */
+public class OutputCapture {
+    private static final String RESULT_PREFIX = "RESULT:";
+    private static final String PHASE_PREFIX = "@@PHASE ";
+    private static final String CASE_PREFIX = "@@CASE ";
+    private static final String CLASSES_PREFIX = "@@CLASSES ";
+    private static final int MAX_RESULT_LINE_BYTES = 64 * 1024;
+    private static final int MAX_CASES = 1000;
+    private static final int MAX_ACTUAL_CHARS = 200;
+    private static final Pattern MARKER_LINE =
+            Pattern.compile("(?m)^@@(PHASE [a-z]+ \\d+|CASE [^\n]*|CLASSES [0-9a-f]{64})\n");
+
+    private final long limitBytes;
+    private final byte[] head;
+    private final byte[] tail;
+    private int headSize;
+    private int tailPosition;
+    private int tailSize;
+    private long totalBytes;
+
+    private boolean candidateLine = true;
+    private final ByteArrayOutputStream currentLine = new ByteArrayOutputStream();
+    private String result;
+    private final Map<String, Long> phases = new HashMap<>();
+    private String classesDigest;
+    private final List<CaseRecord> cases = new ArrayList<>();
+
+    public OutputCapture(long limitBytes, int headBytes, int tailBytes) {
+        this.limitBytes = limitBytes;
+        this.head = new byte[headBytes];
+        this.tail = new byte[tailBytes];
+    }
+
+    /**
+     * Appends a chunk of output.
+     *
+     * @return {@code false} once more than {@code limitBytes} have been written
+     */
+    public boolean write(byte[] bytes, int offset, int length) {
+        for (int i = offset; i < offset + length; i++) {
+            byte b = bytes[i];
+            scanLine(b);
+            if (headSize < head.length) {
+                head[headSize++] = b;
+            } else if (tail.length > 0) {
+                tail[tailPosition] = b;
+                tailPosition = (tailPosition + 1) % tail.length;
+                tailSize = Math.min(tailSize + 1, tail.length);
+            }
+        }
+        totalBytes += length;
+        return totalBytes <= limitBytes;
+    }
+
+    public boolean write(String text) {
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        return write(bytes, 0, bytes.length);
+    }
+
+    /**
+     * The payload of the first {@code RESULT:} line, or {@code null} if the
+     * harness never printed one.
+     */
+    public String getResult() {
+        if (result == null && candidateLine && startsWith(RESULT_PREFIX)) {
+            // Output ended without a trailing newline
+            return currentLine.toString(StandardCharsets.UTF_8).substring(RESULT_PREFIX.length());
+        }
+        return result;
+    }
+
+    /**
+     * Epoch-millisecond timestamp of a {@code @@PHASE <name> <millis>} line
+     * printed by the runner command, or -1 if it was not seen.
+     */
+    public long getPhase(String name) {
+        return phases.getOrDefault(name, -1L);
+    }
+
+    /**
+     * The digest from the first {@code @@CLASSES <sha256>} line, which the
+     * runner prints after compiling and before running the job, or
+     * {@code null} if it was not seen.
+     */
+    public String getClassesDigest() {
+        return classesDigest;
+    }
+
+    /**
+     * The harness's per-case records in the order they were printed, at most
+     * {@value #MAX_CASES}.
+     */
+    public List<CaseRecord> getCases() {
+        return Collections.unmodifiableList(cases);
+    }
+
+    public long getTotalBytes() {
+        return totalBytes;
+    }
+
+    public boolean isLimitExceeded() {
+        return totalBytes > limitBytes;
+    }
+
+    /**
+     * The retained output, with a marker where the middle was dropped.
+     */
+    @Override
+    public String toString() {
+        String output = retained();
+        if (phases.isEmpty() && cases.isEmpty() && classesDigest == null) {
+            return output;
+        }
+        return MARKER_LINE.matcher(output).replaceAll("");
+    }
+
+    private String retained() {
+        long dropped = totalBytes - headSize - tailSize;
+        StringBuilder output = new StringBuilder(new String(head, 0, headSize, StandardCharsets.UTF_8));
+        if (dropped > 0) {
+            output.append("\n... [").append(dropped).append(" bytes omitted] ...\n");
+        }
+        if (tailSize > 0) {
+            byte[] ordered = new byte[tailSize];
+            int start = (tailPosition - tailSize + tail.length) % tail.length;
+            for (int i = 0; i < tailSize; i++) {
+                ordered[i] = tail[(start + i) % tail.length];
+            }
+            output.append(new String(ordered, StandardCharsets.UTF_8));
+        }
+        return output.toString();
+    }
+
+    /**
+     * Buffers the start of each line only for as long as it can still turn
+     * out to be a {@code RESULT:}, {@code @@CASE}, {@code @@PHASE} or
+     * {@code @@CLASSES} line.
+     */
+    private void scanLine(byte b) {
+        if (b == '\n') {
+            if (candidateLine) {
+                completeLine();
+            }
+            candidateLine = true;
+            currentLine.reset();
+            return;
+        }
+        if (!candidateLine) {
+            return;
+        }
+        if (currentLine.size() < MAX_RESULT_LINE_BYTES) {
+            currentLine.write(b);
+        }
+        int size = currentLine.size();
+        if (size <= PHASE_PREFIX.length()
+                && !couldStartWith(RESULT_PREFIX, size) && !couldStartWith(PHASE_PREFIX, size)
+                && !couldStartWith(CASE_PREFIX, size) && !couldStartWith(CLASSES_PREFIX, size)) {
+            candidateLine = false;
+        }
+    }
+
+    private void completeLine() {
+        String line = currentLine.toString(StandardCharsets.UTF_8);
+        if (result == null && line.startsWith(RESULT_PREFIX)) {
+            result = line.substring(RESULT_PREFIX.length());
+        } else if (line.startsWith(CASE_PREFIX)) {
+            parseCase(line.substring(CASE_PREFIX.length()));
+        } else if (classesDigest == null && line.startsWith(CLASSES_PREFIX)) {
+            String digest = line.substring(CLASSES_PREFIX.length()).trim();
+            // Malformed lines are the job's own output
+            if (digest.matches("[0-9a-f]{64}")) {
+                classesDigest = digest;
+            }
+        } else if (line.startsWith(PHASE_PREFIX)) {
+            String[] parts = line.substring(PHASE_PREFIX.length()).trim().split(" ");
+            if (parts.length == 2) {
+                try {
+                    phases.putIfAbsent(parts[0], Long.parseLong(parts[1]));
+                } catch (NumberFormatException e) {
+                    // Not one of ours
+                }
+            }
+        }
+    }
+
+    /**
+     * Parses {@code <index> <P|F> <nanos> <actual>}; lines that do not match
+     * are user output that happens to share the prefix.
+     */
+    private void parseCase(String record) {
+        if (cases.size() >= MAX_CASES) {
+            return;
+        }
+        String[] parts = record.split(" ", 4);
+        if (parts.length < 3 || !("P".equals(parts[1]) || "F".equals(parts[1]))) {
+            return;
+        }
+        try {
+            String actual = parts.length == 4 ? parts[3] : "";
+            if (actual.length() > MAX_ACTUAL_CHARS) {
+                actual = actual.substring(0, MAX_ACTUAL_CHARS);
+            }
+            cases.add(new CaseRecord(Integer.parseInt(parts[0]), "P".equals(parts[1]),
+                    Long.parseLong(parts[2]), actual));
+        } catch (NumberFormatException e) {
+            // Not one of ours
+        }
+    }
+
+    private boolean couldStartWith(String prefix, int size) {
+        byte[] line = currentLine.toByteArray();
+        int compared = Math.min(size, prefix.length());
+        for (int i = 0; i < compared; i++) {
+            if (line[i] != prefix.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean startsWith(String prefix) {
+        return currentLine.size() >= prefix.length() && couldStartWith(prefix, prefix.length());
+    }
+
+    public record CaseRecord(int index, boolean passed, long nanos, String actual) {
+    }
+}
@@ -1,47 +1,361 @@
 package com.util;
 
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAccumulator;
+
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import software.amazon.awssdk.core.exception.SdkException;
 import software.amazon.awssdk.services.sqs.SqsClient;
+import software.amazon.awssdk.services.sqs.model.BatchResultErrorEntry;
+import software.amazon.awssdk.services.sqs.model.SendMessageBatchRequest;
+import software.amazon.awssdk.services.sqs.model.SendMessageBatchRequestEntry;
+import software.amazon.awssdk.services.sqs.model.SendMessageBatchResponse;
 import software.amazon.awssdk.services.sqs.model.SendMessageRequest;
 
+/**
+ * Publishes results off the job thread. Results are buffered and sent with
+ * {@code SendMessageBatch} once ten are waiting or the linger window expires,
+ * whichever comes first. When the buffer is full the caller falls back to a
+ * direct {@code SendMessage} so no result is dropped. Job lifecycle events
+ * share the same buffer and batches but are not counted as results. Callers
+ * that must not acknowledge a job before its result is on the queue pass
+ * callbacks that run once the send succeeds or is given up.
+ */
 @Service
 public class ResultPublisher {
+    private static final int SQS_BATCH_SIZE = 10;
+    private static final int SQS_BATCH_MAX_BYTES = 256 * 1024;
+    private static final int MAX_SEND_ATTEMPTS = 3;
+    private static final Runnable NO_OP = () -> {
+    };
+
     private final SqsClient sqsClient;
     private final ObjectMapper objectMapper;
+    private final WorkerMetrics metrics;
+
+    @Value("${worker.publisher.buffer-size:1000}")
+    private int bufferSize = 1000;
+    @Value("${worker.publisher.linger-ms:50}")
+    private long lingerMs = 50;
+    @Value("${worker.publisher.offer-timeout-ms:1000}")
+    private long offerTimeoutMs = 1000;
+    @Value("${worker.publisher.retry-backoff-ms:100}")
+    private long retryBackoffMs = 100;
+
+    private volatile BlockingQueue<PendingResult> buffer;
+    private volatile boolean running;
+    private Thread flusher;
+
+    private final AtomicLong published = new AtomicLong();
+    private final AtomicLong events = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong batches = new AtomicLong();
+    private final AtomicLong latencyMsTotal = new AtomicLong();
+    private final LongAccumulator maxLatencyMs = new LongAccumulator(Long::max, 0);
 
-    public ResultPublisher(SqsClient sqsClient, ObjectMapper objectMapper) {
+    public ResultPublisher(SqsClient sqsClient, ObjectMapper objectMapper, WorkerMetrics metrics) {
         this.sqsClient = sqsClient;
         this.objectMapper = objectMapper;
+        this.metrics = metrics;
+    }
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        flusher = new Thread(this::flushLoop, "result-publisher");
+        flusher.setDaemon(true);
+        flusher.start();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        running = false;
+        if (flusher != null) {
+            flusher.interrupt();
+            try {
+                flusher.join(TimeUnit.SECONDS.toMillis(5));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        flush();
     }
 
     public void publishResult(String responseQueueUrl, String jobId, String result) {
+        publishResult(responseQueueUrl, jobId, result, NO_OP, NO_OP);
+    }
+
+    /**
+     * Publishes a result and runs {@code onPublished} once SQS has accepted
+     * it, or {@code onFailed} when every attempt failed or it could not be
+     * serialized. Callbacks run on the publisher thread.
+     */
+    public void publishResult(String responseQueueUrl, String jobId, String result, Runnable onPublished,
+            Runnable onFailed) {
         try {
             ResultMessage resultMessage = new ResultMessage(jobId, result);
             String body = objectMapper.writeValueAsString(resultMessage);
 
-            sqsClient.sendMessage(SendMessageRequest.builder()
-                    .queueUrl(responseQueueUrl)
-                    .messageBody(body)
-                    .build());
-
-            System.out.println("Published result for jobId=" + jobId);
+            offer(new PendingResult(responseQueueUrl, jobId, body, resultMessage.getFinishedAt(), false,
+                    onPublished, onFailed));
         } catch (com.fasterxml.jackson.core.JsonProcessingException e) {
+            metrics.error("serialize");
             System.err.println("Failed to serialize result message: " + e.getMessage());
-        } catch (software.amazon.awssdk.services.sqs.model.SqsException e) {
-            System.err.println("Failed to send message to SQS: " + e.getMessage());
+            runCallback(onFailed);
+        }
+    }
+
+    /**
+     * Publishes a job lifecycle event, such as {@code RUNNING} when a job is
+     * picked up, on the response queue.
+     */
+    public void publishEvent(String responseQueueUrl, String jobId, String event, long at) {
+        try {
+            String body = objectMapper.writeValueAsString(new EventMessage(jobId, event, at));
+            offer(new PendingResult(responseQueueUrl, jobId, body, System.currentTimeMillis(), true, NO_OP,
+                    NO_OP));
+        } catch (com.fasterxml.jackson.core.JsonProcessingException e) {
+            metrics.error("serialize");
+            System.err.println("Failed to serialize event message: " + e.getMessage());
+        }
+    }
+
+    private void offer(PendingResult pending) {
+        try {
+            if (!buffer().offer(pending, offerTimeoutMs, TimeUnit.MILLISECONDS)) {
+                System.err.println("Result buffer full, sending jobId=" + pending.jobId() + " directly");
+                sendDirect(pending);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            System.err.println("Interrupted while buffering message for jobId=" + pending.jobId());
+        }
+    }
+
+    /**
+     * Sends everything currently buffered, in batches grouped by queue.
+     */
+    public void flush() {
+        List<PendingResult> drained = new ArrayList<>();
+        buffer().drainTo(drained);
+        sendBatches(drained);
+    }
+
+    public PublisherStats getStats() {
+        long count = published.get();
+        long batchCount = batches.get();
+        return new PublisherStats(count, events.get(), failed.get(), batchCount, buffer().size(),
+                count == 0 ? 0 : latencyMsTotal.get() / count, maxLatencyMs.get(),
+                batchCount == 0 ? 0 : (double) count / (batchCount * SQS_BATCH_SIZE));
+    }
+
+    private BlockingQueue<PendingResult> buffer() {
+        BlockingQueue<PendingResult> current = buffer;
+        if (current == null) {
+            synchronized (this) {
+                if (buffer == null) {
+                    buffer = new ArrayBlockingQueue<>(Math.max(SQS_BATCH_SIZE, bufferSize));
+                }
+                current = buffer;
+            }
+        }
+        return current;
+    }
+
+    private void flushLoop() {
+        BlockingQueue<PendingResult> queue = buffer();
+        while (running) {
+            List<PendingResult> batch = new ArrayList<>(SQS_BATCH_SIZE);
+            try {
+                batch.add(queue.take());
+
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(lingerMs);
+                while (batch.size() < SQS_BATCH_SIZE) {
+                    PendingResult next = queue.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                sendBatches(batch);
+                return;
+            }
+            try {
+                sendBatches(batch);
+            } catch (RuntimeException e) {
+                System.err.println("Result publisher error: " + e.getMessage());
+            }
+        }
+    }
+
+    private void sendBatches(List<PendingResult> results) {
+        List<PendingResult> remaining = results;
+        while (!remaining.isEmpty()) {
+            String queueUrl = remaining.get(0).queueUrl();
+            List<PendingResult> batch = new ArrayList<>(SQS_BATCH_SIZE);
+            List<PendingResult> leftover = new ArrayList<>();
+            int batchBytes = 0;
+            for (PendingResult pending : remaining) {
+                int size = pending.body().getBytes(StandardCharsets.UTF_8).length;
+                if (batch.size() == SQS_BATCH_SIZE || !pending.queueUrl().equals(queueUrl)
+                        || (!batch.isEmpty() && batchBytes + size > SQS_BATCH_MAX_BYTES)) {
+                    leftover.add(pending);
+                    continue;
+                }
+                batch.add(pending);
+                batchBytes += size;
+            }
+            sendBatch(queueUrl, batch);
+            remaining = leftover;
+        }
+    }
+
+    private void sendBatch(String queueUrl, List<PendingResult> batch) {
+        List<PendingResult> toSend = batch;
+        for (int attempt = 1; attempt <= MAX_SEND_ATTEMPTS && !toSend.isEmpty(); attempt++) {
+            if (attempt > 1 && !backOff(attempt)) {
+                break;
+            }
+            List<SendMessageBatchRequestEntry> entries = new ArrayList<>(toSend.size());
+            for (int i = 0; i < toSend.size(); i++) {
+                entries.add(SendMessageBatchRequestEntry.builder()
+                        .id(String.valueOf(i))
+                        .messageBody(toSend.get(i).body())
+                        .build());
+            }
+
+            List<PendingResult> retry = new ArrayList<>();
+            try {
+                SendMessageBatchResponse response = sqsClient.sendMessageBatch(SendMessageBatchRequest.builder()
+                        .queueUrl(queueUrl)
+                        .entries(entries)
+                        .build());
+                batches.incrementAndGet();
+
+                boolean[] failedEntries = new boolean[toSend.size()];
+                for (BatchResultErrorEntry error : response.failed()) {
+                    int index = Integer.parseInt(error.id());
+                    failedEntries[index] = true;
+                    System.err.println("Failed to publish result for jobId=" + toSend.get(index).jobId()
+                            + ": " + error.code() + " " + error.message());
+                    if (!Boolean.TRUE.equals(error.senderFault())) {
+                        retry.add(toSend.get(index));
+                    } else {
+                        recordFailed(toSend.get(index));
+                    }
+                }
+                for (int i = 0; i < toSend.size(); i++) {
+                    if (!failedEntries[i]) {
+                        recordPublished(toSend.get(i));
+                    }
+                }
+            } catch (SdkException e) {
+                // Client-side failures (timeouts, connection resets) are as retryable as service errors
+                System.err.println("Failed to send message batch to SQS (attempt " + attempt + "/"
+                        + MAX_SEND_ATTEMPTS + "): " + e.getMessage());
+                retry.addAll(toSend);
+            }
+            toSend = retry;
+        }
+        for (PendingResult pending : toSend) {
+            recordFailed(pending);
+        }
+    }
+
+    private void sendDirect(PendingResult pending) {
+        for (int attempt = 1; attempt <= MAX_SEND_ATTEMPTS; attempt++) {
+            if (attempt > 1 && !backOff(attempt)) {
+                break;
+            }
+            try {
+                sqsClient.sendMessage(SendMessageRequest.builder()
+                        .queueUrl(pending.queueUrl())
+                        .messageBody(pending.body())
+                        .build());
+                recordPublished(pending);
+                return;
+            } catch (SdkException e) {
+                System.err.println("Failed to send message to SQS (attempt " + attempt + "/" + MAX_SEND_ATTEMPTS
+                        + "): " + e.getMessage());
+            }
+        }
+        recordFailed(pending);
+    }
+
+    /**
+     * Waits before a retry, longer for each attempt. Returns false when
+     * interrupted, leaving the remaining entries to be counted as failed.
+     */
+    private boolean backOff(int attempt) {
+        try {
+            Thread.sleep(retryBackoffMs * (attempt - 1));
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
         }
     }
 
+    private void recordFailed(PendingResult pending) {
+        failed.incrementAndGet();
+        metrics.error("publish");
+        System.err.println("Giving up on publishing jobId=" + pending.jobId());
+        runCallback(pending.onFailed());
+    }
+
+    private void recordPublished(PendingResult pending) {
+        runCallback(pending.onPublished());
+        if (pending.event()) {
+            events.incrementAndGet();
+            return;
+        }
+        long latency = System.currentTimeMillis() - pending.enqueuedAt();
+        published.incrementAndGet();
+        latencyMsTotal.addAndGet(latency);
+        maxLatencyMs.accumulate(latency);
+        metrics.resultPublished(latency);
+        System.out.println("Published result for jobId=" + pending.jobId());
+    }
+
+    private static void runCallback(Runnable callback) {
+        try {
+            callback.run();
+        } catch (RuntimeException e) {
+            System.err.println("Result publisher callback failed: " + e.getMessage());
+        }
+    }
+
+    private record PendingResult(String queueUrl, String jobId, String body, long enqueuedAt, boolean event,
+            Runnable onPublished, Runnable onFailed) {
+    }
+
+    public record PublisherStats(long published, long events, long failed, long batches, int buffered,
+            long averageLatencyMs, long maxLatencyMs, double batchFillRatio) {
+    }
+
     static class ResultMessage {
         private final String jobId;
         private final String result;
+        private final long finishedAt;
 
         public ResultMessage(String jobId, String result) {
             this.jobId = jobId;
             this.result = result;
+            this.finishedAt = System.currentTimeMillis();
         }
 
         public String getJobId() {
@@ -51,5 +365,33 @@ public class ResultPublisher {
         public String getResult() {
             return result;
         }
+
+        public long getFinishedAt() {
+            return finishedAt;
+        }
+    }
+
+    static class EventMessage {
+        private final String jobId;
+        private final String event;
+        private final long at;
+
+        public EventMessage(String jobId, String event, long at) {
+            this.jobId = jobId;
+            this.event = event;
+            this.at = at;
+        }
+
+        public String getJobId() {
+            return jobId;
+        }
+
+        public String getEvent() {
+            return event;
+        }
+
+        public long getAt() {
+            return at;
+        }
     }
 }
@@ -0,0 +1,79 @@
+package com.util;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.UUID;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PostConstruct;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+
+/**
+ * Local copies of the data-driven test suites published by the backend.
+ * The directory is mounted read-only into every runner container at
+ * {@link #CONTAINER_DIR}. Files are named by suite version and never change,
+ * so each is downloaded once per worker and kept.
+ */
+@Service
+public class TestDataCache {
+    public static final String CONTAINER_DIR = "/judge/data";
+    private static final String KEY_PATTERN = "test-data/[A-Za-z0-9_-][A-Za-z0-9._-]*";
+
+    private final S3Client s3Client;
+
+    @Value("${aws.s3.bucket.name}")
+    private String bucketName;
+    @Value("${worker.test-data.dir:/tmp/judge-data}")
+    private String directory = "/tmp/judge-data";
+
+    public TestDataCache(S3Client s3Client) {
+        this.s3Client = s3Client;
+    }
+
+    @PostConstruct
+    public void init() throws IOException {
+        Files.createDirectories(Path.of(directory));
+    }
+
+    /**
+     * Returns the local file for the key, downloading it on first use.
+     * Downloads land in a temporary file and are moved into place, so a
+     * runner never sees a partial file.
+     */
+    public Path fetch(String s3Key) throws IOException {
+        if (!s3Key.matches(KEY_PATTERN)) {
+            throw new IllegalArgumentException("Invalid test data key: " + s3Key);
+        }
+        Path dir = Path.of(directory);
+        Path target = dir.resolve(Path.of(s3Key).getFileName().toString());
+        if (Files.exists(target)) {
+            return target;
+        }
+
+        Path download = dir.resolve(".download-" + UUID.randomUUID() + ".tmp");
+        try {
+            s3Client.getObject(
+                    GetObjectRequest.builder()
+                            .bucket(bucketName)
+                            .key(s3Key)
+                            .build(),
+                    download);
+            Files.move(download, target, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(download);
+        }
+        return target;
+    }
+
+    /**
+     * The {@code docker run} volume argument for the cache directory.
+     */
+    public static String volume(String directory) {
+        return Path.of(directory).toAbsolutePath() + ":" + CONTAINER_DIR + ":ro";
+    }
+}
@@ -0,0 +1,105 @@
+package com.util;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Worker meters, exposed through the actuator's {@code /actuator/prometheus}
+ * endpoint. Meters are registered once and cached by tag value, so recording
+ * on the job path is a map lookup and an atomic update.
+ */
+@Component
+public class WorkerMetrics {
+    private final MeterRegistry registry;
+
+    private final Timer queueLag;
+    private final Timer receiveToStart;
+    private final Timer s3Download;
+    private final Timer publishLatency;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final Map<String, Timer> runTimers = new ConcurrentHashMap<>();
+    private final Map<String, Counter> jobCounters = new ConcurrentHashMap<>();
+    private final Map<String, Counter> errorCounters = new ConcurrentHashMap<>();
+
+    public WorkerMetrics(MeterRegistry registry) {
+        this.registry = registry;
+        this.queueLag = Timer.builder("worker.job.queue.lag")
+                .description("Time from the request being sent to SQS until a slot starts it")
+                .publishPercentileHistogram()
+                .register(registry);
+        this.receiveToStart = Timer.builder("worker.job.receive.to.start")
+                .description("Time from the receive call returning until a slot starts the job")
+                .publishPercentileHistogram()
+                .register(registry);
+        this.s3Download = Timer.builder("worker.s3.download")
+                .description("Time to download a submission from S3")
+                .publishPercentileHistogram()
+                .register(registry);
+        this.publishLatency = Timer.builder("worker.result.publish.latency")
+                .description("Time from a result being buffered until SQS accepted it")
+                .publishPercentileHistogram()
+                .register(registry);
+        Gauge.builder("worker.jobs.in.flight", inFlight, AtomicInteger::get)
+                .description("Jobs currently running in a slot")
+                .register(registry);
+    }
+
+    public void jobStarted(long queuedAtMillis, long receivedAtMillis) {
+        inFlight.incrementAndGet();
+        long now = System.currentTimeMillis();
+        queueLag.record(Math.max(0, now - queuedAtMillis), TimeUnit.MILLISECONDS);
+        receiveToStart.record(Math.max(0, now - receivedAtMillis), TimeUnit.MILLISECONDS);
+    }
+
+    public void jobFinished(String outcome) {
+        inFlight.decrementAndGet();
+        jobCounters.computeIfAbsent(outcome, key -> Counter.builder("worker.jobs.completed")
+                .tag("outcome", key)
+                .register(registry))
+                .increment();
+    }
+
+    public void s3Downloaded(long durationMs) {
+        s3Download.record(durationMs, TimeUnit.MILLISECONDS);
+    }
+
+    public void containerRun(String language, long durationMs) {
+        runTimers.computeIfAbsent(language.toLowerCase(), key -> Timer.builder("worker.container.run")
+                .description("Wall time of a job's container run")
+                .tag("language", key)
+                .publishPercentileHistogram()
+                .register(registry))
+                .record(durationMs, TimeUnit.MILLISECONDS);
+    }
+
+    public void resultPublished(long latencyMs) {
+        publishLatency.record(latencyMs, TimeUnit.MILLISECONDS);
+    }
+
+    public void error(String type) {
+        error(type, 1);
+    }
+
+    public void error(String type, int count) {
+        if (count <= 0) {
+            return;
+        }
+        errorCounters.computeIfAbsent(type, key -> Counter.builder("worker.errors")
+                .tag("type", key)
+                .register(registry))
+                .increment(count);
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+}
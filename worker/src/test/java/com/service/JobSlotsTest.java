@@ -0,0 +1,70 @@
+package com.service;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+public class JobSlotsTest {
+
+    private JobSlots jobSlots;
+
+    @BeforeEach
+    public void setup() {
+        jobSlots = new JobSlots(3);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        jobSlots.shutdown();
+    }
+
+    @Test
+    public void testReserve_takesOnlyFreeSlots() throws InterruptedException {
+        assertEquals(3, jobSlots.reserve(10));
+
+        jobSlots.release(2);
+
+        assertEquals(2, jobSlots.reserve(10));
+    }
+
+    @Test
+    public void testReserve_respectsMax() throws InterruptedException {
+        assertEquals(2, jobSlots.reserve(2));
+        assertEquals(1, jobSlots.reserve(2));
+    }
+
+    @Test
+    public void testSubmit_freesSlotWhenJobCompletes() throws InterruptedException {
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(1);
+
+        assertEquals(3, jobSlots.reserve(3));
+        jobSlots.release(2);
+        jobSlots.submit(() -> {
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }, System.currentTimeMillis() - 50);
+
+        assertTrue(started.await(1, TimeUnit.SECONDS));
+        assertEquals(1, jobSlots.getStats().inFlight());
+        assertEquals(2, jobSlots.reserve(3));
+
+        release.countDown();
+
+        assertEquals(1, jobSlots.reserve(3));
+        JobSlots.SlotStats stats = jobSlots.getStats();
+        assertEquals(1, stats.completed());
+        assertEquals(0, stats.inFlight());
+        assertEquals(3, stats.utilization().size());
+        assertTrue(stats.maxQueueWaitMs() >= 50);
+    }
+}
@@ -0,0 +1,136 @@
+package com.service;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import static org.mockito.ArgumentMatchers.any;
+import org.mockito.Mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import software.amazon.awssdk.services.sqs.SqsClient;
+import software.amazon.awssdk.services.sqs.model.BatchResultErrorEntry;
+import software.amazon.awssdk.services.sqs.model.ChangeMessageVisibilityBatchRequest;
+import software.amazon.awssdk.services.sqs.model.ChangeMessageVisibilityBatchResponse;
+import software.amazon.awssdk.services.sqs.model.DeleteMessageBatchRequest;
+import software.amazon.awssdk.services.sqs.model.DeleteMessageBatchResponse;
+
+@ExtendWith(MockitoExtension.class)
+public class MessageLeasesTest {
+
+    private static final String QUEUE_URL = "request-queue-url";
+
+    @Mock
+    private SqsClient sqsClient;
+
+    private MessageLeases messageLeases;
+
+    @BeforeEach
+    public void setup() {
+        // Long intervals so only the explicit calls below hit SQS
+        messageLeases = new MessageLeases(sqsClient, QUEUE_URL, 120, 3600, 3_600_000);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        messageLeases.shutdown();
+    }
+
+    @Test
+    public void testDelete_flushesFullBatchImmediately() {
+        when(sqsClient.changeMessageVisibilityBatch(any(ChangeMessageVisibilityBatchRequest.class)))
+                .thenReturn(ChangeMessageVisibilityBatchResponse.builder().build());
+        when(sqsClient.deleteMessageBatch(any(DeleteMessageBatchRequest.class)))
+                .thenReturn(DeleteMessageBatchResponse.builder().build());
+
+        for (int i = 0; i < 10; i++) {
+            messageLeases.track("handle-" + i);
+            messageLeases.delete("handle-" + i);
+        }
+
+        ArgumentCaptor<DeleteMessageBatchRequest> captor = ArgumentCaptor.forClass(DeleteMessageBatchRequest.class);
+        verify(sqsClient, timeout(1000)).deleteMessageBatch(captor.capture());
+        assertEquals(10, captor.getValue().entries().size());
+        assertEquals(QUEUE_URL, captor.getValue().queueUrl());
+        assertEquals(0, messageLeases.runningCount());
+    }
+
+    @Test
+    public void testFlushDeletes_sendsPartialBatch() {
+        when(sqsClient.deleteMessageBatch(any(DeleteMessageBatchRequest.class)))
+                .thenReturn(DeleteMessageBatchResponse.builder().build());
+
+        messageLeases.delete("handle-1");
+        messageLeases.delete("handle-2");
+        messageLeases.flushDeletes();
+
+        ArgumentCaptor<DeleteMessageBatchRequest> captor = ArgumentCaptor.forClass(DeleteMessageBatchRequest.class);
+        verify(sqsClient).deleteMessageBatch(captor.capture());
+        assertEquals(2, captor.getValue().entries().size());
+    }
+
+    @Test
+    public void testFlushDeletes_retriesReceiverFaults() {
+        when(sqsClient.deleteMessageBatch(any(DeleteMessageBatchRequest.class)))
+                .thenReturn(DeleteMessageBatchResponse.builder()
+                        .failed(BatchResultErrorEntry.builder().id("0").code("InternalError").senderFault(false)
+                                .build())
+                        .build())
+                .thenReturn(DeleteMessageBatchResponse.builder().build());
+
+        messageLeases.delete("handle-1");
+        messageLeases.flushDeletes();
+
+        verify(sqsClient, times(2)).deleteMessageBatch(any(DeleteMessageBatchRequest.class));
+    }
+
+    @Test
+    public void testHeartbeat_extendsOnlyRunningMessages() {
+        when(sqsClient.changeMessageVisibilityBatch(any(ChangeMessageVisibilityBatchRequest.class)))
+                .thenReturn(ChangeMessageVisibilityBatchResponse.builder().build());
+
+        messageLeases.track("running");
+        messageLeases.track("released");
+        messageLeases.release("released");
+        messageLeases.heartbeat();
+
+        ArgumentCaptor<ChangeMessageVisibilityBatchRequest> captor = ArgumentCaptor
+                .forClass(ChangeMessageVisibilityBatchRequest.class);
+        // One extension per track call, then the heartbeat
+        verify(sqsClient, times(3)).changeMessageVisibilityBatch(captor.capture());
+        assertEquals(1, captor.getValue().entries().size());
+        assertEquals("running", captor.getValue().entries().get(0).receiptHandle());
+        assertEquals(120, captor.getValue().entries().get(0).visibilityTimeout());
+    }
+
+    @Test
+    public void testTrack_extendsReceivedBatchImmediately() {
+        when(sqsClient.changeMessageVisibilityBatch(any(ChangeMessageVisibilityBatchRequest.class)))
+                .thenReturn(ChangeMessageVisibilityBatchResponse.builder().build());
+
+        messageLeases.track(List.of("handle-1", "handle-2"));
+
+        ArgumentCaptor<ChangeMessageVisibilityBatchRequest> captor = ArgumentCaptor
+                .forClass(ChangeMessageVisibilityBatchRequest.class);
+        verify(sqsClient).changeMessageVisibilityBatch(captor.capture());
+        assertEquals(2, captor.getValue().entries().size());
+        assertEquals(120, captor.getValue().entries().get(1).visibilityTimeout());
+        assertEquals(2, messageLeases.runningCount());
+    }
+
+    @Test
+    public void testHeartbeat_skipsWhenNothingRunning() {
+        messageLeases.heartbeat();
+
+        verify(sqsClient, never()).changeMessageVisibilityBatch(any(ChangeMessageVisibilityBatchRequest.class));
+    }
+}
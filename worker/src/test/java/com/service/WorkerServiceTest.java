@@ -1,19 +1,30 @@
 package com.service;
 
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.Base64;
 import java.util.List;
+import java.util.zip.GZIPOutputStream;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.aryEq;
 import static org.mockito.ArgumentMatchers.contains;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
 import org.mockito.Mock;
 import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.lenient;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import org.mockito.junit.jupiter.MockitoExtension;
@@ -24,10 +35,17 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.model.JobMessage;
 import com.util.DockerRunner;
 import com.util.ResultPublisher;
+import com.util.TestDataCache;
+import com.util.WorkerMetrics;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 
 import software.amazon.awssdk.services.s3.S3Client;
 import software.amazon.awssdk.services.sqs.SqsClient;
-import software.amazon.awssdk.services.sqs.model.DeleteMessageRequest;
+import software.amazon.awssdk.services.sqs.model.ChangeMessageVisibilityBatchRequest;
+import software.amazon.awssdk.services.sqs.model.ChangeMessageVisibilityBatchResponse;
+import software.amazon.awssdk.services.sqs.model.DeleteMessageBatchRequest;
+import software.amazon.awssdk.services.sqs.model.DeleteMessageBatchResponse;
 import software.amazon.awssdk.services.sqs.model.Message;
 import software.amazon.awssdk.services.sqs.model.ReceiveMessageRequest;
 import software.amazon.awssdk.services.sqs.model.ReceiveMessageResponse;
@@ -47,21 +65,30 @@ public class WorkerServiceTest {
     @Mock
     private ResultPublisher resultPublisher;
 
+    @Mock
+    private TestDataCache testDataCache;
+
     @Mock
     private ObjectMapper objectMapper;
 
     private WorkerService workerService;
 
+    private SimpleMeterRegistry meterRegistry;
+
     private static final String REQUEST_QUEUE_URL = "request-queue-url";
     private static final String RESPONSE_QUEUE_URL = "response-queue-url";
     private static final String BUCKET_NAME = "bucket-name";
 
     @BeforeEach
     public void setup() {
-        workerService = new WorkerService(sqsClient, s3Client, dockerRunner, resultPublisher, objectMapper);
+        meterRegistry = new SimpleMeterRegistry();
+        workerService = new WorkerService(sqsClient, s3Client, dockerRunner, resultPublisher, testDataCache,
+                objectMapper, new WorkerMetrics(meterRegistry));
         ReflectionTestUtils.setField(workerService, "REQUEST_QUEUE_URL", REQUEST_QUEUE_URL);
         ReflectionTestUtils.setField(workerService, "RESPONSE_QUEUE_URL", RESPONSE_QUEUE_URL);
         ReflectionTestUtils.setField(workerService, "BUCKET_NAME", BUCKET_NAME);
+        lenient().when(sqsClient.changeMessageVisibilityBatch(any(ChangeMessageVisibilityBatchRequest.class)))
+                .thenReturn(ChangeMessageVisibilityBatchResponse.builder().build());
     }
 
     @Test
@@ -90,7 +117,14 @@ public class WorkerServiceTest {
         }).when(s3Client).getObject(any(software.amazon.awssdk.services.s3.model.GetObjectRequest.class), any(Path.class));
 
         DockerRunner.ExecutionResponse execResponse = new DockerRunner.ExecutionResponse("RESULT:{\"success\":true}", 100L);
-        when(dockerRunner.runContainer(eq("java"), anyString())).thenReturn(execResponse);
+        when(dockerRunner.runContainer(eq("java"), anyString(), isNull())).thenReturn(execResponse);
+        when(sqsClient.deleteMessageBatch(any(DeleteMessageBatchRequest.class)))
+                .thenReturn(DeleteMessageBatchResponse.builder().build());
+        doAnswer(invocation -> {
+            invocation.<Runnable>getArgument(3).run();
+            return null;
+        }).when(resultPublisher).publishResult(anyString(), anyString(), anyString(),
+                any(Runnable.class), any(Runnable.class));
 
         Thread workerThread = new Thread(() -> {
             try {
@@ -104,9 +138,14 @@ public class WorkerServiceTest {
         Thread.sleep(100);
         workerThread.interrupt();
 
+        verify(resultPublisher).publishEvent(eq(RESPONSE_QUEUE_URL), eq("job-123"), eq("RUNNING"), anyLong());
         verify(resultPublisher).publishResult(eq(RESPONSE_QUEUE_URL), eq("job-123"), 
-                contains("\"success\":true"));
-        verify(sqsClient).deleteMessage(any(DeleteMessageRequest.class));
+                contains("\"success\":true"),
+                any(Runnable.class), any(Runnable.class));
+        verify(sqsClient, timeout(1000)).deleteMessageBatch(any(DeleteMessageBatchRequest.class));
+        assertEquals(1.0, meterRegistry.get("worker.jobs.completed").tag("outcome", "completed").counter().count());
+        assertEquals(1L, meterRegistry.get("worker.container.run").tag("language", "java").timer().count());
+        assertEquals(0.0, meterRegistry.get("worker.jobs.in.flight").gauge().value());
 
         Files.deleteIfExists(mockPath);
     }
@@ -135,7 +174,7 @@ public class WorkerServiceTest {
 
         DockerRunner.ExecutionResponse execResponse = new DockerRunner.ExecutionResponse(
                 "Error \"message\"\nStack trace", 100L);
-        when(dockerRunner.runContainer(eq("java"), anyString())).thenReturn(execResponse);
+        when(dockerRunner.runContainer(eq("java"), anyString(), isNull())).thenReturn(execResponse);
 
         Thread workerThread = new Thread(() -> {
             try {
@@ -150,9 +189,11 @@ public class WorkerServiceTest {
         workerThread.interrupt();
 
         verify(resultPublisher).publishResult(eq(RESPONSE_QUEUE_URL), eq("job-123"), 
-                contains("\"status\":\"error\""));
+                contains("\"status\":\"error\""),
+                any(Runnable.class), any(Runnable.class));
         verify(resultPublisher).publishResult(eq(RESPONSE_QUEUE_URL), eq("job-123"), 
-                contains("\"message\":\"Error 'message'\""));
+                contains("\"message\":\"Error 'message'\""),
+                any(Runnable.class), any(Runnable.class));
 
         Files.deleteIfExists(mockPath);
     }
@@ -176,7 +217,7 @@ public class WorkerServiceTest {
         mockJob.setS3Key("path/file.java");
         when(objectMapper.readValue(anyString(), eq(JobMessage.class))).thenReturn(mockJob);
 
-        when(dockerRunner.runContainer(eq("java"), anyString())).thenThrow(new RuntimeException("Docker error"));
+        when(dockerRunner.runContainer(eq("java"), anyString(), isNull())).thenThrow(new RuntimeException("Docker error"));
 
         Thread workerThread = new Thread(() -> {
             try {
@@ -194,6 +235,138 @@ public class WorkerServiceTest {
                 contains("Container Execution Error"));
     }
 
+    @Test
+    public void testStart_inlineSourceSkipsS3() throws Exception {
+        Message mockMessage = mock(Message.class);
+        when(mockMessage.body()).thenReturn("{\"jobId\":\"job-456\"}");
+
+        ReceiveMessageResponse mockResponse = mock(ReceiveMessageResponse.class);
+        when(mockResponse.messages()).thenReturn(List.of(mockMessage));
+
+        when(sqsClient.receiveMessage(any(ReceiveMessageRequest.class)))
+                .thenReturn(mockResponse)
+                .thenReturn(mock(ReceiveMessageResponse.class));
+
+        String source = "print('RESULT:{}')";
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+            gzip.write(source.getBytes(StandardCharsets.UTF_8));
+        }
+
+        JobMessage mockJob = new JobMessage();
+        mockJob.setJobId("job-456");
+        mockJob.setLanguage("python");
+        mockJob.setFileName("main.py");
+        mockJob.setSource(Base64.getEncoder().encodeToString(compressed.toByteArray()));
+        mockJob.setSourceEncoding("gzip+base64");
+        when(objectMapper.readValue(anyString(), eq(JobMessage.class))).thenReturn(mockJob);
+
+        DockerRunner.ExecutionResponse execResponse = new DockerRunner.ExecutionResponse(
+                "RESULT:{\"passed\":1}", 20L);
+        when(dockerRunner.runSource(eq("python"), eq("main.py"), aryEq(source.getBytes(StandardCharsets.UTF_8)), isNull()))
+                .thenReturn(execResponse);
+
+        Thread workerThread = new Thread(() -> {
+            try {
+                workerService.start();
+            } catch (Exception e) {
+                // Expected
+            }
+        });
+
+        workerThread.start();
+        Thread.sleep(100);
+        workerThread.interrupt();
+
+        verify(resultPublisher).publishResult(eq(RESPONSE_QUEUE_URL), eq("job-456"),
+                contains("\"passed\":1"),
+                any(Runnable.class), any(Runnable.class));
+        verify(s3Client, never()).getObject(any(software.amazon.awssdk.services.s3.model.GetObjectRequest.class),
+                any(Path.class));
+    }
+
+    @Test
+    public void testStart_fetchesTestDataBeforeRunning() throws Exception {
+        Message mockMessage = mock(Message.class);
+        when(mockMessage.body()).thenReturn("{\"jobId\":\"job-321\"}");
+
+        ReceiveMessageResponse mockResponse = mock(ReceiveMessageResponse.class);
+        when(mockResponse.messages()).thenReturn(List.of(mockMessage));
+
+        when(sqsClient.receiveMessage(any(ReceiveMessageRequest.class)))
+                .thenReturn(mockResponse)
+                .thenReturn(mock(ReceiveMessageResponse.class));
+
+        JobMessage mockJob = new JobMessage();
+        mockJob.setJobId("job-321");
+        mockJob.setLanguage("java");
+        mockJob.setFileName("Main.java");
+        mockJob.setSource("public class Main {}");
+        mockJob.setTestDataKey("test-data/java-abc123.jsonl");
+        when(objectMapper.readValue(anyString(), eq(JobMessage.class))).thenReturn(mockJob);
+
+        DockerRunner.ExecutionResponse execResponse = new DockerRunner.ExecutionResponse(
+                "RESULT:{\"passed\":1}", 20L);
+        when(dockerRunner.runSource(eq("java"), eq("Main.java"), any(byte[].class), isNull())).thenReturn(execResponse);
+
+        Thread workerThread = new Thread(() -> {
+            try {
+                workerService.start();
+            } catch (Exception e) {
+                // Expected
+            }
+        });
+
+        workerThread.start();
+        Thread.sleep(100);
+        workerThread.interrupt();
+
+        verify(testDataCache).fetch("test-data/java-abc123.jsonl");
+        verify(resultPublisher).publishResult(eq(RESPONSE_QUEUE_URL), eq("job-321"), contains("\"passed\":1"),
+                any(Runnable.class), any(Runnable.class));
+    }
+
+    @Test
+    public void testStart_outputLimitExceededVerdict() throws Exception {
+        Message mockMessage = mock(Message.class);
+        when(mockMessage.body()).thenReturn("{\"jobId\":\"job-789\"}");
+
+        ReceiveMessageResponse mockResponse = mock(ReceiveMessageResponse.class);
+        when(mockResponse.messages()).thenReturn(List.of(mockMessage));
+
+        when(sqsClient.receiveMessage(any(ReceiveMessageRequest.class)))
+                .thenReturn(mockResponse)
+                .thenReturn(mock(ReceiveMessageResponse.class));
+
+        JobMessage mockJob = new JobMessage();
+        mockJob.setJobId("job-789");
+        mockJob.setLanguage("python");
+        mockJob.setFileName("main.py");
+        mockJob.setSource("while True: print('x')");
+        when(objectMapper.readValue(anyString(), eq(JobMessage.class))).thenReturn(mockJob);
+
+        DockerRunner.ExecutionResponse execResponse = new DockerRunner.ExecutionResponse(
+                "x\nx\n... [1048000 bytes omitted] ...\nx\n", null, 40L, false, true,
+                DockerRunner.PhaseTimes.NONE);
+        when(dockerRunner.runSource(eq("python"), eq("main.py"), any(byte[].class), isNull())).thenReturn(execResponse);
+
+        Thread workerThread = new Thread(() -> {
+            try {
+                workerService.start();
+            } catch (Exception e) {
+                // Expected
+            }
+        });
+
+        workerThread.start();
+        Thread.sleep(100);
+        workerThread.interrupt();
+
+        verify(resultPublisher).publishResult(eq(RESPONSE_QUEUE_URL), eq("job-789"),
+                contains("\"status\":\"output_limit_exceeded\""),
+                any(Runnable.class), any(Runnable.class));
+    }
+
     @Test
     public void testStart_handlesJsonProcessingException() throws Exception {
         Message mockMessage = mock(Message.class);
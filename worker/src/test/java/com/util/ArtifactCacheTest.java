@@ -0,0 +1,151 @@
+package com.util;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+public class ArtifactCacheTest {
+
+    @TempDir
+    Path directory;
+
+    @TempDir
+    Path workspace;
+
+    private ArtifactCache cache;
+
+    @BeforeEach
+    public void setup() throws Exception {
+        cache = new ArtifactCache();
+        ReflectionTestUtils.setField(cache, "enabled", true);
+        ReflectionTestUtils.setField(cache, "directory", directory.resolve("artifacts").toString());
+        ReflectionTestUtils.setField(cache, "maxBytes", 250L);
+        cache.init();
+    }
+
+    private Path compiled(String name, int bytes) throws Exception {
+        Path classes = workspace.resolve(name);
+        Files.createDirectories(classes);
+        Files.write(classes.resolve("Main.class"), new byte[bytes]);
+        return classes;
+    }
+
+    private void store(String key, Path classes) throws Exception {
+        cache.store(key, classes, ArtifactCache.digest(classes));
+    }
+
+    @Test
+    public void testKeyCoversImageAndSource() {
+        // Arrange
+        byte[] source = "class Main {}".getBytes();
+
+        // Act
+        String key = ArtifactCache.key("sha256:aaa", "Main.java", source);
+
+        // Assert
+        assertEquals(64, key.length());
+        assertEquals(key, ArtifactCache.key("sha256:aaa", "Main.java", source));
+        assertNotEquals(key, ArtifactCache.key("sha256:bbb", "Main.java", source));
+        assertNotEquals(key, ArtifactCache.key("sha256:aaa", "Main.java", "class Main { }".getBytes()));
+    }
+
+    @Test
+    public void testStoredClassesAreHitsAfterwards() throws Exception {
+        // Arrange
+        String key = ArtifactCache.key("img", "Main.java", "a".getBytes());
+
+        // Act
+        boolean before = cache.acquire(key);
+        store(key, compiled("a", 100));
+        boolean after = cache.acquire(key);
+        cache.release(key);
+
+        // Assert
+        assertFalse(before);
+        assertTrue(after);
+        assertTrue(Files.isRegularFile(directory.resolve("artifacts").resolve(key).resolve("Main.class")));
+        assertEquals(1, cache.getStats().hits());
+        assertEquals(1, cache.getStats().misses());
+        assertEquals(100, cache.getStats().bytes());
+    }
+
+    @Test
+    public void testEvictsLeastRecentlyUsedButNotEntriesInUse() throws Exception {
+        // Arrange
+        String first = ArtifactCache.key("img", "Main.java", "1".getBytes());
+        String second = ArtifactCache.key("img", "Main.java", "2".getBytes());
+        String third = ArtifactCache.key("img", "Main.java", "3".getBytes());
+        store(first, compiled("1", 100));
+        store(second, compiled("2", 100));
+        assertTrue(cache.acquire(first));
+
+        // Act
+        store(third, compiled("3", 100));
+
+        // Assert
+        assertTrue(cache.acquire(first));
+        assertFalse(cache.acquire(second));
+        assertTrue(cache.acquire(third));
+        assertFalse(Files.exists(directory.resolve("artifacts").resolve(second)));
+        assertEquals(1, cache.getStats().evictions());
+    }
+
+    @Test
+    public void testEntriesSurviveRestart() throws Exception {
+        // Arrange
+        String key = ArtifactCache.key("img", "Main.java", "a".getBytes());
+        store(key, compiled("a", 100));
+        Files.createDirectories(directory.resolve("artifacts").resolve(".staging-leftover"));
+
+        // Act
+        ArtifactCache restarted = new ArtifactCache();
+        ReflectionTestUtils.setField(restarted, "enabled", true);
+        ReflectionTestUtils.setField(restarted, "directory", directory.resolve("artifacts").toString());
+        restarted.init();
+
+        // Assert
+        assertTrue(restarted.acquire(key));
+        assertEquals(1, restarted.getStats().entries());
+        assertFalse(Files.exists(directory.resolve("artifacts").resolve(".staging-leftover")));
+    }
+
+    @Test
+    public void testClassesChangedAfterTheCompileAreNotStored() throws Exception {
+        // Arrange
+        String key = ArtifactCache.key("img", "Main.java", "a".getBytes());
+        Path classes = compiled("a", 100);
+        String digest = ArtifactCache.digest(classes);
+        Files.write(classes.resolve("Other.class"), new byte[10]);
+
+        // Act
+        cache.store(key, classes, digest);
+
+        // Assert
+        assertFalse(cache.acquire(key));
+        assertEquals(0, cache.getStats().stores());
+        assertFalse(Files.exists(directory.resolve("artifacts").resolve(key)));
+    }
+
+    @Test
+    public void testCopiesAcquiredEntryOut() throws Exception {
+        // Arrange
+        String key = ArtifactCache.key("img", "Main.java", "a".getBytes());
+        store(key, compiled("a", 100));
+        Path target = workspace.resolve("job").resolve("classes");
+
+        // Act
+        cache.copyTo(key, target);
+
+        // Assert
+        assertEquals(100, Files.size(target.resolve("Main.class")));
+        assertTrue(cache.volume(key).endsWith(key + ":" + ArtifactCache.CONTAINER_DIR + ":ro"));
+    }
+}
@@ -0,0 +1,65 @@
+package com.util;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class DockerRunnerTest {
+
+    @Test
+    public void testTimeoutDefaultsAndIsCapped() {
+        // Arrange
+        DockerRunner runner = new DockerRunner(mock(ContainerPool.class), mock(ArtifactCache.class));
+
+        // Act & Assert
+        assertEquals(90000, runner.timeoutFor(null));
+        assertEquals(90000, runner.timeoutFor(0L));
+        assertEquals(5000, runner.timeoutFor(5000L));
+        assertEquals(300000, runner.timeoutFor(3600000L));
+    }
+
+    @Test
+    public void testCacheHitRunsMountedClassesWithoutCompiling() {
+        // Act
+        String command = DockerRunner.commandFor("java", "Main.java", ArtifactCache.CONTAINER_DIR);
+
+        // Assert
+        assertFalse(command.contains("javac"));
+        assertFalse(command.contains("@@CLASSES"));
+        assertTrue(command.endsWith("java -cp /judge/classes:/opt/judge/runner Main"));
+    }
+
+    @Test
+    public void testCacheMissPrintsDigestBeforeRunning() {
+        // Act
+        String command = DockerRunner.commandFor("java", "Main.java", null);
+
+        // Assert
+        int compile = command.indexOf("javac -d /app/classes");
+        int digest = command.indexOf("@@CLASSES $(" + ArtifactCache.DIGEST_COMMAND + ")");
+        int run = command.indexOf("java -cp /app/classes:/opt/judge/runner Main");
+        assertTrue(compile >= 0 && compile < digest && digest < run, command);
+    }
+
+    @Test
+    public void testCacheHitMountsOnlyItsEntry() {
+        // Arrange
+        ArtifactCache artifactCache = mock(ArtifactCache.class);
+        when(artifactCache.volume("abc")).thenReturn("/cache/abc:/judge/classes:ro");
+        DockerRunner runner = new DockerRunner(mock(ContainerPool.class), artifactCache);
+
+        // Act
+        List<String> hit = runner.withMounts(List.of("docker", "run"), "image", "abc", "true");
+        List<String> miss = runner.withMounts(List.of("docker", "run"), "image", null, "true");
+
+        // Assert
+        assertTrue(hit.contains("/cache/abc:/judge/classes:ro"));
+        assertFalse(miss.stream().anyMatch(arg -> arg.contains(ArtifactCache.CONTAINER_DIR)));
+        assertEquals(List.of("image", "sh", "-c", "true"), hit.subList(hit.size() - 4, hit.size()));
+    }
+}
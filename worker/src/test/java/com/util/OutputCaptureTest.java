@@ -0,0 +1,103 @@
+package com.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+
+public class OutputCaptureTest {
+
+    @Test
+    public void testResultLineDetectedAcrossChunks() {
+        // Arrange
+        OutputCapture capture = new OutputCapture(1024, 64, 64);
+
+        // Act
+        capture.write("Test case failed\nRESU");
+        capture.write("LT:{\"passed\":1}\ntrailing");
+
+        // Assert
+        assertEquals("{\"passed\":1}", capture.getResult());
+        assertEquals("Test case failed\nRESULT:{\"passed\":1}\ntrailing", capture.toString());
+    }
+
+    @Test
+    public void testResultOnlyMatchedAtLineStart() {
+        // Arrange
+        OutputCapture capture = new OutputCapture(1024, 64, 64);
+
+        // Act
+        capture.write("echo RESULT:nope\n");
+
+        // Assert
+        assertNull(capture.getResult());
+    }
+
+    @Test
+    public void testResultWithoutTrailingNewline() {
+        // Arrange
+        OutputCapture capture = new OutputCapture(1024, 64, 64);
+
+        // Act
+        capture.write("RESULT:{\"passed\":2}");
+
+        // Assert
+        assertEquals("{\"passed\":2}", capture.getResult());
+    }
+
+    @Test
+    public void testKeepsHeadAndTailWhenOutputIsLong() {
+        // Arrange
+        OutputCapture capture = new OutputCapture(1024, 4, 4);
+
+        // Act
+        capture.write("HEAD" + "x".repeat(100) + "TAIL");
+
+        // Assert
+        assertEquals("HEAD\n... [100 bytes omitted] ...\nTAIL", capture.toString());
+        assertEquals(108, capture.getTotalBytes());
+    }
+
+    @Test
+    public void testWriteReportsLimitExceeded() {
+        // Arrange
+        OutputCapture capture = new OutputCapture(10, 4, 4);
+
+        // Act & Assert
+        assertTrue(capture.write("0123456789"));
+        assertFalse(capture.isLimitExceeded());
+        assertFalse(capture.write("!"));
+        assertTrue(capture.isLimitExceeded());
+    }
+
+    @Test
+    public void testCaseRecordsParsedAndStrippedFromOutput() {
+        // Arrange
+        OutputCapture capture = new OutputCapture(1024, 256, 64);
+
+        // Act
+        capture.write("@@CASE 0 P 1200 3\n@@CA");
+        capture.write("SE 1 F 98000 \"a b\"\nuser line\n@@CASE x F 1 nope\nRESULT:{}\n");
+
+        // Assert
+        assertEquals(2, capture.getCases().size());
+        assertEquals(new OutputCapture.CaseRecord(0, true, 1200, "3"), capture.getCases().get(0));
+        assertEquals(new OutputCapture.CaseRecord(1, false, 98000, "\"a b\""), capture.getCases().get(1));
+        assertEquals("user line\n@@CASE x F 1 nope\nRESULT:{}\n", capture.toString());
+    }
+
+    @Test
+    public void testFirstClassesDigestKeptAndStripped() {
+        // Arrange
+        OutputCapture capture = new OutputCapture(1024, 512, 64);
+        String digest = "ab".repeat(32);
+
+        // Act
+        capture.write("@@CLASSES " + digest + "\nout\n@@CLASSES " + "cd".repeat(32) + "\n");
+
+        // Assert
+        assertEquals(digest, capture.getClassesDigest());
+        assertEquals("out\n", capture.toString());
+    }
+}
@@ -1,5 +1,7 @@
 package com.util;
 
+import java.util.concurrent.atomic.AtomicInteger;
+
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -8,6 +10,7 @@ import org.mockito.ArgumentCaptor;
 import static org.mockito.ArgumentMatchers.any;
 import org.mockito.Mock;
 import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import org.mockito.junit.jupiter.MockitoExtension;
@@ -15,8 +18,13 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import software.amazon.awssdk.core.exception.SdkClientException;
 import software.amazon.awssdk.services.sqs.SqsClient;
-import software.amazon.awssdk.services.sqs.model.SendMessageRequest;
+import software.amazon.awssdk.services.sqs.model.BatchResultErrorEntry;
+import software.amazon.awssdk.services.sqs.model.SendMessageBatchRequest;
+import software.amazon.awssdk.services.sqs.model.SendMessageBatchResponse;
 import software.amazon.awssdk.services.sqs.model.SqsException;
 
 @ExtendWith(MockitoExtension.class)
@@ -36,7 +44,7 @@ public class ResultPublisherTest {
 
     @BeforeEach
     public void setup() {
-        resultPublisher = new ResultPublisher(sqsClient, objectMapper);
+        resultPublisher = new ResultPublisher(sqsClient, objectMapper, new WorkerMetrics(new SimpleMeterRegistry()));
     }
 
     @Test
@@ -44,17 +52,21 @@ public class ResultPublisherTest {
         // Arrange
         String expectedJson = "{\"jobId\":\"job-123\",\"result\":\"test result\"}";
         when(objectMapper.writeValueAsString(any())).thenReturn(expectedJson);
+        when(sqsClient.sendMessageBatch(any(SendMessageBatchRequest.class)))
+                .thenReturn(SendMessageBatchResponse.builder().build());
 
         // Act
         resultPublisher.publishResult(QUEUE_URL, JOB_ID, RESULT);
+        resultPublisher.flush();
 
         // Assert
-        ArgumentCaptor<SendMessageRequest> requestCaptor = ArgumentCaptor.forClass(SendMessageRequest.class);
-        verify(sqsClient).sendMessage(requestCaptor.capture());
+        ArgumentCaptor<SendMessageBatchRequest> requestCaptor = ArgumentCaptor.forClass(SendMessageBatchRequest.class);
+        verify(sqsClient).sendMessageBatch(requestCaptor.capture());
 
-        SendMessageRequest capturedRequest = requestCaptor.getValue();
+        SendMessageBatchRequest capturedRequest = requestCaptor.getValue();
         assertEquals(QUEUE_URL, capturedRequest.queueUrl());
-        assertEquals(expectedJson, capturedRequest.messageBody());
+        assertEquals(1, capturedRequest.entries().size());
+        assertEquals(expectedJson, capturedRequest.entries().get(0).messageBody());
 
         ArgumentCaptor<ResultPublisher.ResultMessage> messageCaptor = ArgumentCaptor
                 .forClass(ResultPublisher.ResultMessage.class);
@@ -63,6 +75,7 @@ public class ResultPublisherTest {
         ResultPublisher.ResultMessage capturedMessage = messageCaptor.getValue();
         assertEquals(JOB_ID, capturedMessage.getJobId());
         assertEquals(RESULT, capturedMessage.getResult());
+        assertEquals(1, resultPublisher.getStats().published());
     }
 
     @Test
@@ -73,24 +86,141 @@ public class ResultPublisherTest {
 
         // Act
         resultPublisher.publishResult(QUEUE_URL, JOB_ID, RESULT);
+        resultPublisher.flush();
 
         // Assert
-        verify(sqsClient, never()).sendMessage(any(SendMessageRequest.class));
+        verify(sqsClient, never()).sendMessageBatch(any(SendMessageBatchRequest.class));
     }
 
     @Test
-    public void testPublishResult_SqsException() throws JsonProcessingException {
+    public void testPublishResult_SqsExceptionIsRetriedThenCountedAsFailed() throws JsonProcessingException {
         // Arrange
         String expectedJson = "{\"jobId\":\"job-123\",\"result\":\"test result\"}";
         when(objectMapper.writeValueAsString(any())).thenReturn(expectedJson);
-        when(sqsClient.sendMessage(any(SendMessageRequest.class)))
+        when(sqsClient.sendMessageBatch(any(SendMessageBatchRequest.class)))
                 .thenThrow(SqsException.builder().message("SQS error").build());
 
         // Act
         resultPublisher.publishResult(QUEUE_URL, JOB_ID, RESULT);
+        resultPublisher.flush();
+
+        // Assert
+        verify(sqsClient, times(3)).sendMessageBatch(any(SendMessageBatchRequest.class));
+        assertEquals(1, resultPublisher.getStats().failed());
+        assertEquals(0, resultPublisher.getStats().published());
+    }
+
+    @Test
+    public void testPublishResult_ClientExceptionIsRetriedBeforeCallback() throws JsonProcessingException {
+        // Arrange
+        when(objectMapper.writeValueAsString(any())).thenReturn("{}");
+        when(sqsClient.sendMessageBatch(any(SendMessageBatchRequest.class)))
+                .thenThrow(SdkClientException.create("Connection reset"))
+                .thenReturn(SendMessageBatchResponse.builder().build());
+        AtomicInteger published = new AtomicInteger();
+        AtomicInteger failed = new AtomicInteger();
+
+        // Act
+        resultPublisher.publishResult(QUEUE_URL, JOB_ID, RESULT, published::incrementAndGet,
+                failed::incrementAndGet);
+        resultPublisher.flush();
+
+        // Assert
+        verify(sqsClient, times(2)).sendMessageBatch(any(SendMessageBatchRequest.class));
+        assertEquals(1, published.get());
+        assertEquals(0, failed.get());
+        assertEquals(1, resultPublisher.getStats().published());
+    }
+
+    @Test
+    public void testPublishResult_RunsFailureCallbackAfterLastAttempt() throws JsonProcessingException {
+        // Arrange
+        when(objectMapper.writeValueAsString(any())).thenReturn("{}");
+        when(sqsClient.sendMessageBatch(any(SendMessageBatchRequest.class)))
+                .thenThrow(SdkClientException.create("Unable to execute HTTP request"));
+        AtomicInteger published = new AtomicInteger();
+        AtomicInteger failed = new AtomicInteger();
+
+        // Act
+        resultPublisher.publishResult(QUEUE_URL, JOB_ID, RESULT, published::incrementAndGet,
+                failed::incrementAndGet);
+        resultPublisher.flush();
+
+        // Assert
+        verify(sqsClient, times(3)).sendMessageBatch(any(SendMessageBatchRequest.class));
+        assertEquals(0, published.get());
+        assertEquals(1, failed.get());
+        assertEquals(1, resultPublisher.getStats().failed());
+    }
+
+    @Test
+    public void testPublishResult_RetriesOnlyFailedEntries() throws JsonProcessingException {
+        // Arrange
+        when(objectMapper.writeValueAsString(any())).thenReturn("a", "b");
+        when(sqsClient.sendMessageBatch(any(SendMessageBatchRequest.class)))
+                .thenReturn(SendMessageBatchResponse.builder()
+                        .failed(BatchResultErrorEntry.builder().id("1").code("ServiceUnavailable").senderFault(false)
+                                .build())
+                        .build())
+                .thenReturn(SendMessageBatchResponse.builder().build());
+
+        // Act
+        resultPublisher.publishResult(QUEUE_URL, "job-a", RESULT);
+        resultPublisher.publishResult(QUEUE_URL, "job-b", RESULT);
+        resultPublisher.flush();
+
+        // Assert
+        ArgumentCaptor<SendMessageBatchRequest> requestCaptor = ArgumentCaptor.forClass(SendMessageBatchRequest.class);
+        verify(sqsClient, times(2)).sendMessageBatch(requestCaptor.capture());
+        assertEquals(2, requestCaptor.getAllValues().get(0).entries().size());
+        assertEquals(1, requestCaptor.getAllValues().get(1).entries().size());
+        assertEquals("b", requestCaptor.getAllValues().get(1).entries().get(0).messageBody());
+        assertEquals(2, resultPublisher.getStats().published());
+    }
+
+    @Test
+    public void testFlush_SplitsIntoBatchesOfTen() throws JsonProcessingException {
+        // Arrange
+        when(objectMapper.writeValueAsString(any())).thenReturn("{}");
+        when(sqsClient.sendMessageBatch(any(SendMessageBatchRequest.class)))
+                .thenReturn(SendMessageBatchResponse.builder().build());
+
+        // Act
+        for (int i = 0; i < 15; i++) {
+            resultPublisher.publishResult(QUEUE_URL, "job-" + i, RESULT);
+        }
+        resultPublisher.flush();
+
+        // Assert
+        verify(sqsClient, times(2)).sendMessageBatch(any(SendMessageBatchRequest.class));
+        ResultPublisher.PublisherStats stats = resultPublisher.getStats();
+        assertEquals(15, stats.published());
+        assertEquals(0.75, stats.batchFillRatio());
+    }
+
+    @Test
+    public void testPublishEvent_SharesBatchButIsNotCountedAsResult() throws JsonProcessingException {
+        // Arrange
+        when(objectMapper.writeValueAsString(any())).thenReturn("{\"event\":\"RUNNING\"}", "{}");
+        when(sqsClient.sendMessageBatch(any(SendMessageBatchRequest.class)))
+                .thenReturn(SendMessageBatchResponse.builder().build());
+
+        // Act
+        resultPublisher.publishEvent(QUEUE_URL, JOB_ID, "RUNNING", 1000L);
+        resultPublisher.publishResult(QUEUE_URL, JOB_ID, RESULT);
+        resultPublisher.flush();
 
         // Assert
-        verify(sqsClient).sendMessage(any(SendMessageRequest.class));
+        ArgumentCaptor<SendMessageBatchRequest> requestCaptor = ArgumentCaptor.forClass(SendMessageBatchRequest.class);
+        verify(sqsClient).sendMessageBatch(requestCaptor.capture());
+        assertEquals(2, requestCaptor.getValue().entries().size());
+        ArgumentCaptor<Object> messageCaptor = ArgumentCaptor.forClass(Object.class);
+        verify(objectMapper, times(2)).writeValueAsString(messageCaptor.capture());
+        ResultPublisher.EventMessage event = (ResultPublisher.EventMessage) messageCaptor.getAllValues().get(0);
+        assertEquals("RUNNING", event.getEvent());
+        assertEquals(1000L, event.getAt());
+        assertEquals(1, resultPublisher.getStats().published());
+        assertEquals(1, resultPublisher.getStats().events());
     }
 
     @Test
@@ -102,4 +232,4 @@ public class ResultPublisherTest {
         assertEquals(JOB_ID, message.getJobId());
         assertEquals(RESULT, message.getResult());
     }
-}
\ No newline at end of file
+}
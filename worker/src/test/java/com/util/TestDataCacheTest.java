@@ -0,0 +1,60 @@
+package com.util;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+
+public class TestDataCacheTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    public void testFetchDownloadsOnceAndReusesFile() throws Exception {
+        // Arrange
+        S3Client s3Client = mock(S3Client.class);
+        doAnswer(call -> {
+            Files.writeString(call.getArgument(1), "{\"cases\":0}\n");
+            return null;
+        }).when(s3Client).getObject(any(GetObjectRequest.class), any(Path.class));
+        TestDataCache cache = new TestDataCache(s3Client);
+        ReflectionTestUtils.setField(cache, "directory", directory.toString());
+
+        // Act
+        Path first = cache.fetch("test-data/java-abc123.jsonl");
+        Path second = cache.fetch("test-data/java-abc123.jsonl");
+
+        // Assert
+        assertEquals(directory.resolve("java-abc123.jsonl"), first);
+        assertEquals(first, second);
+        assertEquals("{\"cases\":0}\n", Files.readString(first));
+        verify(s3Client, times(1)).getObject(any(GetObjectRequest.class), any(Path.class));
+    }
+
+    @Test
+    public void testFetchRejectsKeysOutsideTestData() {
+        // Arrange
+        S3Client s3Client = mock(S3Client.class);
+        TestDataCache cache = new TestDataCache(s3Client);
+        ReflectionTestUtils.setField(cache, "directory", directory.toString());
+
+        // Act & Assert
+        assertThrows(IllegalArgumentException.class, () -> cache.fetch("submissions/job-1/Main.java"));
+        assertThrows(IllegalArgumentException.class, () -> cache.fetch("test-data/../secret"));
+        verifyNoInteractions(s3Client);
+    }
+}